@@ -0,0 +1,532 @@
+package org.pasr.asr.dictionary;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * @class CompiledDictionary
+ * @brief Reads the pronunciations of a Dictionary from a compiled binary file that is mapped in
+ *        memory
+ *        The file holds the words sorted in the order of their characters, so a word is found
+ *        with a binary search directly on the mapped file and only the pronunciations that are
+ *        read are copied on the heap. The file is made of the following sections, each one right
+ *        after the previous one. Every number is a big endian int, unless it is noted otherwise.
+ *
+ *        - The header: MAGIC, VERSION, the number of phones, the number of words, the number of
+ *          pronunciation slots, the number of pronunciations, the number of characters, the
+ *          number of phone ids and, as longs, the length and the modification time of the text
+ *          file that was compiled
+ *        - The phones: for each phone, the number of its characters followed by the characters
+ *        - The word offsets: for each word and one more, the index of its first character
+ *        - The slot offsets: for each word and one more, the index of its first pronunciation slot
+ *        - The phone offsets: for each slot and one more, the index of its first phone id. The
+ *          offset of a missing pronunciation is negated and decreased by one
+ *        - The characters of the words, two bytes each
+ *        - The phone ids of the pronunciations, one byte each
+ *
+ *        The phone ids of the file are indices in its own phones, since the PhoneAlphabet ids of
+ *        symbols other than the CMU Sphinx phones depend on the order they were first met. They
+ *        are translated to PhoneAlphabet ids when they are read.
+ *
+ *        A node of a CompiledDictionary is the index of a word in the sorted words. The methods of
+ *        this class can be called from any thread.
+ */
+class CompiledDictionary extends PronunciationTable {
+
+    /**
+     * @brief Constructor
+     *
+     * @param buffer
+     *     The contents of the compiled file
+     *
+     * @throws IOException If the buffer does not hold a compiled dictionary
+     */
+    private CompiledDictionary (ByteBuffer buffer) throws IOException {
+        buffer_ = buffer;
+
+        try {
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new IOException("The file is not a compiled dictionary of this version.");
+            }
+
+            int numberOfPhones = buffer.getInt(8);
+            numberOfWords_ = buffer.getInt(12);
+            int numberOfSlots = buffer.getInt(16);
+            size_ = buffer.getInt(20);
+            int numberOfCharacters = buffer.getInt(24);
+            int numberOfPhoneIds = buffer.getInt(28);
+            sourceLength_ = buffer.getLong(32);
+            sourceLastModified_ = buffer.getLong(40);
+
+            int position = HEADER_SIZE;
+
+            phoneIds_ = new byte[numberOfPhones];
+            for (int i = 0; i < numberOfPhones; i++) {
+                int length = buffer.getInt(position);
+                position += Integer.BYTES;
+
+                char[] characters = new char[length];
+                for (int j = 0; j < length; j++) {
+                    characters[j] = buffer.getChar(position);
+                    position += Character.BYTES;
+                }
+
+                phoneIds_[i] = PhoneAlphabet.getId(new String(characters));
+            }
+
+            wordOffsets_ = position;
+            slotOffsets_ = wordOffsets_ + (numberOfWords_ + 1) * Integer.BYTES;
+            phoneOffsets_ = slotOffsets_ + (numberOfWords_ + 1) * Integer.BYTES;
+            characters_ = phoneOffsets_ + (numberOfSlots + 1) * Integer.BYTES;
+            phones_ = characters_ + numberOfCharacters * Character.BYTES;
+
+            if ((long) phones_ + numberOfPhoneIds != buffer.limit()) {
+                throw new IOException("The compiled dictionary is truncated.");
+            }
+        } catch (IndexOutOfBoundsException | NegativeArraySizeException e) {
+            throw new IOException("The compiled dictionary is truncated.", e);
+        }
+    }
+
+    /**
+     * @brief Maps a compiled dictionary file in memory
+     *
+     * @param file
+     *     The compiled dictionary file
+     *
+     * @return The CompiledDictionary of the file
+     *
+     * @throws IOException If the file cannot be mapped or is not a compiled dictionary
+     */
+    static CompiledDictionary map (File file) throws IOException {
+        // The mapping stays valid after the channel is closed
+        try (FileChannel fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return new CompiledDictionary(
+                fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, fileChannel.size())
+            );
+        }
+    }
+
+    /**
+     * @brief Writes the pronunciations of a PronunciationTable to a compiled dictionary file
+     *        The file is first written next to the given one and then moved in its place, so a
+     *        file that is being read is never seen half written.
+     *
+     * @param pronunciationTable
+     *     The PronunciationTable
+     * @param file
+     *     The compiled dictionary file
+     * @param sourceLength
+     *     The length of the text file, taken before it was read
+     * @param sourceLastModified
+     *     The modification time of the text file, taken before it was read
+     *
+     * @throws IOException If the file cannot be written
+     */
+    static void compile (PronunciationTable pronunciationTable, File file, long sourceLength,
+                         long sourceLastModified) throws IOException {
+        Map<Byte, Integer> phones = new LinkedHashMap<>();
+        List<String> words = new ArrayList<>();
+        List<byte[][]> pronunciations = new ArrayList<>();
+
+        int numberOfSlots = 0;
+        int numberOfCharacters = 0;
+        int numberOfPhoneIds = 0;
+        for (int node = pronunciationTable.firstWordNode(); node != NONE;
+             node = pronunciationTable.nextWordNode(node)) {
+            String word = pronunciationTable.getWord(node);
+            byte[][] currentPronunciations = pronunciationTable.getPronunciations(node);
+
+            words.add(word);
+            pronunciations.add(currentPronunciations);
+
+            numberOfSlots += currentPronunciations.length;
+            numberOfCharacters += word.length();
+            for (byte[] phoneIds : currentPronunciations) {
+                if (phoneIds != null) {
+                    for (byte phoneId : phoneIds) {
+                        phones.putIfAbsent(phoneId, phones.size());
+                    }
+                    numberOfPhoneIds += phoneIds.length;
+                }
+            }
+        }
+
+        File temporaryFile = new File(file.getPath() + ".tmp");
+        try (DataOutputStream dataOutputStream = new DataOutputStream(
+            new BufferedOutputStream(new FileOutputStream(temporaryFile)))) {
+
+            dataOutputStream.writeInt(MAGIC);
+            dataOutputStream.writeInt(VERSION);
+            dataOutputStream.writeInt(phones.size());
+            dataOutputStream.writeInt(words.size());
+            dataOutputStream.writeInt(numberOfSlots);
+            dataOutputStream.writeInt(pronunciationTable.size());
+            dataOutputStream.writeInt(numberOfCharacters);
+            dataOutputStream.writeInt(numberOfPhoneIds);
+            dataOutputStream.writeLong(sourceLength);
+            dataOutputStream.writeLong(sourceLastModified);
+
+            for (byte phoneId : phones.keySet()) {
+                String phone = PhoneAlphabet.getPhone(phoneId);
+
+                dataOutputStream.writeInt(phone.length());
+                dataOutputStream.writeChars(phone);
+            }
+
+            int offset = 0;
+            for (String word : words) {
+                dataOutputStream.writeInt(offset);
+                offset += word.length();
+            }
+            dataOutputStream.writeInt(offset);
+
+            offset = 0;
+            for (byte[][] currentPronunciations : pronunciations) {
+                dataOutputStream.writeInt(offset);
+                offset += currentPronunciations.length;
+            }
+            dataOutputStream.writeInt(offset);
+
+            offset = 0;
+            for (byte[][] currentPronunciations : pronunciations) {
+                for (byte[] phoneIds : currentPronunciations) {
+                    if (phoneIds == null) {
+                        dataOutputStream.writeInt(- offset - 1);
+                    }
+                    else {
+                        dataOutputStream.writeInt(offset);
+                        offset += phoneIds.length;
+                    }
+                }
+            }
+            dataOutputStream.writeInt(offset);
+
+            for (String word : words) {
+                dataOutputStream.writeChars(word);
+            }
+
+            for (byte[][] currentPronunciations : pronunciations) {
+                for (byte[] phoneIds : currentPronunciations) {
+                    if (phoneIds != null) {
+                        for (byte phoneId : phoneIds) {
+                            dataOutputStream.writeByte(phones.get(phoneId));
+                        }
+                    }
+                }
+            }
+        }
+
+        try {
+            Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * @brief Returns true if this CompiledDictionary was compiled from the current contents of a
+     *        text file
+     *        The length and the modification time of the text file must both be the ones that
+     *        were stored when it was compiled. A text file that is replaced by an older one, for
+     *        example by a checkout or by a copy that keeps the times, is thus still detected.
+     *
+     * @param source
+     *     The text file
+     *
+     * @return true if this CompiledDictionary was compiled from the current text file
+     */
+    boolean isCompiledFrom (File source) {
+        return source.length() == sourceLength_ && source.lastModified() == sourceLastModified_;
+    }
+
+    @Override
+    byte[] get (String word, int length, int index) {
+        int node = findWord(word, length);
+        if (node == NONE) {
+            return null;
+        }
+
+        int slot = getSlotOffset(node) + index;
+
+        return index < getSlotOffset(node + 1) - getSlotOffset(node) ? getPhoneIds(slot) : null;
+    }
+
+    @Override
+    byte[][] getPronunciations (String word) {
+        return getPronunciations(findWord(word, word.length()));
+    }
+
+    @Override
+    int size () {
+        return size_;
+    }
+
+    @Override
+    List<String> getWordsByPrefix (String prefix) {
+        List<String> words = new ArrayList<>();
+
+        for (int node = findFirstWord(prefix); node < numberOfWords_ && startsWith(node, prefix);
+             node++) {
+            words.add(getWord(node));
+        }
+
+        return words;
+    }
+
+    @Override
+    int getWordNode (String word) {
+        return findWord(word, word.length());
+    }
+
+    @Override
+    int firstWordNode () {
+        return numberOfWords_ > 0 ? 0 : NONE;
+    }
+
+    @Override
+    int nextWordNode (int node) {
+        return node + 1 < numberOfWords_ ? node + 1 : NONE;
+    }
+
+    @Override
+    String getWord (int node) {
+        int begin = getWordOffset(node);
+        int end = getWordOffset(node + 1);
+
+        char[] characters = new char[end - begin];
+        for (int i = begin; i < end; i++) {
+            characters[i - begin] = getCharacter(i);
+        }
+
+        return new String(characters);
+    }
+
+    @Override
+    byte[][] getPronunciations (int node) {
+        if (node == NONE) {
+            return null;
+        }
+
+        int begin = getSlotOffset(node);
+        int end = getSlotOffset(node + 1);
+
+        byte[][] pronunciations = new byte[end - begin][];
+        for (int slot = begin; slot < end; slot++) {
+            pronunciations[slot - begin] = getPhoneIds(slot);
+        }
+
+        return pronunciations;
+    }
+
+    /**
+     * @brief Finds a word with a binary search
+     *
+     * @param word
+     *     The String that contains the word
+     * @param length
+     *     The number of characters of the String that make the word
+     *
+     * @return The node of the word or NONE if there is no such word
+     */
+    private int findWord (String word, int length) {
+        int low = 0;
+        int high = numberOfWords_ - 1;
+
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = compare(middle, word, length);
+
+            if (comparison < 0) {
+                low = middle + 1;
+            }
+            else if (comparison > 0) {
+                high = middle - 1;
+            }
+            else {
+                return middle;
+            }
+        }
+
+        return NONE;
+    }
+
+    /**
+     * @brief Finds the first word that is not before a prefix in the order of the characters
+     *
+     * @param prefix
+     *     The prefix
+     *
+     * @return The node of the first word that is not before the prefix or the number of words if
+     *         there is no such word
+     */
+    private int findFirstWord (String prefix) {
+        int low = 0;
+        int high = numberOfWords_;
+
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+
+            if (compare(middle, prefix, prefix.length()) < 0) {
+                low = middle + 1;
+            }
+            else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * @brief Compares the word of a node to a word in the order of their characters
+     *
+     * @param node
+     *     The node
+     * @param word
+     *     The String that contains the word
+     * @param length
+     *     The number of characters of the String that make the word
+     *
+     * @return A negative number, zero or a positive number if the word of the node is before, the
+     *         same as or after the given word
+     */
+    private int compare (int node, String word, int length) {
+        int begin = getWordOffset(node);
+        int nodeLength = getWordOffset(node + 1) - begin;
+
+        for (int i = 0, n = Integer.min(nodeLength, length); i < n; i++) {
+            char character = getCharacter(begin + i);
+
+            if (character != word.charAt(i)) {
+                return character - word.charAt(i);
+            }
+        }
+
+        return nodeLength - length;
+    }
+
+    /**
+     * @brief Checks if the word of a node starts with a prefix
+     *
+     * @param node
+     *     The node
+     * @param prefix
+     *     The prefix
+     *
+     * @return true if the word of the node starts with the prefix
+     */
+    private boolean startsWith (int node, String prefix) {
+        int begin = getWordOffset(node);
+        if (getWordOffset(node + 1) - begin < prefix.length()) {
+            return false;
+        }
+
+        for (int i = 0, n = prefix.length(); i < n; i++) {
+            if (getCharacter(begin + i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @brief Returns the PhoneAlphabet ids of a pronunciation slot
+     *
+     * @param slot
+     *     The slot
+     *
+     * @return The PhoneAlphabet ids or null if the pronunciation is missing
+     */
+    private byte[] getPhoneIds (int slot) {
+        int begin = buffer_.getInt(phoneOffsets_ + slot * Integer.BYTES);
+        if (begin < 0) {
+            return null;
+        }
+
+        int end = buffer_.getInt(phoneOffsets_ + (slot + 1) * Integer.BYTES);
+        if (end < 0) {
+            end = - end - 1;
+        }
+
+        byte[] phoneIds = new byte[end - begin];
+        for (int i = begin; i < end; i++) {
+            phoneIds[i - begin] = phoneIds_[Byte.toUnsignedInt(buffer_.get(phones_ + i))];
+        }
+
+        return phoneIds;
+    }
+
+    /**
+     * @brief Returns the index of the first character of the word of a node
+     *
+     * @param node
+     *     The node or the number of words for the end of the last word
+     *
+     * @return The index of the first character
+     */
+    private int getWordOffset (int node) {
+        return buffer_.getInt(wordOffsets_ + node * Integer.BYTES);
+    }
+
+    /**
+     * @brief Returns the index of the first pronunciation slot of the word of a node
+     *
+     * @param node
+     *     The node or the number of words for the end of the last word
+     *
+     * @return The index of the first pronunciation slot
+     */
+    private int getSlotOffset (int node) {
+        return buffer_.getInt(slotOffsets_ + node * Integer.BYTES);
+    }
+
+    /**
+     * @brief Returns a character of the words
+     *
+     * @param index
+     *     The index of the character
+     *
+     * @return The character
+     */
+    private char getCharacter (int index) {
+        return buffer_.getChar(characters_ + index * Character.BYTES);
+    }
+
+    private final ByteBuffer buffer_; //!< The contents of the compiled file
+    private final byte[] phoneIds_; //!< The PhoneAlphabet id of each phone of the file
+
+    private final int numberOfWords_; //!< The number of words
+    private final int size_; //!< The number of pronunciations
+    private final long sourceLength_; //!< The length of the compiled text file
+    private final long sourceLastModified_; //!< The modification time of the compiled text file
+
+    private final int wordOffsets_; //!< The position of the word offsets in the buffer
+    private final int slotOffsets_; //!< The position of the slot offsets in the buffer
+    private final int phoneOffsets_; //!< The position of the phone offsets in the buffer
+    private final int characters_; //!< The position of the characters in the buffer
+    private final int phones_; //!< The position of the phone ids in the buffer
+
+    private static final int MAGIC = 0x50415352; //!< The first int of a compiled file, "PASR"
+    private static final int VERSION = 2; //!< The version of the format of a compiled file
+    private static final int HEADER_SIZE = 8 * Integer.BYTES + 2 * Long.BYTES; //!< The size of
+                                                                               //!< the header in
+                                                                               //!< bytes
+
+}
@@ -4,32 +4,59 @@ import org.pasr.asr.Configuration;
 import org.pasr.prep.corpus.Word;
 import org.pasr.prep.corpus.WordSequence;
 
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.util.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
-import static org.apache.commons.lang3.StringUtils.getLevenshteinDistance;
-
 
 /**
  * @class Dictionary
  * @brief Implements a dictionary as it is defined by CMU Sphinx
+ *        Each pronunciation is kept as a byte array of PhoneAlphabet ids. The Map methods are a
+ *        view that decodes the pronunciations to space separated Strings when they are read, so
+ *        getPhoneIds should be preferred when only the phones are needed.
+ *
+ *        The pronunciations are kept in a PronunciationTrie under their word, so the alternative
+ *        pronunciations of a word are found without building their "word(2)" keys. The keys of
+ *        the Map view are still "word", "word(2)" and so on, and the entries are visited in the
+ *        order of the characters of their words.
+ *
+ *        A Dictionary that is loaded with createFromFile reads its pronunciations directly from a
+ *        CompiledDictionary file that is mapped in memory. The pronunciations are copied to the
+ *        trie only when the Dictionary is modified or fuzzyMatch is called.
  *
  * @see <a href="http://cmusphinx.sourceforge.net/wiki/tutorialdict">http://cmusphinx.sourceforge.net/wiki/tutorialdict</a>
  */
-public class Dictionary extends LinkedHashMap<String, String> {
+public class Dictionary extends AbstractMap<String, String> {
 
     /**
      * @brief Default Constructor
      */
     public Dictionary () {
+        pronunciationTrie_ = new PronunciationTrie();
         unknownWords_ = new ArrayList<>();
     }
 
+    /**
+     * @brief Constructor
+     *
+     * @param compiledDictionary
+     *     The CompiledDictionary to read the pronunciations from
+     */
+    private Dictionary (CompiledDictionary compiledDictionary) {
+        this();
+
+        compiledDictionary_ = compiledDictionary;
+    }
+
     /**
      * @brief Creates a Dictionary from an InputStream
      *
@@ -55,6 +82,58 @@ public class Dictionary extends LinkedHashMap<String, String> {
         return dictionary;
     }
 
+    /**
+     * @brief Creates a Dictionary from a file
+     *        The text file is compiled to a binary file, with the same path followed by
+     *        COMPILED_FILE_EXTENSION, the first time it is read and every time its length or its
+     *        modification time differ from the ones stored in the binary file. Otherwise the
+     *        binary file is mapped in memory and the text file is not read at all. If the binary
+     *        file cannot be used, the text file is read.
+     *
+     * @param path
+     *     The path of the text file
+     *
+     * @return The loaded Dictionary
+     *
+     * @throws FileNotFoundException If the file is not found
+     */
+    public static Dictionary createFromFile (String path) throws FileNotFoundException {
+        File file = new File(path);
+        if (! file.isFile()) {
+            throw new FileNotFoundException("Dictionary file " + path + " doesn't exist.");
+        }
+
+        Logger logger = Logger.getLogger(Dictionary.class.getName());
+
+        File compiledFile = new File(path + COMPILED_FILE_EXTENSION);
+        if (compiledFile.isFile()) {
+            try {
+                CompiledDictionary compiledDictionary = CompiledDictionary.map(compiledFile);
+
+                if (compiledDictionary.isCompiledFrom(file)) {
+                    return new Dictionary(compiledDictionary);
+                }
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Could not map the compiled dictionary.", e);
+            }
+        }
+
+        // Taken before the file is read, so a change while it is read is compiled next time
+        long length = file.length();
+        long lastModified = file.lastModified();
+
+        Dictionary dictionary = createFromStream(new FileInputStream(file));
+
+        try {
+            CompiledDictionary.compile(dictionary.pronunciationTrie_, compiledFile, length,
+                lastModified);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Could not compile the dictionary.", e);
+        }
+
+        return dictionary;
+    }
+
     /**
      * @brief Returns the phones of a single word
      *
@@ -64,13 +143,13 @@ public class Dictionary extends LinkedHashMap<String, String> {
      * @return The phones of the given word
      */
     private List<String> getPhones (String string) {
-        String phones = get(string);
+        byte[] phoneIds = getPhoneIdsByKey(string);
 
-        if (phones == null) {
+        if (phoneIds == null) {
             return autoPronounce(string);
         }
         else {
-            return Arrays.asList(phones.trim().split(" "));
+            return PhoneAlphabet.toPhoneList(phoneIds);
         }
     }
 
@@ -117,6 +196,80 @@ public class Dictionary extends LinkedHashMap<String, String> {
         return list;
     }
 
+    /**
+     * @brief Returns the phone ids of a single word
+     *        The phone ids of a word that is not in this Dictionary are created with autoPronounce.
+     *
+     * @param string
+     *     The word String
+     *
+     * @return The PhoneAlphabet ids of the phones of the given word. The returned array is shared
+     *         and must not be modified
+     */
+    public byte[] getPhoneIds (String string) {
+        byte[] phoneIds = getPhoneIdsByKey(string);
+
+        return phoneIds != null ? phoneIds : PhoneAlphabet.encode(autoPronounce(string));
+    }
+
+    /**
+     * @brief Returns the phone ids of a Word
+     *
+     * @param word
+     *     The Word object
+     *
+     * @return The PhoneAlphabet ids of the phones of the given Word. The returned array is shared
+     *         and must not be modified
+     */
+    public byte[] getPhoneIds (Word word) {
+        return getPhoneIds(word.toString());
+    }
+
+    /**
+     * @brief Returns the number of phones of a WordSequence
+     *
+     * @param wordSequence
+     *     The WordSequence
+     *
+     * @return The number of phones of the given WordSequence
+     */
+    public int getNumberOfPhones (WordSequence wordSequence) {
+        int numberOfPhones = 0;
+
+        for (Word word : wordSequence) {
+            numberOfPhones += getPhoneIds(word).length;
+        }
+
+        return numberOfPhones;
+    }
+
+    /**
+     * @brief Writes the phone ids of a WordSequence in a buffer
+     *        The ids are the ones of getPhonesInLine. Use getNumberOfPhones to find the size of the
+     *        buffer.
+     *
+     * @param wordSequence
+     *     The WordSequence
+     * @param buffer
+     *     The buffer to write the PhoneAlphabet ids on
+     * @param offset
+     *     The index of the buffer to write the first id on
+     *
+     * @return The number of ids written
+     */
+    public int getPhoneIds (WordSequence wordSequence, byte[] buffer, int offset) {
+        int index = offset;
+
+        for (Word word : wordSequence) {
+            byte[] phoneIds = getPhoneIds(word);
+
+            System.arraycopy(phoneIds, 0, buffer, index, phoneIds.length);
+            index += phoneIds.length;
+        }
+
+        return index - offset;
+    }
+
     /**
      * @brief Returns the phones of all the entries of the given word
      *
@@ -133,18 +286,33 @@ public class Dictionary extends LinkedHashMap<String, String> {
         LinkedHashMap<String, String> entryMap = new LinkedHashMap<>();
         entryMap.put(key, get(key));
 
-        int index = 2;
-        String currentKey = key + "(" + index + ")";
-        while (containsKey(currentKey)) {
-            entryMap.put(currentKey, get(currentKey));
+        if (getWordLength(key) == key.length()) {
+            byte[][] pronunciations = getPronunciationTable().getPronunciations(key);
 
-            index++;
-            currentKey = key + "(" + index + ")";
+            for (int i = 1, n = pronunciations.length; i < n && pronunciations[i] != null; i++) {
+                entryMap.put(toKey(key, i), PhoneAlphabet.decode(pronunciations[i]));
+            }
         }
 
         return entryMap;
     }
 
+    /**
+     * @brief Returns the words of this Dictionary that start with a prefix
+     *
+     * @param prefix
+     *     The prefix
+     *
+     * @return The words that start with the given prefix in the order of their characters
+     */
+    public List<String> getWordsByPrefix (String prefix) {
+        if (prefix == null) {
+            throw new IllegalArgumentException("prefix must not be null!");
+        }
+
+        return getPronunciationTable().getWordsByPrefix(prefix);
+    }
+
     /**
      * @brief Returns the unknown words for this Dictionary
      *
@@ -160,9 +328,17 @@ public class Dictionary extends LinkedHashMap<String, String> {
      * @return a Set of the unique words of this Dictionary
      */
     private Set<String> getUniqueWords () {
-        return keySet().stream().
-            filter(entry -> ! entry.contains("(")).
-            collect(Collectors.toSet());
+        Set<String> uniqueWords = new HashSet<>();
+
+        PronunciationTable pronunciationTable = getPronunciationTable();
+        for (int node = pronunciationTable.firstWordNode(); node != PronunciationTable.NONE;
+             node = pronunciationTable.nextWordNode(node)) {
+            if (pronunciationTable.getPronunciations(node)[0] != null) {
+                uniqueWords.add(pronunciationTable.getWord(node));
+            }
+        }
+
+        return uniqueWords;
     }
 
     /**
@@ -171,33 +347,23 @@ public class Dictionary extends LinkedHashMap<String, String> {
      *        the given word. The matching is done using the Levenshtein distance as a similarity
      *        metric.
      *
+     *        The words are searched directly in the trie that holds the pronunciations, so no
+     *        index has to be built or kept up to date as entries are put and removed.
+     *
      * @param string
      *     The word to use for fuzzy matching
      * @param count
      *     The number of words to return
      *
-     * @return A List with the matching words
+     * @return A List with the matching words, closest first. Words with equal distances are
+     *         ordered alphabetically
      */
-    private List<String> fuzzyMatch (String string, int count) {
-        String[] bestMatches = new String[count];
-        double[] bestDistances = new double[count];
-        for (int i = 0; i < count; i++) {
-            bestDistances[i] = Double.POSITIVE_INFINITY;
-        }
-
-        for (String word : getUniqueWords()) {
-            double distance = getLevenshteinDistance(string, word);
-
-            for (int i = 0; i < count; i++) {
-                if (distance < bestDistances[i]) {
-                    bestDistances[i] = distance;
-                    bestMatches[i] = word;
-                    break;
-                }
-            }
+    public List<String> fuzzyMatch (String string, int count) {
+        if (string == null) {
+            throw new IllegalArgumentException("string must not be null!");
         }
 
-        return Arrays.asList(bestMatches);
+        return getPronunciationTrie().getClosestWords(string, count);
     }
 
     /**
@@ -206,7 +372,7 @@ public class Dictionary extends LinkedHashMap<String, String> {
      * @param string
      *     The word to use for fuzzy matching
      *
-     * @return The top five matches
+     * @return A List with the five closest words
      */
     public List<String> fuzzyMatch (String string) {
         return fuzzyMatch(string, 5);
@@ -214,6 +380,9 @@ public class Dictionary extends LinkedHashMap<String, String> {
 
     /**
      * @brief Puts an entry on this Dictionary
+     *        If the key has no pronunciation, the value becomes its pronunciation. Otherwise the
+     *        value is added as the first missing alternative pronunciation of the word, unless
+     *        the word already has it.
      *
      * @param key
      *     The word of the entry
@@ -224,28 +393,326 @@ public class Dictionary extends LinkedHashMap<String, String> {
      */
     @Override
     public String put (String key, String value) {
-        if (! containsKey(key)) {
-            super.put(key, value);
+        if (key == null || value == null) {
+            throw new IllegalArgumentException("key and value must not be null!");
+        }
+
+        byte[] phoneIds = PhoneAlphabet.encode(value);
+
+        int wordLength = getWordLength(key);
+        int index = getPronunciationIndex(key, wordLength);
+
+        PronunciationTrie pronunciationTrie = getPronunciationTrie();
+        if (pronunciationTrie.get(key, wordLength, index) == null) {
+            pronunciationTrie.put(key, wordLength, index, phoneIds);
+            modificationCount_++;
             return null;
         }
 
-        int index = 2;
-        String currentKey = key + "(" + index + ")";
-        while (containsKey(currentKey)) {
+        byte[][] pronunciations = pronunciationTrie.getPronunciations(
+            key.substring(0, wordLength)
+        );
+
+        int freeIndex = pronunciations.length;
+        for (int i = pronunciations.length - 1; i >= 0; i--) {
             // if the given value already exists inside the dictionary, don't put it again
-            if (get(currentKey).equals(value)) {
+            if (Arrays.equals(pronunciations[i], phoneIds)) {
                 return null;
             }
 
-            index++;
-            currentKey = key + "(" + index + ")";
+            if (pronunciations[i] == null && i > 0) {
+                freeIndex = i;
+            }
         }
 
-        super.put(currentKey, value);
+        pronunciationTrie.put(key, wordLength, freeIndex, phoneIds);
+        modificationCount_++;
 
         return null;
     }
 
+    @Override
+    public String get (Object key) {
+        byte[] phoneIds = key instanceof String ? getPhoneIdsByKey((String) key) : null;
+
+        return phoneIds == null ? null : PhoneAlphabet.decode(phoneIds);
+    }
+
+    @Override
+    public boolean containsKey (Object key) {
+        return key instanceof String && getPhoneIdsByKey((String) key) != null;
+    }
+
+    /**
+     * @brief Removes a single entry of this Dictionary
+     *
+     * @param key
+     *     The key of the entry, like "word" or "word(2)"
+     *
+     * @return The phones of the removed entry or null if there was no such entry
+     */
+    @Override
+    public String remove (Object key) {
+        if (! (key instanceof String)) {
+            return null;
+        }
+
+        String string = (String) key;
+        int wordLength = getWordLength(string);
+
+        byte[] phoneIds = getPronunciationTrie().remove(
+            string, wordLength, getPronunciationIndex(string, wordLength)
+        );
+        modificationCount_++;
+
+        return phoneIds == null ? null : PhoneAlphabet.decode(phoneIds);
+    }
+
+    @Override
+    public int size () {
+        return getPronunciationTable().size();
+    }
+
+    @Override
+    public void clear () {
+        pronunciationTrie_.clear();
+        compiledDictionary_ = null;
+        modificationCount_++;
+    }
+
+    @Override
+    public Set<Map.Entry<String, String>> entrySet () {
+        return new AbstractSet<Map.Entry<String, String>>() {
+            @Override
+            public Iterator<Map.Entry<String, String>> iterator () {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size () {
+                return getPronunciationTable().size();
+            }
+        };
+    }
+
+    /**
+     * @class EntryIterator
+     * @brief Iterates over the entries of this Dictionary in the order of the characters of their
+     *        words
+     */
+    private class EntryIterator implements Iterator<Map.Entry<String, String>> {
+        /**
+         * @brief Default Constructor
+         */
+        EntryIterator () {
+            pronunciationTable_ = getPronunciationTable();
+            node_ = pronunciationTable_.firstWordNode();
+            index_ = - 1;
+            advance();
+        }
+
+        @Override
+        public boolean hasNext () {
+            return node_ != PronunciationTable.NONE;
+        }
+
+        @Override
+        public Map.Entry<String, String> next () {
+            if (! hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            if (word_ == null) {
+                word_ = pronunciationTable_.getWord(node_);
+            }
+
+            byte[][] pronunciations = pronunciationTable_.getPronunciations(node_);
+
+            lastKey_ = toKey(word_, index_);
+            Map.Entry<String, String> entry = new SimpleImmutableEntry<>(
+                lastKey_, PhoneAlphabet.decode(pronunciations[index_])
+            );
+
+            advance();
+
+            return entry;
+        }
+
+        @Override
+        public void remove () {
+            if (lastKey_ == null) {
+                throw new IllegalStateException();
+            }
+
+            // Removing from a mapped Dictionary copies its entries to the trie, where the nodes
+            // are different
+            String nextWord = null;
+            if (node_ != PronunciationTable.NONE && pronunciationTable_ != pronunciationTrie_) {
+                nextWord = pronunciationTable_.getWord(node_);
+            }
+
+            Dictionary.this.remove((Object) lastKey_);
+            lastKey_ = null;
+
+            if (pronunciationTable_ != getPronunciationTable()) {
+                pronunciationTable_ = getPronunciationTable();
+
+                if (nextWord != null) {
+                    node_ = pronunciationTable_.getWordNode(nextWord);
+                }
+            }
+        }
+
+        /**
+         * @brief Moves to the next pronunciation of the current word or to the first one of the
+         *        next word
+         */
+        private void advance () {
+            while (node_ != PronunciationTable.NONE) {
+                byte[][] pronunciations = pronunciationTable_.getPronunciations(node_);
+
+                index_++;
+                while (pronunciations != null && index_ < pronunciations.length &&
+                    pronunciations[index_] == null) {
+                    index_++;
+                }
+
+                if (pronunciations != null && index_ < pronunciations.length) {
+                    return;
+                }
+
+                node_ = pronunciationTable_.nextWordNode(node_);
+                index_ = - 1;
+                word_ = null;
+            }
+        }
+
+        private PronunciationTable pronunciationTable_; //!< The PronunciationTable of the nodes
+        private int node_; //!< The node of the word of the next entry
+        private int index_; //!< The index of the pronunciation of the next entry
+        private String word_; //!< The word of the next entry or null if it is not known yet
+        private String lastKey_; //!< The key of the last returned entry or null if it has been
+                                 //!< removed
+    }
+
+    /**
+     * @brief Returns the phone ids of the entry with the given key
+     *
+     * @param key
+     *     The key, like "word" or "word(2)"
+     *
+     * @return The phone ids of the entry or null if there is no such entry
+     */
+    private byte[] getPhoneIdsByKey (String key) {
+        int wordLength = getWordLength(key);
+
+        return getPronunciationTable().get(
+            key, wordLength, getPronunciationIndex(key, wordLength)
+        );
+    }
+
+    /**
+     * @brief Returns the PronunciationTable to read the pronunciations from
+     *
+     * @return The CompiledDictionary if this Dictionary is mapped from a compiled file and the
+     *         PronunciationTrie otherwise
+     */
+    private PronunciationTable getPronunciationTable () {
+        return compiledDictionary_ != null ? compiledDictionary_ : pronunciationTrie_;
+    }
+
+    /**
+     * @brief Returns the PronunciationTrie, copying to it the pronunciations of the
+     *        CompiledDictionary first if this Dictionary is mapped from a compiled file
+     *
+     * @return The PronunciationTrie
+     */
+    private PronunciationTrie getPronunciationTrie () {
+        if (compiledDictionary_ != null) {
+            for (int node = compiledDictionary_.firstWordNode(); node != PronunciationTable.NONE;
+                 node = compiledDictionary_.nextWordNode(node)) {
+                String word = compiledDictionary_.getWord(node);
+                byte[][] pronunciations = compiledDictionary_.getPronunciations(node);
+
+                for (int i = 0, n = pronunciations.length; i < n; i++) {
+                    if (pronunciations[i] != null) {
+                        pronunciationTrie_.put(word, word.length(), i, pronunciations[i]);
+                    }
+                }
+            }
+
+            compiledDictionary_ = null;
+        }
+
+        return pronunciationTrie_;
+    }
+
+    /**
+     * @brief Returns the number of characters of the word of a key
+     *        A key is a word or a word followed by the number of an alternative pronunciation in
+     *        parentheses, like "word(2)". The number should be at least 2.
+     *
+     * @param key
+     *     The key
+     *
+     * @return The number of characters of the word of the key
+     */
+    private static int getWordLength (String key) {
+        int length = key.length();
+
+        if (length < 4 || key.charAt(length - 1) != ')') {
+            return length;
+        }
+
+        int index = length - 2;
+        while (index > 0 && key.charAt(index) >= '0' && key.charAt(index) <= '9') {
+            index--;
+        }
+
+        int numberOfDigits = length - 2 - index;
+        if (index == 0 || key.charAt(index) != '(' || numberOfDigits == 0 ||
+            numberOfDigits > MAXIMUM_NUMBER_OF_DIGITS || key.charAt(index + 1) == '0' ||
+            (numberOfDigits == 1 && key.charAt(index + 1) == '1')) {
+            return length;
+        }
+
+        return index;
+    }
+
+    /**
+     * @brief Returns the index of the pronunciation of a key
+     *
+     * @param key
+     *     The key
+     * @param wordLength
+     *     The number of characters of the word of the key as getWordLength returns it
+     *
+     * @return 0 for a word and n - 1 for "word(n)"
+     */
+    private static int getPronunciationIndex (String key, int wordLength) {
+        int number = 0;
+
+        for (int i = wordLength + 1, n = key.length() - 1; i < n; i++) {
+            number = 10 * number + (key.charAt(i) - '0');
+        }
+
+        return number == 0 ? 0 : number - 1;
+    }
+
+    /**
+     * @brief Returns the key of a pronunciation of a word
+     *
+     * @param word
+     *     The word
+     * @param index
+     *     The index of the pronunciation
+     *
+     * @return The word for index 0 and "word(index + 1)" otherwise
+     */
+    private static String toKey (String word, int index) {
+        return index == 0 ? word : word + "(" + (index + 1) + ")";
+    }
+
     /**
      * @brief Adds the given word as an unknown word
      *
@@ -260,18 +727,19 @@ public class Dictionary extends LinkedHashMap<String, String> {
 
     /**
      * @brief Removes all the entries for the given word
+     *        If the key is the one of an alternative pronunciation, like "word(2)", only that
+     *        entry is removed.
      *
      * @param key
      *     The word the entries of which to remove
      */
     public void remove (String key) {
-        if (super.remove(key) == null) {
-            return;
+        if (getWordLength(key) == key.length()) {
+            getPronunciationTrie().removeAll(key);
+            modificationCount_++;
         }
-
-        int index = 2;
-        while (super.remove(key + "(" + index + ")") != null) {
-            index++;
+        else {
+            remove((Object) key);
         }
     }
 
@@ -285,6 +753,17 @@ public class Dictionary extends LinkedHashMap<String, String> {
         unknownWords_.remove(word);
     }
 
+    /**
+     * @brief Returns the number of times the pronunciations of this Dictionary have been modified
+     *        Structures built upon the pronunciations of this Dictionary can use this number to
+     *        find out whether they are out of date. The unknown words are not counted.
+     *
+     * @return The number of times the pronunciations of this Dictionary have been modified
+     */
+    public int getModificationCount () {
+        return modificationCount_;
+    }
+
     /**
      * @brief Returns the default Dictionary based on the default ASR Configuration
      *
@@ -293,9 +772,9 @@ public class Dictionary extends LinkedHashMap<String, String> {
      * @throws FileNotFoundException If the default Dictionary file is not found
      */
     public static Dictionary getDefaultDictionary () throws FileNotFoundException {
-        return Dictionary.createFromStream(new FileInputStream(
+        return Dictionary.createFromFile(
             Configuration.getDefaultConfiguration().getDictionaryPath()
-        ));
+        );
     }
 
     /**
@@ -305,14 +784,10 @@ public class Dictionary extends LinkedHashMap<String, String> {
      *     The OutputStream to write on
      */
     public void exportToStream (OutputStream outputStream) {
-        // Sort the entries of the dictionary based on the key length. This will ensure that
-        // "the(1)" is below "the" when the dictionary is saved to the file.
-        List<Map.Entry<String, String>> entries = new ArrayList<>(entrySet());
-
-        Collections.sort(entries, (e1, e2) -> e1.getKey().length() - e2.getKey().length());
-
+        // The entries of a word are visited in the order of their pronunciations. This will
+        // ensure that "the(2)" is below "the" when the dictionary is saved to the file.
         PrintWriter printWriter = new PrintWriter(outputStream);
-        for (Map.Entry<String, String> entry : entries) {
+        for (Map.Entry<String, String> entry : entrySet()) {
             printWriter.write(entry.getKey() + " " + entry.getValue() + "\n");
         }
         printWriter.close();
@@ -336,6 +811,19 @@ public class Dictionary extends LinkedHashMap<String, String> {
         return list;
     }
 
+    private final PronunciationTrie pronunciationTrie_; //!< The PhoneAlphabet ids of the
+                                                        //!< pronunciations of each word
+    private CompiledDictionary compiledDictionary_; //!< The mapped pronunciations or null if the
+                                                    //!< pronunciations are in the trie
     private final List<String> unknownWords_; //!< The unknown words for this Dictionary
+    private int modificationCount_; //!< The number of times the pronunciations have been
+                                    //!< modified
+
+    private static final int MAXIMUM_NUMBER_OF_DIGITS = 6; //!< The maximum number of digits of
+                                                           //!< the number of an alternative
+                                                           //!< pronunciation
+    public static final String COMPILED_FILE_EXTENSION = ".bin"; //!< The extension that is added
+                                                                 //!< to the path of a compiled
+                                                                 //!< dictionary file
 
 }
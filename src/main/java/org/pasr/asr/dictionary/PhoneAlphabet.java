@@ -0,0 +1,213 @@
+package org.pasr.asr.dictionary;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * @class PhoneAlphabet
+ * @brief Maps the phones of a Dictionary to small ids so that a pronunciation can be kept as a
+ *        byte array
+ *        The CMU Sphinx phones have fixed ids. Any other symbol, like the letters that
+ *        Dictionary.autoPronounce creates, gets the next free id the first time it is met. The ids
+ *        are shared by all the Dictionary objects, so the ids of two dictionaries can be compared.
+ *        An id is stored as a byte and should be read with Byte.toUnsignedInt.
+ *
+ *        The methods of this class can be called from any thread.
+ *
+ * @see <a href="http://www.speech.cs.cmu.edu/cgi-bin/cmudict">http://www.speech.cs.cmu.edu/cgi-bin/cmudict</a>
+ */
+public final class PhoneAlphabet {
+
+    /**
+     * @brief Private Constructor
+     *        This class has only static methods.
+     */
+    private PhoneAlphabet () {}
+
+    /**
+     * @brief Returns the id of a phone, giving it a new id if it doesn't have one
+     *
+     * @param phone
+     *     The phone
+     *
+     * @return The id of the phone
+     */
+    public static byte getId (String phone) {
+        if (phone == null) {
+            throw new IllegalArgumentException("phone must not be null!");
+        }
+
+        Byte id = ids_.get(phone);
+
+        return id != null ? id : addPhone(phone);
+    }
+
+    /**
+     * @brief Returns the phone of an id
+     *
+     * @param id
+     *     The id
+     *
+     * @return The phone of the given id
+     */
+    public static String getPhone (byte id) {
+        String[] phones = phones_;
+
+        int index = Byte.toUnsignedInt(id);
+        if (index >= phones.length) {
+            throw new IllegalArgumentException("id is not the id of a phone!");
+        }
+
+        return phones[index];
+    }
+
+    /**
+     * @brief Returns the number of phones that have an id
+     *
+     * @return The number of phones that have an id
+     */
+    public static int size () {
+        return phones_.length;
+    }
+
+    /**
+     * @brief Encodes a space separated pronunciation to phone ids
+     *        Leading, trailing and repeated spaces are ignored.
+     *
+     * @param pronunciation
+     *     The space separated pronunciation
+     *
+     * @return The phone ids of the pronunciation
+     */
+    public static byte[] encode (String pronunciation) {
+        byte[] ids = new byte[pronunciation.length()];
+        int numberOfIds = 0;
+
+        int length = pronunciation.length();
+        int index = 0;
+        while (index < length) {
+            while (index < length && pronunciation.charAt(index) == ' ') {
+                index++;
+            }
+
+            int begin = index;
+            while (index < length && pronunciation.charAt(index) != ' ') {
+                index++;
+            }
+
+            if (index > begin) {
+                ids[numberOfIds++] = getId(pronunciation.substring(begin, index));
+            }
+        }
+
+        return Arrays.copyOf(ids, numberOfIds);
+    }
+
+    /**
+     * @brief Encodes a List of phones to phone ids
+     *
+     * @param phones
+     *     The phones
+     *
+     * @return The phone ids of the phones
+     */
+    public static byte[] encode (List<String> phones) {
+        byte[] ids = new byte[phones.size()];
+
+        for (int i = 0, n = ids.length; i < n; i++) {
+            ids[i] = getId(phones.get(i));
+        }
+
+        return ids;
+    }
+
+    /**
+     * @brief Decodes phone ids to a space separated pronunciation
+     *
+     * @param ids
+     *     The phone ids
+     *
+     * @return The space separated pronunciation
+     */
+    public static String decode (byte[] ids) {
+        StringBuilder stringBuilder = new StringBuilder();
+
+        for (int i = 0, n = ids.length; i < n; i++) {
+            if (i > 0) {
+                stringBuilder.append(' ');
+            }
+            stringBuilder.append(getPhone(ids[i]));
+        }
+
+        return stringBuilder.toString();
+    }
+
+    /**
+     * @brief Decodes phone ids to a List of phones
+     *
+     * @param ids
+     *     The phone ids
+     *
+     * @return The List of phones
+     */
+    public static List<String> toPhoneList (byte[] ids) {
+        List<String> phones = new ArrayList<>(ids.length);
+
+        for (byte id : ids) {
+            phones.add(getPhone(id));
+        }
+
+        return phones;
+    }
+
+    /**
+     * @brief Gives the next free id to a phone
+     *
+     * @param phone
+     *     The phone
+     *
+     * @return The id of the phone
+     */
+    private static synchronized byte addPhone (String phone) {
+        Byte id = ids_.get(phone);
+        if (id != null) {
+            return id;
+        }
+
+        String[] phones = phones_;
+        if (phones.length == MAXIMUM_SIZE) {
+            throw new IllegalArgumentException("There are too many different phones!");
+        }
+
+        id = (byte) phones.length;
+
+        // The phone is published before its id, so getPhone never misses the phone of a known id
+        String[] newPhones = Arrays.copyOf(phones, phones.length + 1);
+        newPhones[phones.length] = phone;
+        phones_ = newPhones;
+        ids_.put(phone, id);
+
+        return id;
+    }
+
+    private static volatile String[] phones_ = {
+        "AA", "AE", "AH", "AO", "AW", "AY", "B", "CH", "D", "DH", "EH", "ER", "EY", "F", "G", "HH",
+        "IH", "IY", "JH", "K", "L", "M", "N", "NG", "OW", "OY", "P", "R", "S", "SH", "T", "TH",
+        "UH", "UW", "V", "W", "Y", "Z", "ZH"
+    }; //!< The phone of each id
+    private static final Map<String, Byte> ids_ = new ConcurrentHashMap<>(); //!< The id of each
+                                                                             //!< phone
+
+    private static final int MAXIMUM_SIZE = 256; //!< The number of ids that fit in a byte
+
+    static {
+        for (int i = 0, n = phones_.length; i < n; i++) {
+            ids_.put(phones_[i], (byte) i);
+        }
+    }
+
+}
@@ -0,0 +1,110 @@
+package org.pasr.asr.dictionary;
+
+import java.util.List;
+
+
+/**
+ * @class PronunciationTable
+ * @brief Defines the read access to the pronunciations of the words of a Dictionary
+ *        Pronunciation 0 of a word is the one of "word", pronunciation 1 the one of "word(2)" and
+ *        so on. A word may miss some of its pronunciations, in which case they are null.
+ *
+ *        The words are visited through nodes. A node is an int that identifies a word of the
+ *        table, and the words are visited in the order of their characters.
+ */
+abstract class PronunciationTable {
+
+    /**
+     * @brief Returns a pronunciation of a word
+     *
+     * @param word
+     *     The String that contains the word
+     * @param length
+     *     The number of characters of the String that make the word
+     * @param index
+     *     The index of the pronunciation
+     *
+     * @return The phone ids of the pronunciation or null if there is no such pronunciation. The
+     *         returned array must not be modified
+     */
+    abstract byte[] get (String word, int length, int index);
+
+    /**
+     * @brief Returns the pronunciations of a word
+     *
+     * @param word
+     *     The word
+     *
+     * @return The pronunciations of the word, some of which may be null, or null if the word has
+     *         no pronunciations. The returned array must not be modified
+     */
+    abstract byte[][] getPronunciations (String word);
+
+    /**
+     * @brief Returns the number of pronunciations of this table
+     *
+     * @return The number of pronunciations of this table
+     */
+    abstract int size ();
+
+    /**
+     * @brief Returns the words that start with a prefix
+     *
+     * @param prefix
+     *     The prefix
+     *
+     * @return The words that start with the given prefix in the order of their characters
+     */
+    abstract List<String> getWordsByPrefix (String prefix);
+
+    /**
+     * @brief Returns the node of a word
+     *
+     * @param word
+     *     The word
+     *
+     * @return The node of the word or NONE if the word has no pronunciations
+     */
+    abstract int getWordNode (String word);
+
+    /**
+     * @brief Returns the node of the first word
+     *
+     * @return The node of the first word or NONE if there are no words
+     */
+    abstract int firstWordNode ();
+
+    /**
+     * @brief Returns the node of the next word
+     *
+     * @param node
+     *     The node of the current word
+     *
+     * @return The node of the next word or NONE if there are no more words
+     */
+    abstract int nextWordNode (int node);
+
+    /**
+     * @brief Returns the word of a node
+     *
+     * @param node
+     *     The node
+     *
+     * @return The word of the node
+     */
+    abstract String getWord (int node);
+
+    /**
+     * @brief Returns the pronunciations of a node
+     *
+     * @param node
+     *     The node or NONE
+     *
+     * @return The pronunciations of the node or null if it has none. The returned array must not
+     *         be modified
+     */
+    abstract byte[][] getPronunciations (int node);
+
+    static final int NONE = - 1; //!< The node of a missing word
+
+}
@@ -0,0 +1,648 @@
+package org.pasr.asr.dictionary;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+
+
+/**
+ * @class PronunciationTrie
+ * @brief Holds the pronunciations of the words of a Dictionary in a prefix trie
+ *        Each node of the trie is a character and the node of the last character of a word holds
+ *        the pronunciations of the word. Pronunciation 0 is the one of "word", pronunciation 1 the
+ *        one of "word(2)" and so on. A word may miss some of its pronunciations, in which case
+ *        they are null.
+ *
+ *        The nodes are kept in parallel arrays and the children of a node are kept sorted by
+ *        their character, so the words are visited in the order of their characters. Nodes are
+ *        never removed, a node of a removed word simply holds no pronunciations.
+ */
+class PronunciationTrie extends PronunciationTable {
+
+    /**
+     * @brief Default Constructor
+     */
+    PronunciationTrie () {
+        clear();
+    }
+
+    /**
+     * @brief Removes all the words of this trie
+     */
+    void clear () {
+        label_ = new char[INITIAL_CAPACITY];
+        parent_ = new int[INITIAL_CAPACITY];
+        firstChild_ = new int[INITIAL_CAPACITY];
+        nextSibling_ = new int[INITIAL_CAPACITY];
+        pronunciations_ = new byte[INITIAL_CAPACITY][][];
+        numberOfNodes_ = 0;
+        size_ = 0;
+        maxDepth_ = 0;
+
+        newNode(ROOT, '\0');
+    }
+
+    /**
+     * @brief Returns a pronunciation of a word
+     *
+     * @param word
+     *     The String that contains the word
+     * @param length
+     *     The number of characters of the String that make the word
+     * @param index
+     *     The index of the pronunciation
+     *
+     * @return The phone ids of the pronunciation or null if there is no such pronunciation
+     */
+    @Override
+    byte[] get (String word, int length, int index) {
+        byte[][] pronunciations = getPronunciations(findNode(word, length));
+
+        return pronunciations == null || index >= pronunciations.length ?
+            null : pronunciations[index];
+    }
+
+    /**
+     * @brief Returns the pronunciations of a word
+     *
+     * @param word
+     *     The word
+     *
+     * @return The pronunciations of the word, some of which may be null, or null if the word has
+     *         no pronunciations. The returned array is shared and must not be modified
+     */
+    @Override
+    byte[][] getPronunciations (String word) {
+        return getPronunciations(findNode(word, word.length()));
+    }
+
+    /**
+     * @brief Sets a pronunciation of a word
+     *
+     * @param word
+     *     The String that contains the word
+     * @param length
+     *     The number of characters of the String that make the word
+     * @param index
+     *     The index of the pronunciation
+     * @param phoneIds
+     *     The phone ids of the pronunciation
+     *
+     * @return The phone ids of the replaced pronunciation or null if there was no such
+     *         pronunciation
+     */
+    byte[] put (String word, int length, int index, byte[] phoneIds) {
+        int node = ROOT;
+        for (int i = 0; i < length; i++) {
+            node = getOrAddChild(node, word.charAt(i));
+        }
+        maxDepth_ = Integer.max(maxDepth_, length);
+
+        byte[][] pronunciations = pronunciations_[node];
+        if (pronunciations == null) {
+            pronunciations = new byte[index + 1][];
+        }
+        else if (index >= pronunciations.length) {
+            pronunciations = Arrays.copyOf(pronunciations, index + 1);
+        }
+        pronunciations_[node] = pronunciations;
+
+        byte[] previousPhoneIds = pronunciations[index];
+        pronunciations[index] = phoneIds;
+
+        if (previousPhoneIds == null) {
+            size_++;
+        }
+
+        return previousPhoneIds;
+    }
+
+    /**
+     * @brief Removes a pronunciation of a word
+     *
+     * @param word
+     *     The String that contains the word
+     * @param length
+     *     The number of characters of the String that make the word
+     * @param index
+     *     The index of the pronunciation
+     *
+     * @return The phone ids of the removed pronunciation or null if there was no such
+     *         pronunciation
+     */
+    byte[] remove (String word, int length, int index) {
+        int node = findNode(word, length);
+
+        byte[][] pronunciations = getPronunciations(node);
+        if (pronunciations == null || index >= pronunciations.length) {
+            return null;
+        }
+
+        byte[] phoneIds = pronunciations[index];
+        if (phoneIds == null) {
+            return null;
+        }
+
+        pronunciations[index] = null;
+        size_--;
+
+        // Drop the trailing missing pronunciations so that an empty word holds nothing
+        int newLength = pronunciations.length;
+        while (newLength > 0 && pronunciations[newLength - 1] == null) {
+            newLength--;
+        }
+        pronunciations_[node] = newLength == 0 ? null : Arrays.copyOf(pronunciations, newLength);
+
+        return phoneIds;
+    }
+
+    /**
+     * @brief Removes all the pronunciations of a word
+     *
+     * @param word
+     *     The word
+     *
+     * @return The number of removed pronunciations
+     */
+    int removeAll (String word) {
+        int node = findNode(word, word.length());
+
+        byte[][] pronunciations = getPronunciations(node);
+        if (pronunciations == null) {
+            return 0;
+        }
+
+        int numberOfPronunciations = 0;
+        for (byte[] phoneIds : pronunciations) {
+            if (phoneIds != null) {
+                numberOfPronunciations++;
+            }
+        }
+
+        pronunciations_[node] = null;
+        size_ -= numberOfPronunciations;
+
+        return numberOfPronunciations;
+    }
+
+    /**
+     * @brief Returns the number of pronunciations of this trie
+     *
+     * @return The number of pronunciations of this trie
+     */
+    @Override
+    int size () {
+        return size_;
+    }
+
+    /**
+     * @brief Returns the words that start with a prefix
+     *
+     * @param prefix
+     *     The prefix
+     *
+     * @return The words that start with the given prefix in the order of their characters
+     */
+    @Override
+    List<String> getWordsByPrefix (String prefix) {
+        List<String> words = new ArrayList<>();
+
+        int node = findNode(prefix, prefix.length());
+        if (node == NONE) {
+            return words;
+        }
+
+        StringBuilder stringBuilder = new StringBuilder(prefix);
+        collectWords(node, stringBuilder, words);
+
+        return words;
+    }
+
+    /**
+     * @brief Adds the words of the sub-tree of a node to a List
+     *
+     * @param node
+     *     The node
+     * @param stringBuilder
+     *     The characters of the node
+     * @param words
+     *     The List to add the words to
+     */
+    private void collectWords (int node, StringBuilder stringBuilder, List<String> words) {
+        if (pronunciations_[node] != null) {
+            words.add(stringBuilder.toString());
+        }
+
+        for (int child = firstChild_[node]; child != NONE; child = nextSibling_[child]) {
+            stringBuilder.append(label_[child]);
+            collectWords(child, stringBuilder, words);
+            stringBuilder.setLength(stringBuilder.length() - 1);
+        }
+    }
+
+    /**
+     * @brief Returns the words that are closest to a query under the Levenshtein Distance
+     *        Only the words that have their first pronunciation are searched. The words are
+     *        ordered by their distance from the query and words with equal distances are ordered
+     *        alphabetically.
+     *
+     *        The trie is searched with one Levenshtein matrix row for each node, so the words that
+     *        share a prefix share its rows. A sub-tree is skipped as soon as every value of its row
+     *        is greater than the maximum distance or no better than the distance of the worst word
+     *        found. The search is first done with the small maximum distances up to
+     *        NEAR_DISTANCE, which are enough for most queries and skip most of the trie. If fewer
+     *        than count words are found, a last search without a maximum distance relies only on
+     *        the distance of the worst word found.
+     *
+     * @param query
+     *     The query
+     * @param count
+     *     The maximum number of words to return
+     *
+     * @return The closest words, no more than count
+     */
+    List<String> getClosestWords (String query, int count) {
+        if (count <= 0) {
+            return new ArrayList<>();
+        }
+
+        int m = query.length();
+        PriorityQueue<Match> matches = new PriorityQueue<>(count);
+
+        // search takes the row of the children of a node before it knows if there are any, so
+        // one more row than the depth of the deepest node is needed
+        int[][] rows = new int[maxDepth_ + 2][m + 1];
+        for (int j = 0; j <= m; j++) {
+            rows[0][j] = j;
+        }
+
+        // No word is further from the query than the length of the longer of the two
+        int limit = Integer.max(m, maxDepth_);
+        int maximum = - 1;
+        do {
+            maximum = maximum < NEAR_DISTANCE ? maximum + 1 : limit;
+
+            matches.clear();
+            search(ROOT, 0, rows, query, maximum, count, new StringBuilder(), matches);
+        } while (matches.size() < count && maximum < limit);
+
+        List<Match> sortedMatches = new ArrayList<>(matches);
+        Collections.sort(sortedMatches, Collections.reverseOrder());
+
+        List<String> words = new ArrayList<>(sortedMatches.size());
+        for (Match match : sortedMatches) {
+            words.add(match.word_);
+        }
+
+        return words;
+    }
+
+    /**
+     * @brief Searches the sub-tree of a node for the words closest to a query
+     *        The nodes are visited in the order of their characters, so a word that is as far
+     *        from the query as the worst word found comes after it and can be skipped.
+     *
+     * @param node
+     *     The node
+     * @param depth
+     *     The depth of the node
+     * @param rows
+     *     The Levenshtein matrix rows, one for each depth. The row of the given depth must hold
+     *     the row of the node
+     * @param query
+     *     The query
+     * @param maximum
+     *     The maximum distance of a word
+     * @param count
+     *     The maximum number of words to find
+     * @param stringBuilder
+     *     The characters of the node
+     * @param matches
+     *     The closest words found so far with the worst one on the head
+     */
+    private void search (int node, int depth, int[][] rows, String query, int maximum, int count,
+                         StringBuilder stringBuilder, PriorityQueue<Match> matches) {
+        int[] row = rows[depth];
+        int m = query.length();
+
+        if (pronunciations_[node] != null && pronunciations_[node][0] != null &&
+            row[m] <= maximum) {
+            if (matches.size() < count) {
+                matches.add(new Match(stringBuilder.toString(), row[m]));
+            }
+            else if (row[m] < matches.peek().distance_) {
+                matches.poll();
+                matches.add(new Match(stringBuilder.toString(), row[m]));
+            }
+        }
+
+        int[] nextRow = rows[depth + 1];
+        for (int child = firstChild_[node]; child != NONE; child = nextSibling_[child]) {
+            // Once enough words are found only a closer word can take the place of the worst one
+            int bound = matches.size() < count ? maximum : matches.peek().distance_ - 1;
+            if (bound < 0) {
+                return;
+            }
+
+            if (computeRow(row, nextRow, label_[child], query, depth + 1, bound) <= bound) {
+                stringBuilder.append(label_[child]);
+                search(child, depth + 1, rows, query, maximum, count, stringBuilder, matches);
+                stringBuilder.setLength(stringBuilder.length() - 1);
+            }
+        }
+    }
+
+    /**
+     * @brief Computes the Levenshtein matrix row of a child node
+     *        Only the cells that are no more than maximum cells away from the diagonal are
+     *        computed, since a path that leaves this band costs more than maximum. The cells just
+     *        outside the band and the last cell are set to maximum + 1, so that the rows below and
+     *        the distance of the node never read a cell of another sub-tree. Every computed value
+     *        that is greater than maximum is also cut to maximum + 1.
+     *
+     * @param row
+     *     The row of the parent node
+     * @param nextRow
+     *     The row to fill for the child node
+     * @param character
+     *     The character of the child node
+     * @param query
+     *     The query
+     * @param depth
+     *     The depth of the child node
+     * @param maximum
+     *     The maximum distance of interest
+     *
+     * @return The minimum value of the computed row
+     */
+    private static int computeRow (int[] row, int[] nextRow, char character, String query,
+                                   int depth, int maximum) {
+        int m = query.length();
+
+        int limit = maximum + 1;
+        int begin = maximum >= depth ? 1 : depth - maximum;
+        int end = maximum >= m - depth ? m : depth + maximum;
+
+        // A node that is deeper than the query by more than maximum is too far in any case
+        if (begin > m) {
+            nextRow[m] = limit;
+            return limit;
+        }
+
+        int rowMinimum = limit;
+        if (begin == 1) {
+            nextRow[0] = Integer.min(row[0] + 1, limit);
+            rowMinimum = nextRow[0];
+        }
+        else {
+            nextRow[begin - 1] = limit;
+        }
+
+        for (int k = begin; k <= end; k++) {
+            int substitutionCost = query.charAt(k - 1) == character ? 0 : 1;
+
+            nextRow[k] = Integer.min(
+                limit,
+                Integer.min(
+                    row[k] + 1,
+                    Integer.min(nextRow[k - 1] + 1, row[k - 1] + substitutionCost)
+                )
+            );
+
+            rowMinimum = Integer.min(rowMinimum, nextRow[k]);
+        }
+
+        if (end < m) {
+            nextRow[end + 1] = limit;
+            nextRow[m] = limit;
+        }
+
+        return rowMinimum;
+    }
+
+    @Override
+    int getWordNode (String word) {
+        int node = findNode(word, word.length());
+
+        return node != NONE && pronunciations_[node] != null ? node : NONE;
+    }
+
+    /**
+     * @brief Returns the first node that holds a word
+     *
+     * @return The first node that holds a word or NONE if this trie has no words
+     */
+    @Override
+    int firstWordNode () {
+        return pronunciations_[ROOT] != null ? ROOT : nextWordNode(ROOT);
+    }
+
+    /**
+     * @brief Returns the node that holds the next word
+     *        The nodes are visited in pre-order, so the words come in the order of their
+     *        characters.
+     *
+     * @param node
+     *     The node of the current word
+     *
+     * @return The node of the next word or NONE if there are no more words
+     */
+    @Override
+    int nextWordNode (int node) {
+        do {
+            if (firstChild_[node] != NONE) {
+                node = firstChild_[node];
+            }
+            else {
+                while (node != ROOT && nextSibling_[node] == NONE) {
+                    node = parent_[node];
+                }
+
+                if (node == ROOT) {
+                    return NONE;
+                }
+
+                node = nextSibling_[node];
+            }
+        } while (pronunciations_[node] == null);
+
+        return node;
+    }
+
+    /**
+     * @brief Returns the word of a node
+     *
+     * @param node
+     *     The node
+     *
+     * @return The word of the node
+     */
+    @Override
+    String getWord (int node) {
+        StringBuilder stringBuilder = new StringBuilder();
+
+        for (; node != ROOT; node = parent_[node]) {
+            stringBuilder.append(label_[node]);
+        }
+
+        return stringBuilder.reverse().toString();
+    }
+
+    /**
+     * @brief Returns the pronunciations of a node
+     *
+     * @param node
+     *     The node or NONE
+     *
+     * @return The pronunciations of the node or null if it has none. The returned array is shared
+     *         and must not be modified
+     */
+    @Override
+    byte[][] getPronunciations (int node) {
+        return node == NONE ? null : pronunciations_[node];
+    }
+
+    /**
+     * @brief Returns the node of a word
+     *
+     * @param word
+     *     The String that contains the word
+     * @param length
+     *     The number of characters of the String that make the word
+     *
+     * @return The node of the word or NONE if the trie has no such node
+     */
+    private int findNode (String word, int length) {
+        int node = ROOT;
+
+        for (int i = 0; i < length && node != NONE; i++) {
+            char character = word.charAt(i);
+
+            int child = firstChild_[node];
+            while (child != NONE && label_[child] < character) {
+                child = nextSibling_[child];
+            }
+
+            node = child != NONE && label_[child] == character ? child : NONE;
+        }
+
+        return node;
+    }
+
+    /**
+     * @brief Returns the child of a node with the given character, adding it if it doesn't exist
+     *        The children are kept sorted by their character.
+     *
+     * @param node
+     *     The node
+     * @param character
+     *     The character
+     *
+     * @return The child
+     */
+    private int getOrAddChild (int node, char character) {
+        int previousChild = NONE;
+        int child = firstChild_[node];
+        while (child != NONE && label_[child] < character) {
+            previousChild = child;
+            child = nextSibling_[child];
+        }
+
+        if (child != NONE && label_[child] == character) {
+            return child;
+        }
+
+        int newChild = newNode(node, character);
+        nextSibling_[newChild] = child;
+        if (previousChild == NONE) {
+            firstChild_[node] = newChild;
+        }
+        else {
+            nextSibling_[previousChild] = newChild;
+        }
+
+        return newChild;
+    }
+
+    /**
+     * @brief Adds a new node to this trie
+     *
+     * @param parent
+     *     The parent of the node
+     * @param character
+     *     The character of the node
+     *
+     * @return The new node
+     */
+    private int newNode (int parent, char character) {
+        if (numberOfNodes_ == label_.length) {
+            int capacity = 2 * numberOfNodes_;
+
+            label_ = Arrays.copyOf(label_, capacity);
+            parent_ = Arrays.copyOf(parent_, capacity);
+            firstChild_ = Arrays.copyOf(firstChild_, capacity);
+            nextSibling_ = Arrays.copyOf(nextSibling_, capacity);
+            pronunciations_ = Arrays.copyOf(pronunciations_, capacity);
+        }
+
+        label_[numberOfNodes_] = character;
+        parent_[numberOfNodes_] = parent;
+        firstChild_[numberOfNodes_] = NONE;
+        nextSibling_[numberOfNodes_] = NONE;
+        pronunciations_[numberOfNodes_] = null;
+
+        return numberOfNodes_++;
+    }
+
+    /**
+     * @class Match
+     * @brief Holds a word and its distance from a query
+     *        Matches are ordered from the worst to the best one, that is by decreasing distance
+     *        and then by reverse alphabetical order.
+     */
+    private static class Match implements Comparable<Match> {
+        /**
+         * @brief Constructor
+         *
+         * @param word
+         *     The word
+         * @param distance
+         *     The distance of the word from the query
+         */
+        Match (String word, int distance) {
+            word_ = word;
+            distance_ = distance;
+        }
+
+        @Override
+        public int compareTo (Match match) {
+            if (distance_ != match.distance_) {
+                return Integer.compare(match.distance_, distance_);
+            }
+
+            return match.word_.compareTo(word_);
+        }
+
+        private final String word_; //!< The word
+        private final int distance_; //!< The distance of the word from the query
+    }
+
+    private char[] label_; //!< The character of each node
+    private int[] parent_; //!< The parent of each node
+    private int[] firstChild_; //!< The first child of each node
+    private int[] nextSibling_; //!< The next sibling of each node
+    private byte[][][] pronunciations_; //!< The pronunciations of the word of each node or null
+    private int numberOfNodes_; //!< The number of nodes of this trie
+    private int size_; //!< The number of pronunciations of this trie
+    private int maxDepth_; //!< The depth of the deepest node of this trie
+
+    private static final int ROOT = 0; //!< The index of the root node
+
+    private static final int NEAR_DISTANCE = 2; //!< The largest maximum distance that
+                                                //!< getClosestWords tries before searching
+                                                //!< without one
+    private static final int INITIAL_CAPACITY = 64; //!< The initial number of nodes of the arrays
+
+}
@@ -0,0 +1,421 @@
+package org.pasr.asr.language;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+
+/**
+ * @class BinaryNGramTable
+ * @brief Reads the 1-, 2- and 3-grams of a LanguageModel from a CMU Sphinx binary (DMP) file that
+ *        is mapped in memory
+ *        The n-grams are read in place from the mapped file. Only the tables of the quantized
+ *        2- and 3-gram values, the trigram segment bases and two ints per word, used to find
+ *        words by their characters, are copied on the heap. The file is written in the byte
+ *        order of the machine that wrote it, which is found from its first int, and is made of:
+ *
+ *        - The header: the length of HEADER, HEADER, the length and the characters of the name
+ *          of the ARPA file, a version, which is the number of 1-grams in files before version
+ *          0, a time stamp, the format description strings, the log2 of the bigram segment size
+ *          since version -2 and the number of 1-, 2- and 3-grams
+ *        - The 1-grams and one more: a word id, a probability, a back-off weight and the index
+ *          of the first 2-gram of the word, 16 bytes each
+ *        - The 2-grams and one more, sorted by their words: the id of the second word and the
+ *          indices of the probability, of the back-off weight and the offset of the first 3-gram
+ *          in its segment, 8 bytes each
+ *        - The 3-grams, sorted by their words: the id of the third word and the index of the
+ *          probability, 4 bytes each
+ *        - The 2-gram probabilities, the 2-gram back-off weights, the 3-gram probabilities and the
+ *          trigram segment bases, each one as its size followed by its values
+ *        - The words as null terminated UTF-8 strings, after their total size in bytes
+ *
+ *        The ids of the words are their indices in the 1-grams and the index of a n-gram is its
+ *        index in the n-grams of its order. The files of the newer trie format of CMU Sphinx are
+ *        read by TrieNGramTable. The methods of this class can be called from any thread.
+ *
+ * @see <a href="https://github.com/cmusphinx/sphinxbase/blob/master/src/libsphinxbase/lm/ngram_model_dmp.c">ngram_model_dmp.c</a>
+ */
+class BinaryNGramTable extends NGramTable {
+
+    /**
+     * @brief Constructor
+     *
+     * @param buffer
+     *     The contents of the DMP file
+     *
+     * @throws IOException If the buffer does not hold a DMP file
+     */
+    private BinaryNGramTable (ByteBuffer buffer) throws IOException {
+        buffer_ = buffer;
+
+        int position;
+        try {
+            if (buffer.getInt(0) != HEADER.length() + 1) {
+                buffer.order(ByteOrder.LITTLE_ENDIAN);
+            }
+            if (! startsWith(buffer, HEADER, Integer.BYTES) ||
+                buffer.getInt(0) != HEADER.length() + 1) {
+                throw new IOException("The file is not a DMP language model.");
+            }
+
+            position = Integer.BYTES + HEADER.length() + 1;
+
+            // Skip the name of the ARPA file
+            position += Integer.BYTES + buffer.getInt(position);
+
+            int version = buffer.getInt(position);
+            position += Integer.BYTES;
+
+            int logBigramSegmentSize = DEFAULT_LOG_BIGRAM_SEGMENT_SIZE;
+            if (version <= 0) {
+                // Skip the time stamp and the format description
+                position += Integer.BYTES;
+                for (int length = buffer.getInt(position); length != 0;
+                     length = buffer.getInt(position)) {
+                    position += Integer.BYTES + length;
+                }
+                position += Integer.BYTES;
+
+                if (version <= - 2) {
+                    logBigramSegmentSize = buffer.getInt(position);
+                    position += Integer.BYTES;
+
+                    if (logBigramSegmentSize < 1 || logBigramSegmentSize > 15) {
+                        throw new IOException("Invalid bigram segment size: " +
+                            logBigramSegmentSize);
+                    }
+                }
+
+                numberOfWords_ = buffer.getInt(position);
+                position += Integer.BYTES;
+            }
+            else {
+                numberOfWords_ = version;
+            }
+            logBigramSegmentSize_ = logBigramSegmentSize;
+
+            int numberOfBigrams = buffer.getInt(position);
+            int numberOfTrigrams = buffer.getInt(position + Integer.BYTES);
+            position += 2 * Integer.BYTES;
+
+            if (numberOfWords_ < 0 || numberOfBigrams < 0 || numberOfTrigrams < 0) {
+                throw new IOException("The DMP language model is corrupted.");
+            }
+
+            unigrams_ = position;
+            position += (numberOfWords_ + 1) * UNIGRAM_SIZE;
+
+            bigrams_ = position;
+            if (numberOfBigrams > 0) {
+                position += (numberOfBigrams + 1) * BIGRAM_SIZE;
+            }
+
+            trigrams_ = position;
+            position += numberOfTrigrams * TRIGRAM_SIZE;
+
+            float[] bigramProbabilities = new float[0];
+            if (numberOfBigrams > 0) {
+                bigramProbabilities = new float[buffer.getInt(position)];
+                position = readFloats(buffer, position + Integer.BYTES, bigramProbabilities);
+            }
+            bigramProbabilities_ = bigramProbabilities;
+
+            float[] bigramBackOffWeights = new float[0];
+            float[] trigramProbabilities = new float[0];
+            int[] trigramSegmentBases = new int[0];
+            if (numberOfTrigrams > 0) {
+                bigramBackOffWeights = new float[buffer.getInt(position)];
+                position = readFloats(buffer, position + Integer.BYTES, bigramBackOffWeights);
+
+                trigramProbabilities = new float[buffer.getInt(position)];
+                position = readFloats(buffer, position + Integer.BYTES, trigramProbabilities);
+
+                trigramSegmentBases = new int[buffer.getInt(position)];
+                position += Integer.BYTES;
+                for (int i = 0; i < trigramSegmentBases.length; i++) {
+                    trigramSegmentBases[i] = buffer.getInt(position);
+                    position += Integer.BYTES;
+                }
+            }
+            bigramBackOffWeights_ = bigramBackOffWeights;
+            trigramProbabilities_ = trigramProbabilities;
+            trigramSegmentBases_ = trigramSegmentBases;
+        } catch (IndexOutOfBoundsException | NegativeArraySizeException e) {
+            throw new IOException("The DMP language model is truncated.", e);
+        }
+
+        vocabulary_ = new BinaryVocabulary(buffer, position, numberOfWords_);
+    }
+
+    /**
+     * @brief Returns true if a file is a CMU Sphinx binary language model
+     *        Both the DMP and the trie format are recognized.
+     *
+     * @param file
+     *     The file
+     *
+     * @return true if the file is a CMU Sphinx binary language model
+     *
+     * @throws IOException If the file cannot be read
+     */
+    static boolean isBinaryFile (File file) throws IOException {
+        byte[] bytes = new byte[Integer.BYTES + HEADER.length()];
+
+        int length = 0;
+        try (InputStream inputStream = new FileInputStream(file)) {
+            int count;
+            while (length < bytes.length &&
+                (count = inputStream.read(bytes, length, bytes.length - length)) != - 1) {
+                length += count;
+            }
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, length);
+
+        return startsWith(buffer, HEADER, Integer.BYTES) ||
+            startsWith(buffer, TrieNGramTable.HEADER, 0);
+    }
+
+    /**
+     * @brief Maps a CMU Sphinx binary language model in memory
+     *
+     * @param file
+     *     The DMP or trie file
+     *
+     * @return The BinaryNGramTable or the TrieNGramTable of the file
+     *
+     * @throws IOException If the file cannot be mapped or is not a supported binary file
+     */
+    static NGramTable map (File file) throws IOException {
+        // The mapping stays valid after the channel is closed
+        try (FileChannel fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = fileChannel.map(FileChannel.MapMode.READ_ONLY, 0,
+                fileChannel.size());
+
+            if (startsWith(buffer, TrieNGramTable.HEADER, 0)) {
+                return new TrieNGramTable(buffer);
+            }
+
+            return new BinaryNGramTable(buffer);
+        }
+    }
+
+    @Override
+    int getWordId (String word) {
+        return vocabulary_.getWordId(word);
+    }
+
+    @Override
+    int getNumberOfWords () {
+        return numberOfWords_;
+    }
+
+    @Override
+    int findUnigram (int word) {
+        return word;
+    }
+
+    @Override
+    int findBigram (int first, int second) {
+        if (first == NONE || second == NONE) {
+            return NONE;
+        }
+
+        return find(bigrams_, BIGRAM_SIZE, getFirstBigram(first), getFirstBigram(first + 1),
+            second);
+    }
+
+    @Override
+    int findTrigram (int first, int second, int third) {
+        int bigram = findBigram(first, second);
+        if (bigram == NONE || third == NONE || trigramSegmentBases_.length == 0) {
+            return NONE;
+        }
+
+        return find(trigrams_, TRIGRAM_SIZE, getFirstTrigram(bigram), getFirstTrigram(bigram + 1),
+            third);
+    }
+
+    @Override
+    float getUnigramProbability (int index) {
+        return buffer_.getFloat(unigrams_ + index * UNIGRAM_SIZE + Integer.BYTES);
+    }
+
+    @Override
+    float getUnigramBackOffWeight (int index) {
+        return buffer_.getFloat(unigrams_ + index * UNIGRAM_SIZE + Integer.BYTES + Float.BYTES);
+    }
+
+    @Override
+    float getBigramProbability (int index) {
+        return bigramProbabilities_[getUnsignedShort(bigrams_ + index * BIGRAM_SIZE + 2)];
+    }
+
+    @Override
+    float getBigramBackOffWeight (int index) {
+        return bigramBackOffWeights_.length == 0 ? 0 :
+            bigramBackOffWeights_[getUnsignedShort(bigrams_ + index * BIGRAM_SIZE + 4)];
+    }
+
+    @Override
+    float getTrigramProbability (int index) {
+        return trigramProbabilities_[getUnsignedShort(trigrams_ + index * TRIGRAM_SIZE + 2)];
+    }
+
+    /**
+     * @brief Returns the index of the first 2-gram of a word
+     *
+     * @param word
+     *     The id of the word, which may be the number of words
+     *
+     * @return The index of the first 2-gram of the word
+     */
+    private int getFirstBigram (int word) {
+        return buffer_.getInt(unigrams_ + word * UNIGRAM_SIZE + Integer.BYTES + 2 * Float.BYTES);
+    }
+
+    /**
+     * @brief Returns the index of the first 3-gram of a 2-gram
+     *
+     * @param bigram
+     *     The index of the 2-gram, which may be the number of 2-grams
+     *
+     * @return The index of the first 3-gram of the 2-gram
+     */
+    private int getFirstTrigram (int bigram) {
+        return trigramSegmentBases_[bigram >> logBigramSegmentSize_] +
+            getUnsignedShort(bigrams_ + bigram * BIGRAM_SIZE + 6);
+    }
+
+    /**
+     * @brief Finds a n-gram by the id of its last word in a range of n-grams sorted by it
+     *
+     * @param offset
+     *     The offset of the n-grams in the file
+     * @param size
+     *     The size of a n-gram in bytes
+     * @param begin
+     *     The index of the first n-gram of the range
+     * @param end
+     *     The index after the last n-gram of the range
+     * @param word
+     *     The id of the last word
+     *
+     * @return The index of the n-gram or NONE if there is no such n-gram
+     */
+    private int find (int offset, int size, int begin, int end, int word) {
+        int low = begin;
+        int high = end - 1;
+
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int current = getUnsignedShort(offset + middle * size);
+
+            if (current < word) {
+                low = middle + 1;
+            }
+            else if (current > word) {
+                high = middle - 1;
+            }
+            else {
+                return middle;
+            }
+        }
+
+        return NONE;
+    }
+
+    /**
+     * @brief Returns the unsigned short at a position of the file
+     *
+     * @param position
+     *     The position
+     *
+     * @return The unsigned short
+     */
+    private int getUnsignedShort (int position) {
+        return Short.toUnsignedInt(buffer_.getShort(position));
+    }
+
+    /**
+     * @brief Reads floats from a ByteBuffer
+     *
+     * @param buffer
+     *     The ByteBuffer
+     * @param position
+     *     The position of the first float
+     * @param floats
+     *     The array to read into
+     *
+     * @return The position after the last float
+     */
+    private static int readFloats (ByteBuffer buffer, int position, float[] floats) {
+        for (int i = 0; i < floats.length; i++) {
+            floats[i] = buffer.getFloat(position);
+            position += Float.BYTES;
+        }
+
+        return position;
+    }
+
+    /**
+     * @brief Returns true if the bytes of a ByteBuffer at a position are the ones of a String
+     *
+     * @param buffer
+     *     The ByteBuffer
+     * @param string
+     *     The String, which must be ASCII
+     * @param position
+     *     The position
+     *
+     * @return true if the bytes of the ByteBuffer at the position are the ones of the String
+     */
+    private static boolean startsWith (ByteBuffer buffer, String string, int position) {
+        byte[] bytes = string.getBytes(StandardCharsets.US_ASCII);
+        if (buffer.limit() < position + bytes.length) {
+            return false;
+        }
+
+        for (int i = 0; i < bytes.length; i++) {
+            if (buffer.get(position + i) != bytes[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private final ByteBuffer buffer_; //!< The contents of the DMP file
+
+    private final int numberOfWords_; //!< The number of words and 1-grams
+    private final int logBigramSegmentSize_; //!< The log2 of the number of 2-grams that share a
+                                             //!< trigram segment base
+
+    private final int unigrams_; //!< The offset of the 1-grams in the file
+    private final int bigrams_; //!< The offset of the 2-grams in the file
+    private final int trigrams_; //!< The offset of the 3-grams in the file
+
+    private final float[] bigramProbabilities_; //!< The quantized 2-gram probabilities
+    private final float[] bigramBackOffWeights_; //!< The quantized 2-gram back-off weights
+    private final float[] trigramProbabilities_; //!< The quantized 3-gram probabilities
+    private final int[] trigramSegmentBases_; //!< The index of the first 3-gram of each segment
+                                              //!< of 2-grams
+
+    private final BinaryVocabulary vocabulary_; //!< The words of the DMP file
+
+    static final String HEADER = "Darpa Trigram LM"; //!< The header of a DMP file
+
+    private static final int DEFAULT_LOG_BIGRAM_SEGMENT_SIZE = 9; //!< The log2 of the bigram
+                                                                  //!< segment size of files
+                                                                  //!< before version -2
+    private static final int UNIGRAM_SIZE = 16; //!< The size of a 1-gram in bytes
+    private static final int BIGRAM_SIZE = 8; //!< The size of a 2-gram in bytes
+    private static final int TRIGRAM_SIZE = 4; //!< The size of a 3-gram in bytes
+
+}
@@ -0,0 +1,228 @@
+package org.pasr.asr.language;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+
+/**
+ * @class BinaryVocabulary
+ * @brief Finds the words of a CMU Sphinx binary language model by their characters
+ *        Both the DMP and the trie format end with the total size of the words in bytes,
+ *        followed by the words as null terminated UTF-8 strings. The id of a word is its index
+ *        in them. The words are compared in place and only the offset of each word and the ids
+ *        sorted by the words are copied on the heap. The methods of this class can be called
+ *        from any thread.
+ */
+final class BinaryVocabulary {
+
+    /**
+     * @brief Constructor
+     *
+     * @param buffer
+     *     The contents of the file
+     * @param position
+     *     The position of the total size of the words
+     * @param numberOfWords
+     *     The number of words
+     *
+     * @throws IOException If the words are corrupted
+     */
+    BinaryVocabulary (ByteBuffer buffer, int position, int numberOfWords) throws IOException {
+        buffer_ = buffer;
+        numberOfWords_ = numberOfWords;
+
+        try {
+            end_ = position + Integer.BYTES + buffer.getInt(position);
+            position += Integer.BYTES;
+
+            wordOffsets_ = new int[numberOfWords + 1];
+            for (int i = 0; i < numberOfWords; i++) {
+                wordOffsets_[i] = position;
+                while (buffer.get(position) != 0) {
+                    position++;
+                }
+                position++;
+            }
+            wordOffsets_[numberOfWords] = position;
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("The words of the language model are truncated.", e);
+        }
+
+        if (position != end_ || end_ > buffer.limit()) {
+            throw new IOException("The words of the language model are corrupted.");
+        }
+
+        sortedWords_ = getSortedWords();
+    }
+
+    /**
+     * @brief Returns the id of a word
+     *
+     * @param word
+     *     The word
+     *
+     * @return The id of the word or NGramTable.NONE if the word is not in the vocabulary
+     */
+    int getWordId (String word) {
+        int low = 0;
+        int high = numberOfWords_ - 1;
+
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = compare(sortedWords_[middle], word);
+
+            if (comparison < 0) {
+                low = middle + 1;
+            }
+            else if (comparison > 0) {
+                high = middle - 1;
+            }
+            else {
+                return sortedWords_[middle];
+            }
+        }
+
+        return NGramTable.NONE;
+    }
+
+    /**
+     * @brief Returns the position after the words
+     *
+     * @return The position after the words
+     */
+    int getEnd () {
+        return end_;
+    }
+
+    /**
+     * @brief Compares the characters of a word of the file with the ones of a String
+     *        The UTF-8 bytes of the file are decoded as they are compared, so the words are
+     *        ordered by their code points, which is also the order of their UTF-8 bytes.
+     *
+     * @param word
+     *     The id of the word of the file
+     * @param string
+     *     The String
+     *
+     * @return A negative number, zero or a positive number if the word of the file is less than,
+     *         equal to or greater than the String
+     */
+    private int compare (int word, String string) {
+        int position = wordOffsets_[word];
+        int end = wordOffsets_[word + 1] - 1;
+
+        int i = 0;
+        int length = string.length();
+        while (position < end && i < length) {
+            int codePoint = Byte.toUnsignedInt(buffer_.get(position++));
+            int continuationBytes = 0;
+            if (codePoint >= 0xf0) {
+                codePoint &= 0x07;
+                continuationBytes = 3;
+            }
+            else if (codePoint >= 0xe0) {
+                codePoint &= 0x0f;
+                continuationBytes = 2;
+            }
+            else if (codePoint >= 0xc0) {
+                codePoint &= 0x1f;
+                continuationBytes = 1;
+            }
+            for (; continuationBytes > 0 && position < end; continuationBytes--) {
+                codePoint = (codePoint << 6) | (buffer_.get(position++) & 0x3f);
+            }
+
+            int stringCodePoint = string.codePointAt(i);
+            if (codePoint != stringCodePoint) {
+                return codePoint - stringCodePoint;
+            }
+            i += Character.charCount(stringCodePoint);
+        }
+
+        return position < end ? 1 : i < length ? - 1 : 0;
+    }
+
+    /**
+     * @brief Compares the UTF-8 bytes of two words of the file
+     *
+     * @param first
+     *     The id of the first word
+     * @param second
+     *     The id of the second word
+     *
+     * @return A negative number, zero or a positive number if the first word is less than, equal
+     *         to or greater than the second one
+     */
+    private int compare (int first, int second) {
+        int firstPosition = wordOffsets_[first];
+        int firstEnd = wordOffsets_[first + 1] - 1;
+        int secondPosition = wordOffsets_[second];
+        int secondEnd = wordOffsets_[second + 1] - 1;
+
+        for (; firstPosition < firstEnd && secondPosition < secondEnd;
+             firstPosition++, secondPosition++) {
+            int comparison = Byte.toUnsignedInt(buffer_.get(firstPosition)) -
+                Byte.toUnsignedInt(buffer_.get(secondPosition));
+
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+
+        return (firstEnd - firstPosition) - (secondEnd - secondPosition);
+    }
+
+    /**
+     * @brief Returns the ids of the words sorted by the words
+     *        The words of a DMP file are usually already sorted, in which case they are only
+     *        checked. Otherwise they are merge sorted.
+     *
+     * @return The ids of the words sorted by the words
+     */
+    private int[] getSortedWords () {
+        int[] sortedWords = new int[numberOfWords_];
+        boolean sorted = true;
+        for (int i = 0; i < numberOfWords_; i++) {
+            sortedWords[i] = i;
+            sorted &= i == 0 || compare(i - 1, i) <= 0;
+        }
+
+        if (sorted) {
+            return sortedWords;
+        }
+
+        int[] buffer = new int[numberOfWords_];
+        for (int width = 1; width < numberOfWords_; width *= 2) {
+            for (int begin = 0; begin < numberOfWords_ - width; begin += 2 * width) {
+                int middle = begin + width;
+                int end = Integer.min(begin + 2 * width, numberOfWords_);
+
+                int left = begin;
+                int right = middle;
+                for (int i = begin; i < end; i++) {
+                    if (right == end ||
+                        (left < middle && compare(sortedWords[left], sortedWords[right]) <= 0)) {
+                        buffer[i] = sortedWords[left++];
+                    }
+                    else {
+                        buffer[i] = sortedWords[right++];
+                    }
+                }
+
+                System.arraycopy(buffer, begin, sortedWords, begin, end - begin);
+            }
+        }
+
+        return sortedWords;
+    }
+
+    private final ByteBuffer buffer_; //!< The contents of the file
+
+    private final int numberOfWords_; //!< The number of words
+    private final int end_; //!< The position after the words
+
+    private final int[] wordOffsets_; //!< The offset of each word in the file and of the end of
+                                      //!< the words
+    private final int[] sortedWords_; //!< The ids of the words sorted by the words
+
+}
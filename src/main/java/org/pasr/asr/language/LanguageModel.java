@@ -1,18 +1,25 @@
 package org.pasr.asr.language;
 
 
+import org.pasr.prep.corpus.Word;
 import org.pasr.prep.corpus.WordSequence;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStream;
-import java.util.Hashtable;
+import java.util.List;
 import java.util.Scanner;
 
-import static org.apache.commons.lang3.math.NumberUtils.isNumber;
+import static org.pasr.asr.language.NGramTable.NONE;
 
 
 /**
  * @class LanguageModel
  * @brief Implements of a 3-gram language model in the ARPA-standard format
+ *        The model can also be read from a CMU Sphinx binary (DMP) file. Words can be scored one
+ *        after the other in log10 space through a LanguageModelState, so that the candidates
+ *        that share a prefix are scored without repeating the work for the prefix.
  *
  * @see <a href="http://cmusphinx.sourceforge.net/wiki/tutoriallm">http://cmusphinx.sourceforge.net/wiki/tutoriallm</a>
  */
@@ -21,17 +28,13 @@ public class LanguageModel {
     /**
      * @brief Constructor
      *        Made private to prevent direct instantiation. To create a LanguageModel
-     *        createFromInputStream method should be used
+     *        createFromInputStream or createFromFile method should be used
      *
-     * @param probabilities
-     *     The probabilities map
-     * @param backOffWeights
-     *     The back-off weights map
+     * @param nGramTable
+     *     The NGramTable that holds the n-grams of this language model
      */
-    private LanguageModel (Hashtable<String, Double> probabilities,
-                           Hashtable<String, Double> backOffWeights) {
-        probabilities_ = probabilities;
-        backOffWeights_ = backOffWeights;
+    private LanguageModel (NGramTable nGramTable) {
+        nGramTable_ = nGramTable;
     }
 
     /**
@@ -43,63 +46,102 @@ public class LanguageModel {
      * @return The created Language Model
      */
     public static LanguageModel createFromInputStream (InputStream inputStream) {
-        Hashtable<String, Double> probabilities = new Hashtable<>();
-        Hashtable<String, Double> backOffWeights = new Hashtable<>();
+        SortedNGramTable nGramTable = new SortedNGramTable();
 
         Scanner scanner = new Scanner(inputStream);
         while (scanner.hasNextLine()) {
-            if (scanner.nextLine().equals("\\data\\")) {
+            if (scanner.nextLine().trim().equals("\\data\\")) {
                 break;
             }
         }
 
-        boolean save = false;
+        // The order of the n-grams of the current section or 0 outside of an n-gram section
+        int order = 0;
         while (scanner.hasNextLine()) {
-            String line = scanner.nextLine();
+            String line = scanner.nextLine().trim();
 
-            if (line.equals("\\1-grams:")) {
-                save = true;
+            if (line.isEmpty()) {
                 continue;
             }
 
-            if (line.equals("") || line.equals("\\2-grams:") || line.equals("\\3-grams:")) {
+            if (line.equals("\\end\\")) {
+                break;
+            }
+
+            if (line.startsWith("\\")) {
+                order = line.equals("\\1-grams:") ? 1 :
+                    line.equals("\\2-grams:") ? 2 :
+                        line.equals("\\3-grams:") ? 3 : 0;
                 continue;
             }
 
-            if (line.equals("\\end\\")) {
-                save = false;
+            if (order == 0) {
+                continue;
             }
 
-            if (save) {
-                String[] tokens = line.replaceAll("\\t", " ").split(" ");
-
-                // 1-gram
-                if (tokens.length == 3) {
-                    probabilities.put(tokens[1], Math.pow(10, Double.parseDouble(tokens[0])));
-                    backOffWeights.put(tokens[1], Math.pow(10, Double.parseDouble(tokens[2])));
-                }
-                else {
-                    // 2-gram
-                    if (isNumber(tokens[tokens.length - 1])) {
-                        String key = String.join(" ", tokens[1], tokens[2]);
-
-                        probabilities.put(key, Math.pow(10, Double.parseDouble(tokens[0])));
-                        backOffWeights.put(key, Math.pow(10, Double.parseDouble(tokens[3])));
-                    }
-                    else { // 3-gram
-                        probabilities.put(String.join(" ", tokens[1], tokens[2], tokens[3]),
-                            Math.pow(10, Double.parseDouble(tokens[0])));
-                    }
-                }
+            String[] tokens = line.split("\\s+");
+            float probability = Float.parseFloat(tokens[0]);
+
+            // A missing back-off weight is a weight of 1
+            float backOffWeight = tokens.length > order + 1 ?
+                Float.parseFloat(tokens[order + 1]) : 0;
+
+            if (order == 1) {
+                nGramTable.putUnigram(nGramTable.addWord(tokens[1]), probability, backOffWeight);
+            }
+            else if (order == 2) {
+                nGramTable.putBigram(nGramTable.addWord(tokens[1]),
+                    nGramTable.addWord(tokens[2]), probability, backOffWeight);
+            }
+            else {
+                nGramTable.putTrigram(nGramTable.addWord(tokens[1]),
+                    nGramTable.addWord(tokens[2]), nGramTable.addWord(tokens[3]), probability);
             }
         }
         scanner.close();
 
-        return new LanguageModel(probabilities, backOffWeights);
+        nGramTable.sort();
+
+        return new LanguageModel(nGramTable);
+    }
+
+    /**
+     * @brief Creates a Language Model from a file
+     *        A CMU Sphinx binary file, either DMP or trie (.lm.bin), is mapped in memory and read
+     *        in place, so it is loaded almost at once whatever its size. Any other file is parsed
+     *        as an ARPA file.
+     *
+     *        The binary readers follow the layouts of the sphinxbase sources, but they have only
+     *        been checked against files written by the test writer BinaryLanguageModelWriter,
+     *        which follows the same layouts, and not against files that sphinx_lm_convert wrote.
+     *        Until such files are part of the tests, a model that matters should be loaded from
+     *        its ARPA file or compared with it once. Trie files are supported only in little
+     *        endian byte order.
+     *
+     * @param path
+     *     The path of the file
+     *
+     * @return The created Language Model
+     *
+     * @throws IOException If the file cannot be read or is a binary file in an unsupported format
+     */
+    public static LanguageModel createFromFile (String path) throws IOException {
+        File file = new File(path);
+
+        if (BinaryNGramTable.isBinaryFile(file)) {
+            return new LanguageModel(BinaryNGramTable.map(file));
+        }
+
+        try (InputStream inputStream = new FileInputStream(file)) {
+            return createFromInputStream(inputStream);
+        }
     }
 
     /**
      * @brief Returns the probability of the given WordSequence
+     *        The probability of one, two or three words is the one of the last word given the
+     *        words before it. The probability of a longer sequence is the one of the whole
+     *        sequence.
      *
      * @param wordSequence
      *     The WordSequence
@@ -107,119 +149,201 @@ public class LanguageModel {
      * @return The probability of the given WordSequence
      */
     public double getProbability (WordSequence wordSequence) {
-        if (wordSequence == null) {
+        if (wordSequence == null || wordSequence.isEmpty()) {
             return 0;
         }
 
-        String[] words = wordSequence.getWordTextList().stream()
-            .toArray(String[] ::new);
+        LanguageModelState state = score(wordSequence);
 
-        int numberOfWords = words.length;
+        return Math.pow(10, wordSequence.size() <= 3 ?
+            state.getLogProbability() : state.getTotalLogProbability());
+    }
 
-        if (numberOfWords == 0) {
-            return 0;
-        }
-        else if (numberOfWords == 1) {
-            return p1(words);
+    /**
+     * @brief Returns the log10 probability of the whole given WordSequence
+     *        This is the log10 of getProbability for sequences of more than three words, but it
+     *        does not underflow for long sequences.
+     *
+     * @param wordSequence
+     *     The WordSequence
+     *
+     * @return The log10 probability of the whole given WordSequence
+     */
+    public double getLogProbability (WordSequence wordSequence) {
+        if (wordSequence == null) {
+            return Double.NEGATIVE_INFINITY;
         }
-        else if (numberOfWords == 2) {
-            return p2(words);
+
+        return score(wordSequence).getTotalLogProbability();
+    }
+
+    /**
+     * @brief Returns the state before any word
+     *
+     * @return The state before any word
+     */
+    public LanguageModelState getInitialState () {
+        return LanguageModelState.INITIAL;
+    }
+
+    /**
+     * @brief Scores a word after a state
+     *
+     * @param state
+     *     The state
+     * @param word
+     *     The word
+     *
+     * @return The state after the word, which holds the log10 probability of the word
+     */
+    public LanguageModelState score (LanguageModelState state, String word) {
+        int id = nGramTable_.getWordId(word);
+        double logProbability = getLogProbability(state, id);
+
+        int unigram = nGramTable_.findUnigram(id);
+        int bigram = nGramTable_.findBigram(state.getSecond(), id);
+
+        return new LanguageModelState(
+            state.getSecond(), id, Integer.min(state.getLength() + 1, 2),
+            unigram == NONE ? Double.NEGATIVE_INFINITY :
+                nGramTable_.getUnigramBackOffWeight(unigram),
+            bigram == NONE ? 0 : nGramTable_.getBigramBackOffWeight(bigram),
+            logProbability, state.getTotalLogProbability() + logProbability
+        );
+    }
+
+    /**
+     * @brief Scores many words after the same state
+     *        The words that come before each one are the ones of the state, so the back-off
+     *        weights they need are only looked up once.
+     *
+     * @param state
+     *     The state
+     * @param words
+     *     The words
+     *
+     * @return The log10 probability of each word after the state
+     */
+    public double[] score (LanguageModelState state, List<String> words) {
+        double[] logProbabilities = new double[words.size()];
+
+        int i = 0;
+        for (String word : words) {
+            logProbabilities[i++] = getLogProbability(state, nGramTable_.getWordId(word));
         }
-        else if (numberOfWords == 3) {
-            return p3(words);
+
+        return logProbabilities;
+    }
+
+    /**
+     * @brief Scores the words of a WordSequence one after the other
+     *
+     * @param wordSequence
+     *     The WordSequence
+     *
+     * @return The state after the last word
+     */
+    private LanguageModelState score (WordSequence wordSequence) {
+        LanguageModelState state = LanguageModelState.INITIAL;
+
+        for (Word word : wordSequence) {
+            state = score(state, word.toString());
         }
-        else {
-            double probability = p1(words[0]) * p2(words[0], words[1]);
 
-            for (int i = 2; i < numberOfWords; i++) {
-                probability *= p3(words[i - 2], words[i - 1], words[i]);
-            }
+        return state;
+    }
 
-            return probability;
+    /**
+     * @brief Returns the log10 probability of a word after a state
+     *
+     * @param state
+     *     The state
+     * @param word
+     *     The id of the word or NGramTable.NONE
+     *
+     * @return The log10 probability of the word after the state
+     */
+    private double getLogProbability (LanguageModelState state, int word) {
+        if (state.getLength() == 0) {
+            return getUnigramLogProbability(word);
+        }
+        else if (state.getLength() == 1) {
+            return getBigramLogProbability(state, word);
+        }
+        else {
+            return getTrigramLogProbability(state, word);
         }
     }
 
     /**
-     * @brief Returns the 1-gram probability of the given word sequence
+     * @brief Returns the 1-gram log10 probability of the given word
      *
-     * @param words
-     *     The sequence of words
+     * @param word
+     *     The id of the word or NGramTable.NONE
      *
-     * @return The 1-gram probability of the given word sequence
+     * @return The 1-gram log10 probability of the given word
      */
-    private double p1 (String... words) {
+    private double getUnigramLogProbability (int word) {
         // Search for the 1-gram probability.
-        Double probability = probabilities_.get(words[0]);
+        int index = nGramTable_.findUnigram(word);
 
-        // If the 1-gram probability doesn't exist, return 0.
-        return (probability == null ? 0 : probability);
+        // If the 1-gram probability doesn't exist, the probability is 0.
+        return index == NONE ? Double.NEGATIVE_INFINITY :
+            nGramTable_.getUnigramProbability(index);
     }
 
     /**
-     * Returns the 2-gram probability of the given word sequence
+     * @brief Returns the 2-gram log10 probability of a word after the last word of a state
      *
-     * @param words
-     *     The sequence of words
+     * @param state
+     *     The state
+     * @param word
+     *     The id of the word or NGramTable.NONE
      *
-     * @return The 2-gram probability of the given word sequence
+     * @return The 2-gram log10 probability of the word
      */
-    private double p2 (String... words) {
+    private double getBigramLogProbability (LanguageModelState state, int word) {
         // Search for the 2-gram probability.
-        Double probability = probabilities_.get(String.join(" ", (CharSequence[]) words));
+        int index = nGramTable_.findBigram(state.getSecond(), word);
 
         // If the 2-gram doesn't exist, use the back-off weight according to the formula:
         // p(wd2|wd1) = bo_wt_1(wd1)*p_1(wd2)
-        if (probability == null) {
-            Double backOffWeight = backOffWeights_.get(words[0]);
-            probability = probabilities_.get(words[1]);
-
-            if (backOffWeight == null || probability == null) {
-                return 0;
-            }
-            else {
-                return backOffWeight * probability;
-            }
+        // The back-off weight of a word without a 1-gram is negative infinity, so the
+        // probability is 0 if either 1-gram doesn't exist.
+        if (index == NONE) {
+            return state.getUnigramBackOffWeight() + getUnigramLogProbability(word);
         }
         else {
-            return probability;
+            return nGramTable_.getBigramProbability(index);
         }
     }
 
     /**
-     * Returns the 3-gram probability of the given word sequence
+     * @brief Returns the 3-gram log10 probability of a word after the last two words of a state
      *
-     * @param words
-     *     The sequence of words
+     * @param state
+     *     The state
+     * @param word
+     *     The id of the word or NGramTable.NONE
      *
-     * @return The 3-gram probability of the given word sequence
+     * @return The 3-gram log10 probability of the word
      */
-    private double p3 (String... words) {
+    private double getTrigramLogProbability (LanguageModelState state, int word) {
         // Search for the 3-gram probability.
-        Double probability = probabilities_.get(String.join(" ", (CharSequence[]) words));
+        int index = nGramTable_.findTrigram(state.getFirst(), state.getSecond(), word);
 
         // If the 3-gram probability doesn't exist, use the back-off weight according to the
         // formula:
         // p(wd3|wd1,wd2) = bo_wt_2(w1,w2)*p(wd3|wd2)
-        if (probability == null) {
-            Double backOffWeight = backOffWeights_.get(String.join(" ", words[0], words[1]));
-            probability = p2(words[1], words[2]);
-
-            if (backOffWeight == null) {
-                return probability;
-            }
-            else {
-                return backOffWeight * probability;
-            }
+        // The back-off weight of a missing 2-gram is 0, which is a weight of 1.
+        if (index == NONE) {
+            return state.getBigramBackOffWeight() + getBigramLogProbability(state, word);
         }
         else {
-            return probability;
+            return nGramTable_.getTrigramProbability(index);
         }
     }
 
-    private Hashtable<String, Double> probabilities_ = new Hashtable<>(); //!< The probabilities of
-                                                                          //!< this language model
-    private Hashtable<String, Double> backOffWeights_ = new Hashtable<>(); //!< The back-off weights
-                                                                           //!< of this language
-                                                                           //!< model
+    private final NGramTable nGramTable_; //!< The n-grams of this language model
 
 }
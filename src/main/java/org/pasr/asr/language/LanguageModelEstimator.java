@@ -0,0 +1,362 @@
+package org.pasr.asr.language;
+
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.util.Arrays;
+
+
+/**
+ * @class LanguageModelEstimator
+ * @brief Estimates a 3-gram back-off language model from NGramCounts with Witten-Bell discounting
+ *        and writes it in the ARPA format
+ *        The probability of a n-gram w that follows a history h with count c(h, w) is
+ *        c(h, w) / (c(h) + T(h)), where c(h) is the count of all the n-grams that follow h and
+ *        T(h) the number of different words that follow h. The probability mass
+ *        T(h) / (c(h) + T(h)) that is left is given to the words that have not been seen after h,
+ *        in proportion to their probability after the shorter history, through the back-off
+ *        weight of h. The 1-gram probabilities are the relative counts of the words, apart from
+ *        SENTENCE_BEGIN, which is never predicted and gets a log10 probability of -99.
+ *
+ *        The words and the n-grams are written sorted by their characters, so the same counts
+ *        always give the same file.
+ *
+ * @see <a href="http://cmusphinx.sourceforge.net/wiki/sphinx4:standardgrammarformats">http://cmusphinx.sourceforge.net/wiki/sphinx4:standardgrammarformats</a>
+ */
+public class LanguageModelEstimator {
+
+    /**
+     * @brief Constructor
+     *
+     * @param nGramCounts
+     *     The NGramCounts to estimate the language model from
+     */
+    private LanguageModelEstimator (NGramCounts nGramCounts) {
+        nGramCounts_ = nGramCounts;
+
+        // The words are numbered in the order of their characters, so that the keys that pack the
+        // ranks of the words of the n-grams sort in the same order as the n-grams
+        int numberOfWords = nGramCounts.getNumberOfWords();
+        Integer[] sortedWords = new Integer[numberOfWords];
+        for (int i = 0; i < numberOfWords; i++) {
+            sortedWords[i] = i;
+        }
+        Arrays.sort(sortedWords, (first, second) ->
+            nGramCounts.getWord(first).compareTo(nGramCounts.getWord(second)));
+
+        words_ = new int[numberOfWords];
+        ranks_ = new int[numberOfWords];
+        for (int rank = 0; rank < numberOfWords; rank++) {
+            words_[rank] = sortedWords[rank];
+            ranks_[sortedWords[rank]] = rank;
+        }
+
+        unigramProbabilities_ = new double[numberOfWords];
+        unigramBackOffWeights_ = new double[numberOfWords];
+
+        bigramKeys_ = getSortedKeys(2);
+        bigramProbabilities_ = new double[bigramKeys_.length];
+        bigramBackOffWeights_ = new double[bigramKeys_.length];
+
+        trigramKeys_ = getSortedKeys(3);
+        trigramProbabilities_ = new double[trigramKeys_.length];
+    }
+
+    /**
+     * @brief Estimates a language model from NGramCounts and writes it to an OutputStream
+     *
+     * @param nGramCounts
+     *     The NGramCounts
+     * @param outputStream
+     *     The OutputStream to write the ARPA file on
+     */
+    public static void estimate (NGramCounts nGramCounts, OutputStream outputStream) {
+        LanguageModelEstimator languageModelEstimator = new LanguageModelEstimator(nGramCounts);
+
+        languageModelEstimator.estimateUnigrams();
+        languageModelEstimator.estimateBigrams();
+        languageModelEstimator.estimateTrigrams();
+
+        languageModelEstimator.exportToStream(outputStream);
+    }
+
+    /**
+     * @brief Estimates the 1-gram probabilities
+     */
+    private void estimateUnigrams () {
+        int sentenceBegin = nGramCounts_.getWordId(NGramCounts.SENTENCE_BEGIN);
+
+        long total = 0;
+        for (int word = 0; word < words_.length; word++) {
+            if (word != sentenceBegin) {
+                total += nGramCounts_.getCount(1, word);
+            }
+        }
+
+        for (int rank = 0; rank < words_.length; rank++) {
+            unigramProbabilities_[rank] = words_[rank] == sentenceBegin ? MINIMUM_LOG_PROBABILITY :
+                Math.log10((double) nGramCounts_.getCount(1, words_[rank]) / total);
+        }
+    }
+
+    /**
+     * @brief Estimates the 2-gram probabilities and the 1-gram back-off weights
+     */
+    private void estimateBigrams () {
+        for (int begin = 0, end; begin < bigramKeys_.length; begin = end) {
+            int history = NGramCounts.getWord(bigramKeys_[begin], 1);
+
+            long count = 0;
+            double seenProbability = 0;
+            for (end = begin; end < bigramKeys_.length &&
+                NGramCounts.getWord(bigramKeys_[end], 1) == history; end++) {
+                count += getCount(2, bigramKeys_[end]);
+                seenProbability += Math.pow(10,
+                    unigramProbabilities_[NGramCounts.getWord(bigramKeys_[end], 0)]);
+            }
+
+            int types = getNumberOfTypes(end - begin, seenProbability);
+            for (int i = begin; i < end; i++) {
+                bigramProbabilities_[i] = Math.log10(
+                    (double) getCount(2, bigramKeys_[i]) / (count + types)
+                );
+            }
+
+            unigramBackOffWeights_[history] = getBackOffWeight(count, types, seenProbability);
+        }
+    }
+
+    /**
+     * @brief Estimates the 3-gram probabilities and the 2-gram back-off weights
+     */
+    private void estimateTrigrams () {
+        for (int begin = 0, end; begin < trigramKeys_.length; begin = end) {
+            long history = trigramKeys_[begin] >>> NGramCounts.WORD_ID_BITS;
+            int second = NGramCounts.getWord(history, 0);
+
+            long count = 0;
+            double seenProbability = 0;
+            for (end = begin; end < trigramKeys_.length &&
+                trigramKeys_[end] >>> NGramCounts.WORD_ID_BITS == history; end++) {
+                count += getCount(3, trigramKeys_[end]);
+
+                // The probability of the word after the shorter history, which may back off
+                int word = NGramCounts.getWord(trigramKeys_[end], 0);
+                int bigram = Arrays.binarySearch(bigramKeys_, NGramCounts.getKey(second, word));
+                seenProbability += Math.pow(10, bigram >= 0 ? bigramProbabilities_[bigram] :
+                    unigramBackOffWeights_[second] + unigramProbabilities_[word]);
+            }
+
+            int types = getNumberOfTypes(end - begin, seenProbability);
+            for (int i = begin; i < end; i++) {
+                trigramProbabilities_[i] = Math.log10(
+                    (double) getCount(3, trigramKeys_[i]) / (count + types)
+                );
+            }
+
+            // Every history of a 3-gram has been counted as a 2-gram
+            bigramBackOffWeights_[Arrays.binarySearch(bigramKeys_, history)] =
+                getBackOffWeight(count, types, seenProbability);
+        }
+    }
+
+    /**
+     * @brief Writes the language model in the ARPA format
+     *
+     * @param outputStream
+     *     The OutputStream to write on
+     */
+    private void exportToStream (OutputStream outputStream) {
+        PrintWriter printWriter = new PrintWriter(outputStream);
+        StringBuilder stringBuilder = new StringBuilder();
+
+        printWriter.write("\\data\\\n");
+        printWriter.write("ngram 1=" + words_.length + "\n");
+        printWriter.write("ngram 2=" + bigramKeys_.length + "\n");
+        printWriter.write("ngram 3=" + trigramKeys_.length + "\n");
+
+        printWriter.write("\n\\1-grams:\n");
+        for (int rank = 0; rank < words_.length; rank++) {
+            stringBuilder.setLength(0);
+            appendLogValue(stringBuilder, unigramProbabilities_[rank]);
+            appendWords(stringBuilder, rank, 1);
+            stringBuilder.append(' ');
+            appendLogValue(stringBuilder, unigramBackOffWeights_[rank]);
+
+            printWriter.write(stringBuilder.append('\n').toString());
+        }
+
+        printWriter.write("\n\\2-grams:\n");
+        for (int i = 0; i < bigramKeys_.length; i++) {
+            stringBuilder.setLength(0);
+            appendLogValue(stringBuilder, bigramProbabilities_[i]);
+            appendWords(stringBuilder, bigramKeys_[i], 2);
+            stringBuilder.append(' ');
+            appendLogValue(stringBuilder, bigramBackOffWeights_[i]);
+
+            printWriter.write(stringBuilder.append('\n').toString());
+        }
+
+        printWriter.write("\n\\3-grams:\n");
+        for (int i = 0; i < trigramKeys_.length; i++) {
+            stringBuilder.setLength(0);
+            appendLogValue(stringBuilder, trigramProbabilities_[i]);
+            appendWords(stringBuilder, trigramKeys_[i], 3);
+
+            printWriter.write(stringBuilder.append('\n').toString());
+        }
+
+        printWriter.write("\n\\end\\\n");
+        printWriter.close();
+    }
+
+    /**
+     * @brief Returns the keys of the n-grams of an order with the ids of their words replaced by
+     *        their ranks, sorted
+     *
+     * @param order
+     *     The order
+     *
+     * @return The sorted keys
+     */
+    private long[] getSortedKeys (int order) {
+        long[] keys = nGramCounts_.getKeys(order);
+
+        for (int i = 0; i < keys.length; i++) {
+            long key = 0;
+            for (int position = order - 1; position >= 0; position--) {
+                key = NGramCounts.getKey(key, ranks_[NGramCounts.getWord(keys[i], position)]);
+            }
+            keys[i] = key;
+        }
+        Arrays.sort(keys);
+
+        return keys;
+    }
+
+    /**
+     * @brief Returns the count of a n-gram given the key of the ranks of its words
+     *
+     * @param order
+     *     The order of the n-gram
+     * @param key
+     *     The key of the ranks of its words
+     *
+     * @return The count of the n-gram
+     */
+    private int getCount (int order, long key) {
+        long wordKey = 0;
+        for (int position = order - 1; position >= 0; position--) {
+            wordKey = NGramCounts.getKey(wordKey, words_[NGramCounts.getWord(key, position)]);
+        }
+
+        return nGramCounts_.getCount(order, wordKey);
+    }
+
+    /**
+     * @brief Returns the number of different words that follow a history as it is used to discount
+     *        the n-grams of the history
+     *        If every word has been seen after the history, there is no word to give any mass to,
+     *        so the n-grams are not discounted and get their relative counts.
+     *
+     * @param types
+     *     The number of different words that follow the history
+     * @param seenProbability
+     *     The sum of the probabilities of the words that follow the history after the shorter
+     *     history
+     *
+     * @return The number of different words or 0 if the n-grams must not be discounted
+     */
+    private static int getNumberOfTypes (int types, double seenProbability) {
+        return seenProbability >= 1 - SEEN_PROBABILITY_TOLERANCE ? 0 : types;
+    }
+
+    /**
+     * @brief Returns the log10 back-off weight of a history
+     *
+     * @param count
+     *     The count of all the n-grams that follow the history
+     * @param types
+     *     The number of different words that follow the history, as returned by
+     *     getNumberOfTypes
+     * @param seenProbability
+     *     The sum of the probabilities of the words that follow the history after the shorter
+     *     history
+     *
+     * @return The log10 back-off weight of the history
+     */
+    private static double getBackOffWeight (long count, int types, double seenProbability) {
+        if (types == 0) {
+            return 0;
+        }
+
+        return Math.log10(((double) types / (count + types)) / (1 - seenProbability));
+    }
+
+    /**
+     * @brief Appends the words of a n-gram, each one after a space
+     *
+     * @param stringBuilder
+     *     The StringBuilder to append to
+     * @param key
+     *     The key of the ranks of the words of the n-gram
+     * @param order
+     *     The order of the n-gram
+     */
+    private void appendWords (StringBuilder stringBuilder, long key, int order) {
+        for (int position = order - 1; position >= 0; position--) {
+            stringBuilder.append(' ').append(
+                nGramCounts_.getWord(words_[NGramCounts.getWord(key, position)])
+            );
+        }
+    }
+
+    /**
+     * @brief Appends a log10 value with four decimal digits
+     *        The value is formatted by hand, since String.format is slow and depends on the
+     *        locale, while an ARPA file must always use a dot.
+     *
+     * @param stringBuilder
+     *     The StringBuilder to append to
+     * @param value
+     *     The value
+     */
+    private static void appendLogValue (StringBuilder stringBuilder, double value) {
+        long scaledValue = Math.round(Math.max(value, MINIMUM_LOG_PROBABILITY) * 10000);
+
+        if (scaledValue < 0) {
+            stringBuilder.append('-');
+            scaledValue = - scaledValue;
+        }
+
+        long fraction = scaledValue % 10000;
+        stringBuilder.append(scaledValue / 10000).append('.');
+        for (long digit = 1000; digit > fraction && digit > 1; digit /= 10) {
+            stringBuilder.append('0');
+        }
+        stringBuilder.append(fraction);
+    }
+
+    private final NGramCounts nGramCounts_; //!< The NGramCounts to estimate from
+
+    private final int[] words_; //!< The id of the word of each rank
+    private final int[] ranks_; //!< The rank of each word id
+
+    private final double[] unigramProbabilities_; //!< The log10 probability of each rank
+    private final double[] unigramBackOffWeights_; //!< The log10 back-off weight of each rank
+
+    private final long[] bigramKeys_; //!< The sorted keys of the ranks of the 2-grams
+    private final double[] bigramProbabilities_; //!< The log10 probability of each 2-gram
+    private final double[] bigramBackOffWeights_; //!< The log10 back-off weight of each 2-gram
+
+    private final long[] trigramKeys_; //!< The sorted keys of the ranks of the 3-grams
+    private final double[] trigramProbabilities_; //!< The log10 probability of each 3-gram
+
+    private static final double SEEN_PROBABILITY_TOLERANCE = 1e-6; //!< How close to 1 the sum of
+                                                                   //!< the probabilities of the
+                                                                   //!< seen words must be for
+                                                                   //!< all the words to count as
+                                                                   //!< seen
+    private static final double MINIMUM_LOG_PROBABILITY = - 99; //!< The log10 probability of a
+                                                                //!< word that is never predicted
+
+}
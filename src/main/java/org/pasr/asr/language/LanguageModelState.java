@@ -0,0 +1,129 @@
+package org.pasr.asr.language;
+
+
+/**
+ * @class LanguageModelState
+ * @brief Holds what a LanguageModel needs to know about the words that have been scored so far
+ *        A state keeps the ids of the last two words, together with the back-off weights of their
+ *        n-grams, so that scoring the next word only looks up the n-grams that end with it. It
+ *        also keeps the log10 probability of the last word and of all the words that led to it.
+ *
+ *        A LanguageModelState is immutable, so many words can be scored from the same state and
+ *        states can be shared between threads. A state must only be used with the LanguageModel
+ *        that created it.
+ */
+public final class LanguageModelState {
+
+    /**
+     * @brief Constructor
+     *
+     * @param first
+     *     The id of the word before the last one or NGramTable.NONE
+     * @param second
+     *     The id of the last word or NGramTable.NONE
+     * @param length
+     *     The number of words of the state, up to two
+     * @param unigramBackOffWeight
+     *     The log10 back-off weight of the 1-gram of the last word or negative infinity if there
+     *     is no such 1-gram
+     * @param bigramBackOffWeight
+     *     The log10 back-off weight of the 2-gram of the last two words or 0 if there is no such
+     *     2-gram
+     * @param logProbability
+     *     The log10 probability of the last word
+     * @param totalLogProbability
+     *     The log10 probability of all the words that led to this state
+     */
+    LanguageModelState (int first, int second, int length, double unigramBackOffWeight,
+                        double bigramBackOffWeight, double logProbability,
+                        double totalLogProbability) {
+        first_ = first;
+        second_ = second;
+        length_ = length;
+        unigramBackOffWeight_ = unigramBackOffWeight;
+        bigramBackOffWeight_ = bigramBackOffWeight;
+        logProbability_ = logProbability;
+        totalLogProbability_ = totalLogProbability;
+    }
+
+    /**
+     * @brief Returns the log10 probability of the last word given the words before it
+     *
+     * @return The log10 probability of the last word or 0 for the initial state
+     */
+    public double getLogProbability () {
+        return logProbability_;
+    }
+
+    /**
+     * @brief Returns the log10 probability of all the words that led to this state
+     *
+     * @return The log10 probability of all the words that led to this state
+     */
+    public double getTotalLogProbability () {
+        return totalLogProbability_;
+    }
+
+    /**
+     * @brief Returns the id of the word before the last one
+     *
+     * @return The id of the word before the last one or NGramTable.NONE
+     */
+    int getFirst () {
+        return first_;
+    }
+
+    /**
+     * @brief Returns the id of the last word
+     *
+     * @return The id of the last word or NGramTable.NONE
+     */
+    int getSecond () {
+        return second_;
+    }
+
+    /**
+     * @brief Returns the number of words of this state
+     *
+     * @return The number of words of this state, up to two
+     */
+    int getLength () {
+        return length_;
+    }
+
+    /**
+     * @brief Returns the log10 back-off weight of the 1-gram of the last word
+     *
+     * @return The log10 back-off weight or negative infinity if there is no such 1-gram
+     */
+    double getUnigramBackOffWeight () {
+        return unigramBackOffWeight_;
+    }
+
+    /**
+     * @brief Returns the log10 back-off weight of the 2-gram of the last two words
+     *
+     * @return The log10 back-off weight or 0 if there is no such 2-gram
+     */
+    double getBigramBackOffWeight () {
+        return bigramBackOffWeight_;
+    }
+
+    private final int first_; //!< The id of the word before the last one
+    private final int second_; //!< The id of the last word
+    private final int length_; //!< The number of words of this state, up to two
+
+    private final double unigramBackOffWeight_; //!< The log10 back-off weight of the 1-gram of
+                                                //!< the last word
+    private final double bigramBackOffWeight_; //!< The log10 back-off weight of the 2-gram of the
+                                               //!< last two words
+
+    private final double logProbability_; //!< The log10 probability of the last word
+    private final double totalLogProbability_; //!< The log10 probability of all the words that
+                                               //!< led to this state
+
+    static final LanguageModelState INITIAL = new LanguageModelState(
+        NGramTable.NONE, NGramTable.NONE, 0, Double.NEGATIVE_INFINITY, 0, 0, 0
+    ); //!< The state before any word
+
+}
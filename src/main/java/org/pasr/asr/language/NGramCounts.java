@@ -0,0 +1,536 @@
+package org.pasr.asr.language;
+
+import org.pasr.prep.corpus.Corpus;
+import org.pasr.prep.corpus.Word;
+import org.pasr.prep.corpus.WordSequence;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * @class NGramCounts
+ * @brief Counts the 1-, 2- and 3-grams of the sentences of a Corpus
+ *        Each sentence is counted between the SENTENCE_BEGIN and SENTENCE_END words, as it is
+ *        saved in the sentences file of a corpus. Each word gets an id, in the order the words
+ *        are first met, and the n-grams are counted in open addressing hash tables keyed by a long
+ *        that packs the ids of their words, WORD_ID_BITS bits each.
+ *
+ *        A NGramCounts is not thread safe. To count in parallel, each thread counts in its own
+ *        NGramCounts and they are then added together, which is what createFromCorpus does. The
+ *        counts can be exported and read back, so that the sentences that are added to a corpus
+ *        later are counted on top of them.
+ */
+public class NGramCounts {
+
+    /**
+     * @brief Default Constructor
+     */
+    public NGramCounts () {
+        words_ = new ArrayList<>();
+        wordIds_ = new HashMap<>();
+
+        counts_ = new CountTable[] {new CountTable(), new CountTable(), new CountTable()};
+    }
+
+    /**
+     * @brief Counts the n-grams of the sentences of a Corpus in parallel
+     *
+     * @param corpus
+     *     The Corpus
+     *
+     * @return The NGramCounts of the Corpus
+     */
+    public static NGramCounts createFromCorpus (Corpus corpus) {
+        return corpus.parallelStream()
+            .collect(NGramCounts:: new, NGramCounts:: add, NGramCounts:: addAll);
+    }
+
+    /**
+     * @brief Counts the n-grams of a sentence
+     *
+     * @param wordSequence
+     *     The sentence
+     */
+    public void add (WordSequence wordSequence) {
+        int first = NONE;
+        int second = addWord(SENTENCE_BEGIN);
+        counts_[0].add(second, 1);
+
+        for (Word word : wordSequence) {
+            String text = word.toString();
+            if (! text.isEmpty()) {
+                int third = addWord(text);
+                add(first, second, third);
+
+                first = second;
+                second = third;
+            }
+        }
+
+        add(first, second, addWord(SENTENCE_END));
+    }
+
+    /**
+     * @brief Adds the counts of another NGramCounts to the counts of this one
+     *
+     * @param nGramCounts
+     *     The other NGramCounts
+     */
+    public void addAll (NGramCounts nGramCounts) {
+        // The ids of the other NGramCounts are translated to the ids of this one
+        int[] ids = new int[nGramCounts.getNumberOfWords()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = addWord(nGramCounts.getWord(i));
+        }
+
+        for (int order = 1; order <= 3; order++) {
+            CountTable countTable = nGramCounts.counts_[order - 1];
+
+            for (int slot = 0; slot < countTable.capacity(); slot++) {
+                int count = countTable.getCount(slot);
+
+                if (count > 0) {
+                    long key = countTable.getKey(slot);
+
+                    long translatedKey = 0;
+                    for (int position = order - 1; position >= 0; position--) {
+                        translatedKey = getKey(translatedKey, ids[getWord(key, position)]);
+                    }
+
+                    counts_[order - 1].add(translatedKey, count);
+                }
+            }
+        }
+    }
+
+    /**
+     * @brief Returns the number of sentences that have been counted
+     *        Each sentence is counted once as the 1-gram SENTENCE_BEGIN, so the number is kept
+     *        when the counts are exported and read back.
+     *
+     * @return The number of sentences that have been counted
+     */
+    public int getNumberOfSentences () {
+        int id = getWordId(SENTENCE_BEGIN);
+
+        return id == NONE ? 0 : getCount(1, id);
+    }
+
+    /**
+     * @brief Writes these counts to an OutputStream
+     *        The counts are written as big endian numbers: MAGIC, VERSION, the number of words,
+     *        the words in the order of their ids and then, for each order, the number of n-grams
+     *        followed by the key and the count of each n-gram.
+     *
+     * @param outputStream
+     *     The OutputStream to write on
+     *
+     * @throws IOException If an I/O error occurs
+     */
+    public void exportToStream (OutputStream outputStream) throws IOException {
+        DataOutputStream dataOutputStream = new DataOutputStream(
+            new BufferedOutputStream(outputStream)
+        );
+
+        dataOutputStream.writeInt(MAGIC);
+        dataOutputStream.writeInt(VERSION);
+
+        dataOutputStream.writeInt(words_.size());
+        for (String word : words_) {
+            dataOutputStream.writeUTF(word);
+        }
+
+        for (CountTable countTable : counts_) {
+            dataOutputStream.writeInt(countTable.size());
+
+            for (int slot = 0; slot < countTable.capacity(); slot++) {
+                if (countTable.getCount(slot) > 0) {
+                    dataOutputStream.writeLong(countTable.getKey(slot));
+                    dataOutputStream.writeInt(countTable.getCount(slot));
+                }
+            }
+        }
+
+        dataOutputStream.flush();
+    }
+
+    /**
+     * @brief Reads counts that have been written with exportToStream
+     *
+     * @param inputStream
+     *     The InputStream to read from
+     *
+     * @return The NGramCounts that have been read
+     *
+     * @throws IOException If an I/O error occurs or the InputStream does not hold NGramCounts
+     */
+    public static NGramCounts createFromInputStream (InputStream inputStream) throws IOException {
+        DataInputStream dataInputStream = new DataInputStream(
+            new BufferedInputStream(inputStream)
+        );
+
+        if (dataInputStream.readInt() != MAGIC || dataInputStream.readInt() != VERSION) {
+            throw new IOException("The stream does not hold n-gram counts of this version.");
+        }
+
+        NGramCounts nGramCounts = new NGramCounts();
+
+        int numberOfWords = dataInputStream.readInt();
+        for (int i = 0; i < numberOfWords; i++) {
+            nGramCounts.addWord(dataInputStream.readUTF());
+        }
+        if (nGramCounts.getNumberOfWords() != numberOfWords) {
+            throw new IOException("The n-gram counts are corrupted.");
+        }
+
+        for (int order = 1; order <= 3; order++) {
+            CountTable countTable = nGramCounts.counts_[order - 1];
+
+            int size = dataInputStream.readInt();
+            if (size < 0) {
+                throw new IOException("The n-gram counts are corrupted.");
+            }
+
+            countTable.reserve(size);
+            for (int i = 0; i < size; i++) {
+                long key = dataInputStream.readLong();
+                int count = dataInputStream.readInt();
+
+                if (count <= 0 || key >>> (order * WORD_ID_BITS) != 0) {
+                    throw new IOException("The n-gram counts are corrupted.");
+                }
+                for (int position = 0; position < order; position++) {
+                    if (getWord(key, position) >= numberOfWords) {
+                        throw new IOException("The n-gram counts are corrupted.");
+                    }
+                }
+
+                countTable.add(key, count);
+            }
+        }
+
+        return nGramCounts;
+    }
+
+    /**
+     * @brief Returns the number of words that have been counted
+     *
+     * @return The number of words that have been counted
+     */
+    int getNumberOfWords () {
+        return words_.size();
+    }
+
+    /**
+     * @brief Returns the word of an id
+     *
+     * @param id
+     *     The id
+     *
+     * @return The word of the id
+     */
+    String getWord (int id) {
+        return words_.get(id);
+    }
+
+    /**
+     * @brief Returns the id of a word
+     *
+     * @param word
+     *     The word
+     *
+     * @return The id of the word or NONE if the word has not been counted
+     */
+    int getWordId (String word) {
+        Integer id = wordIds_.get(word);
+
+        return id != null ? id : NONE;
+    }
+
+    /**
+     * @brief Returns the keys of the n-grams of an order
+     *
+     * @param order
+     *     The order, from 1 to 3
+     *
+     * @return The keys of the n-grams of the order, in no particular order
+     */
+    long[] getKeys (int order) {
+        CountTable countTable = counts_[order - 1];
+
+        long[] keys = new long[countTable.size()];
+        int size = 0;
+        for (int slot = 0; slot < countTable.capacity(); slot++) {
+            if (countTable.getCount(slot) > 0) {
+                keys[size++] = countTable.getKey(slot);
+            }
+        }
+
+        return keys;
+    }
+
+    /**
+     * @brief Returns the count of a n-gram
+     *
+     * @param order
+     *     The order of the n-gram, from 1 to 3
+     * @param key
+     *     The key of the n-gram
+     *
+     * @return The count of the n-gram or 0 if it has not been counted
+     */
+    int getCount (int order, long key) {
+        return counts_[order - 1].get(key);
+    }
+
+    /**
+     * @brief Packs a key and a word id into a new key
+     *
+     * @param key
+     *     The key or 0 for the first word
+     * @param word
+     *     The id of the word
+     *
+     * @return The new key
+     */
+    static long getKey (long key, int word) {
+        return (key << WORD_ID_BITS) | word;
+    }
+
+    /**
+     * @brief Returns the id of a word of a key
+     *
+     * @param key
+     *     The key
+     * @param position
+     *     The position of the word counting from the last one, which is at position 0
+     *
+     * @return The id of the word
+     */
+    static int getWord (long key, int position) {
+        return (int) (key >>> (position * WORD_ID_BITS)) & WORD_ID_MASK;
+    }
+
+    /**
+     * @brief Counts the n-grams that end with a word
+     *
+     * @param first
+     *     The id of the word two words before or NONE
+     * @param second
+     *     The id of the previous word
+     * @param third
+     *     The id of the word
+     */
+    private void add (int first, int second, int third) {
+        counts_[0].add(third, 1);
+        counts_[1].add(getKey(second, third), 1);
+        if (first != NONE) {
+            counts_[2].add(getKey(getKey(first, second), third), 1);
+        }
+    }
+
+    /**
+     * @brief Adds a word to the vocabulary
+     *
+     * @param word
+     *     The word
+     *
+     * @return The id of the word
+     */
+    private int addWord (String word) {
+        Integer id = wordIds_.get(word);
+        if (id != null) {
+            return id;
+        }
+
+        if (words_.size() > WORD_ID_MASK) {
+            throw new IllegalArgumentException("The vocabulary has too many words!");
+        }
+
+        id = words_.size();
+        words_.add(word);
+        wordIds_.put(word, id);
+
+        return id;
+    }
+
+    /**
+     * @class CountTable
+     * @brief An open addressing hash table from long keys to positive int counts
+     *        A slot with a count of 0 is empty.
+     */
+    private static class CountTable {
+
+        /**
+         * @brief Default Constructor
+         */
+        CountTable () {
+            keys_ = new long[INITIAL_CAPACITY];
+            counts_ = new int[INITIAL_CAPACITY];
+        }
+
+        /**
+         * @brief Adds to the count of a key
+         *
+         * @param key
+         *     The key
+         * @param count
+         *     The positive count to add
+         */
+        void add (long key, int count) {
+            int slot = find(key);
+
+            if (counts_[slot] == 0) {
+                keys_[slot] = key;
+                size_++;
+            }
+            counts_[slot] += count;
+
+            if (size_ > keys_.length * MAXIMUM_LOAD_FACTOR) {
+                grow();
+            }
+        }
+
+        /**
+         * @brief Makes room for a number of keys, so that they are added without growing
+         *
+         * @param size
+         *     The number of keys
+         */
+        void reserve (int size) {
+            while (size > keys_.length * MAXIMUM_LOAD_FACTOR) {
+                grow();
+            }
+        }
+
+        /**
+         * @brief Returns the count of a key
+         *
+         * @param key
+         *     The key
+         *
+         * @return The count of the key or 0 if there is no such key
+         */
+        int get (long key) {
+            return counts_[find(key)];
+        }
+
+        /**
+         * @brief Returns the number of keys of this table
+         *
+         * @return The number of keys of this table
+         */
+        int size () {
+            return size_;
+        }
+
+        /**
+         * @brief Returns the number of slots of this table
+         *
+         * @return The number of slots of this table
+         */
+        int capacity () {
+            return keys_.length;
+        }
+
+        /**
+         * @brief Returns the key of a slot
+         *
+         * @param slot
+         *     The slot
+         *
+         * @return The key of the slot, which is meaningless if the slot is empty
+         */
+        long getKey (int slot) {
+            return keys_[slot];
+        }
+
+        /**
+         * @brief Returns the count of a slot
+         *
+         * @param slot
+         *     The slot
+         *
+         * @return The count of the slot or 0 if the slot is empty
+         */
+        int getCount (int slot) {
+            return counts_[slot];
+        }
+
+        /**
+         * @brief Returns the slot of a key or the empty slot where it would be put
+         *
+         * @param key
+         *     The key
+         *
+         * @return The slot
+         */
+        private int find (long key) {
+            int mask = keys_.length - 1;
+
+            int slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+            while (counts_[slot] != 0 && keys_[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+
+            return slot;
+        }
+
+        /**
+         * @brief Doubles the number of slots of this table
+         */
+        private void grow () {
+            long[] keys = keys_;
+            int[] counts = counts_;
+
+            keys_ = new long[2 * keys.length];
+            counts_ = new int[2 * keys.length];
+
+            for (int slot = 0; slot < keys.length; slot++) {
+                if (counts[slot] != 0) {
+                    int newSlot = find(keys[slot]);
+
+                    keys_[newSlot] = keys[slot];
+                    counts_[newSlot] = counts[slot];
+                }
+            }
+        }
+
+        private long[] keys_; //!< The key of each slot
+        private int[] counts_; //!< The count of each slot or 0 if the slot is empty
+        private int size_; //!< The number of keys of this table
+
+        private static final int INITIAL_CAPACITY = 64; //!< The initial number of slots
+        private static final float MAXIMUM_LOAD_FACTOR = 0.5f; //!< The fraction of the slots that
+                                                              //!< may be used before the table
+                                                              //!< grows
+
+    }
+
+    private final List<String> words_; //!< The word of each id
+    private final Map<String, Integer> wordIds_; //!< The id of each word
+
+    private final CountTable[] counts_; //!< The counts of the 1-, 2- and 3-grams
+
+    public static final String SENTENCE_BEGIN = "<s>"; //!< The word that begins each sentence
+    public static final String SENTENCE_END = "</s>"; //!< The word that ends each sentence
+
+    static final int NONE = - 1; //!< The id of a missing word
+
+    private static final int MAGIC = 0x4e47524d; //!< The first int of the exported counts
+    private static final int VERSION = 1; //!< The version of the format of the exported counts
+
+    static final int WORD_ID_BITS = 21; //!< The number of bits of a word id in a key
+    private static final int WORD_ID_MASK = (1 << WORD_ID_BITS) - 1; //!< The mask of a word id
+
+}
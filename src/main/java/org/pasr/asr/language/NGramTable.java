@@ -0,0 +1,119 @@
+package org.pasr.asr.language;
+
+
+/**
+ * @class NGramTable
+ * @brief Defines the read access to the 1-, 2- and 3-grams of a LanguageModel
+ *        The words are identified by ids and the n-grams by indices. A n-gram is first found
+ *        from the ids of its words and its log10 probability and back-off weight are then read
+ *        by its index, so no lookup allocates anything. Probabilities and back-off weights are
+ *        log10 values, as they are written in an ARPA file, and a missing back-off weight is 0.
+ */
+abstract class NGramTable {
+
+    /**
+     * @brief Returns the id of a word
+     *
+     * @param word
+     *     The word
+     *
+     * @return The id of the word or NONE if the word is not in the vocabulary
+     */
+    abstract int getWordId (String word);
+
+    /**
+     * @brief Returns the number of words of the vocabulary
+     *
+     * @return The number of words of the vocabulary
+     */
+    abstract int getNumberOfWords ();
+
+    /**
+     * @brief Finds a 1-gram
+     *
+     * @param word
+     *     The id of the word or NONE
+     *
+     * @return The index of the 1-gram or NONE if there is no such 1-gram
+     */
+    abstract int findUnigram (int word);
+
+    /**
+     * @brief Finds a 2-gram
+     *
+     * @param first
+     *     The id of the first word or NONE
+     * @param second
+     *     The id of the second word or NONE
+     *
+     * @return The index of the 2-gram or NONE if there is no such 2-gram
+     */
+    abstract int findBigram (int first, int second);
+
+    /**
+     * @brief Finds a 3-gram
+     *
+     * @param first
+     *     The id of the first word or NONE
+     * @param second
+     *     The id of the second word or NONE
+     * @param third
+     *     The id of the third word or NONE
+     *
+     * @return The index of the 3-gram or NONE if there is no such 3-gram
+     */
+    abstract int findTrigram (int first, int second, int third);
+
+    /**
+     * @brief Returns the log10 probability of a 1-gram
+     *
+     * @param index
+     *     The index of the 1-gram
+     *
+     * @return The log10 probability
+     */
+    abstract float getUnigramProbability (int index);
+
+    /**
+     * @brief Returns the log10 back-off weight of a 1-gram
+     *
+     * @param index
+     *     The index of the 1-gram
+     *
+     * @return The log10 back-off weight
+     */
+    abstract float getUnigramBackOffWeight (int index);
+
+    /**
+     * @brief Returns the log10 probability of a 2-gram
+     *
+     * @param index
+     *     The index of the 2-gram
+     *
+     * @return The log10 probability
+     */
+    abstract float getBigramProbability (int index);
+
+    /**
+     * @brief Returns the log10 back-off weight of a 2-gram
+     *
+     * @param index
+     *     The index of the 2-gram
+     *
+     * @return The log10 back-off weight
+     */
+    abstract float getBigramBackOffWeight (int index);
+
+    /**
+     * @brief Returns the log10 probability of a 3-gram
+     *
+     * @param index
+     *     The index of the 3-gram
+     *
+     * @return The log10 probability
+     */
+    abstract float getTrigramProbability (int index);
+
+    static final int NONE = - 1; //!< The id of a missing word or the index of a missing n-gram
+
+}
@@ -0,0 +1,354 @@
+package org.pasr.asr.language;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * @class SortedNGramTable
+ * @brief Holds the 1-, 2- and 3-grams of a LanguageModel on the heap
+ *        Each word of the vocabulary gets an id, in the order the words are added. The 1-grams
+ *        are kept in arrays indexed by word id. The 2- and 3-grams are kept in arrays sorted by a
+ *        long key that packs the ids of their words, WORD_ID_BITS bits each, so an n-gram is
+ *        found with a binary search that allocates nothing. Probabilities and back-off weights
+ *        are kept as float log10 values, as they are written in an ARPA file.
+ *
+ *        The n-grams are first put in any order and sort must be called once after the last one
+ *        is put. If the same n-gram is put more than once, the last values are kept. Once sorted,
+ *        a SortedNGramTable is only read and can be used from many threads at once.
+ */
+class SortedNGramTable extends NGramTable {
+
+    /**
+     * @brief Default Constructor
+     */
+    SortedNGramTable () {
+        words_ = new ArrayList<>();
+        wordIds_ = new HashMap<>();
+
+        unigramProbabilities_ = new float[INITIAL_CAPACITY];
+        unigramBackOffWeights_ = new float[INITIAL_CAPACITY];
+        Arrays.fill(unigramProbabilities_, Float.NaN);
+
+        bigramKeys_ = new long[INITIAL_CAPACITY];
+        bigramProbabilities_ = new float[INITIAL_CAPACITY];
+        bigramBackOffWeights_ = new float[INITIAL_CAPACITY];
+
+        trigramKeys_ = new long[INITIAL_CAPACITY];
+        trigramProbabilities_ = new float[INITIAL_CAPACITY];
+    }
+
+    /**
+     * @brief Adds a word to the vocabulary
+     *
+     * @param word
+     *     The word
+     *
+     * @return The id of the word, which is its existing id if it is already in the vocabulary
+     */
+    int addWord (String word) {
+        Integer id = wordIds_.get(word);
+        if (id != null) {
+            return id;
+        }
+
+        if (words_.size() == MAXIMUM_NUMBER_OF_WORDS) {
+            throw new IllegalArgumentException("The vocabulary has too many words!");
+        }
+
+        id = words_.size();
+        words_.add(word);
+        wordIds_.put(word, id);
+
+        if (id == unigramProbabilities_.length) {
+            int capacity = 2 * id;
+
+            unigramProbabilities_ = Arrays.copyOf(unigramProbabilities_, capacity);
+            unigramBackOffWeights_ = Arrays.copyOf(unigramBackOffWeights_, capacity);
+            Arrays.fill(unigramProbabilities_, id, capacity, Float.NaN);
+        }
+
+        return id;
+    }
+
+    @Override
+    int getWordId (String word) {
+        Integer id = wordIds_.get(word);
+
+        return id != null ? id : NONE;
+    }
+
+    /**
+     * @brief Returns the word of an id
+     *
+     * @param id
+     *     The id
+     *
+     * @return The word of the id
+     */
+    String getWord (int id) {
+        return words_.get(id);
+    }
+
+    @Override
+    int getNumberOfWords () {
+        return words_.size();
+    }
+
+    /**
+     * @brief Puts a 1-gram
+     *
+     * @param word
+     *     The id of the word
+     * @param probability
+     *     The log10 probability
+     * @param backOffWeight
+     *     The log10 back-off weight
+     */
+    void putUnigram (int word, float probability, float backOffWeight) {
+        unigramProbabilities_[word] = probability;
+        unigramBackOffWeights_[word] = backOffWeight;
+    }
+
+    /**
+     * @brief Puts a 2-gram
+     *
+     * @param first
+     *     The id of the first word
+     * @param second
+     *     The id of the second word
+     * @param probability
+     *     The log10 probability
+     * @param backOffWeight
+     *     The log10 back-off weight
+     */
+    void putBigram (int first, int second, float probability, float backOffWeight) {
+        if (numberOfBigrams_ == bigramKeys_.length) {
+            int capacity = 2 * numberOfBigrams_;
+
+            bigramKeys_ = Arrays.copyOf(bigramKeys_, capacity);
+            bigramProbabilities_ = Arrays.copyOf(bigramProbabilities_, capacity);
+            bigramBackOffWeights_ = Arrays.copyOf(bigramBackOffWeights_, capacity);
+        }
+
+        bigramKeys_[numberOfBigrams_] = getKey(first, second);
+        bigramProbabilities_[numberOfBigrams_] = probability;
+        bigramBackOffWeights_[numberOfBigrams_] = backOffWeight;
+        numberOfBigrams_++;
+    }
+
+    /**
+     * @brief Puts a 3-gram
+     *
+     * @param first
+     *     The id of the first word
+     * @param second
+     *     The id of the second word
+     * @param third
+     *     The id of the third word
+     * @param probability
+     *     The log10 probability
+     */
+    void putTrigram (int first, int second, int third, float probability) {
+        if (numberOfTrigrams_ == trigramKeys_.length) {
+            int capacity = 2 * numberOfTrigrams_;
+
+            trigramKeys_ = Arrays.copyOf(trigramKeys_, capacity);
+            trigramProbabilities_ = Arrays.copyOf(trigramProbabilities_, capacity);
+        }
+
+        trigramKeys_[numberOfTrigrams_] = getKey(getKey(first, second), third);
+        trigramProbabilities_[numberOfTrigrams_] = probability;
+        numberOfTrigrams_++;
+    }
+
+    /**
+     * @brief Sorts the 2- and 3-grams so that they can be found
+     *        The arrays are also trimmed to the number of n-grams.
+     */
+    void sort () {
+        int[] order = getSortedOrder(bigramKeys_, numberOfBigrams_);
+
+        long[] bigramKeys = new long[numberOfBigrams_];
+        float[] bigramProbabilities = new float[numberOfBigrams_];
+        float[] bigramBackOffWeights = new float[numberOfBigrams_];
+        int numberOfBigrams = 0;
+        for (int i = 0; i < numberOfBigrams_; i++) {
+            // Equal keys keep the order they were put in, so the last one overwrites the others
+            if (numberOfBigrams == 0 || bigramKeys[numberOfBigrams - 1] != bigramKeys_[order[i]]) {
+                numberOfBigrams++;
+            }
+
+            bigramKeys[numberOfBigrams - 1] = bigramKeys_[order[i]];
+            bigramProbabilities[numberOfBigrams - 1] = bigramProbabilities_[order[i]];
+            bigramBackOffWeights[numberOfBigrams - 1] = bigramBackOffWeights_[order[i]];
+        }
+        bigramKeys_ = Arrays.copyOf(bigramKeys, numberOfBigrams);
+        bigramProbabilities_ = Arrays.copyOf(bigramProbabilities, numberOfBigrams);
+        bigramBackOffWeights_ = Arrays.copyOf(bigramBackOffWeights, numberOfBigrams);
+        numberOfBigrams_ = numberOfBigrams;
+
+        order = getSortedOrder(trigramKeys_, numberOfTrigrams_);
+
+        long[] trigramKeys = new long[numberOfTrigrams_];
+        float[] trigramProbabilities = new float[numberOfTrigrams_];
+        int numberOfTrigrams = 0;
+        for (int i = 0; i < numberOfTrigrams_; i++) {
+            if (numberOfTrigrams == 0 ||
+                trigramKeys[numberOfTrigrams - 1] != trigramKeys_[order[i]]) {
+                numberOfTrigrams++;
+            }
+
+            trigramKeys[numberOfTrigrams - 1] = trigramKeys_[order[i]];
+            trigramProbabilities[numberOfTrigrams - 1] = trigramProbabilities_[order[i]];
+        }
+        trigramKeys_ = Arrays.copyOf(trigramKeys, numberOfTrigrams);
+        trigramProbabilities_ = Arrays.copyOf(trigramProbabilities, numberOfTrigrams);
+        numberOfTrigrams_ = numberOfTrigrams;
+
+        int numberOfWords = words_.size();
+        unigramProbabilities_ = Arrays.copyOf(unigramProbabilities_, numberOfWords);
+        unigramBackOffWeights_ = Arrays.copyOf(unigramBackOffWeights_, numberOfWords);
+    }
+
+    @Override
+    int findUnigram (int word) {
+        return word != NONE && ! Float.isNaN(unigramProbabilities_[word]) ? word : NONE;
+    }
+
+    @Override
+    int findBigram (int first, int second) {
+        if (first == NONE || second == NONE) {
+            return NONE;
+        }
+
+        int index = Arrays.binarySearch(bigramKeys_, 0, numberOfBigrams_, getKey(first, second));
+
+        return index >= 0 ? index : NONE;
+    }
+
+    @Override
+    int findTrigram (int first, int second, int third) {
+        if (first == NONE || second == NONE || third == NONE) {
+            return NONE;
+        }
+
+        int index = Arrays.binarySearch(trigramKeys_, 0, numberOfTrigrams_,
+            getKey(getKey(first, second), third));
+
+        return index >= 0 ? index : NONE;
+    }
+
+    @Override
+    float getUnigramProbability (int index) {
+        return unigramProbabilities_[index];
+    }
+
+    @Override
+    float getUnigramBackOffWeight (int index) {
+        return unigramBackOffWeights_[index];
+    }
+
+    @Override
+    float getBigramProbability (int index) {
+        return bigramProbabilities_[index];
+    }
+
+    @Override
+    float getBigramBackOffWeight (int index) {
+        return bigramBackOffWeights_[index];
+    }
+
+    @Override
+    float getTrigramProbability (int index) {
+        return trigramProbabilities_[index];
+    }
+
+    /**
+     * @brief Packs a key and a word id into a new key
+     *
+     * @param key
+     *     The key or the id of a word
+     * @param word
+     *     The id of the word
+     *
+     * @return The new key
+     */
+    private static long getKey (long key, int word) {
+        return (key << WORD_ID_BITS) | word;
+    }
+
+    /**
+     * @brief Returns the order of the keys when they are sorted
+     *        The sort is a merge sort, so equal keys keep their order.
+     *
+     * @param keys
+     *     The keys
+     * @param size
+     *     The number of keys to sort
+     *
+     * @return The indices of the keys in sorted order
+     */
+    private static int[] getSortedOrder (long[] keys, int size) {
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+
+        int[] buffer = new int[size];
+        for (int width = 1; width < size; width *= 2) {
+            for (int begin = 0; begin < size - width; begin += 2 * width) {
+                int middle = begin + width;
+                int end = Integer.min(begin + 2 * width, size);
+
+                // A run that is already in order needs no merge
+                if (keys[order[middle - 1]] <= keys[order[middle]]) {
+                    continue;
+                }
+
+                int left = begin;
+                int right = middle;
+                for (int i = begin; i < end; i++) {
+                    if (right == end ||
+                        (left < middle && keys[order[left]] <= keys[order[right]])) {
+                        buffer[i] = order[left++];
+                    }
+                    else {
+                        buffer[i] = order[right++];
+                    }
+                }
+
+                System.arraycopy(buffer, begin, order, begin, end - begin);
+            }
+        }
+
+        return order;
+    }
+
+    private final List<String> words_; //!< The word of each id
+    private final Map<String, Integer> wordIds_; //!< The id of each word
+
+    private float[] unigramProbabilities_; //!< The log10 probability of the 1-gram of each word
+                                           //!< id or NaN if the word has no 1-gram
+    private float[] unigramBackOffWeights_; //!< The log10 back-off weight of the 1-gram of each
+                                            //!< word id
+
+    private long[] bigramKeys_; //!< The key of each 2-gram
+    private float[] bigramProbabilities_; //!< The log10 probability of each 2-gram
+    private float[] bigramBackOffWeights_; //!< The log10 back-off weight of each 2-gram
+    private int numberOfBigrams_; //!< The number of 2-grams
+
+    private long[] trigramKeys_; //!< The key of each 3-gram
+    private float[] trigramProbabilities_; //!< The log10 probability of each 3-gram
+    private int numberOfTrigrams_; //!< The number of 3-grams
+
+    private static final int WORD_ID_BITS = 21; //!< The number of bits of a word id in a key
+    private static final int MAXIMUM_NUMBER_OF_WORDS = 1 << WORD_ID_BITS; //!< The maximum number
+                                                                           //!< of words of the
+                                                                           //!< vocabulary
+    private static final int INITIAL_CAPACITY = 16; //!< The initial capacity of the arrays
+
+}
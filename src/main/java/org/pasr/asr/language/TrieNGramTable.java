@@ -0,0 +1,357 @@
+package org.pasr.asr.language;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+
+/**
+ * @class TrieNGramTable
+ * @brief Reads the 1-, 2- and 3-grams of a LanguageModel from a CMU Sphinx trie file, the format
+ *        that sphinx_lm_convert writes for .lm.bin files, that is mapped in memory
+ *        The n-grams are read in place from the mapped file and nothing but the words, through
+ *        a BinaryVocabulary, is copied on the heap. The file is written in the byte order of the
+ *        machine that wrote it and only little endian files are supported. It is made of:
+ *
+ *        - HEADER, without a null terminator, the order as one byte and the number of n-grams of
+ *          each order as 4 byte ints
+ *        - Unless the order is 1, an unused int and the quantization tables: 65536 probabilities
+ *          and 65536 back-off weights for each order between 2 and the highest one and 65536
+ *          probabilities for the highest order
+ *        - The 1-grams and one more: a probability, a back-off weight and the index of the first
+ *          child of the word, 12 bytes each
+ *        - For each order above 1, the nodes of that order and one more, bit packed: the id of
+ *          the word, the 16 bit index of the back-off weight and the 16 bit index of the
+ *          probability in the quantization tables and, below the highest order, the index of the
+ *          first child of the node. The highest order only has the index of the probability.
+ *          The nodes of each order are followed by 8 bytes of padding.
+ *        - The words as null terminated UTF-8 strings, after their total size in bytes
+ *
+ *        The trie holds the n-grams with their words reversed: the children of the 1-gram of a
+ *        word are the 2-grams that end with it, sorted by their first word, and so on. The
+ *        probabilities and the back-off weights are logarithms in base LOG_BASE, the default of
+ *        sphinx_lm_convert and pocketsphinx, and are turned to log10 values as they are read.
+ *        The ids of the words are their indices in the 1-grams and the index of a n-gram is the
+ *        index of its node. The methods of this class can be called from any thread.
+ *
+ * @see <a href="https://github.com/cmusphinx/sphinxbase/blob/master/src/libsphinxbase/lm/lm_trie.c">lm_trie.c</a>
+ */
+class TrieNGramTable extends NGramTable {
+
+    /**
+     * @brief Constructor
+     *
+     * @param buffer
+     *     The contents of the trie file, which must start with HEADER
+     *
+     * @throws IOException If the buffer does not hold a trie file of up to 3-grams
+     */
+    TrieNGramTable (ByteBuffer buffer) throws IOException {
+        buffer_ = buffer;
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        int position = HEADER.length();
+        try {
+            order_ = Byte.toUnsignedInt(buffer.get(position++));
+            if (order_ < 1 || order_ > 3) {
+                throw new IOException("Only trie language models of up to 3-grams are " +
+                    "supported, found order: " + order_);
+            }
+
+            int[] counts = new int[order_];
+            for (int i = 0; i < order_; i++) {
+                counts[i] = buffer.getInt(position);
+                position += Integer.BYTES;
+
+                if (counts[i] < 0) {
+                    throw new IOException("The trie language model is corrupted.");
+                }
+            }
+            numberOfWords_ = counts[0];
+
+            if (order_ > 1) {
+                // Skip the unused int
+                position += Integer.BYTES;
+            }
+            tables_ = position;
+            if (order_ > 1) {
+                position += (2 * (order_ - 2) + 1) * TABLE_SIZE * Float.BYTES;
+            }
+
+            unigrams_ = position;
+            position += (numberOfWords_ + 1) * UNIGRAM_SIZE;
+
+            wordBits_ = getRequiredBits(numberOfWords_);
+
+            // The 2-grams are the middle nodes of a 3-gram trie and the last ones otherwise
+            int bigramNextBits = order_ > 2 ? getRequiredBits(counts[2]) : 0;
+            bigramBits_ = wordBits_ + (order_ > 2 ? 2 * QUANTIZATION_BITS : QUANTIZATION_BITS) +
+                bigramNextBits;
+            bigramNextBits_ = bigramNextBits;
+            bigrams_ = position;
+            if (order_ > 1) {
+                position += getLayerSize(counts[1], bigramBits_);
+            }
+
+            trigramBits_ = wordBits_ + QUANTIZATION_BITS;
+            trigrams_ = position;
+            if (order_ > 2) {
+                position += getLayerSize(counts[2], trigramBits_);
+            }
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("The trie language model is truncated.", e);
+        }
+
+        vocabulary_ = new BinaryVocabulary(buffer, position, numberOfWords_);
+
+        if (vocabulary_.getEnd() != buffer.limit()) {
+            throw new IOException("The trie language model is corrupted or big endian.");
+        }
+    }
+
+    @Override
+    int getWordId (String word) {
+        return vocabulary_.getWordId(word);
+    }
+
+    @Override
+    int getNumberOfWords () {
+        return numberOfWords_;
+    }
+
+    @Override
+    int findUnigram (int word) {
+        return word;
+    }
+
+    @Override
+    int findBigram (int first, int second) {
+        if (order_ < 2 || first == NONE || second == NONE) {
+            return NONE;
+        }
+
+        return find(bigrams_, bigramBits_, getFirstChild(second), getFirstChild(second + 1),
+            first);
+    }
+
+    @Override
+    int findTrigram (int first, int second, int third) {
+        if (order_ < 3 || first == NONE) {
+            return NONE;
+        }
+
+        int bigram = findBigram(second, third);
+        if (bigram == NONE) {
+            return NONE;
+        }
+
+        return find(trigrams_, trigramBits_, getFirstTrigram(bigram), getFirstTrigram(bigram + 1),
+            first);
+    }
+
+    @Override
+    float getUnigramProbability (int index) {
+        return toLog10(buffer_.getFloat(unigrams_ + index * UNIGRAM_SIZE));
+    }
+
+    @Override
+    float getUnigramBackOffWeight (int index) {
+        return toLog10(buffer_.getFloat(unigrams_ + index * UNIGRAM_SIZE + Float.BYTES));
+    }
+
+    @Override
+    float getBigramProbability (int index) {
+        long quantization = (long) index * bigramBits_ + wordBits_;
+
+        // The highest order has no back-off weights and its probabilities are in the last table
+        if (order_ == 2) {
+            return getTableValue(0, read(bigrams_, quantization, QUANTIZATION_BITS));
+        }
+
+        return getTableValue(0, read(bigrams_, quantization + QUANTIZATION_BITS,
+            QUANTIZATION_BITS));
+    }
+
+    @Override
+    float getBigramBackOffWeight (int index) {
+        if (order_ == 2) {
+            return 0;
+        }
+
+        return getTableValue(1, read(bigrams_, (long) index * bigramBits_ + wordBits_,
+            QUANTIZATION_BITS));
+    }
+
+    @Override
+    float getTrigramProbability (int index) {
+        return getTableValue(2, read(trigrams_, (long) index * trigramBits_ + wordBits_,
+            QUANTIZATION_BITS));
+    }
+
+    /**
+     * @brief Returns the index of the first 2-gram that ends with a word
+     *
+     * @param word
+     *     The id of the word, which may be the number of words
+     *
+     * @return The index of the first 2-gram that ends with the word
+     */
+    private int getFirstChild (int word) {
+        return buffer_.getInt(unigrams_ + word * UNIGRAM_SIZE + 2 * Float.BYTES);
+    }
+
+    /**
+     * @brief Returns the index of the first 3-gram that ends with a 2-gram
+     *
+     * @param bigram
+     *     The index of the 2-gram, which may be the number of 2-grams
+     *
+     * @return The index of the first 3-gram that ends with the 2-gram
+     */
+    private int getFirstTrigram (int bigram) {
+        return read(bigrams_, (long) (bigram + 1) * bigramBits_ - bigramNextBits_,
+            bigramNextBits_);
+    }
+
+    /**
+     * @brief Finds a node by the id of its word in a range of nodes sorted by it
+     *
+     * @param offset
+     *     The offset of the nodes in the file
+     * @param bits
+     *     The size of a node in bits
+     * @param begin
+     *     The index of the first node of the range
+     * @param end
+     *     The index after the last node of the range
+     * @param word
+     *     The id of the word
+     *
+     * @return The index of the node or NONE if there is no such node
+     */
+    private int find (int offset, int bits, int begin, int end, int word) {
+        int low = begin;
+        int high = end - 1;
+
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int current = read(offset, (long) middle * bits, wordBits_);
+
+            if (current < word) {
+                low = middle + 1;
+            }
+            else if (current > word) {
+                high = middle - 1;
+            }
+            else {
+                return middle;
+            }
+        }
+
+        return NONE;
+    }
+
+    /**
+     * @brief Reads a bit packed value
+     *        The bits are numbered from the least significant bit of each byte, so a value is
+     *        the bits of the little endian long at its first byte, shifted by its first bit.
+     *
+     * @param offset
+     *     The offset of the nodes of the value in the file
+     * @param bit
+     *     The index of the first bit of the value from the offset
+     * @param length
+     *     The number of bits of the value, at most 32
+     *
+     * @return The value
+     */
+    private int read (int offset, long bit, int length) {
+        long bits = buffer_.getLong(offset + (int) (bit >>> 3)) >>> (bit & 7);
+
+        return (int) (bits & ((1L << length) - 1));
+    }
+
+    /**
+     * @brief Returns a value of a quantization table
+     *
+     * @param table
+     *     The table counted from the first one: 0 for the 2-gram probabilities, 1 for the 2-gram
+     *     back-off weights and 2 for the 3-gram probabilities
+     * @param index
+     *     The index of the value in the table
+     *
+     * @return The log10 value
+     */
+    private float getTableValue (int table, int index) {
+        return toLog10(buffer_.getFloat(tables_ + (table * TABLE_SIZE + index) * Float.BYTES));
+    }
+
+    /**
+     * @brief Returns the number of bits needed to hold a value
+     *
+     * @param value
+     *     The value, which must not be negative
+     *
+     * @return The number of bits needed to hold the value, which is 0 for 0
+     */
+    private static int getRequiredBits (int value) {
+        return Integer.SIZE - Integer.numberOfLeadingZeros(value);
+    }
+
+    /**
+     * @brief Returns the size in bytes of the nodes of an order
+     *
+     * @param count
+     *     The number of n-grams of the order
+     * @param bits
+     *     The size of a node in bits
+     *
+     * @return The size in bytes of the nodes
+     */
+    private static int getLayerSize (int count, int bits) {
+        return (int) (((count + 1L) * bits + 7) / 8) + Long.BYTES;
+    }
+
+    /**
+     * @brief Turns a logarithm in base LOG_BASE to a log10 value
+     *
+     * @param value
+     *     The logarithm in base LOG_BASE
+     *
+     * @return The log10 value
+     */
+    private static float toLog10 (float value) {
+        return (float) (value * LOG10_OF_LOG_BASE);
+    }
+
+    private final ByteBuffer buffer_; //!< The contents of the trie file
+
+    private final int order_; //!< The highest order of the n-grams
+    private final int numberOfWords_; //!< The number of words and 1-grams
+
+    private final int tables_; //!< The offset of the quantization tables in the file
+    private final int unigrams_; //!< The offset of the 1-grams in the file
+    private final int bigrams_; //!< The offset of the 2-gram nodes in the file
+    private final int trigrams_; //!< The offset of the 3-gram nodes in the file
+
+    private final int wordBits_; //!< The number of bits of a word id
+    private final int bigramBits_; //!< The size of a 2-gram node in bits
+    private final int bigramNextBits_; //!< The number of bits of the index of the first child of
+                                       //!< a 2-gram node
+    private final int trigramBits_; //!< The size of a 3-gram node in bits
+
+    private final BinaryVocabulary vocabulary_; //!< The words of the trie file
+
+    static final String HEADER = "Trie Language Model"; //!< The header of a trie file
+
+    static final double LOG_BASE = 1.0001; //!< The base of the logarithms of the file
+    private static final double LOG10_OF_LOG_BASE = Math.log10(LOG_BASE); //!< The log10 of
+                                                                          //!< LOG_BASE
+
+    private static final int TABLE_SIZE = 1 << 16; //!< The number of values of a quantization
+                                                   //!< table
+    private static final int QUANTIZATION_BITS = 16; //!< The number of bits of the index of a
+                                                     //!< value in a quantization table
+    private static final int UNIGRAM_SIZE = 12; //!< The size of a 1-gram in bytes
+
+}
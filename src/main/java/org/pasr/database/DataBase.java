@@ -2,9 +2,10 @@ package org.pasr.database;
 
 import org.apache.commons.io.FileUtils;
 import org.pasr.asr.dictionary.Dictionary;
+import org.pasr.asr.language.LanguageModelEstimator;
+import org.pasr.asr.language.NGramCounts;
 import org.pasr.database.corpus.Index;
 import org.pasr.database.processes.AcousticModelProcess;
-import org.pasr.database.processes.LanguageModelProcess;
 import org.pasr.prep.corpus.Corpus;
 import org.pasr.prep.corpus.WordSequence;
 import org.pasr.prep.recorder.Recorder;
@@ -12,25 +13,32 @@ import org.pasr.prep.recorder.Recorder;
 import javax.sound.sampled.AudioFileFormat;
 import javax.sound.sampled.AudioInputStream;
 import javax.sound.sampled.AudioSystem;
+import java.io.BufferedWriter;
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.PrintWriter;
-import java.nio.file.Paths;
-import java.util.ArrayList;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Scanner;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 
 /**
@@ -140,11 +148,13 @@ public class DataBase {
         }
     }
 
-    private Corpus loadCorpusFromDirectory (File directory) throws IOException {
+    private static Corpus loadCorpusFromDirectory (File directory) throws IOException {
         Map<Long, String> documentTitleMap = new HashMap<>();
 
         try {
-            Scanner documentTitleScanner = new Scanner(new File(directory, "document_titles.txt"));
+            Scanner documentTitleScanner = new Scanner(
+                new File(directory, DOCUMENT_TITLES_FILE_NAME)
+            );
             while (documentTitleScanner.hasNextLine()) {
                 Matcher matcher = Pattern.compile("([0-9]+) (.+)")
                     .matcher(documentTitleScanner.nextLine());
@@ -155,24 +165,25 @@ public class DataBase {
             }
             documentTitleScanner.close();
         } catch (FileNotFoundException e) {
-            throw new FileNotFoundException("document_titles.txt");
+            throw new FileNotFoundException(DOCUMENT_TITLES_FILE_NAME);
         }
 
-        ArrayList<WordSequence> sentences = new ArrayList<>();
+        // The sentences are added to the Corpus one by one, so only the Corpus holds their words
+        Corpus corpus = new Corpus();
 
         Pattern sentencePattern = Pattern.compile("<s> (.*) </s>");
 
         Scanner sentencesScanner;
         try {
-            sentencesScanner = new Scanner(new File(directory, "sentences.txt"));
+            sentencesScanner = new Scanner(new File(directory, SENTENCES_FILE_NAME));
         } catch (FileNotFoundException e) {
-            throw new FileNotFoundException("sentences.txt");
+            throw new FileNotFoundException(SENTENCES_FILE_NAME);
         }
         Scanner documentIdsScanner;
         try {
-            documentIdsScanner = new Scanner(new File(directory, "document_ids.txt"));
+            documentIdsScanner = new Scanner(new File(directory, DOCUMENT_IDS_FILE_NAME));
         } catch (FileNotFoundException e) {
-            throw new FileNotFoundException("document_ids.txt");
+            throw new FileNotFoundException(DOCUMENT_IDS_FILE_NAME);
         }
 
         while (sentencesScanner.hasNextLine()) {
@@ -184,16 +195,16 @@ public class DataBase {
                     documentId = Long.parseLong(documentIdsScanner.nextLine());
                 }
                 else {
-                    throw new IOException("Malformed file: document_ids.txt");
+                    throw new IOException("Malformed file: " + DOCUMENT_IDS_FILE_NAME);
                 }
 
                 if (documentTitleMap.containsKey(documentId)) {
-                    sentences.add(new WordSequence(
+                    corpus.add(new WordSequence(
                         matcher.group(1), documentId, documentTitleMap.get(documentId)
                     ));
                 }
                 else {
-                    throw new IOException("Malformed file: document_titles.txt");
+                    throw new IOException("Malformed file: " + DOCUMENT_TITLES_FILE_NAME);
                 }
             }
         }
@@ -201,7 +212,7 @@ public class DataBase {
         sentencesScanner.close();
         documentIdsScanner.close();
 
-        return new Corpus(sentences);
+        return corpus;
     }
 
     /**
@@ -215,7 +226,7 @@ public class DataBase {
      * @throws FileNotFoundException If the Dictionary does not exist
      */
     public Dictionary getDictionaryById (int id) throws FileNotFoundException {
-        return Dictionary.createFromStream(new FileInputStream(getDictionaryPathById(id)));
+        return Dictionary.createFromFile(getDictionaryPathById(id));
     }
 
     /**
@@ -230,7 +241,7 @@ public class DataBase {
      */
     public String getDictionaryPathById (int id) throws FileNotFoundException {
         String path = configuration_.getCorpusDirectoryPath() +
-            String.valueOf(id) + "/dictionary.dict";
+            String.valueOf(id) + "/" + DICTIONARY_FILE_NAME;
 
         if (! (new File(path).isFile())) {
             // TODO Maybe don't throw an exception but first, try creating a new dictionary
@@ -252,7 +263,7 @@ public class DataBase {
      */
     public String getLanguageModelPathById (int id) throws FileNotFoundException {
         String path = configuration_.getCorpusDirectoryPath() +
-            String.valueOf(id) + "/language_model.lm";
+            String.valueOf(id) + "/" + LANGUAGE_MODEL_FILE_NAME;
 
         if ((! new File(path).isFile())) {
             // TODO Maybe don't throw an exception but first, try creating a new language model
@@ -347,64 +358,248 @@ public class DataBase {
             throw new IOException("Could not create directory: " + newCorpusDirectory.getPath());
         }
 
-        saveCorpusToDirectory(corpus, newCorpusDirectory);
+        saveToCorpusDirectory(newCorpusDirectory, corpus, dictionary);
+
+        corpusIndex_.add(new Index.Entry(newCorpusId, corpus.getName()));
+
+        return newCorpusId;
+    }
 
-        saveDictionaryToDirectory(dictionary, newCorpusDirectory);
+    /**
+     * @brief Writes the files of a new Corpus entry to its directory
+     *
+     * @param corpusDirectory
+     *     The directory of the Corpus entry
+     * @param corpus
+     *     The Corpus of the entry
+     * @param dictionary
+     *     The Dictionary of the Corpus
+     *
+     * @throws IOException If an I/O error occurs
+     */
+    static void saveToCorpusDirectory (File corpusDirectory, Corpus corpus,
+                                       Dictionary dictionary) throws IOException {
+
+        saveCorpus(corpus, new File(corpusDirectory, SENTENCES_FILE_NAME),
+            new File(corpusDirectory, DOCUMENT_IDS_FILE_NAME),
+            new File(corpusDirectory, DOCUMENT_TITLES_FILE_NAME));
+
+        saveDictionary(dictionary, new File(corpusDirectory, DICTIONARY_FILE_NAME),
+            new File(corpusDirectory, UNKNOWN_WORDS_FILE_NAME));
 
         // Create language model for this corpus
-        try {
-            new LanguageModelProcess(
-                Paths.get(newCorpusDirectory.getPath(), "sentences.txt"),
-                Paths.get(newCorpusDirectory.getPath(), "language_model.lm"),
-                3
-            ).startAndWaitFor();
-        } catch (IOException | InterruptedException e) {
-            throw new IOException("Could not create language model.\n" +
-                "Exception Message: " + e.getMessage());
-        }
+        saveLanguageModel(NGramCounts.createFromCorpus(corpus),
+            new File(corpusDirectory, NGRAM_COUNTS_FILE_NAME),
+            new File(corpusDirectory, LANGUAGE_MODEL_FILE_NAME));
+    }
 
-        corpusIndex_.add(new Index.Entry(newCorpusId, corpus.getName()));
+    /**
+     * @brief Appends the sentences of a Corpus to an existing Corpus entry
+     *        The n-gram counts of the entry are read back and only the new sentences are counted,
+     *        so the language model is derived again without counting the sentences of the entry.
+     *        The sentences of documents that the entry already holds are skipped.
+     *
+     * @param id
+     *     The id of the Corpus entry
+     * @param corpus
+     *     The Corpus with the new sentences, which is left unchanged
+     * @param dictionary
+     *     The Dictionary of the new sentences, whose entries are added to the Dictionary of the
+     *     Corpus entry
+     *
+     * @return The number of sentences that were appended
+     *
+     * @throws IOException If the Corpus entry does not exist or an I/O error occurs
+     */
+    public int appendToCorpusEntry (int id, Corpus corpus, Dictionary dictionary)
+        throws IOException {
 
-        return newCorpusId;
+        if (! corpusIndex_.containsId(id)) {
+            throw new IllegalArgumentException("Id does not exist.");
+        }
+
+        return appendToCorpusDirectory(
+            new File(configuration_.getCorpusDirectoryPath(), String.valueOf(id)), corpus,
+            dictionary
+        );
     }
 
-    private void saveCorpusToDirectory (Corpus corpus, File directory)
-        throws FileNotFoundException {
+    /**
+     * @brief Appends the sentences of a Corpus to the files of a Corpus entry directory
+     *        Every file that changes is first written in full to a temporary copy, so an error
+     *        while writing leaves the entry as it was. The copies are then moved into place, the
+     *        n-gram counts last. The counts hold the number of sentences they have counted, so
+     *        counts that disagree with sentences.txt, because they are missing, unreadable or
+     *        were left behind when the process died during the moves, are counted again from
+     *        sentences.txt.
+     *
+     * @param corpusDirectory
+     *     The directory of the Corpus entry
+     * @param corpus
+     *     The Corpus with the new sentences
+     * @param dictionary
+     *     The Dictionary of the new sentences
+     *
+     * @return The number of sentences that were appended
+     *
+     * @throws IOException If an I/O error occurs
+     */
+    static int appendToCorpusDirectory (File corpusDirectory, Corpus corpus,
+                                        Dictionary dictionary) throws IOException {
+
+        File sentencesFile = new File(corpusDirectory, SENTENCES_FILE_NAME);
+        File documentIdsFile = new File(corpusDirectory, DOCUMENT_IDS_FILE_NAME);
+        File documentTitlesFile = new File(corpusDirectory, DOCUMENT_TITLES_FILE_NAME);
+        File dictionaryFile = new File(corpusDirectory, DICTIONARY_FILE_NAME);
+        File unknownWordsFile = new File(corpusDirectory, UNKNOWN_WORDS_FILE_NAME);
+        File languageModelFile = new File(corpusDirectory, LANGUAGE_MODEL_FILE_NAME);
+        File nGramCountsFile = new File(corpusDirectory, NGRAM_COUNTS_FILE_NAME);
+
+        // Appending the same documents twice would count their sentences twice
+        Set<Long> documentIds = readDocumentIds(documentIdsFile);
+        Corpus newCorpus = new Corpus(corpus.stream()
+            .filter(sentence -> ! documentIds.contains(sentence.getDocumentId()))
+            .collect(Collectors.toList()));
+
+        if (newCorpus.isEmpty()) {
+            return 0;
+        }
 
-        PrintWriter sentencesPrintWriter;
-        try {
-            sentencesPrintWriter = new PrintWriter(new File(directory, "sentences.txt"));
+        NGramCounts nGramCounts = readNGramCounts(nGramCountsFile);
+        long numberOfSentences;
+        try (Stream<String> lines = Files.lines(sentencesFile.toPath(), CHARSET)) {
+            numberOfSentences = lines.count();
+        }
+        if (nGramCounts == null || nGramCounts.getNumberOfSentences() != numberOfSentences) {
+            nGramCounts = NGramCounts.createFromCorpus(loadCorpusFromDirectory(corpusDirectory));
+        }
+        nGramCounts.addAll(NGramCounts.createFromCorpus(newCorpus));
+
+        Dictionary corpusDictionary = Dictionary.createFromFile(dictionaryFile.getPath());
+        dictionary.forEach(corpusDictionary:: putIfAbsent);
+        try (Scanner scanner = new Scanner(unknownWordsFile)) {
+            while (scanner.hasNextLine()) {
+                corpusDictionary.addUnknownWord(scanner.nextLine());
+            }
         } catch (FileNotFoundException e) {
-            throw new FileNotFoundException("sentences.txt");
+            throw new FileNotFoundException(UNKNOWN_WORDS_FILE_NAME);
         }
+        dictionary.getUnknownWords().forEach(corpusDictionary:: addUnknownWord);
 
-        PrintWriter documentIdSPrintWriter;
+        // The counts are moved last, so that they are counted again if a move is missed
+        File[] files = {
+            sentencesFile, documentIdsFile, documentTitlesFile, dictionaryFile, unknownWordsFile,
+            languageModelFile, nGramCountsFile
+        };
         try {
-            documentIdSPrintWriter = new PrintWriter(
-                new File(directory, "document_ids.txt")
-            );
-        } catch (FileNotFoundException e) {
-            throw new FileNotFoundException("document_ids.txt");
+            for (File file : new File[] {sentencesFile, documentIdsFile, documentTitlesFile}) {
+                Files.copy(file.toPath(), getTemporaryFile(file).toPath(),
+                    StandardCopyOption.REPLACE_EXISTING);
+            }
+            saveCorpus(newCorpus, getTemporaryFile(sentencesFile),
+                getTemporaryFile(documentIdsFile), getTemporaryFile(documentTitlesFile));
+
+            saveDictionary(corpusDictionary, getTemporaryFile(dictionaryFile),
+                getTemporaryFile(unknownWordsFile));
+
+            saveLanguageModel(nGramCounts, getTemporaryFile(nGramCountsFile),
+                getTemporaryFile(languageModelFile));
+
+            for (File file : files) {
+                Files.move(getTemporaryFile(file).toPath(), file.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+        } finally {
+            for (File file : files) {
+                Files.deleteIfExists(getTemporaryFile(file).toPath());
+            }
         }
 
-        corpus.forEach(sentence -> {
-            sentencesPrintWriter.println("<s> " + sentence + " </s>");
-            documentIdSPrintWriter.println(sentence.getDocumentId());
-        });
+        return newCorpus.size();
+    }
 
-        sentencesPrintWriter.close();
-        documentIdSPrintWriter.close();
+    /**
+     * @brief Returns the temporary copy of a file of a Corpus entry
+     *
+     * @param file
+     *     The file
+     *
+     * @return The temporary copy of the file, in the same directory
+     */
+    private static File getTemporaryFile (File file) {
+        return new File(file.getParentFile(), file.getName() + TEMPORARY_FILE_EXTENSION);
+    }
 
-        PrintWriter documentTitlesPrintWriter;
-        try {
-            documentTitlesPrintWriter = new PrintWriter(
-                new File(directory, "document_titles.txt")
-            );
-        } catch (FileNotFoundException e) {
-            throw new FileNotFoundException("document_titles.txt");
+    /**
+     * @brief Reads the ids of the documents of the sentences of a Corpus entry
+     *
+     * @param documentIdsFile
+     *     The document ids file of the entry
+     *
+     * @return The ids of the documents
+     *
+     * @throws IOException If the file cannot be read or is malformed
+     */
+    private static Set<Long> readDocumentIds (File documentIdsFile) throws IOException {
+        try (Stream<String> lines = Files.lines(documentIdsFile.toPath(), CHARSET)) {
+            return lines.map(Long:: parseLong).collect(Collectors.toSet());
+        } catch (NumberFormatException e) {
+            throw new IOException("Malformed file: " + DOCUMENT_IDS_FILE_NAME);
+        }
+    }
+
+    /**
+     * @brief Reads the n-gram counts of a Corpus entry
+     *
+     * @param nGramCountsFile
+     *     The n-gram counts file of the entry
+     *
+     * @return The n-gram counts or null if the entry has no readable counts
+     */
+    private static NGramCounts readNGramCounts (File nGramCountsFile) {
+        // Corpus entries that were created before the counts were saved have none
+        if (! nGramCountsFile.isFile()) {
+            return null;
+        }
+
+        try (InputStream inputStream = new FileInputStream(nGramCountsFile)) {
+            return NGramCounts.createFromInputStream(inputStream);
+        } catch (IOException e) {
+            logger_.log(Level.WARNING, "Could not read " + nGramCountsFile.getPath() +
+                ", the sentences will be counted again.", e);
+            return null;
+        }
+    }
+
+    /**
+     * @brief Appends the sentences of a Corpus to the text files of a Corpus entry
+     *        The files are created if they do not exist.
+     *
+     * @param corpus
+     *     The Corpus
+     * @param sentencesFile
+     *     The file of the sentences
+     * @param documentIdsFile
+     *     The file of the document id of each sentence
+     * @param documentTitlesFile
+     *     The file of the title of each document
+     *
+     * @throws IOException If an I/O error occurs
+     */
+    private static void saveCorpus (Corpus corpus, File sentencesFile, File documentIdsFile,
+                                    File documentTitlesFile) throws IOException {
+
+        try (BufferedWriter sentencesWriter = newAppendingWriter(sentencesFile);
+             BufferedWriter documentIdsWriter = newAppendingWriter(documentIdsFile)) {
+            for (WordSequence sentence : corpus) {
+                sentencesWriter.write("<s> " + sentence + " </s>");
+                sentencesWriter.newLine();
+                documentIdsWriter.write(String.valueOf(sentence.getDocumentId()));
+                documentIdsWriter.newLine();
+            }
         }
 
-        corpus.stream()
+        Map<Long, String> documentTitles = corpus.stream()
             .collect(Collectors.toMap(
                 WordSequence:: getDocumentId, WordSequence:: getDocumentTitle,
                 (title1, title2) -> {
@@ -417,38 +612,66 @@ public class DataBase {
                     }
                     return title1;
                 }
-            ))
-            .entrySet()
-            .forEach(
-                entry -> documentTitlesPrintWriter.println(entry.getKey() + " " + entry.getValue())
-            );
+            ));
 
-        documentTitlesPrintWriter.close();
+        try (BufferedWriter documentTitlesWriter = newAppendingWriter(documentTitlesFile)) {
+            for (Map.Entry<Long, String> entry : documentTitles.entrySet()) {
+                documentTitlesWriter.write(entry.getKey() + " " + entry.getValue());
+                documentTitlesWriter.newLine();
+            }
+        }
     }
 
-    private void saveDictionaryToDirectory (Dictionary dictionary, File directory)
-        throws IOException {
+    /**
+     * @brief Opens a writer that appends to a file, creating it if it does not exist
+     *        Unlike a PrintWriter, the writer throws the I/O errors it meets.
+     *
+     * @param file
+     *     The file
+     *
+     * @return The writer
+     *
+     * @throws IOException If the file cannot be opened
+     */
+    private static BufferedWriter newAppendingWriter (File file) throws IOException {
+        return Files.newBufferedWriter(file.toPath(), CHARSET, StandardOpenOption.CREATE,
+            StandardOpenOption.APPEND);
+    }
 
-        try {
-            FileOutputStream dictionaryOutputStream = new FileOutputStream(
-                new File(directory, "dictionary.dict")
-            );
+    private static void saveLanguageModel (NGramCounts nGramCounts, File nGramCountsFile,
+                                           File languageModelFile) throws IOException {
 
-            dictionary.exportToStream(dictionaryOutputStream);
-            dictionaryOutputStream.close();
+        try (OutputStream outputStream = new FileOutputStream(nGramCountsFile)) {
+            nGramCounts.exportToStream(outputStream);
         } catch (IOException e) {
-            throw new IOException("dictionary.dict");
+            throw new IOException(NGRAM_COUNTS_FILE_NAME, e);
         }
 
+        try (OutputStream outputStream = new FileOutputStream(languageModelFile)) {
+            LanguageModelEstimator.estimate(nGramCounts, outputStream);
+        } catch (IOException e) {
+            throw new IOException("Could not create language model.\n" +
+                "Exception Message: " + e.getMessage(), e);
+        }
+    }
+
+    private static void saveDictionary (Dictionary dictionary, File dictionaryFile,
+                                        File unknownWordsFile) throws IOException {
+
+        // exportToStream writes through a PrintWriter, which hides the I/O errors, so the
+        // entries are exported to memory and written from there
+        ByteArrayOutputStream dictionaryOutputStream = new ByteArrayOutputStream();
+        dictionary.exportToStream(dictionaryOutputStream);
         try {
-            PrintWriter unknownWordPrintWriter = new PrintWriter(
-                new File(directory, "unknown_words.txt")
-            );
+            Files.write(dictionaryFile.toPath(), dictionaryOutputStream.toByteArray());
+        } catch (IOException e) {
+            throw new IOException(DICTIONARY_FILE_NAME, e);
+        }
 
-            dictionary.getUnknownWords().forEach(unknownWordPrintWriter:: println);
-            unknownWordPrintWriter.close();
-        } catch (FileNotFoundException e) {
-            throw new FileNotFoundException("unknown_words.txt");
+        try {
+            Files.write(unknownWordsFile.toPath(), dictionary.getUnknownWords(), CHARSET);
+        } catch (IOException e) {
+            throw new IOException(UNKNOWN_WORDS_FILE_NAME, e);
         }
     }
 
@@ -564,6 +787,21 @@ public class DataBase {
 
     private static DataBase instance_; //!< The instance of this singleton
 
-    private final Logger logger_ = Logger.getLogger(DataBase.class.getName()); //!< The logger
+    private static final Logger logger_ = Logger.getLogger(DataBase.class.getName()); //!< The
+                                                                                       //!< logger
+
+    private static final String SENTENCES_FILE_NAME = "sentences.txt";
+    private static final String DOCUMENT_IDS_FILE_NAME = "document_ids.txt";
+    private static final String DOCUMENT_TITLES_FILE_NAME = "document_titles.txt";
+    private static final String DICTIONARY_FILE_NAME = "dictionary.dict";
+    private static final String UNKNOWN_WORDS_FILE_NAME = "unknown_words.txt";
+    private static final String LANGUAGE_MODEL_FILE_NAME = "language_model.lm";
+    private static final String NGRAM_COUNTS_FILE_NAME = "ngram_counts.bin";
+    private static final String TEMPORARY_FILE_EXTENSION = ".tmp"; //!< The extension of the
+                                                                   //!< temporary copy of a file
+
+    private static final Charset CHARSET = Charset.defaultCharset(); //!< The charset of the text
+                                                                     //!< files, which are read
+                                                                     //!< with Scanner
 
 }
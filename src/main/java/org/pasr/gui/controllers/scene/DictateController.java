@@ -21,6 +21,7 @@ import org.pasr.asr.recognizers.RealTimeSpeechRecognizer.Stage;
 import org.pasr.database.DataBase;
 import org.pasr.gui.console.Console;
 import org.pasr.gui.corpus.CorpusPane;
+import org.pasr.postp.correctors.CorrectionSession;
 import org.pasr.postp.correctors.Corrector;
 import org.pasr.postp.detectors.POSDetector;
 import org.pasr.prep.corpus.Corpus;
@@ -415,6 +416,9 @@ public class DictateController extends Controller implements Observer {
         void stop () {
             aSRTextAreaText_ += aSROutput_ + "\n";
             correctedTextAreaText_ += corrected_ + "\n";
+
+            // The next hypothesis belongs to a new utterance
+            correctionSession_ = null;
         }
 
         void process (String aSROutput) {
@@ -425,8 +429,13 @@ public class DictateController extends Controller implements Observer {
                 return;
             }
 
+            // Only the part of the hypothesis that changed since the last one is corrected again
+            if (correctionSession_ == null) {
+                correctionSession_ = corrector_.newSession();
+            }
+
             aSROutput_ = aSROutput;
-            corrected_ = corrector_.correct(aSROutput_);
+            corrected_ = correctionSession_.update(aSROutput_);
 
             updateASRTextArea();
             updateCorrectedTextArea();
@@ -445,6 +454,8 @@ public class DictateController extends Controller implements Observer {
 
         private String aSROutput_ = "";
         private String corrected_ = "";
+
+        private CorrectionSession correctionSession_;
     }
 
     @Override
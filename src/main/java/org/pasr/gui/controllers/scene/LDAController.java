@@ -11,6 +11,7 @@ import javafx.scene.layout.AnchorPane;
 import org.apache.commons.collections4.MultiValuedMap;
 import org.pasr.asr.dictionary.Dictionary;
 import org.pasr.database.DataBase;
+import org.pasr.database.corpus.Index;
 import org.pasr.gui.console.Console;
 import org.pasr.gui.dialog.CorpusNameDialog;
 import org.pasr.gui.dialog.LDAInteractDialog;
@@ -27,6 +28,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Observable;
 import java.util.Observer;
+import java.util.Optional;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
@@ -227,9 +229,8 @@ public class LDAController extends Controller {
                 Dictionary dictionary = corpus.process(dictionary_);
 
                 try {
-                    corpusInformation.put(
-                        DataBase.getInstance().newCorpusEntry(corpus, dictionary), corpus.getName()
-                    );
+                    corpusInformation.put(saveCorpus(database, corpus, dictionary),
+                        corpus.getName());
                 } catch (IOException e) {
                     Console.getInstance().postMessage("There was an error trying to save the a" +
                         " corpus.\n" +
@@ -243,9 +244,13 @@ public class LDAController extends Controller {
         }
         else {
             try {
-                CorpusNameDialog corpusNameDialog = new CorpusNameDialog("corpus_" +
-                    String.valueOf(database.getNumberOfCorpora() + 1)
-                );
+                // Corpora may have been deleted, so the next number might already be taken
+                int number = database.getNumberOfCorpora() + 1;
+                while (getCorpusEntry(database, "corpus_" + number).isPresent()) {
+                    number++;
+                }
+
+                CorpusNameDialog corpusNameDialog = new CorpusNameDialog("corpus_" + number);
                 corpusNameDialog.showAndWait();
 
                 corpus_.setName(corpusNameDialog.getValue());
@@ -260,9 +265,8 @@ public class LDAController extends Controller {
             }
 
             try {
-                corpusInformation.put(
-                    DataBase.getInstance().newCorpusEntry(corpus_, dictionary_), corpus_.getName()
-                );
+                corpusInformation.put(saveCorpus(database, corpus_, dictionary_),
+                    corpus_.getName());
             } catch (IOException e) {
                 Console.getInstance().postMessage("There was an error trying to save the a" +
                     " corpus.\n" +
@@ -342,6 +346,64 @@ public class LDAController extends Controller {
         }
     }
 
+    /**
+     * @brief Saves a Corpus to the DataBase
+     *        If a corpus with the same name exists, the user is asked whether the e-mails should be
+     *        added to it. The e-mails that the corpus already holds are not added again. If the
+     *        user declines, or there is no such corpus, a new corpus is created.
+     *
+     * @param database
+     *     The DataBase
+     * @param corpus
+     *     The Corpus to save
+     * @param dictionary
+     *     The Dictionary of the Corpus
+     *
+     * @return The id of the corpus that holds the e-mails
+     *
+     * @throws IOException If an I/O error occurs or the yes/no dialog cannot be loaded
+     */
+    private int saveCorpus (DataBase database, Corpus corpus, Dictionary dictionary)
+        throws IOException {
+
+        Optional<Index.Entry> existingEntry = getCorpusEntry(database, corpus.getName());
+
+        if (existingEntry.isPresent()) {
+            YesNoDialog yesNoDialog = new YesNoDialog(false, "A corpus named \"" +
+                corpus.getName() + "\" already exists. Add the e-mails to it?");
+            yesNoDialog.showAndWait();
+
+            if (yesNoDialog.getValue()) {
+                int id = existingEntry.get().getId();
+
+                if (database.appendToCorpusEntry(id, corpus, dictionary) == 0) {
+                    Console.getInstance().postMessage("The chosen e-mails are already in the" +
+                        " corpus: " + corpus.getName());
+                }
+
+                return id;
+            }
+        }
+
+        return database.newCorpusEntry(corpus, dictionary);
+    }
+
+    /**
+     * @brief Returns the corpus entry with the given name
+     *
+     * @param database
+     *     The DataBase
+     * @param name
+     *     The name of the corpus
+     *
+     * @return The corpus entry or an empty Optional if there is no corpus with the given name
+     */
+    private static Optional<Index.Entry> getCorpusEntry (DataBase database, String name) {
+        return database.getCorpusEntryList().stream()
+            .filter(entry -> entry.getName().equals(name))
+            .findFirst();
+    }
+
     private class DictionaryThread extends Thread {
 
         DictionaryThread () {
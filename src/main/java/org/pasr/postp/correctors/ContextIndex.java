@@ -0,0 +1,535 @@
+package org.pasr.postp.correctors;
+
+import org.pasr.prep.corpus.Corpus;
+import org.pasr.prep.corpus.WordSequence;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+
+/**
+ * @class ContextIndex
+ * @brief Implements a positional word index over the sentences of a Corpus
+ *        The index answers the context queries of the Corrector without running regular
+ *        expressions on the corpus. A context is a sequence of words on the left and a sequence
+ *        of words on the right of a changeable part and the candidates of a context are the spans
+ *        of the sentences that lie between the two sequences.
+ *
+ *        The matching is done on the String of each sentence, the same way the regular expression
+ *        "(?<=LEFT )(.*)(?= RIGHT)" would match. This means that the first word of the left
+ *        context may match the end of a sentence word and the last word of the right context may
+ *        match the beginning of a sentence word.
+ */
+class ContextIndex {
+
+    /**
+     * @brief Constructor
+     *
+     * @param corpus
+     *     The Corpus to index
+     */
+    ContextIndex (Corpus corpus) {
+        int numberOfSentences = corpus.size();
+
+        sentenceTexts_ = new String[numberOfSentences];
+        sentenceTokens_ = new int[numberOfSentences][];
+        tokenOffsets_ = new int[numberOfSentences][];
+
+        Map<String, Integer> vocabulary = new HashMap<>();
+        List<String> words = new ArrayList<>();
+        List<long[]> postings = new ArrayList<>();
+        List<Integer> postingSizes = new ArrayList<>();
+
+        for (int s = 0; s < numberOfSentences; s++) {
+            WordSequence wordSequence = corpus.get(s);
+            String text = wordSequence.toString();
+
+            String[] tokens = text.isEmpty() ? new String[0] : text.split(" ");
+            int numberOfTokens = tokens.length;
+
+            int[] tokenIds = new int[numberOfTokens];
+            int[] offsets = new int[numberOfTokens];
+
+            int offset = 0;
+            for (int t = 0; t < numberOfTokens; t++) {
+                Integer id = vocabulary.get(tokens[t]);
+                if (id == null) {
+                    id = words.size();
+                    vocabulary.put(tokens[t], id);
+                    words.add(tokens[t]);
+                    postings.add(new long[4]);
+                    postingSizes.add(0);
+                }
+
+                long[] posting = postings.get(id);
+                int postingSize = postingSizes.get(id);
+                if (postingSize == posting.length) {
+                    posting = Arrays.copyOf(posting, 2 * postingSize);
+                    postings.set(id, posting);
+                }
+                posting[postingSize] = pack(s, t);
+                postingSizes.set(id, postingSize + 1);
+
+                tokenIds[t] = id;
+                offsets[t] = offset;
+                offset += tokens[t].length() + 1;
+            }
+
+            sentenceTexts_[s] = text;
+            sentenceTokens_[s] = tokenIds;
+            tokenOffsets_[s] = offsets;
+        }
+
+        vocabulary_ = vocabulary;
+        words_ = words.toArray(new String[words.size()]);
+
+        postings_ = new long[words_.length][];
+        for (int i = 0, n = words_.length; i < n; i++) {
+            postings_[i] = Arrays.copyOf(postings.get(i), postingSizes.get(i));
+        }
+
+        // The words that begin with a prefix are a range of the sorted words and the words that
+        // end with a suffix are a range of the sorted reversed words
+        String[] reversedWords = new String[words_.length];
+        for (int id = 0, n = words_.length; id < n; id++) {
+            reversedWords[id] = reverse(words_[id]);
+        }
+
+        prefixOrder_ = getSortedIds(words_);
+        prefixWords_ = getSorted(words_, prefixOrder_);
+        suffixOrder_ = getSortedIds(reversedWords);
+        suffixWords_ = getSorted(reversedWords, suffixOrder_);
+    }
+
+    /**
+     * @brief Returns the number of sentences in this index
+     *
+     * @return The number of sentences in this index
+     */
+    int numberOfSentences () {
+        return sentenceTokens_.length;
+    }
+
+    /**
+     * @brief Returns the number of words of a sentence
+     *
+     * @param sentence
+     *     The index of the sentence
+     *
+     * @return The number of words of the sentence
+     */
+    int numberOfWords (int sentence) {
+        return sentenceTokens_[sentence].length;
+    }
+
+    /**
+     * @brief Returns the String of the span [beginIndex, endIndex) of a sentence
+     *
+     * @param sentence
+     *     The index of the sentence
+     * @param beginIndex
+     *     The index of the first word of the span inclusive
+     * @param endIndex
+     *     The index of the last word of the span exclusive
+     *
+     * @return The String of the span
+     */
+    String getSpan (int sentence, int beginIndex, int endIndex) {
+        if (beginIndex >= endIndex) {
+            return "";
+        }
+
+        String text = sentenceTexts_[sentence];
+        int[] offsets = tokenOffsets_[sentence];
+
+        return text.substring(
+            offsets[beginIndex],
+            endIndex == offsets.length ? text.length() : offsets[endIndex] - 1
+        );
+    }
+
+    /**
+     * @brief Finds, for each sentence, the first word that follows the given left context
+     *        A word at index a follows the left context if the String of the sentence contains
+     *        the words of the context followed by a space right before the word.
+     *
+     * @param left
+     *     The words of the left context
+     *
+     * @return The Matches, one for each sentence, holding the smallest index a
+     */
+    Matches matchLeft (String[] left) {
+        int k = left.length;
+
+        List<Long> occurrences = new ArrayList<>();
+
+        // Anchor the search on the least frequent word of the context that must match exactly.
+        // Only the first word of the left context can match partially.
+        int anchor = - 1;
+        long[] anchorPosting = null;
+        for (int i = 1; i < k; i++) {
+            long[] posting = getPosting(left[i]);
+
+            if (anchorPosting == null || posting.length < anchorPosting.length) {
+                anchor = i;
+                anchorPosting = posting;
+            }
+        }
+
+        if (anchorPosting != null) {
+            for (long packed : anchorPosting) {
+                int sentence = sentenceOf(packed);
+                int begin = positionOf(packed) - anchor;
+
+                if (begin >= 0 && begin + k < numberOfWords(sentence) &&
+                    matches(sentence, begin, left, true)) {
+                    occurrences.add(pack(sentence, begin + k));
+                }
+            }
+        }
+        else {
+            String suffix = reverse(left[0]);
+            for (int i = lowerBound(suffixWords_, suffix),
+                 n = prefixEnd(suffixWords_, i, suffix); i < n; i++) {
+                for (long packed : postings_[suffixOrder_[i]]) {
+                    int sentence = sentenceOf(packed);
+                    int end = positionOf(packed) + 1;
+
+                    if (end < numberOfWords(sentence)) {
+                        occurrences.add(pack(sentence, end));
+                    }
+                }
+            }
+        }
+
+        return Matches.reduce(occurrences, true);
+    }
+
+    /**
+     * @brief Finds, for each sentence, the last word that is followed by the given right context
+     *        The right context starts at a word at index b if the String of the sentence contains
+     *        a space followed by the words of the context right before the word.
+     *
+     * @param right
+     *     The words of the right context
+     *
+     * @return The Matches, one for each sentence, holding the largest index b
+     */
+    Matches matchRight (String[] right) {
+        int k = right.length;
+
+        List<Long> occurrences = new ArrayList<>();
+
+        // Anchor the search on the least frequent word of the context that must match exactly.
+        // Only the last word of the right context can match partially.
+        int anchor = - 1;
+        long[] anchorPosting = null;
+        for (int i = 0; i < k - 1; i++) {
+            long[] posting = getPosting(right[i]);
+
+            if (anchorPosting == null || posting.length < anchorPosting.length) {
+                anchor = i;
+                anchorPosting = posting;
+            }
+        }
+
+        if (anchorPosting != null) {
+            for (long packed : anchorPosting) {
+                int sentence = sentenceOf(packed);
+                int begin = positionOf(packed) - anchor;
+
+                if (begin >= 1 && begin + k <= numberOfWords(sentence) &&
+                    matches(sentence, begin, right, false)) {
+                    occurrences.add(pack(sentence, begin));
+                }
+            }
+        }
+        else {
+            String prefix = right[0];
+            for (int i = lowerBound(prefixWords_, prefix),
+                 n = prefixEnd(prefixWords_, i, prefix); i < n; i++) {
+                for (long packed : postings_[prefixOrder_[i]]) {
+                    int position = positionOf(packed);
+
+                    if (position >= 1) {
+                        occurrences.add(pack(sentenceOf(packed), position));
+                    }
+                }
+            }
+        }
+
+        return Matches.reduce(occurrences, false);
+    }
+
+    /**
+     * @brief Returns true if and only if the given context matches the sentence at the given index
+     *
+     * @param sentence
+     *     The index of the sentence
+     * @param begin
+     *     The index of the word of the sentence where the context begins
+     * @param context
+     *     The words of the context
+     * @param left
+     *     Whether the context is a left context (its first word may match partially) or a right
+     *     context (its last word may match partially)
+     *
+     * @return True if and only if the given context matches
+     */
+    private boolean matches (int sentence, int begin, String[] context, boolean left) {
+        int[] tokens = sentenceTokens_[sentence];
+
+        for (int i = 0, k = context.length; i < k; i++) {
+            String word = words_[tokens[begin + i]];
+
+            if (left && i == 0) {
+                if (! word.endsWith(context[i])) {
+                    return false;
+                }
+            }
+            else if (! left && i == k - 1) {
+                if (! word.startsWith(context[i])) {
+                    return false;
+                }
+            }
+            else if (! word.equals(context[i])) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @brief Returns the posting list of a word
+     *
+     * @param word
+     *     The word
+     *
+     * @return The posting list of the word or an empty array if the word is not indexed
+     */
+    private long[] getPosting (String word) {
+        Integer id = vocabulary_.get(word);
+
+        return id == null ? EMPTY_POSTING : postings_[id];
+    }
+
+    /**
+     * @brief Returns the index of the first String of a sorted array that is not less than a key
+     *
+     * @param sorted
+     *     The sorted array
+     * @param key
+     *     The key
+     *
+     * @return The index of the first String that is not less than the key
+     */
+    private static int lowerBound (String[] sorted, String key) {
+        int low = 0;
+        int high = sorted.length;
+
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+
+            if (sorted[middle].compareTo(key) < 0) {
+                low = middle + 1;
+            }
+            else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * @brief Returns the end of the range of a sorted array whose Strings begin with a prefix
+     *        An empty prefix matches no String, the same way no word has an empty suffix or
+     *        prefix.
+     *
+     * @param sorted
+     *     The sorted array
+     * @param begin
+     *     The lower bound of the prefix in the array
+     * @param prefix
+     *     The prefix
+     *
+     * @return The index after the last String that begins with the prefix
+     */
+    private static int prefixEnd (String[] sorted, int begin, String prefix) {
+        if (prefix.isEmpty()) {
+            return begin;
+        }
+
+        int low = begin;
+        int high = sorted.length;
+
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+
+            if (sorted[middle].startsWith(prefix)) {
+                low = middle + 1;
+            }
+            else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * @brief Returns the ids of some Strings sorted by the Strings
+     *
+     * @param strings
+     *     The Strings, indexed by id
+     *
+     * @return The ids sorted by the Strings
+     */
+    private static int[] getSortedIds (String[] strings) {
+        return IntStream.range(0, strings.length)
+            .boxed()
+            .sorted(Comparator.comparing(id -> strings[id]))
+            .mapToInt(Integer:: intValue)
+            .toArray();
+    }
+
+    private static String[] getSorted (String[] strings, int[] sortedIds) {
+        String[] sorted = new String[sortedIds.length];
+        for (int i = 0, n = sortedIds.length; i < n; i++) {
+            sorted[i] = strings[sortedIds[i]];
+        }
+
+        return sorted;
+    }
+
+    private static String reverse (String string) {
+        return new StringBuilder(string).reverse().toString();
+    }
+
+    private static long pack (int sentence, int position) {
+        return ((long) sentence << 32) | position;
+    }
+
+    private static int sentenceOf (long packed) {
+        return (int) (packed >>> 32);
+    }
+
+    private static int positionOf (long packed) {
+        return (int) packed;
+    }
+
+    /**
+     * @class Matches
+     * @brief Holds at most one word index for each sentence, ordered by sentence index
+     */
+    static class Matches {
+
+        /**
+         * @brief Constructor
+         *
+         * @param sentences
+         *     The sentence indices in ascending order
+         * @param positions
+         *     The word index for each sentence
+         */
+        private Matches (int[] sentences, int[] positions) {
+            sentences_ = sentences;
+            positions_ = positions;
+        }
+
+        /**
+         * @brief Reduces a List of packed occurrences to one occurrence per sentence
+         *
+         * @param occurrences
+         *     The packed occurrences
+         * @param first
+         *     Whether to keep the smallest (true) or the largest (false) word index of each
+         *     sentence
+         *
+         * @return The reduced Matches
+         */
+        private static Matches reduce (List<Long> occurrences, boolean first) {
+            long[] sorted = occurrences.stream().mapToLong(Long:: longValue).sorted().toArray();
+
+            int[] sentences = new int[sorted.length];
+            int[] positions = new int[sorted.length];
+            int size = 0;
+
+            for (long packed : sorted) {
+                int sentence = sentenceOf(packed);
+
+                if (size > 0 && sentences[size - 1] == sentence) {
+                    if (! first) {
+                        positions[size - 1] = positionOf(packed);
+                    }
+                }
+                else {
+                    sentences[size] = sentence;
+                    positions[size] = positionOf(packed);
+                    size++;
+                }
+            }
+
+            return new Matches(Arrays.copyOf(sentences, size), Arrays.copyOf(positions, size));
+        }
+
+        /**
+         * @brief Returns the number of sentences in these Matches
+         *
+         * @return The number of sentences in these Matches
+         */
+        int size () {
+            return sentences_.length;
+        }
+
+        /**
+         * @brief Returns the sentence index of the i-th match
+         *
+         * @param i
+         *     The index of the match
+         *
+         * @return The sentence index of the i-th match
+         */
+        int getSentence (int i) {
+            return sentences_[i];
+        }
+
+        /**
+         * @brief Returns the word index of the i-th match
+         *
+         * @param i
+         *     The index of the match
+         *
+         * @return The word index of the i-th match
+         */
+        int getPosition (int i) {
+            return positions_[i];
+        }
+
+        private final int[] sentences_; //!< The sentence indices in ascending order
+        private final int[] positions_; //!< The word index for each sentence
+    }
+
+    private final String[] sentenceTexts_; //!< The String of each sentence
+    private final int[][] sentenceTokens_; //!< The word ids of each sentence
+    private final int[][] tokenOffsets_; //!< The character offset of each word of each sentence
+
+    private final Map<String, Integer> vocabulary_; //!< Maps each word to its id
+    private final String[] words_; //!< Maps each id to its word
+    private final long[][] postings_; //!< The packed (sentence, word index) occurrences of each
+                                      //!< word in ascending order
+
+    private final int[] prefixOrder_; //!< The word ids sorted by their words
+    private final String[] prefixWords_; //!< The words in the order of prefixOrder_
+    private final int[] suffixOrder_; //!< The word ids sorted by their reversed words
+    private final String[] suffixWords_; //!< The reversed words in the order of suffixOrder_
+
+    private static final long[] EMPTY_POSTING = new long[0];
+
+}
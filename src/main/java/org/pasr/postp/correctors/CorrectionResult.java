@@ -0,0 +1,52 @@
+package org.pasr.postp.correctors;
+
+
+/**
+ * @class CorrectionResult
+ * @brief Holds the result of a correction that had a time limit
+ */
+public class CorrectionResult {
+
+    /**
+     * @brief Constructor
+     *
+     * @param text
+     *     The corrected String
+     * @param completed
+     *     True if the correction completed before its time limit
+     */
+    CorrectionResult (String text, boolean completed) {
+        text_ = text;
+        completed_ = completed;
+    }
+
+    /**
+     * @brief Returns the corrected String
+     *        If the correction was truncated, this is the best correction found before the time
+     *        limit. The changeable parts that were not reached are kept as they were.
+     *
+     * @return The corrected String
+     */
+    public String getText () {
+        return text_;
+    }
+
+    /**
+     * @brief Returns true if the correction completed before its time limit
+     *        A completed correction gives the same String as Corrector.correct without a time limit.
+     *
+     * @return True if the correction completed before its time limit
+     */
+    public boolean isCompleted () {
+        return completed_;
+    }
+
+    @Override
+    public String toString () {
+        return text_;
+    }
+
+    private final String text_; //!< The corrected String
+    private final boolean completed_; //!< True if the correction completed before its time limit
+
+}
@@ -0,0 +1,220 @@
+package org.pasr.postp.correctors;
+
+import org.pasr.prep.corpus.Corpus;
+import org.pasr.prep.corpus.Word;
+import org.pasr.prep.corpus.WordSequence;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static java.lang.Integer.max;
+import static java.lang.Integer.min;
+
+
+/**
+ * @class CorrectionSession
+ * @brief Corrects a hypothesis that changes over time, like the partial hypotheses of a real time
+ *        speech recognizer
+ *        Each update is compared with the previous one and only the part after the longest common
+ *        prefix is processed again. The replacement of a changeable part is kept if the part,
+ *        everything before it and the words on its right that its contexts use have not changed.
+ *
+ *        If every detector of the Corrector is local (see Detector.isLocal), the error words of
+ *        the common prefix are kept and new error words are taken only for the changed words and
+ *        the word before them, which is the neighbour that getChangeablePartList also marks. The
+ *        detectors see a few more words on the left as context. Otherwise the error words of the
+ *        whole hypothesis are detected again on each update, since a changed suffix can change
+ *        the error words of the prefix.
+ *
+ *        In both cases the result is the same as the one of Corrector.correct.
+ */
+public class CorrectionSession {
+
+    /**
+     * @brief Constructor
+     *
+     * @param corrector
+     *     The Corrector to correct with
+     * @param corpus
+     *     The Corpus of the Corrector
+     * @param onTheLeft
+     *     The String that precedes the hypothesis
+     */
+    CorrectionSession (Corrector corrector, Corpus corpus, String onTheLeft) {
+        corrector_ = corrector;
+        corpus_ = corpus;
+        onTheLeft_ = onTheLeft;
+
+        words_ = Collections.emptyList();
+        errorWordIndexSet_ = new HashSet<>();
+        rangeList_ = new ArrayList<>();
+        rightContextList_ = new ArrayList<>();
+        substituteList_ = new ArrayList<>();
+        wordsResult_ = "";
+        result_ = "";
+    }
+
+    /**
+     * @brief Updates the hypothesis of this session
+     *
+     * @param hypothesis
+     *     The new hypothesis
+     *
+     * @return The corrected hypothesis
+     */
+    public String update (String hypothesis) {
+        if (hypothesis == null) {
+            throw new IllegalArgumentException("hypothesis must not be null!");
+        }
+
+        // If the hypothesis is contained inside the corpus as is, consider it correct.
+        if (corpus_.contains(hypothesis)) {
+            result_ = hypothesis;
+            return result_;
+        }
+
+        WordSequence inputWS = new WordSequence(hypothesis);
+        List<String> words = inputWS.getWordTextList();
+        int size = words.size();
+
+        // The replacements are taken from the corpus and scored with the phones of the
+        // dictionary, so nothing can be kept if either of them has changed
+        int modificationCount = corrector_.getModificationCount();
+        if (modificationCount != modificationCount_) {
+            words_ = Collections.emptyList();
+            modificationCount_ = modificationCount;
+        }
+
+        int commonPrefix = 0;
+        for (int n = min(size, words_.size()); commonPrefix < n; commonPrefix++) {
+            if (! words.get(commonPrefix).equals(words_.get(commonPrefix))) {
+                break;
+            }
+        }
+
+        if (commonPrefix == size && size == words_.size()) {
+            result_ = wordsResult_;
+            return result_;
+        }
+
+        int detectionBegin = corrector_.hasOnlyLocalDetectors() ?
+            max(0, commonPrefix - NEIGHBOUR_WINDOW) : 0;
+
+        Set<Integer> errorWordIndexSet = new HashSet<>();
+        for (int index : errorWordIndexSet_) {
+            if (index < detectionBegin) {
+                errorWordIndexSet.add(index);
+            }
+        }
+
+        int contextBegin = max(0, detectionBegin - DETECTION_CONTEXT);
+        WordSequence detectionPart = inputWS.subSequence(contextBegin);
+        for (Word word : corrector_.getErrorWordSet(detectionPart)) {
+            int index = contextBegin + detectionPart.indexOf(word);
+
+            if (index >= detectionBegin) {
+                errorWordIndexSet.add(index);
+            }
+        }
+
+        List<Corrector.Range> rangeList = Corrector.getChangeablePartList(
+            errorWordIndexSet, size
+        );
+        List<List<String>> rightContextList = new ArrayList<>();
+        List<WordSequence> substituteList = new ArrayList<>();
+
+        WordSequence onTheLeftWS = new WordSequence(onTheLeft_);
+        int previousRight = 0;
+        boolean reusable = true;
+        for (int i = 0, n = rangeList.size(); i < n; i++) {
+            Corrector.Range part = rangeList.get(i);
+
+            onTheLeftWS.addAll(inputWS.subSequence(previousRight, part.getLeft()));
+
+            int rightEnd = i < n - 1 ? rangeList.get(i + 1).getLeft() : size;
+            List<String> rightContext = words.subList(part.getRight(), min(
+                rightEnd, part.getRight() + Corrector.REGULAR_EXPRESSION_SPAN
+            ));
+
+            // Everything before this part is the same as before, so the replacement can be kept if
+            // the part and the words on its right that its contexts use are also the same.
+            reusable = reusable && i < rangeList_.size() &&
+                part.getLeft() == rangeList_.get(i).getLeft() &&
+                part.getRight() == rangeList_.get(i).getRight() &&
+                part.getRight() <= commonPrefix &&
+                rightContext.equals(rightContextList_.get(i));
+
+            WordSequence substitute;
+            if (reusable) {
+                substitute = substituteList_.get(i);
+            }
+            else {
+                substitute = corrector_.scoreAndReplace(
+                    onTheLeftWS,
+                    inputWS.subSequence(part.getLeft(), part.getRight()),
+                    inputWS.subSequence(part.getRight(), rightEnd)
+                );
+            }
+
+            onTheLeftWS.addAll(substitute);
+            previousRight = part.getRight();
+
+            rightContextList.add(new ArrayList<>(rightContext));
+            substituteList.add(substitute);
+        }
+
+        words_ = words;
+        errorWordIndexSet_ = errorWordIndexSet;
+        rangeList_ = rangeList;
+        rightContextList_ = rightContextList;
+        substituteList_ = substituteList;
+
+        if (rangeList.isEmpty()) {
+            result_ = hypothesis;
+        }
+        else {
+            onTheLeftWS.addAll(inputWS.subSequence(previousRight));
+
+            String result = onTheLeftWS.toString();
+            result_ = corrector_.checkResult(result) ? result : hypothesis;
+        }
+        wordsResult_ = result_;
+
+        return result_;
+    }
+
+    /**
+     * @brief Returns the corrected hypothesis of the last update
+     *
+     * @return The corrected hypothesis of the last update
+     */
+    public String getResult () {
+        return result_;
+    }
+
+    private final Corrector corrector_; //!< The Corrector of this session
+    private final Corpus corpus_; //!< The Corpus of the Corrector
+    private final String onTheLeft_; //!< The String that precedes the hypothesis
+
+    private List<String> words_; //!< The words of the last corrected hypothesis
+    private Set<Integer> errorWordIndexSet_; //!< The indices of the error words of the last
+                                             //!< corrected hypothesis
+    private List<Corrector.Range> rangeList_; //!< The changeable parts of the last corrected
+                                              //!< hypothesis
+    private List<List<String>> rightContextList_; //!< The words on the right of each changeable
+                                                  //!< part that its contexts use
+    private List<WordSequence> substituteList_; //!< The replacement of each changeable part
+    private int modificationCount_; //!< The modification count of the corpus and the dictionary
+                                    //!< at the last update
+    private String wordsResult_; //!< The result of the last corrected hypothesis
+    private String result_; //!< The corrected hypothesis of the last update
+
+    private static final int NEIGHBOUR_WINDOW = 1; //!< The number of words before the first
+                                                   //!< changed word that are detected again
+    private static final int DETECTION_CONTEXT = 5; //!< The number of words on the left that the
+                                                    //!< detectors see as context
+
+}
@@ -5,17 +5,28 @@ import org.pasr.postp.detectors.Detector;
 import org.pasr.prep.corpus.Corpus;
 import org.pasr.prep.corpus.Word;
 import org.pasr.prep.corpus.WordSequence;
-import org.pasr.utilities.LevenshteinMatrix;
+import org.pasr.utilities.EditDistancePattern;
+import org.pasr.utilities.LRUCache;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 import static java.lang.Integer.min;
@@ -48,6 +59,29 @@ public class Corrector {
         dictionary_ = dictionary;
 
         detectorList_ = new ArrayList<>();
+        detectorTimeList_ = new ArrayList<>();
+
+        correctorIndex_ = new CorrectorIndex(corpus, dictionary);
+        phoneCache_ = correctorIndex_.getPhoneCache();
+    }
+
+    /**
+     * @brief Constructor
+     *        Creates a Corrector that shares the corpus, the dictionary and the structures built
+     *        from them with another Corrector. The new Corrector has no detectors.
+     *
+     * @param corrector
+     *     The Corrector to share with
+     */
+    Corrector (Corrector corrector) {
+        corpus_ = corrector.corpus_;
+        dictionary_ = corrector.dictionary_;
+
+        detectorList_ = new ArrayList<>();
+        detectorTimeList_ = new ArrayList<>();
+
+        correctorIndex_ = corrector.correctorIndex_;
+        phoneCache_ = correctorIndex_.getPhoneCache();
     }
 
     /**
@@ -62,6 +96,134 @@ public class Corrector {
         }
 
         detectorList_.add(detector);
+        detectorTimeList_.add(new AtomicLong());
+
+        // The cached results were found without this detector
+        if (resultCache_ != null) {
+            resultCache_.clear();
+        }
+    }
+
+    /**
+     * @brief Sets the number of threads that this Corrector uses to score the candidates
+     *        With a parallelism of 1 the candidates are scored on the calling thread. With a
+     *        greater parallelism the corpus is split into shards that are scored on a
+     *        ForkJoinPool. The result is the same in both cases.
+     *
+     * @param parallelism
+     *     The number of threads
+     */
+    public void setParallelism (int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be positive!");
+        }
+
+        if (forkJoinPool_ != null) {
+            forkJoinPool_.shutdown();
+            forkJoinPool_ = null;
+        }
+
+        if (parallelism > 1) {
+            forkJoinPool_ = new ForkJoinPool(parallelism);
+        }
+
+        parallelism_ = parallelism;
+    }
+
+    /**
+     * @brief Returns the number of threads that this Corrector uses to score the candidates
+     *
+     * @return The number of threads that this Corrector uses to score the candidates
+     */
+    public int getParallelism () {
+        return parallelism_;
+    }
+
+    /**
+     * @brief Sets the executor that runs the detectors of this Corrector
+     *        With an executor the detectors run concurrently and as soon as the error words that
+     *        they have found cover every word, the remaining ones are cancelled. The executor can
+     *        be shared with other Correctors and is not shut down by this Corrector. Each detector
+     *        still runs on a single thread at a time for the same Corrector.
+     *
+     * @param executorService
+     *     The executor or null to run the detectors one after the other on the calling thread
+     */
+    public void setDetectorExecutor (ExecutorService executorService) {
+        detectorExecutor_ = executorService;
+    }
+
+    /**
+     * @brief Returns the time spent inside each detector of this Corrector
+     *
+     * @return A Map from each detector, in the order they were added, to the total time in
+     *         nanoseconds spent inside it
+     */
+    public Map<Detector, Long> getDetectorTimes () {
+        Map<Detector, Long> detectorTimes = new LinkedHashMap<>();
+
+        for (int i = 0, n = detectorList_.size(); i < n; i++) {
+            detectorTimes.put(detectorList_.get(i), detectorTimeList_.get(i).get());
+        }
+
+        return detectorTimes;
+    }
+
+    /**
+     * @brief Enables the cache of the results of this Corrector
+     *        The results of correct are cached keyed by the input and the last words on the left,
+     *        which are the only ones that take part in the scoring. The cache is cleared whenever
+     *        the corpus or the dictionary is modified or a detector is added. Results of a
+     *        correction that reached its time limit are not cached.
+     *
+     * @param capacity
+     *     The maximum number of cached results
+     * @param maximumMemory
+     *     The maximum estimated memory of the cached results in bytes
+     */
+    public void enableResultCache (int capacity, long maximumMemory) {
+        resultCache_ = new LRUCache<>(capacity, maximumMemory, (key, value) ->
+            RESULT_CACHE_ENTRY_MEMORY + 2L * (
+                key.get(0).length() + key.get(1).length() + value.orElse("").length()
+            )
+        );
+        resultCacheModificationCount_ = correctorIndex_.getModificationCount();
+    }
+
+    /**
+     * @brief Disables the cache of the results of this Corrector and drops the cached results
+     */
+    public void disableResultCache () {
+        resultCache_ = null;
+    }
+
+    /**
+     * @brief Returns the number of corrections that were found in the result cache
+     *
+     * @return The number of corrections that were found in the result cache or 0 if it is disabled
+     */
+    public long getResultCacheHitCount () {
+        return resultCache_ == null ? 0 : resultCache_.getHitCount();
+    }
+
+    /**
+     * @brief Returns the number of corrections that were not found in the result cache
+     *
+     * @return The number of corrections that were not found in the result cache or 0 if it is
+     *         disabled
+     */
+    public long getResultCacheMissCount () {
+        return resultCache_ == null ? 0 : resultCache_.getMissCount();
+    }
+
+    /**
+     * @brief Returns the fraction of the corrections that were found in the result cache
+     *
+     * @return The fraction of the corrections that were found in the result cache or 0 if it is
+     *         disabled
+     */
+    public double getResultCacheHitRate () {
+        return resultCache_ == null ? 0 : resultCache_.getHitRate();
     }
 
     /**
@@ -99,19 +261,127 @@ public class Corrector {
             throw new IllegalArgumentException("input must not be null!");
         }
 
+        return correct(onTheLeft, input, Deadline.NONE);
+    }
+
+    /**
+     * @brief Corrects a given String within a time limit
+     *        The contexts of each changeable part are visited starting from the ones with the most
+     *        words. When the time limit is reached, each changeable part is replaced using the
+     *        contexts that have been fully visited and the changeable parts that have not been
+     *        reached are kept as they are. The detection of the error words and the search of a
+     *        changeable part that has no context are not interrupted.
+     *
+     * @param onTheLeft
+     *     The String that precedes the input
+     * @param input
+     *     The String to correct
+     * @param timeout
+     *     The time limit in milliseconds
+     *
+     * @return The CorrectionResult
+     */
+    public CorrectionResult correct (String onTheLeft, String input, long timeout) {
+        if (onTheLeft == null) {
+            throw new IllegalArgumentException("onTheLeft must not be null!");
+        }
+
+        if (input == null) {
+            throw new IllegalArgumentException("input must not be null!");
+        }
+
+        if (timeout < 0) {
+            throw new IllegalArgumentException("timeout must not be negative!");
+        }
+
+        Deadline deadline = new Deadline(timeout);
+
+        String result = correct(onTheLeft, input, deadline);
+
+        return new CorrectionResult(result, ! deadline.isTruncated());
+    }
+
+    /**
+     * @brief Corrects a given String
+     *        If the result cache is enabled, the result is looked up there first.
+     *
+     * @param onTheLeft
+     *     The String that precedes the input
+     * @param input
+     *     The String to correct
+     * @param deadline
+     *     The Deadline of the correction
+     *
+     * @return The corrected String
+     */
+    private String correct (String onTheLeft, String input, Deadline deadline) {
+        WordSequence onTheLeftWS = new WordSequence(onTheLeft);
+        String onTheLeftText = onTheLeftWS.toString();
+
+        List<String> cacheKey = null;
+        if (resultCache_ != null) {
+            // The cached corrections are taken from the corpus and scored with the phones of the
+            // dictionary, so they are not valid anymore if either of them has changed.
+            int modificationCount = correctorIndex_.getModificationCount();
+            if (modificationCount != resultCacheModificationCount_) {
+                resultCache_.clear();
+                resultCacheModificationCount_ = modificationCount;
+            }
+
+            // Only the last words on the left take part in the scoring, so the rest of them are
+            // left out of the key.
+            int sizeOnTheLeft = onTheLeftWS.size();
+            cacheKey = Arrays.asList(
+                onTheLeftWS.subSequence(
+                    Integer.max(0, sizeOnTheLeft - REGULAR_EXPRESSION_SPAN)
+                ).toString(),
+                input
+            );
+
+            Optional<String> correction = resultCache_.get(cacheKey);
+            if (correction != null) {
+                return correction.isPresent() ?
+                    join(onTheLeftText, correction.get()) : input;
+            }
+        }
+
+        String correction = correct(onTheLeftWS, input, deadline);
+
+        // A truncated correction depends on the time it had, so it is not cached
+        if (cacheKey != null && ! deadline.isTruncated()) {
+            resultCache_.put(cacheKey, Optional.ofNullable(correction));
+        }
+
+        return correction == null ? input : join(onTheLeftText, correction);
+    }
+
+    /**
+     * @brief Corrects a given String
+     *
+     * @param onTheLeftWS
+     *     The WordSequence that precedes the input. The corrected words are added to it
+     * @param input
+     *     The String to correct
+     * @param deadline
+     *     The Deadline of the correction
+     *
+     * @return The corrected words that follow the ones on the left or null if the input should be
+     *         kept as it is
+     */
+    private String correct (WordSequence onTheLeftWS, String input, Deadline deadline) {
         // If the input is contained inside the corpus as is, consider it correct.
         if (corpus_.contains(input)) {
-            return input;
+            return null;
         }
 
-        WordSequence onTheLeftWS = new WordSequence(onTheLeft);
+        int sizeOnTheLeft = onTheLeftWS.size();
         WordSequence inputWS = new WordSequence(input);
 
         List<Range> changeablePartIndexList = getChangeablePartList(inputWS);
         int size = changeablePartIndexList.size();
 
         if (size == 0) {
-            return input;
+            return null;
         }
 
         // Score and replace first changeable part
@@ -130,7 +400,8 @@ public class Corrector {
         WordSequence substitute = scoreAndReplace(
             onTheLeftWS,
             inputWS.subSequence(part.getLeft(), part.getRight()),
-            onTheRightWS
+            onTheRightWS,
+            deadline
         );
 
         onTheLeftWS.addAll(substitute);
@@ -138,7 +409,7 @@ public class Corrector {
 
         if (size == 1) {
             String result = onTheLeftWS.toString();
-            return checkResult(result) ? result : input;
+            return checkResult(result) ? onTheLeftWS.subSequence(sizeOnTheLeft).toString() : null;
         }
 
         int index = 1;
@@ -156,7 +427,8 @@ public class Corrector {
             substitute = scoreAndReplace(
                 onTheLeftWS,
                 inputWS.subSequence(part.getLeft(), part.getRight()),
-                onTheRightWS
+                onTheRightWS,
+                deadline
             );
 
             onTheLeftWS.addAll(substitute);
@@ -166,7 +438,91 @@ public class Corrector {
         }
 
         String result = onTheLeftWS.toString();
-        return checkResult(result) ? result : input;
+        return checkResult(result) ? onTheLeftWS.subSequence(sizeOnTheLeft).toString() : null;
+    }
+
+    /**
+     * @brief Joins the String on the left with the corrected words that follow it
+     *
+     * @param onTheLeft
+     *     The String on the left
+     * @param correction
+     *     The corrected words
+     *
+     * @return The joined String
+     */
+    private static String join (String onTheLeft, String correction) {
+        if (onTheLeft.isEmpty()) {
+            return correction;
+        }
+        else if (correction.isEmpty()) {
+            return onTheLeft;
+        }
+
+        return onTheLeft + " " + correction;
+    }
+
+    /**
+     * @brief Corrects each String of a given List
+     *        The Strings are corrected one after the other on the calling thread. Use a
+     *        CorrectorService to correct them concurrently.
+     *
+     * @param inputs
+     *     The Strings to correct
+     *
+     * @return The corrected Strings in the order of the given ones
+     */
+    public List<String> correctAll (List<String> inputs) {
+        if (inputs == null) {
+            throw new IllegalArgumentException("inputs must not be null!");
+        }
+
+        List<String> results = new ArrayList<>(inputs.size());
+        for (String input : inputs) {
+            results.add(correct(input));
+        }
+
+        return results;
+    }
+
+    /**
+     * @brief Creates a CorrectionSession for a hypothesis that grows over time
+     *
+     * @return The new CorrectionSession
+     */
+    public CorrectionSession newSession () {
+        return newSession("");
+    }
+
+    /**
+     * @brief Creates a CorrectionSession for a hypothesis that grows over time
+     *
+     * @param onTheLeft
+     *     The String that precedes the hypothesis
+     *
+     * @return The new CorrectionSession
+     */
+    public CorrectionSession newSession (String onTheLeft) {
+        if (onTheLeft == null) {
+            throw new IllegalArgumentException("onTheLeft must not be null!");
+        }
+
+        return new CorrectionSession(this, corpus_, onTheLeft);
+    }
+
+    /**
+     * @brief Returns true if every detector of this Corrector is local
+     *
+     * @return True if every detector of this Corrector is local
+     */
+    boolean hasOnlyLocalDetectors () {
+        for (Detector detector : detectorList_) {
+            if (! detector.isLocal()) {
+                return false;
+            }
+        }
+
+        return true;
     }
 
     /**
@@ -178,12 +534,26 @@ public class Corrector {
      * @return A List of changeable Range objectsA upon the given WordSequence
      */
     private List<Range> getChangeablePartList (WordSequence wordSequence) {
-        int size = wordSequence.size();
-
         Set<Integer> errorWordIndexSet = getErrorWordSet(wordSequence).stream()
             .map(wordSequence:: indexOf)
             .collect(Collectors.toSet());
 
+        return getChangeablePartList(errorWordIndexSet, wordSequence.size());
+    }
+
+    /**
+     * @brief Returns a List of changeable Range objects given the indices of the error words
+     *
+     * @param errorWordIndices
+     *     The indices of the error words
+     * @param size
+     *     The number of words
+     *
+     * @return A List of changeable Range objects
+     */
+    static List<Range> getChangeablePartList (Set<Integer> errorWordIndices, int size) {
+        Set<Integer> errorWordIndexSet = new HashSet<>(errorWordIndices);
+
         // If there are no error words, there are no changeable parts
         if (errorWordIndexSet.size() == 0) {
             return new ArrayList<>();
@@ -236,14 +606,119 @@ public class Corrector {
      *
      * @return A Set of the error words inside the given WordSequence
      */
-    private Set<Word> getErrorWordSet (WordSequence wordSequence) {
-        Set<Word> errorWordSet = new HashSet<>();
+    Set<Word> getErrorWordSet (WordSequence wordSequence) {
+        int numberOfDetectors = detectorList_.size();
 
-        for (Detector detector : detectorList_) {
-            errorWordSet.addAll(detector.detect(wordSequence));
+        if (detectorExecutor_ == null || numberOfDetectors < 2) {
+            Set<Word> errorWordSet = new HashSet<>();
+
+            for (int i = 0; i < numberOfDetectors; i++) {
+                // Once every word is an error word, the rest of the detectors can't add anything
+                if (i > 0 && errorWordSet.containsAll(wordSequence)) {
+                    break;
+                }
+
+                errorWordSet.addAll(detect(i, wordSequence));
+            }
+
+            return errorWordSet;
+        }
+
+        Set<Word> errorWordSet = ConcurrentHashMap.newKeySet();
+
+        CompletionService<Void> completionService = new ExecutorCompletionService<>(
+            detectorExecutor_
+        );
+        List<Future<Void>> futureList = new ArrayList<>();
+        for (int i = 0; i < numberOfDetectors; i++) {
+            int index = i;
+
+            futureList.add(completionService.submit(() -> {
+                errorWordSet.addAll(detect(index, wordSequence));
+                return null;
+            }));
+        }
+
+        boolean interrupted = false;
+        try {
+            int completed = 0;
+            while (completed < numberOfDetectors) {
+                Future<Void> future;
+                try {
+                    future = completionService.take();
+                } catch (InterruptedException e) {
+                    // Detection is short, so finish it and let the caller see the interruption
+                    interrupted = true;
+                    continue;
+                }
+
+                getResult(future);
+                completed++;
+
+                if (errorWordSet.containsAll(wordSequence)) {
+                    break;
+                }
+            }
+        } finally {
+            for (Future<Void> future : futureList) {
+                future.cancel(true);
+            }
+
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        // Copy the set since detectors that were cancelled may still be adding to it
+        return new HashSet<>(errorWordSet);
+    }
+
+    /**
+     * @brief Runs a detector of this corrector on a WordSequence and adds up the time it took
+     *
+     * @param index
+     *     The index of the detector
+     * @param wordSequence
+     *     The WordSequence
+     *
+     * @return The error words that the detector found
+     */
+    private List<Word> detect (int index, WordSequence wordSequence) {
+        long startTime = System.nanoTime();
+
+        try {
+            return detectorList_.get(index).detect(wordSequence);
+        } finally {
+            detectorTimeList_.get(index).addAndGet(System.nanoTime() - startTime);
         }
+    }
 
-        return errorWordSet;
+    /**
+     * @brief Returns the result of a completed Future rethrowing anything that its task threw
+     *
+     * @param future
+     *     The completed Future
+     * @param <T>
+     *     The type of the result
+     *
+     * @return The result of the Future
+     */
+    private static <T> T getResult (Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException | ExecutionException e) {
+            Throwable cause = e.getCause();
+
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            else {
+                throw new RuntimeException(e);
+            }
+        }
     }
 
     /**
@@ -258,66 +733,85 @@ public class Corrector {
      *
      * @return The replacing WordSequence for the given changeable part
      */
+    WordSequence scoreAndReplace (WordSequence onTheLeft,
+                                  WordSequence changeablePart,
+                                  WordSequence onTheRight) {
+        return scoreAndReplace(onTheLeft, changeablePart, onTheRight, Deadline.NONE);
+    }
+
+    /**
+     * @brief Returns the replacing WordSequence for the given changeable part within a Deadline
+     *        If the Deadline expires, only the contexts that have been fully visited are used and
+     *        the Deadline is marked as truncated.
+     *
+     * @param onTheLeft
+     *     The WordSequence on the left of the changeable part
+     * @param changeablePart
+     *     The changeable part
+     * @param onTheRight
+     *     The WordSequence on the right of the changeable part
+     * @param deadline
+     *     The Deadline
+     *
+     * @return The replacing WordSequence for the given changeable part
+     */
     private WordSequence scoreAndReplace (WordSequence onTheLeft,
                                           WordSequence changeablePart,
-                                          WordSequence onTheRight) {
+                                          WordSequence onTheRight,
+                                          Deadline deadline) {
+        if (deadline.hasExpired()) {
+            deadline.truncate();
+            return changeablePart;
+        }
+
         if (onTheLeft.size() == 0 && onTheRight.size() == 0) {
             return replaceWithoutContext(changeablePart);
         }
 
-        String[] changeablePartPhones = dictionary_.getPhonesInLine(changeablePart).stream()
-            .toArray(String[] ::new);
+        int[] changeablePartPhones = phoneCache_.getPhoneIds(changeablePart.toString());
+        EditDistancePattern changeablePartPattern = new EditDistancePattern(changeablePartPhones);
 
-        // String: replacing part (part candidate to replace the changeable part)
-        // String: regular expression
-        // Double: sum of scores of the replacing part on the matched word patterns of the
-        //         regular expression
-        Map<String, Map<String, Double>> scoreMap = new HashMap<>();
-        Map<String, Integer> contextMap = buildContextMap(onTheLeft, onTheRight);
-        // Add the changeable part number of phones to each context entry number of phones.
-        contextMap.entrySet().stream()
-            .forEach(entry -> entry.setValue(entry.getValue() + changeablePartPhones.length));
-        Map<String, Double> candidateScoreMap = new HashMap<>();
-
-        // for each regular expression in the context map
-        for (String regExp : contextMap.keySet()) {
-            // for each sentence inside the corpus
-            for (WordSequence wordSequence : corpus_) {
-                // match the regular expression on the sentence
-                Matcher matcher = Pattern.compile(regExp)
-                    .matcher(wordSequence.toString());
-                // score each match and store it
-                while (matcher.find()) {
-                    String candidate = matcher.group();
-
-                    if (scoreMap.containsKey(candidate)) {
-                        Map<String, Double> candidateMap = scoreMap.get(candidate);
-
-                        if (candidateMap.containsKey(regExp)) {
-                            candidateMap.put(
-                                regExp,
-                                candidateMap.get(regExp) + candidateScoreMap.get(candidate)
-                            );
-                        }
-                        else {
-                            candidateMap.put(regExp, candidateScoreMap.get(candidate));
-                        }
-                    }
-                    else {
-                        Map<String, Double> candidateMap = new HashMap<>();
-                        double candidateScore = score(
-                            new WordSequence(candidate),
-                            changeablePartPhones
-                        );
-                        candidateMap.put(regExp, candidateScore);
-                        candidateScoreMap.put(candidate, candidateScore);
+        Map<String, Context> contextMap = buildContextMap(onTheLeft, onTheRight);
 
-                        scoreMap.put(candidate, candidateMap);
-                    }
+        // The regular expressions in the order of the context map and the candidates of each one
+        String[] regExps = contextMap.keySet().toArray(new String[contextMap.size()]);
+        CandidateList[] candidateLists = new CandidateList[regExps.length];
+        Map<String, Double> scoreCache = new ConcurrentHashMap<>();
+
+        if (deadline == Deadline.NONE) {
+            for (int i = 0, n = regExps.length; i < n; i++) {
+                candidateLists[i] = getCandidates(contextMap.get(regExps[i]));
+            }
+        }
+        else {
+            visitContexts(contextMap, regExps, candidateLists, changeablePartPattern, scoreCache,
+                deadline);
+
+            // Keep only the contexts that have been fully visited, in the order of the context map
+            int numberOfVisitedContexts = 0;
+            for (int i = 0, n = regExps.length; i < n; i++) {
+                if (candidateLists[i] != null) {
+                    regExps[numberOfVisitedContexts] = regExps[i];
+                    candidateLists[numberOfVisitedContexts] = candidateLists[i];
+                    numberOfVisitedContexts++;
                 }
             }
+
+            regExps = Arrays.copyOf(regExps, numberOfVisitedContexts);
+            candidateLists = Arrays.copyOf(candidateLists, numberOfVisitedContexts);
         }
 
+        ScoringTask scoringTask = new ScoringTask(candidateLists, changeablePartPattern,
+            0, correctorIndex_.getContextIndex().numberOfSentences(), scoreCache);
+        Map<String, CandidateScore> candidateScoreMap = forkJoinPool_ == null ?
+            scoringTask.compute() : forkJoinPool_.invoke(scoringTask);
+
+        // String: replacing part (part candidate to replace the changeable part)
+        // String: regular expression
+        // Double: sum of scores of the replacing part on the matched word patterns of the
+        //         regular expression
+        Map<String, Map<String, Double>> scoreMap = buildScoreMap(candidateScoreMap, regExps);
+
         // Choose the best candidate based on its score
         double bestScore = Double.NEGATIVE_INFINITY;
         String chosenCandidate = "";
@@ -326,8 +820,11 @@ public class Corrector {
 
             double candidateScore = 0;
             for (Map.Entry<String, Double> candidateMapEntry : candidateMap.entrySet()) {
-                candidateScore += 1 -
-                    (candidateMapEntry.getValue() / contextMap.get(candidateMapEntry.getKey()));
+                // Add the changeable part number of phones to the context number of phones.
+                candidateScore += 1 - (candidateMapEntry.getValue() / (
+                    contextMap.get(candidateMapEntry.getKey()).getNumberOfPhones() +
+                        changeablePartPhones.length
+                ));
             }
 
             if (candidateScore > bestScore) {
@@ -340,54 +837,266 @@ public class Corrector {
     }
 
     /**
-     * @brief Returns the replacing WordSequence for the given changeable part
+     * @brief Finds and scores the candidates of the contexts until a Deadline expires
+     *        The contexts are visited starting from the ones with the most words, since longer
+     *        contexts give fewer and more reliable candidates. The CandidateList of a context is
+     *        set only if all of its candidates have been scored before the Deadline expired.
      *
-     * @param changeablePart
-     *     The changeable part
-     *
-     * @return The replacing WordSequence for the given changeable part
+     * @param contextMap
+     *     The context map
+     * @param regExps
+     *     The regular expressions in the order of the context map
+     * @param candidateLists
+     *     The CandidateList of each context to fill
+     * @param changeablePartPattern
+     *     The EditDistancePattern of the phone ids of the changeable part
+     * @param scoreCache
+     *     The score of each scored candidate
+     * @param deadline
+     *     The Deadline
+     */
+    private void visitContexts (Map<String, Context> contextMap, String[] regExps,
+                                CandidateList[] candidateLists,
+                                EditDistancePattern changeablePartPattern,
+                                Map<String, Double> scoreCache, Deadline deadline) {
+        int[] numberOfWords = new int[regExps.length];
+        for (int i = 0, n = regExps.length; i < n; i++) {
+            numberOfWords[i] = contextMap.get(regExps[i]).getNumberOfWords();
+        }
+
+        for (int index : getVisitOrder(numberOfWords)) {
+            if (deadline.hasExpired()) {
+                deadline.truncate();
+                return;
+            }
+
+            CandidateList candidateList = getCandidates(contextMap.get(regExps[index]));
+
+            for (int i = 0, n = candidateList.size(); i < n; i++) {
+                if (deadline.hasExpired()) {
+                    deadline.truncate();
+                    return;
+                }
+
+                scoreCache.computeIfAbsent(
+                    candidateList.get(i), key -> score(key, changeablePartPattern)
+                );
+            }
+
+            candidateLists[index] = candidateList;
+        }
+    }
+
+    /**
+     * @brief Returns the order in which the contexts are visited within a Deadline
+     *        Contexts with more words come first and contexts with the same number of words keep
+     *        their order.
+     *
+     * @param numberOfWords
+     *     The number of words of each context
+     *
+     * @return The indices of the contexts in the order they are visited
+     */
+    static int[] getVisitOrder (int[] numberOfWords) {
+        Integer[] order = new Integer[numberOfWords.length];
+        for (int i = 0, n = order.length; i < n; i++) {
+            order[i] = i;
+        }
+
+        // Arrays.sort of objects is stable
+        Arrays.sort(order, (i1, i2) -> Integer.compare(numberOfWords[i2], numberOfWords[i1]));
+
+        int[] visitOrder = new int[order.length];
+        for (int i = 0, n = order.length; i < n; i++) {
+            visitOrder[i] = order[i];
+        }
+
+        return visitOrder;
+    }
+
+    /**
+     * @brief Builds the score map from the scores of the candidates
+     *        The candidates and the regular expressions are put in the map in the order that they
+     *        are first met when the regular expressions are matched one after the other on the
+     *        sentences of the corpus. This way the iteration order of the map, and so the way ties
+     *        are broken, doesn't depend on how the corpus was split into shards.
+     *
+     * @param candidateScoreMap
+     *     The CandidateScore of each candidate
+     * @param regExps
+     *     The regular expressions in the order of the context map
+     *
+     * @return The score map
+     */
+    private Map<String, Map<String, Double>> buildScoreMap (
+        Map<String, CandidateScore> candidateScoreMap, String[] regExps) {
+
+        List<Map.Entry<String, CandidateScore>> candidateScoreList = new ArrayList<>(
+            candidateScoreMap.entrySet()
+        );
+        candidateScoreList.sort((e1, e2) -> Long.compare(
+            e1.getValue().getFirstOccurrence(), e2.getValue().getFirstOccurrence()
+        ));
+
+        Map<String, Map<String, Double>> scoreMap = new HashMap<>();
+        for (Map.Entry<String, CandidateScore> entry : candidateScoreList) {
+            CandidateScore candidateScore = entry.getValue();
+
+            Map<String, Double> candidateMap = new HashMap<>();
+            for (int i = 0, n = regExps.length; i < n; i++) {
+                int count = candidateScore.getCount(i);
+
+                if (count > 0) {
+                    // Sum the same way the matches are summed one after the other
+                    double sum = candidateScore.getScore();
+                    for (int j = 1; j < count; j++) {
+                        sum += candidateScore.getScore();
+                    }
+
+                    candidateMap.put(regExps[i], sum);
+                }
+            }
+
+            scoreMap.put(entry.getKey(), candidateMap);
+        }
+
+        return scoreMap;
+    }
+
+    /**
+     * @brief Returns the replacing WordSequence for the given changeable part
+     *
+     * @param changeablePart
+     *     The changeable part
+     *
+     * @return The replacing WordSequence for the given changeable part
      */
     private WordSequence replaceWithoutContext (WordSequence changeablePart) {
         if (changeablePart.isEmpty()) {
             return new WordSequence("");
         }
 
-        List<String> changeablePartPhones = dictionary_.getPhonesInLine(changeablePart);
+        PhoneTrie.Match match = correctorIndex_.getPhoneTrie().search(
+            phoneCache_.getPhones(changeablePart.toString()), forkJoinPool_
+        );
 
-        int minDistance = Integer.MAX_VALUE;
-        WordSequence bestMatch = null;
+        return match == null ? new WordSequence("") : corpus_.get(match.getSentence())
+            .subSequence(match.getBeginIndex(), match.getEndIndex());
+    }
 
-        // Check which sub-part of every sentence inside the corpus matches better with the given
-        // changeable part.
-        for (WordSequence wordSequence : corpus_) {
-            List<List<String>> wordSequenceWordPhoneList = dictionary_.getPhones(wordSequence);
+    /**
+     * @brief Returns the candidates of a context in the order they appear inside the corpus
+     *        The candidates are the same as the ones that the regular expression of the context
+     *        would match on each sentence of the corpus.
+     *
+     * @param context
+     *     The Context
+     *
+     * @return The candidates of the given Context
+     */
+    private CandidateList getCandidates (Context context) {
+        ContextIndex contextIndex = correctorIndex_.getContextIndex();
 
-            for (int i = 0, n = wordSequenceWordPhoneList.size(); i < n; i++) {
-                for (int j = i + 1; j <= n; j++) {
-                    List<String> candidate = new ArrayList<>();
-                    wordSequenceWordPhoneList.subList(i, j).stream()
-                        .forEach(candidate:: addAll);
+        String[] left = context.getLeft();
+        String[] right = context.getRight();
 
-                    int currentDistance = LevenshteinMatrix.getDistance(
-                        changeablePartPhones, candidate
-                    );
+        CandidateList candidateList = new CandidateList();
 
-                    if (currentDistance < minDistance) {
-                        minDistance = currentDistance;
+        if (left == null) {
+            // (.*)(?= ARG2) matches from the beginning of the sentence up to the last occurrence
+            // of the right context and then matches once more the empty String.
+            ContextIndex.Matches rightMatches = contextIndex.matchRight(right);
+            for (int i = 0, n = rightMatches.size(); i < n; i++) {
+                int sentence = rightMatches.getSentence(i);
 
-                        bestMatch = wordSequence.subSequence(i, j);
+                candidateList.add(sentence, contextIndex.getSpan(
+                    sentence, 0, rightMatches.getPosition(i)
+                ));
+                candidateList.add(sentence, "");
+            }
+        }
+        else if (right == null) {
+            // (?<=ARG1 )(.*) matches from the first occurrence of the left context up to the end
+            // of the sentence.
+            ContextIndex.Matches leftMatches = contextIndex.matchLeft(left);
+            for (int i = 0, n = leftMatches.size(); i < n; i++) {
+                int sentence = leftMatches.getSentence(i);
+
+                candidateList.add(sentence, contextIndex.getSpan(
+                    sentence, leftMatches.getPosition(i), contextIndex.numberOfWords(sentence)
+                ));
+            }
+        }
+        else if (left.length == 0) {
+            // (?<= )(.*)(?= ARG2) matches from the second word of the sentence up to the last
+            // occurrence of the right context.
+            ContextIndex.Matches rightMatches = contextIndex.matchRight(right);
+            for (int i = 0, n = rightMatches.size(); i < n; i++) {
+                if (rightMatches.getPosition(i) > 1) {
+                    int sentence = rightMatches.getSentence(i);
+
+                    candidateList.add(sentence, contextIndex.getSpan(
+                        sentence, 1, rightMatches.getPosition(i)
+                    ));
+                }
+            }
+        }
+        else if (right.length == 0) {
+            // (?<=ARG1 )(.*)(?= ) matches from the first occurrence of the left context up to the
+            // last but one word of the sentence.
+            ContextIndex.Matches leftMatches = contextIndex.matchLeft(left);
+            for (int i = 0, n = leftMatches.size(); i < n; i++) {
+                int sentence = leftMatches.getSentence(i);
+                int end = contextIndex.numberOfWords(sentence) - 1;
+
+                if (leftMatches.getPosition(i) < end) {
+                    candidateList.add(sentence, contextIndex.getSpan(
+                        sentence, leftMatches.getPosition(i), end
+                    ));
+                }
+            }
+        }
+        else {
+            // (?<=ARG1 )(.*)(?= ARG2) matches from the first occurrence of the left context up to
+            // the last occurrence of the right context. Intersect the two posting lists.
+            ContextIndex.Matches leftMatches = contextIndex.matchLeft(left);
+            ContextIndex.Matches rightMatches = contextIndex.matchRight(right);
+
+            int i = 0;
+            int j = 0;
+            int n = leftMatches.size();
+            int m = rightMatches.size();
+            while (i < n && j < m) {
+                int leftSentence = leftMatches.getSentence(i);
+                int rightSentence = rightMatches.getSentence(j);
+
+                if (leftSentence < rightSentence) {
+                    i++;
+                }
+                else if (leftSentence > rightSentence) {
+                    j++;
+                }
+                else {
+                    if (leftMatches.getPosition(i) < rightMatches.getPosition(j)) {
+                        candidateList.add(leftSentence, contextIndex.getSpan(
+                            leftSentence, leftMatches.getPosition(i), rightMatches.getPosition(j)
+                        ));
                     }
+
+                    i++;
+                    j++;
                 }
             }
         }
 
-        return bestMatch == null ? new WordSequence("") : bestMatch;
+        return candidateList;
     }
 
     /**
      * @brief Builds the context map given the WordSequence on the left and the one on the right
-     *        The context map contains all the regular expressions that should be matched on the
-     *        corpus in order to find the best replacement for a changeable part. For example:
+     *        The context map contains all the contexts that should be matched on the corpus in
+     *        order to find the best replacement for a changeable part. Each context is keyed by
+     *        the regular expression that describes it. For example:
      *
      *        onTheLeft = wl1,wl2,wl3,wl4,wl5
      *        onTheRight = wr1,wr2,wr3,wr4,wr5
@@ -411,8 +1120,8 @@ public class Corrector {
      *
      * @return The context map
      */
-    private Map<String, Integer> buildContextMap (WordSequence onTheLeft, WordSequence onTheRight) {
-        Map<String, Integer> contextMap = new HashMap<>();
+    private Map<String, Context> buildContextMap (WordSequence onTheLeft, WordSequence onTheRight) {
+        Map<String, Context> contextMap = new HashMap<>();
 
         String[] onTheLeftWords = onTheLeft.stream()
             .map(Word:: toString)
@@ -426,77 +1135,68 @@ public class Corrector {
         int n = min(sizeOnTheLeft, REGULAR_EXPRESSION_SPAN);
         int m = min(onTheRight.size(), REGULAR_EXPRESSION_SPAN);
 
+        // leftPhones[i] is the number of phones of the last i words on the left and rightPhones[j]
+        // is the number of phones of the first j words on the right.
+        int[] leftPhones = phoneCache_.getPhonePrefixSums(reverse(
+            Arrays.copyOfRange(onTheLeftWords, sizeOnTheLeft - n, sizeOnTheLeft)
+        ));
+        int[] rightPhones = phoneCache_.getPhonePrefixSums(
+            Arrays.copyOfRange(onTheRightWords, 0, m)
+        );
+
         if (n == 0 && m == 0) {
             return contextMap;
         }
         else if (n == 0) {
             for (int j = 1; j <= m; j++) {
-                String arg2 = String.join(" ",
-                    (CharSequence[]) Arrays.copyOfRange(onTheRightWords, 0, j)
-                );
+                String[] right = Arrays.copyOfRange(onTheRightWords, 0, j);
+                String arg2 = String.join(" ", (CharSequence[]) right);
 
                 String contextKey = REGULAR_EXPRESSION_TEMPLATE +
                     REGULAR_EXPRESSION_TEMPLATE_RIGHT.replace("ARG2", arg2);
 
-                int contextValue = 0;
-                contextValue += dictionary_.getPhonesInLine(new WordSequence(arg2)).stream()
-                    .toArray(String[] ::new).length;
-
-                contextMap.put(contextKey, contextValue);
+                contextMap.put(contextKey, new Context(null, right, rightPhones[j]));
             }
 
             return contextMap;
         }
         else if (m == 0) {
             for (int i = 1; i <= n; i++) {
-                String arg1 = String.join(
-                    " ",
-                    (CharSequence[]) Arrays.copyOfRange(
-                        onTheLeftWords, sizeOnTheLeft - i, sizeOnTheLeft
-                    )
+                String[] left = Arrays.copyOfRange(
+                    onTheLeftWords, sizeOnTheLeft - i, sizeOnTheLeft
                 );
+                String arg1 = String.join(" ", (CharSequence[]) left);
 
                 String contextKey = REGULAR_EXPRESSION_TEMPLATE_LEFT.replace("ARG1", arg1) +
                     REGULAR_EXPRESSION_TEMPLATE;
 
-                int contextValue = 0;
-                contextValue += dictionary_.getPhonesInLine(new WordSequence(arg1)).stream()
-                    .toArray(String[] ::new).length;
-
-                contextMap.put(contextKey, contextValue);
+                contextMap.put(contextKey, new Context(left, null, leftPhones[i]));
             }
 
             return contextMap;
         }
         else {
             for (int i = 0; i <= n; i++) {
-                String arg1 = String.join(
-                    " ",
-                    (CharSequence[]) Arrays.copyOfRange(
-                        onTheLeftWords, sizeOnTheLeft - i, sizeOnTheLeft
-                    )
+                String[] left = Arrays.copyOfRange(
+                    onTheLeftWords, sizeOnTheLeft - i, sizeOnTheLeft
                 );
+                String arg1 = String.join(" ", (CharSequence[]) left);
 
                 for (int j = 0; j <= m; j++) {
                     if (i == 0 && j == 0) {
                         continue;
                     }
 
-                    String arg2 = String.join(" ",
-                        (CharSequence[]) Arrays.copyOfRange(onTheRightWords, 0, j)
-                    );
+                    String[] right = Arrays.copyOfRange(onTheRightWords, 0, j);
+                    String arg2 = String.join(" ", (CharSequence[]) right);
 
                     String contextKey = REGULAR_EXPRESSION_TEMPLATE_LEFT.replace("ARG1", arg1) +
                         REGULAR_EXPRESSION_TEMPLATE +
                         REGULAR_EXPRESSION_TEMPLATE_RIGHT.replace("ARG2", arg2);
 
-                    int contextValue = 0;
-                    contextValue += dictionary_.getPhonesInLine(new WordSequence(arg1)).stream()
-                        .toArray(String[] ::new).length;
-                    contextValue += dictionary_.getPhonesInLine(new WordSequence(arg2)).stream()
-                        .toArray(String[] ::new).length;
-
-                    contextMap.put(contextKey, contextValue);
+                    contextMap.put(
+                        contextKey, new Context(left, right, leftPhones[i] + rightPhones[j])
+                    );
                 }
             }
 
@@ -508,20 +1208,62 @@ public class Corrector {
      * @brief Scores a replacing candidate against the phones of a changeable part
      *
      * @param candidate
-     *     The candidate to replace the changeable part
-     * @param changeablePartPhoneArray
-     *     The phone array of the changeable part
+     *     The String of the candidate to replace the changeable part
+     * @param changeablePartPattern
+     *     The EditDistancePattern of the phone ids of the changeable part
      *
      * @return The score of the candidate
      */
-    private double score (WordSequence candidate, String[] changeablePartPhoneArray) {
-        String[] candidatePhoneArray = dictionary_.getPhonesInLine(candidate).stream()
-            .toArray(String[] ::new);
+    private double score (String candidate, EditDistancePattern changeablePartPattern) {
+        return changeablePartPattern.getDistance(phoneCache_.getPhoneIds(candidate));
+    }
 
-        return LevenshteinMatrix.getDistance(
-            Arrays.asList(candidatePhoneArray),
-            Arrays.asList(changeablePartPhoneArray)
-        );
+    /**
+     * @brief Returns a new array with the elements of the given array in reverse order
+     *
+     * @param array
+     *     The array
+     *
+     * @return A new array with the elements of the given array in reverse order
+     */
+    private static String[] reverse (String[] array) {
+        String[] reversed = new String[array.length];
+
+        for (int i = 0, n = array.length; i < n; i++) {
+            reversed[i] = array[n - 1 - i];
+        }
+
+        return reversed;
+    }
+
+    /**
+     * @brief Returns the number of phone lookups that were answered by the phone cache of this
+     *        Corrector
+     *
+     * @return The number of phone lookups that were answered by the phone cache
+     */
+    public long getPhoneCacheHitCount () {
+        return phoneCache_.getHitCount();
+    }
+
+    /**
+     * @brief Returns the number of phone lookups that were not answered by the phone cache of
+     *        this Corrector
+     *
+     * @return The number of phone lookups that were not answered by the phone cache
+     */
+    public long getPhoneCacheMissCount () {
+        return phoneCache_.getMissCount();
+    }
+
+    /**
+     * @brief Returns a number that changes whenever the corpus or the dictionary of this
+     *        Corrector is modified
+     *
+     * @return The sum of the modification counts of the corpus and the dictionary
+     */
+    int getModificationCount () {
+        return correctorIndex_.getModificationCount();
     }
 
     /**
@@ -532,15 +1274,71 @@ public class Corrector {
      *
      * @return True if the given String is a valid result
      */
-    private boolean checkResult (String result) {
+    boolean checkResult (String result) {
         return ! result.trim().isEmpty();
     }
 
+    /**
+     * @class Deadline
+     * @brief Holds the time limit of a correction and whether it was reached
+     */
+    private static class Deadline {
+        /**
+         * @brief Constructor
+         *
+         * @param timeout
+         *     The time limit in milliseconds from now
+         */
+        Deadline (long timeout) {
+            time_ = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+            bounded_ = true;
+        }
+
+        /**
+         * @brief Constructor for a Deadline that never expires
+         */
+        private Deadline () {
+            time_ = 0;
+            bounded_ = false;
+        }
+
+        /**
+         * @brief Returns true if this Deadline has expired
+         *
+         * @return True if this Deadline has expired
+         */
+        boolean hasExpired () {
+            return bounded_ && System.nanoTime() - time_ >= 0;
+        }
+
+        /**
+         * @brief Marks that the correction stopped because this Deadline expired
+         */
+        void truncate () {
+            truncated_ = true;
+        }
+
+        /**
+         * @brief Returns true if the correction stopped because this Deadline expired
+         *
+         * @return True if the correction stopped because this Deadline expired
+         */
+        boolean isTruncated () {
+            return truncated_;
+        }
+
+        private final long time_; //!< The System.nanoTime() at which this Deadline expires
+        private final boolean bounded_; //!< False if this Deadline never expires
+        private boolean truncated_; //!< True if the correction stopped because of this Deadline
+
+        static final Deadline NONE = new Deadline(); //!< A Deadline that never expires
+    }
+
     /**
      * @class Range
      * @brief Implementation of a pair of integer values
      */
-    private static class Range {
+    static class Range {
         /**
          * @brief Constructor
          * @param left
@@ -575,14 +1373,408 @@ public class Corrector {
         private final int right_; //!< The second value of this Range
     }
 
+    /**
+     * @class Context
+     * @brief Holds the words on the left and on the right of a changeable part
+     */
+    private static class Context {
+        /**
+         * @brief Constructor
+         *
+         * @param left
+         *     The words on the left or null if the Context has no left part
+         * @param right
+         *     The words on the right or null if the Context has no right part
+         * @param numberOfPhones
+         *     The number of phones of the words of this Context
+         */
+        Context (String[] left, String[] right, int numberOfPhones) {
+            left_ = left;
+            right_ = right;
+            numberOfPhones_ = numberOfPhones;
+        }
+
+        /**
+         * @brief Returns the words on the left
+         *
+         * @return The words on the left or null if this Context has no left part
+         */
+        String[] getLeft () {
+            return left_;
+        }
+
+        /**
+         * @brief Returns the words on the right
+         *
+         * @return The words on the right or null if this Context has no right part
+         */
+        String[] getRight () {
+            return right_;
+        }
+
+        /**
+         * @brief Returns the number of phones of the words of this Context
+         *
+         * @return The number of phones of the words of this Context
+         */
+        int getNumberOfPhones () {
+            return numberOfPhones_;
+        }
+
+        /**
+         * @brief Returns the number of words of this Context
+         *
+         * @return The number of words of this Context
+         */
+        int getNumberOfWords () {
+            return (left_ == null ? 0 : left_.length) + (right_ == null ? 0 : right_.length);
+        }
+
+        private final String[] left_; //!< The words on the left
+        private final String[] right_; //!< The words on the right
+        private final int numberOfPhones_; //!< The number of phones of the words of this Context
+    }
+
+    /**
+     * @class CandidateList
+     * @brief Holds the candidates of a context together with the index of the sentence that each
+     *        one was found in, in the order they were found
+     */
+    private static class CandidateList {
+        /**
+         * @brief Default Constructor
+         */
+        CandidateList () {
+            sentences_ = new int[8];
+            candidates_ = new String[8];
+            size_ = 0;
+        }
+
+        /**
+         * @brief Adds a candidate to this CandidateList
+         *
+         * @param sentence
+         *     The index of the sentence that the candidate was found in
+         * @param candidate
+         *     The candidate
+         */
+        void add (int sentence, String candidate) {
+            if (size_ == sentences_.length) {
+                sentences_ = Arrays.copyOf(sentences_, 2 * size_);
+                candidates_ = Arrays.copyOf(candidates_, 2 * size_);
+            }
+
+            sentences_[size_] = sentence;
+            candidates_[size_] = candidate;
+            size_++;
+        }
+
+        /**
+         * @brief Returns the number of candidates in this CandidateList
+         *
+         * @return The number of candidates in this CandidateList
+         */
+        int size () {
+            return size_;
+        }
+
+        /**
+         * @brief Returns the i-th candidate
+         *
+         * @param i
+         *     The index of the candidate
+         *
+         * @return The i-th candidate
+         */
+        String get (int i) {
+            return candidates_[i];
+        }
+
+        /**
+         * @brief Returns the index of the first candidate that was found in a sentence with index
+         *        greater than or equal to the given one
+         *
+         * @param sentence
+         *     The index of the sentence
+         *
+         * @return The index of the first such candidate or size() if there is none
+         */
+        int lowerBound (int sentence) {
+            int low = 0;
+            int high = size_;
+
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+
+                if (sentences_[middle] < sentence) {
+                    low = middle + 1;
+                }
+                else {
+                    high = middle;
+                }
+            }
+
+            return low;
+        }
+
+        private int[] sentences_; //!< The index of the sentence of each candidate
+        private String[] candidates_; //!< The candidates
+        private int size_; //!< The number of candidates
+    }
+
+    /**
+     * @class CandidateScore
+     * @brief Holds the score of a candidate, the number of times it was found for each context and
+     *        the position of its first occurrence
+     */
+    private static class CandidateScore {
+        /**
+         * @brief Constructor
+         *
+         * @param score
+         *     The score of the candidate
+         * @param firstOccurrence
+         *     The position of the first occurrence of the candidate
+         * @param numberOfContexts
+         *     The number of contexts
+         */
+        CandidateScore (double score, long firstOccurrence, int numberOfContexts) {
+            score_ = score;
+            firstOccurrence_ = firstOccurrence;
+            counts_ = new int[numberOfContexts];
+        }
+
+        /**
+         * @brief Merges the counts and the first occurrence of another CandidateScore of the same
+         *        candidate into this one
+         *
+         * @param candidateScore
+         *     The other CandidateScore
+         */
+        void merge (CandidateScore candidateScore) {
+            for (int i = 0, n = counts_.length; i < n; i++) {
+                counts_[i] += candidateScore.counts_[i];
+            }
+
+            firstOccurrence_ = Math.min(firstOccurrence_, candidateScore.firstOccurrence_);
+        }
+
+        /**
+         * @brief Increases the count of a context by one
+         *
+         * @param context
+         *     The index of the context
+         */
+        void increaseCount (int context) {
+            counts_[context]++;
+        }
+
+        /**
+         * @brief Returns the number of times the candidate was found for a context
+         *
+         * @param context
+         *     The index of the context
+         *
+         * @return The number of times the candidate was found for the given context
+         */
+        int getCount (int context) {
+            return counts_[context];
+        }
+
+        /**
+         * @brief Returns the score of the candidate
+         *
+         * @return The score of the candidate
+         */
+        double getScore () {
+            return score_;
+        }
+
+        /**
+         * @brief Returns the position of the first occurrence of the candidate
+         *
+         * @return The position of the first occurrence of the candidate
+         */
+        long getFirstOccurrence () {
+            return firstOccurrence_;
+        }
+
+        private final double score_; //!< The score of the candidate
+        private long firstOccurrence_; //!< The position of the first occurrence of the candidate
+        private final int[] counts_; //!< The number of times the candidate was found for each
+                                     //!< context
+    }
+
+    /**
+     * @class ScoringTask
+     * @brief Scores the candidates of every context that were found in a range of sentences
+     *        If the range is larger than the shard size of the Corrector, it is split in two and
+     *        the two halves are scored in parallel.
+     */
+    private class ScoringTask extends RecursiveTask<Map<String, CandidateScore>> {
+        /**
+         * @brief Constructor
+         *
+         * @param candidateLists
+         *     The CandidateList of each context
+         * @param changeablePartPattern
+         *     The EditDistancePattern of the phone ids of the changeable part
+         * @param beginIndex
+         *     The index of the first sentence inclusive
+         * @param endIndex
+         *     The index of the last sentence exclusive
+         * @param scoreCache
+         *     The scores of the candidates that have already been scored
+         */
+        ScoringTask (CandidateList[] candidateLists, EditDistancePattern changeablePartPattern,
+                     int beginIndex, int endIndex, Map<String, Double> scoreCache) {
+            this(candidateLists, changeablePartPattern, beginIndex, endIndex, scoreCache,
+                shardSize(endIndex - beginIndex));
+        }
+
+        private ScoringTask (CandidateList[] candidateLists,
+                             EditDistancePattern changeablePartPattern,
+                             int beginIndex, int endIndex, Map<String, Double> scoreCache,
+                             int shardSize) {
+            candidateLists_ = candidateLists;
+            changeablePartPattern_ = changeablePartPattern;
+            beginIndex_ = beginIndex;
+            endIndex_ = endIndex;
+            scoreCache_ = scoreCache;
+            shardSize_ = shardSize;
+        }
+
+        @Override
+        protected Map<String, CandidateScore> compute () {
+            if (endIndex_ - beginIndex_ <= shardSize_) {
+                return computeDirectly();
+            }
+
+            int middle = (beginIndex_ + endIndex_) >>> 1;
+
+            ScoringTask left = new ScoringTask(candidateLists_, changeablePartPattern_,
+                beginIndex_, middle, scoreCache_, shardSize_);
+            ScoringTask right = new ScoringTask(candidateLists_, changeablePartPattern_,
+                middle, endIndex_, scoreCache_, shardSize_);
+
+            left.fork();
+            Map<String, CandidateScore> rightResult = right.compute();
+            Map<String, CandidateScore> leftResult = left.join();
+
+            for (Map.Entry<String, CandidateScore> entry : rightResult.entrySet()) {
+                CandidateScore candidateScore = leftResult.get(entry.getKey());
+
+                if (candidateScore == null) {
+                    leftResult.put(entry.getKey(), entry.getValue());
+                }
+                else {
+                    candidateScore.merge(entry.getValue());
+                }
+            }
+
+            return leftResult;
+        }
+
+        /**
+         * @brief Scores the candidates of this shard
+         *
+         * @return The CandidateScore of each candidate of this shard
+         */
+        private Map<String, CandidateScore> computeDirectly () {
+            Map<String, CandidateScore> candidateScoreMap = new HashMap<>();
+
+            int numberOfContexts = candidateLists_.length;
+
+            // The first occurrence of a candidate is its position in the concatenation of the
+            // candidate lists.
+            long offset = 0;
+            for (int c = 0; c < numberOfContexts; c++) {
+                CandidateList candidateList = candidateLists_[c];
+
+                for (int i = candidateList.lowerBound(beginIndex_),
+                     n = candidateList.lowerBound(endIndex_); i < n; i++) {
+                    String candidate = candidateList.get(i);
+
+                    CandidateScore candidateScore = candidateScoreMap.get(candidate);
+                    if (candidateScore == null) {
+                        candidateScore = new CandidateScore(
+                            scoreCache_.computeIfAbsent(
+                                candidate, key -> score(key, changeablePartPattern_)
+                            ),
+                            offset + i,
+                            numberOfContexts
+                        );
+                        candidateScoreMap.put(candidate, candidateScore);
+                    }
+
+                    candidateScore.increaseCount(c);
+                }
+
+                offset += candidateList.size();
+            }
+
+            return candidateScoreMap;
+        }
+
+        private final CandidateList[] candidateLists_; //!< The CandidateList of each context
+        private final EditDistancePattern changeablePartPattern_; //!< The EditDistancePattern of
+                                                                  //!< the phone ids of the
+                                                                  //!< changeable part
+        private final int beginIndex_; //!< The index of the first sentence inclusive
+        private final int endIndex_; //!< The index of the last sentence exclusive
+        private final Map<String, Double> scoreCache_; //!< The scores shared between the shards
+        private final int shardSize_; //!< The maximum number of sentences of a shard
+    }
+
+    /**
+     * @brief Returns the maximum number of sentences of a shard
+     *
+     * @param numberOfSentences
+     *     The total number of sentences
+     *
+     * @return The maximum number of sentences of a shard
+     */
+    private int shardSize (int numberOfSentences) {
+        if (forkJoinPool_ == null) {
+            return Integer.MAX_VALUE;
+        }
+
+        return Integer.max(1, numberOfSentences / (parallelism_ * SHARDS_PER_THREAD));
+    }
+
     private Corpus corpus_; //!< The corpus of this corrector
     private Dictionary dictionary_; //!< The dictionary of this corrector
 
     private List<Detector> detectorList_; //!< The List of detectors of this corrector
+    private List<AtomicLong> detectorTimeList_; //!< The nanoseconds spent in each detector
+    private ExecutorService detectorExecutor_; //!< The executor that runs the detectors or null to
+                                               //!< run them on the calling thread
+
+    private final CorrectorIndex correctorIndex_; //!< The structures built from the corpus and
+                                                  //!< the dictionary of this corrector
+    private final PhoneCache phoneCache_; //!< The phones of the words and the spans used by this
+                                          //!< corrector
+
+    private int parallelism_ = 1; //!< The number of threads used to score the candidates
+    private ForkJoinPool forkJoinPool_; //!< The pool used to score the candidates in parallel
+
+    private LRUCache<List<String>, Optional<String>> resultCache_; //!< The corrections of the
+                                                                  //!< inputs or null if the
+                                                                  //!< cache is disabled
+    private int resultCacheModificationCount_; //!< The modification count of the corpus and the
+                                               //!< dictionary when the cached results were
+                                               //!< found
 
     private static final String REGULAR_EXPRESSION_TEMPLATE_LEFT = "(?<=ARG1 )";
     private static final String REGULAR_EXPRESSION_TEMPLATE = "(.*)";
     private static final String REGULAR_EXPRESSION_TEMPLATE_RIGHT = "(?= ARG2)";
-    private static final int REGULAR_EXPRESSION_SPAN = 5;
+    static final int REGULAR_EXPRESSION_SPAN = 5;
+
+    private static final int SHARDS_PER_THREAD = 4; //!< The number of shards per thread in which
+                                                    //!< the corpus is split
+
+    private static final long RESULT_CACHE_ENTRY_MEMORY = 160; //!< The estimated memory of a result
+                                                               //!< cache entry besides its
+                                                               //!< characters
 
 }
@@ -0,0 +1,97 @@
+package org.pasr.postp.correctors;
+
+import org.pasr.asr.dictionary.Dictionary;
+import org.pasr.prep.corpus.Corpus;
+
+
+/**
+ * @class CorrectorIndex
+ * @brief Holds the structures that a Corrector builds from its Corpus and its Dictionary
+ *        The structures are immutable once built, so a CorrectorIndex can be shared between
+ *        Correctors that run on different threads. Each structure is built the first time it is
+ *        needed and is built again only if the corpus or, for the structures that hold phones,
+ *        the dictionary has been modified since. The Corpus and the Dictionary should not be
+ *        modified while a Corrector that uses this index is running.
+ */
+class CorrectorIndex {
+
+    /**
+     * @brief Constructor
+     *
+     * @param corpus
+     *     The Corpus
+     * @param dictionary
+     *     The Dictionary
+     */
+    CorrectorIndex (Corpus corpus, Dictionary dictionary) {
+        corpus_ = corpus;
+        dictionary_ = dictionary;
+
+        phoneCache_ = new PhoneCache(dictionary);
+    }
+
+    /**
+     * @brief Returns the PhoneCache of the Dictionary
+     *
+     * @return The PhoneCache of the Dictionary
+     */
+    PhoneCache getPhoneCache () {
+        return phoneCache_;
+    }
+
+    /**
+     * @brief Returns a number that changes whenever the Corpus or the Dictionary is modified
+     *        The number is the sum of their modification counts, which never decrease.
+     *
+     * @return The sum of the modification counts of the Corpus and the Dictionary
+     */
+    int getModificationCount () {
+        return corpus_.getModificationCount() + dictionary_.getModificationCount();
+    }
+
+    /**
+     * @brief Returns the ContextIndex of the corpus
+     *
+     * @return The ContextIndex of the corpus
+     */
+    synchronized ContextIndex getContextIndex () {
+        int modificationCount = corpus_.getModificationCount();
+
+        if (contextIndex_ == null || contextIndexModificationCount_ != modificationCount) {
+            contextIndex_ = new ContextIndex(corpus_);
+            contextIndexModificationCount_ = modificationCount;
+        }
+
+        return contextIndex_;
+    }
+
+    /**
+     * @brief Returns the PhoneTrie of the corpus
+     *
+     * @return The PhoneTrie of the corpus
+     */
+    synchronized PhoneTrie getPhoneTrie () {
+        int modificationCount = getModificationCount();
+
+        if (phoneTrie_ == null || phoneTrieModificationCount_ != modificationCount) {
+            phoneTrie_ = new PhoneTrie(corpus_, phoneCache_);
+            phoneTrieModificationCount_ = modificationCount;
+        }
+
+        return phoneTrie_;
+    }
+
+    private final Corpus corpus_; //!< The Corpus of this index
+    private final Dictionary dictionary_; //!< The Dictionary of this index
+
+    private final PhoneCache phoneCache_; //!< The phones of the words and the spans of the corpus
+
+    private ContextIndex contextIndex_; //!< The ContextIndex of the corpus
+    private int contextIndexModificationCount_; //!< The modification count of the corpus when the
+                                                //!< ContextIndex was built
+
+    private PhoneTrie phoneTrie_; //!< The PhoneTrie of the corpus
+    private int phoneTrieModificationCount_; //!< The modification count of the corpus and the
+                                             //!< dictionary when the PhoneTrie was built
+
+}
@@ -0,0 +1,174 @@
+package org.pasr.postp.correctors;
+
+import org.pasr.asr.dictionary.Dictionary;
+import org.pasr.postp.detectors.Detector;
+import org.pasr.prep.corpus.Corpus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+
+/**
+ * @class CorrectorService
+ * @brief Corrects many Strings concurrently on a pool of worker threads
+ *        Each worker thread has its own Corrector with its own detectors, since detectors like
+ *        POSDetector are not thread safe. The Correctors share the structures built from the
+ *        Corpus and the Dictionary, so these are built only once. The results are the same as the
+ *        ones of a single Corrector that corrects the Strings one after the other.
+ *
+ *        The methods of this class can be called from any thread. The Corpus and the Dictionary
+ *        should not be modified while a correction is running.
+ */
+public class CorrectorService {
+
+    /**
+     * @brief Constructor
+     *
+     * @param corpus
+     *     The Corpus to be used
+     * @param dictionary
+     *     The Dictionary to be used
+     * @param detectorSuppliers
+     *     The Suppliers of the detectors. Each Supplier is called once for each worker thread and
+     *     should return a new Detector each time it is called
+     * @param numberOfThreads
+     *     The number of worker threads
+     */
+    public CorrectorService (Corpus corpus, Dictionary dictionary,
+                             List<Supplier<Detector>> detectorSuppliers, int numberOfThreads) {
+        if (detectorSuppliers == null) {
+            throw new IllegalArgumentException("detectorSuppliers must not be null!");
+        }
+
+        if (numberOfThreads < 1) {
+            throw new IllegalArgumentException("numberOfThreads must be positive!");
+        }
+
+        corrector_ = new Corrector(corpus, dictionary);
+        detectorSuppliers_ = new ArrayList<>(detectorSuppliers);
+
+        correctors_ = ThreadLocal.withInitial(this :: newCorrector);
+
+        executorService_ = Executors.newFixedThreadPool(numberOfThreads, runnable -> {
+            Thread thread = new Thread(runnable);
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        numberOfCorrections_ = new AtomicLong();
+        correctionTime_ = new AtomicLong();
+    }
+
+    /**
+     * @brief Corrects each String of a given List
+     *
+     * @param inputs
+     *     The Strings to correct
+     *
+     * @return The corrected Strings in the order of the given ones
+     *
+     * @throws InterruptedException If the calling thread is interrupted while waiting
+     */
+    public List<String> correctAll (List<String> inputs) throws InterruptedException {
+        if (inputs == null) {
+            throw new IllegalArgumentException("inputs must not be null!");
+        }
+
+        List<Callable<String>> tasks = new ArrayList<>(inputs.size());
+        for (String input : inputs) {
+            if (input == null) {
+                throw new IllegalArgumentException("inputs must not contain null!");
+            }
+
+            tasks.add(() -> correctors_.get().correct(input));
+        }
+
+        long startTime = System.nanoTime();
+
+        List<String> results = new ArrayList<>(inputs.size());
+        for (Future<String> future : executorService_.invokeAll(tasks)) {
+            try {
+                results.add(future.get());
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                else if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                else {
+                    throw new RuntimeException(cause);
+                }
+            }
+        }
+
+        correctionTime_.addAndGet(System.nanoTime() - startTime);
+        numberOfCorrections_.addAndGet(results.size());
+
+        return results;
+    }
+
+    /**
+     * @brief Returns the number of Strings that this service has corrected
+     *
+     * @return The number of Strings that this service has corrected
+     */
+    public long getNumberOfCorrections () {
+        return numberOfCorrections_.get();
+    }
+
+    /**
+     * @brief Returns the number of Strings corrected per second
+     *        The throughput is measured over the time spent inside correctAll.
+     *
+     * @return The number of Strings corrected per second or 0 if no String has been corrected
+     */
+    public double getThroughput () {
+        long correctionTime = correctionTime_.get();
+
+        return correctionTime == 0 ? 0 : numberOfCorrections_.get() * 1e9 / correctionTime;
+    }
+
+    /**
+     * @brief Stops the worker threads of this service
+     *        Corrections that are running are completed but no new correction can be started.
+     */
+    public void shutdown () {
+        executorService_.shutdown();
+    }
+
+    /**
+     * @brief Creates the Corrector of a worker thread
+     *
+     * @return The new Corrector
+     */
+    private Corrector newCorrector () {
+        Corrector corrector = new Corrector(corrector_);
+
+        for (Supplier<Detector> detectorSupplier : detectorSuppliers_) {
+            corrector.addDetector(detectorSupplier.get());
+        }
+
+        return corrector;
+    }
+
+    private final Corrector corrector_; //!< The Corrector whose structures the worker Correctors
+                                        //!< share
+    private final List<Supplier<Detector>> detectorSuppliers_; //!< The Suppliers of the detectors
+
+    private final ThreadLocal<Corrector> correctors_; //!< The Corrector of each worker thread
+    private final ExecutorService executorService_; //!< The worker threads
+
+    private final AtomicLong numberOfCorrections_; //!< The number of corrected Strings
+    private final AtomicLong correctionTime_; //!< The nanoseconds spent inside correctAll
+
+}
@@ -0,0 +1,206 @@
+package org.pasr.postp.correctors;
+
+import org.pasr.asr.dictionary.Dictionary;
+import org.pasr.prep.corpus.WordSequence;
+import org.pasr.utilities.LRUCache;
+
+
+/**
+ * @class PhoneCache
+ * @brief Memoizes the phones that a Dictionary gives to words and to word spans
+ *        The cache is thread safe and can be shared between Corrector calls. The cached phones
+ *        are dropped whenever the modification count of the Dictionary changes, so a modified
+ *        Dictionary is picked up by the next lookup. The Dictionary should still not be modified
+ *        while a lookup is running.
+ */
+class PhoneCache {
+
+    /**
+     * @brief Constructor
+     *
+     * @param dictionary
+     *     The Dictionary to take the phones from
+     */
+    PhoneCache (Dictionary dictionary) {
+        dictionary_ = dictionary;
+
+        wordCache_ = new LRUCache<>(WORD_CACHE_CAPACITY);
+        spanCache_ = new LRUCache<>(SPAN_CACHE_CAPACITY);
+        spanIdCache_ = new LRUCache<>(SPAN_CACHE_CAPACITY);
+
+        modificationCount_ = dictionary.getModificationCount();
+    }
+
+    /**
+     * @brief Returns the phones of a span of words
+     *        The phones are the same as the ones that Dictionary.getPhonesInLine returns for a
+     *        WordSequence created from the given String. The returned array is shared and must not
+     *        be modified.
+     *
+     * @param span
+     *     The String of the span
+     *
+     * @return The phones of the given span
+     */
+    String[] getPhones (String span) {
+        validate();
+
+        return spanCache_.get(span, this :: createPhones);
+    }
+
+    /**
+     * @brief Returns the phone ids of a span of words
+     *        The ids are the PhoneAlphabet ids that the Dictionary keeps, so they can be compared
+     *        instead of the phones. The returned array is shared and must not be modified.
+     *
+     * @param span
+     *     The String of the span
+     *
+     * @return The phone ids of the given span
+     */
+    int[] getPhoneIds (String span) {
+        validate();
+
+        return spanIdCache_.get(span, key -> {
+            WordSequence wordSequence = new WordSequence(key);
+
+            byte[] buffer = new byte[dictionary_.getNumberOfPhones(wordSequence)];
+            dictionary_.getPhoneIds(wordSequence, buffer, 0);
+
+            int[] ids = new int[buffer.length];
+            for (int i = 0, n = buffer.length; i < n; i++) {
+                ids[i] = Byte.toUnsignedInt(buffer[i]);
+            }
+
+            return ids;
+        });
+    }
+
+    /**
+     * @brief Returns the number of phones of a single word
+     *
+     * @param word
+     *     The String of the word
+     *
+     * @return The number of phones of the given word
+     */
+    int getNumberOfPhones (String word) {
+        return getWordPhones(word).length;
+    }
+
+    /**
+     * @brief Returns the prefix sums of the numbers of phones of the given words
+     *
+     * @param words
+     *     The words
+     *
+     * @return An array a of length words.length + 1 where a[i] is the number of phones of the
+     *         first i words
+     */
+    int[] getPhonePrefixSums (String[] words) {
+        int[] prefixSums = new int[words.length + 1];
+
+        for (int i = 0, n = words.length; i < n; i++) {
+            prefixSums[i + 1] = prefixSums[i] + getNumberOfPhones(words[i]);
+        }
+
+        return prefixSums;
+    }
+
+    /**
+     * @brief Returns the number of lookups that were answered by this cache
+     *
+     * @return The number of lookups that were answered by this cache
+     */
+    long getHitCount () {
+        return wordCache_.getHitCount() + spanCache_.getHitCount() + spanIdCache_.getHitCount();
+    }
+
+    /**
+     * @brief Returns the number of lookups that were not answered by this cache
+     *
+     * @return The number of lookups that were not answered by this cache
+     */
+    long getMissCount () {
+        return wordCache_.getMissCount() + spanCache_.getMissCount() +
+            spanIdCache_.getMissCount();
+    }
+
+    /**
+     * @brief Drops the cached phones if the Dictionary has been modified since they were cached
+     */
+    private void validate () {
+        if (modificationCount_ == dictionary_.getModificationCount()) {
+            return;
+        }
+
+        synchronized (this) {
+            int modificationCount = dictionary_.getModificationCount();
+
+            if (modificationCount_ != modificationCount) {
+                wordCache_.clear();
+                spanCache_.clear();
+                spanIdCache_.clear();
+
+                modificationCount_ = modificationCount;
+            }
+        }
+    }
+
+    /**
+     * @brief Creates the phones of a span concatenating the cached phones of its words
+     *
+     * @param span
+     *     The String of the span
+     *
+     * @return The phones of the given span
+     */
+    private String[] createPhones (String span) {
+        WordSequence wordSequence = new WordSequence(span);
+
+        String[][] wordPhones = new String[wordSequence.size()][];
+        int numberOfPhones = 0;
+        for (int i = 0, n = wordPhones.length; i < n; i++) {
+            wordPhones[i] = getWordPhones(wordSequence.get(i).toString());
+            numberOfPhones += wordPhones[i].length;
+        }
+
+        String[] phones = new String[numberOfPhones];
+        int index = 0;
+        for (String[] currentWordPhones : wordPhones) {
+            System.arraycopy(currentWordPhones, 0, phones, index, currentWordPhones.length);
+            index += currentWordPhones.length;
+        }
+
+        return phones;
+    }
+
+    /**
+     * @brief Returns the phones of a single word
+     *
+     * @param word
+     *     The String of the word
+     *
+     * @return The phones of the given word. The returned array is shared and must not be modified
+     */
+    String[] getWordPhones (String word) {
+        validate();
+
+        return wordCache_.get(word, key -> dictionary_.getPhonesInLine(new WordSequence(key))
+            .stream()
+            .toArray(String[] ::new)
+        );
+    }
+
+    private final Dictionary dictionary_; //!< The Dictionary to take the phones from
+
+    private final LRUCache<String, String[]> wordCache_; //!< The phones of single words
+    private final LRUCache<String, String[]> spanCache_; //!< The phones of word spans
+    private final LRUCache<String, int[]> spanIdCache_; //!< The phone ids of word spans
+    private volatile int modificationCount_; //!< The modification count of the Dictionary when
+                                             //!< the cached phones were found
+
+    private static final int WORD_CACHE_CAPACITY = 65536;
+    private static final int SPAN_CACHE_CAPACITY = 65536;
+
+}
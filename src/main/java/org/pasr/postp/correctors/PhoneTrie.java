@@ -0,0 +1,543 @@
+package org.pasr.postp.correctors;
+
+import org.pasr.prep.corpus.Corpus;
+import org.pasr.prep.corpus.WordSequence;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+
+/**
+ * @class PhoneTrie
+ * @brief Implements a trie of the phones of every sub-part of every sentence of a Corpus
+ *        A sub-part of a sentence is a span of consecutive words. For each word of each sentence,
+ *        the phones of the words from that word up to the end of the sentence are inserted in the
+ *        trie and the node where each word ends is marked with the sub-part that ends there.
+ *
+ *        The trie is searched for the sub-part with the smallest Levenshtein Distance from a
+ *        sequence of phones. The rows of the Levenshtein matrix are computed once for each node so
+ *        sub-parts with a common prefix share the work of the prefix.
+ */
+class PhoneTrie {
+
+    /**
+     * @brief Constructor
+     *
+     * @param corpus
+     *     The Corpus
+     * @param phoneCache
+     *     The PhoneCache to take the phones of the words from
+     */
+    PhoneTrie (Corpus corpus, PhoneCache phoneCache) {
+        phoneIds_ = new HashMap<>();
+
+        label_ = new int[1024];
+        firstChild_ = new int[1024];
+        nextSibling_ = new int[1024];
+        firstOccurrence_ = new long[1024];
+        size_ = 0;
+        maxDepth_ = 0;
+
+        newNode(- 1);
+
+        for (int s = 0, numberOfSentences = corpus.size(); s < numberOfSentences; s++) {
+            WordSequence wordSequence = corpus.get(s);
+            int numberOfWords = wordSequence.size();
+
+            int[][] wordPhones = new int[numberOfWords][];
+            for (int w = 0; w < numberOfWords; w++) {
+                wordPhones[w] = toIds(phoneCache.getWordPhones(wordSequence.get(w).toString()));
+            }
+
+            for (int i = 0; i < numberOfWords; i++) {
+                int node = ROOT;
+                int depth = 0;
+
+                for (int j = i; j < numberOfWords; j++) {
+                    for (int phone : wordPhones[j]) {
+                        node = getOrAddChild(node, phone);
+                        depth++;
+                    }
+
+                    // Sub-parts are inserted in the order they are met when the corpus is scanned,
+                    // so the first one that ends at a node is the one to keep.
+                    if (firstOccurrence_[node] == NO_OCCURRENCE) {
+                        firstOccurrence_[node] = pack(s, i, j + 1);
+                    }
+                }
+
+                maxDepth_ = Integer.max(maxDepth_, depth);
+            }
+        }
+    }
+
+    /**
+     * @brief Finds the sub-part with the smallest Levenshtein Distance from the given phones
+     *        On equal distances, the sub-part that comes first in the corpus wins, that is the one
+     *        with the smallest sentence index, then the smallest begin index and then the smallest
+     *        end index.
+     *
+     * @param phones
+     *     The phones to search for
+     * @param forkJoinPool
+     *     The ForkJoinPool to search in parallel or null to search on the calling thread
+     *
+     * @return The best Match or null if the corpus has no sub-parts
+     */
+    Match search (String[] phones, ForkJoinPool forkJoinPool) {
+        int[] query = new int[phones.length];
+        for (int i = 0, n = phones.length; i < n; i++) {
+            Integer id = phoneIds_.get(phones[i]);
+
+            // A phone that doesn't exist in the corpus can't match any phone of the trie
+            query[i] = id == null ? - 1 : id;
+        }
+
+        int[] children = getChildren(ROOT);
+
+        SearchTask searchTask = new SearchTask(query, children, 0, children.length,
+            forkJoinPool == null ? Integer.MAX_VALUE : Integer.max(
+                1, children.length / (forkJoinPool.getParallelism() * TASKS_PER_THREAD)
+            )
+        );
+
+        Best best = forkJoinPool == null ? searchTask.compute() : forkJoinPool.invoke(searchTask);
+
+        // The root is an end node only if a sub-part has no phones at all
+        if (firstOccurrence_[ROOT] != NO_OCCURRENCE) {
+            best.offer(query.length, firstOccurrence_[ROOT]);
+        }
+
+        if (best.occurrence_ == NO_OCCURRENCE) {
+            return null;
+        }
+
+        return new Match(best.distance_, sentenceOf(best.occurrence_),
+            beginIndexOf(best.occurrence_), endIndexOf(best.occurrence_));
+    }
+
+    /**
+     * @brief Searches the sub-tree of a node
+     *
+     * @param node
+     *     The node
+     * @param depth
+     *     The depth of the node
+     * @param rows
+     *     The Levenshtein matrix rows, one for each depth. The row of the given depth must hold
+     *     the row of the node
+     * @param query
+     *     The phone ids to search for
+     * @param best
+     *     The best match found so far
+     */
+    private void search (int node, int depth, int[][] rows, int[] query, Best best) {
+        int[] row = rows[depth];
+        int m = query.length;
+
+        if (firstOccurrence_[node] != NO_OCCURRENCE) {
+            best.offer(row[m], firstOccurrence_[node]);
+        }
+
+        int[] nextRow = rows[depth + 1];
+        for (int child = firstChild_[node]; child != NONE; child = nextSibling_[child]) {
+            int rowMinimum = computeRow(row, nextRow, label_[child], query, depth + 1,
+                best.distance_);
+
+            // The values of the rows never decrease as the depth increases. If every value of this
+            // row is greater than the best distance, no sub-part below can be closer. Sub-parts
+            // with a distance equal to the best one are still searched since they may come first.
+            if (rowMinimum <= best.distance_) {
+                search(child, depth + 1, rows, query, best);
+            }
+        }
+    }
+
+    /**
+     * @brief Computes the Levenshtein matrix row of a child node
+     *        Only the cells that are no more than maximum cells away from the diagonal are
+     *        computed, since a path that leaves this band costs more than maximum. The cells just
+     *        outside the band and the last cell are set to maximum + 1, so that the rows below and
+     *        the distance of the node never read a cell of another sub-tree. Every computed value
+     *        that is greater than maximum is also cut to maximum + 1.
+     *
+     * @param row
+     *     The row of the parent node
+     * @param nextRow
+     *     The row to fill for the child node
+     * @param phone
+     *     The phone id of the child node
+     * @param query
+     *     The phone ids to search for
+     * @param depth
+     *     The depth of the child node
+     * @param maximum
+     *     The maximum distance of interest
+     *
+     * @return The minimum value of the computed row
+     */
+    private static int computeRow (int[] row, int[] nextRow, int phone, int[] query, int depth,
+                                   int maximum) {
+        int m = query.length;
+
+        int limit = maximum == Integer.MAX_VALUE ? maximum : maximum + 1;
+        int begin = maximum >= depth ? 1 : depth - maximum;
+        int end = maximum >= m - depth ? m : depth + maximum;
+
+        int rowMinimum = limit;
+        if (begin == 1) {
+            nextRow[0] = Integer.min(row[0] + 1, limit);
+            rowMinimum = nextRow[0];
+        }
+        else {
+            nextRow[begin - 1] = limit;
+        }
+
+        for (int k = begin; k <= end; k++) {
+            int substitutionCost = query[k - 1] == phone ? 0 : 1;
+
+            nextRow[k] = Integer.min(
+                limit,
+                Integer.min(
+                    row[k] + 1,
+                    Integer.min(nextRow[k - 1] + 1, row[k - 1] + substitutionCost)
+                )
+            );
+
+            rowMinimum = Integer.min(rowMinimum, nextRow[k]);
+        }
+
+        if (end < m) {
+            nextRow[end + 1] = limit;
+            nextRow[m] = limit;
+        }
+
+        return rowMinimum;
+    }
+
+    /**
+     * @brief Returns the number of nodes of this trie
+     *
+     * @return The number of nodes of this trie
+     */
+    int size () {
+        return size_;
+    }
+
+    /**
+     * @brief Returns the children of a node
+     *
+     * @param node
+     *     The node
+     *
+     * @return The children of the node
+     */
+    private int[] getChildren (int node) {
+        int numberOfChildren = 0;
+        for (int child = firstChild_[node]; child != NONE; child = nextSibling_[child]) {
+            numberOfChildren++;
+        }
+
+        int[] children = new int[numberOfChildren];
+        int index = 0;
+        for (int child = firstChild_[node]; child != NONE; child = nextSibling_[child]) {
+            children[index++] = child;
+        }
+
+        return children;
+    }
+
+    /**
+     * @brief Returns the child of a node with the given phone id, adding it if it doesn't exist
+     *
+     * @param node
+     *     The node
+     * @param phone
+     *     The phone id
+     *
+     * @return The child
+     */
+    private int getOrAddChild (int node, int phone) {
+        int lastChild = NONE;
+        for (int child = firstChild_[node]; child != NONE; child = nextSibling_[child]) {
+            if (label_[child] == phone) {
+                return child;
+            }
+
+            lastChild = child;
+        }
+
+        int child = newNode(phone);
+        if (lastChild == NONE) {
+            firstChild_[node] = child;
+        }
+        else {
+            nextSibling_[lastChild] = child;
+        }
+
+        return child;
+    }
+
+    /**
+     * @brief Adds a new node to this trie
+     *
+     * @param phone
+     *     The phone id of the node
+     *
+     * @return The new node
+     */
+    private int newNode (int phone) {
+        if (size_ == label_.length) {
+            int capacity = 2 * size_;
+
+            label_ = Arrays.copyOf(label_, capacity);
+            firstChild_ = Arrays.copyOf(firstChild_, capacity);
+            nextSibling_ = Arrays.copyOf(nextSibling_, capacity);
+            firstOccurrence_ = Arrays.copyOf(firstOccurrence_, capacity);
+        }
+
+        label_[size_] = phone;
+        firstChild_[size_] = NONE;
+        nextSibling_[size_] = NONE;
+        firstOccurrence_[size_] = NO_OCCURRENCE;
+
+        return size_++;
+    }
+
+    /**
+     * @brief Maps phones to phone ids adding any new phone to the phone ids of this trie
+     *
+     * @param phones
+     *     The phones
+     *
+     * @return The phone ids
+     */
+    private int[] toIds (String[] phones) {
+        int[] ids = new int[phones.length];
+
+        for (int i = 0, n = phones.length; i < n; i++) {
+            Integer id = phoneIds_.get(phones[i]);
+
+            if (id == null) {
+                id = phoneIds_.size();
+                phoneIds_.put(phones[i], id);
+            }
+
+            ids[i] = id;
+        }
+
+        return ids;
+    }
+
+    private static long pack (int sentence, int beginIndex, int endIndex) {
+        return ((long) sentence << 32) | ((long) beginIndex << 16) | endIndex;
+    }
+
+    private static int sentenceOf (long occurrence) {
+        return (int) (occurrence >>> 32);
+    }
+
+    private static int beginIndexOf (long occurrence) {
+        return (int) ((occurrence >>> 16) & 0xFFFF);
+    }
+
+    private static int endIndexOf (long occurrence) {
+        return (int) (occurrence & 0xFFFF);
+    }
+
+    /**
+     * @class Best
+     * @brief Holds the best distance and the first sub-part with that distance found so far
+     */
+    private static class Best {
+        /**
+         * @brief Offers a sub-part to this Best
+         *
+         * @param distance
+         *     The distance of the sub-part
+         * @param occurrence
+         *     The packed position of the sub-part
+         */
+        void offer (int distance, long occurrence) {
+            if (distance < distance_ ||
+                (distance == distance_ && Long.compareUnsigned(occurrence, occurrence_) < 0)) {
+                distance_ = distance;
+                occurrence_ = occurrence;
+            }
+        }
+
+        private int distance_ = Integer.MAX_VALUE; //!< The best distance
+        private long occurrence_ = NO_OCCURRENCE; //!< The packed position of the best sub-part
+    }
+
+    /**
+     * @class SearchTask
+     * @brief Searches the sub-trees of a range of children of the root
+     *        If the range is larger than the given size, it is split in two and the two halves
+     *        are searched in parallel.
+     */
+    private class SearchTask extends RecursiveTask<Best> {
+        /**
+         * @brief Constructor
+         *
+         * @param query
+         *     The phone ids to search for
+         * @param children
+         *     The children of the root
+         * @param beginIndex
+         *     The index of the first child inclusive
+         * @param endIndex
+         *     The index of the last child exclusive
+         * @param taskSize
+         *     The maximum number of children that a single task searches
+         */
+        SearchTask (int[] query, int[] children, int beginIndex, int endIndex, int taskSize) {
+            query_ = query;
+            children_ = children;
+            beginIndex_ = beginIndex;
+            endIndex_ = endIndex;
+            taskSize_ = taskSize;
+        }
+
+        @Override
+        protected Best compute () {
+            if (endIndex_ - beginIndex_ <= taskSize_) {
+                return computeDirectly();
+            }
+
+            int middle = (beginIndex_ + endIndex_) >>> 1;
+
+            SearchTask left = new SearchTask(query_, children_, beginIndex_, middle, taskSize_);
+            SearchTask right = new SearchTask(query_, children_, middle, endIndex_, taskSize_);
+
+            left.fork();
+            Best best = right.compute();
+            Best leftBest = left.join();
+
+            best.offer(leftBest.distance_, leftBest.occurrence_);
+
+            return best;
+        }
+
+        /**
+         * @brief Searches the sub-trees of the children of this task
+         *
+         * @return The Best of the sub-trees
+         */
+        private Best computeDirectly () {
+            int m = query_.length;
+
+            // search takes the row of the children of a node before it knows if there are any, so
+            // one more row than the depth of the deepest node is needed
+            int[][] rows = new int[maxDepth_ + 2][m + 1];
+            for (int k = 0; k <= m; k++) {
+                rows[0][k] = k;
+            }
+
+            Best best = new Best();
+            for (int i = beginIndex_; i < endIndex_; i++) {
+                int child = children_[i];
+
+                if (computeRow(rows[0], rows[1], label_[child], query_, 1,
+                    best.distance_) <= best.distance_) {
+                    search(child, 1, rows, query_, best);
+                }
+            }
+
+            return best;
+        }
+
+        private final int[] query_; //!< The phone ids to search for
+        private final int[] children_; //!< The children of the root
+        private final int beginIndex_; //!< The index of the first child inclusive
+        private final int endIndex_; //!< The index of the last child exclusive
+        private final int taskSize_; //!< The maximum number of children of a single task
+    }
+
+    /**
+     * @class Match
+     * @brief Holds the distance and the position of a sub-part of a sentence of the corpus
+     */
+    static class Match {
+        /**
+         * @brief Constructor
+         *
+         * @param distance
+         *     The distance of the sub-part from the searched phones
+         * @param sentence
+         *     The index of the sentence
+         * @param beginIndex
+         *     The index of the first word of the sub-part inclusive
+         * @param endIndex
+         *     The index of the last word of the sub-part exclusive
+         */
+        Match (int distance, int sentence, int beginIndex, int endIndex) {
+            distance_ = distance;
+            sentence_ = sentence;
+            beginIndex_ = beginIndex;
+            endIndex_ = endIndex;
+        }
+
+        /**
+         * @brief Returns the distance of the sub-part from the searched phones
+         *
+         * @return The distance of the sub-part from the searched phones
+         */
+        int getDistance () {
+            return distance_;
+        }
+
+        /**
+         * @brief Returns the index of the sentence
+         *
+         * @return The index of the sentence
+         */
+        int getSentence () {
+            return sentence_;
+        }
+
+        /**
+         * @brief Returns the index of the first word of the sub-part inclusive
+         *
+         * @return The index of the first word of the sub-part inclusive
+         */
+        int getBeginIndex () {
+            return beginIndex_;
+        }
+
+        /**
+         * @brief Returns the index of the last word of the sub-part exclusive
+         *
+         * @return The index of the last word of the sub-part exclusive
+         */
+        int getEndIndex () {
+            return endIndex_;
+        }
+
+        private final int distance_; //!< The distance from the searched phones
+        private final int sentence_; //!< The index of the sentence
+        private final int beginIndex_; //!< The index of the first word inclusive
+        private final int endIndex_; //!< The index of the last word exclusive
+    }
+
+    private final Map<String, Integer> phoneIds_; //!< Maps each phone to its id
+
+    private int[] label_; //!< The phone id of each node
+    private int[] firstChild_; //!< The first child of each node
+    private int[] nextSibling_; //!< The next sibling of each node
+    private long[] firstOccurrence_; //!< The packed position of the first sub-part that ends at
+                                     //!< each node
+    private int size_; //!< The number of nodes
+    private int maxDepth_; //!< The depth of the deepest node
+
+    private static final int ROOT = 0;
+    private static final int NONE = - 1;
+    private static final long NO_OCCURRENCE = - 1;
+
+    private static final int TASKS_PER_THREAD = 4; //!< The number of tasks per thread in which the
+                                                   //!< children of the root are split
+
+}
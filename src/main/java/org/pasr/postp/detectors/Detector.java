@@ -22,4 +22,17 @@ public interface Detector {
      */
     List<Word> detect (WordSequence wordSequence);
 
+    /**
+     * @brief Returns true if this Detector decides on each word looking only at its neighbours
+     *        A local Detector decides on each word looking at no more than five words before it
+     *        and one word after it, so a CorrectionSession can keep its error words for the part
+     *        of a hypothesis that has not changed. Any other Detector, like one that matches the
+     *        whole WordSequence against the Corpus, must return false.
+     *
+     * @return True if this Detector decides on each word looking only at its neighbours
+     */
+    default boolean isLocal () {
+        return false;
+    }
+
 }
@@ -5,7 +5,7 @@ import opennlp.tools.postag.POSTaggerME;
 import org.pasr.prep.corpus.Corpus;
 import org.pasr.prep.corpus.Word;
 import org.pasr.prep.corpus.WordSequence;
-import org.pasr.utilities.LevenshteinMatrix;
+import org.pasr.utilities.EditDistancePattern;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
@@ -57,6 +57,9 @@ public class POSDetector implements Detector {
 
     /**
      * @brief Creates a POS pattern for each sentence in the Corpus
+     *        The tags and the words of each sentence are also kept as symbol ids, in the iteration
+     *        order of the corpus map, so that a sentence can be scored with an
+     *        EditDistancePattern.
      *
      * @param corpus
      *     The Corpus to be used
@@ -67,6 +70,56 @@ public class POSDetector implements Detector {
         for (WordSequence wordSequence : corpus) {
             corpusMap_.put(wordSequence.getWordTextList(), tag(wordSequence));
         }
+
+        wordIds_ = new HashMap<>();
+
+        int numberOfPatterns = corpusMap_.size();
+        patterns_ = new ArrayList<>(numberOfPatterns);
+        patternTagIds_ = new int[numberOfPatterns][];
+        patternWordIds_ = new int[numberOfPatterns][];
+
+        int index = 0;
+        for (Map.Entry<List<String>, List<Tags>> corpusMapEntry : corpusMap_.entrySet()) {
+            patterns_.add(corpusMapEntry.getValue());
+            patternTagIds_[index] = getTagIds(corpusMapEntry.getValue());
+
+            List<String> words = corpusMapEntry.getKey();
+            int[] wordIds = new int[words.size()];
+            for (int i = 0, n = words.size(); i < n; i++) {
+                wordIds[i] = wordIds_.computeIfAbsent(words.get(i), word -> wordIds_.size());
+            }
+            patternWordIds_[index] = wordIds;
+
+            index++;
+        }
+    }
+
+    /**
+     * @brief Returns the symbol ids of a List of Tags
+     *
+     * @param tags
+     *     The List of Tags
+     *
+     * @return The symbol id of each Tag
+     */
+    private static int[] getTagIds (List<Tags> tags) {
+        return tags.stream()
+            .mapToInt(Tags:: ordinal)
+            .toArray();
+    }
+
+    /**
+     * @brief Returns the symbol ids of a List of words
+     *
+     * @param words
+     *     The List of words
+     *
+     * @return The symbol id of each word or -1 for a word that is not in the corpus
+     */
+    private int[] getWordIds (List<String> words) {
+        return words.stream()
+            .mapToInt(word -> wordIds_.getOrDefault(word, - 1))
+            .toArray();
     }
 
     /**
@@ -121,33 +174,37 @@ public class POSDetector implements Detector {
      *        The scoring is done based on the matching of the two POS patterns and also on the
      *        distance between the two corresponding sentences.
      *
+     *        The tags and the words of the WordSequence are made into two EditDistancePatterns
+     *        once, and the tag distances of all the corpus patterns are computed in one batch. The
+     *        score of a pattern is the mean of the two distances, so the word distance is computed
+     *        only for a pattern whose tag distance is smaller than the best sum of distances.
+     *
      * @param wordSequence
      *     The WordSequence
      *
      * @return The best matching Tag List
      */
     private List<Tags> getBestPattern (WordSequence wordSequence) {
-        List<Tags> wordSequenceTagList = tag(wordSequence);
-        List<String> wordSequenceWordTextList = wordSequence.getWordTextList();
+        int[] tagDistances = new EditDistancePattern(getTagIds(tag(wordSequence))).getDistances(
+            patternTagIds_
+        );
+        EditDistancePattern wordPattern = new EditDistancePattern(
+            getWordIds(wordSequence.getWordTextList())
+        );
 
-        double minDistance = Double.POSITIVE_INFINITY;
+        int minDistance = Integer.MAX_VALUE; // The sum of the two distances of the best pattern
         List<Tags> bestPattern = null;
 
-        double currentDistance;
-        for (Map.Entry<List<String>, List<Tags>> corpusMapEntry : corpusMap_.entrySet()) {
-            currentDistance = LevenshteinMatrix.getDistance(
-                wordSequenceTagList,
-                corpusMapEntry.getValue()
-            );
+        for (int i = 0, n = tagDistances.length; i < n; i++) {
+            if (tagDistances[i] >= minDistance) {
+                continue;
+            }
 
-            currentDistance = 0.5 * currentDistance + 0.5 * LevenshteinMatrix.getDistance(
-                wordSequenceWordTextList,
-                corpusMapEntry.getKey()
-            );
+            int currentDistance = tagDistances[i] + wordPattern.getDistance(patternWordIds_[i]);
 
             if (currentDistance < minDistance) {
                 minDistance = currentDistance;
-                bestPattern = corpusMapEntry.getValue();
+                bestPattern = patterns_.get(i);
             }
         }
 
@@ -316,6 +373,11 @@ public class POSDetector implements Detector {
                                                       //!< the given corpus. The key is a list with
                                                       //!< every word in the corpus and the value is
                                                       //!< a list with the corresponding tags
+    private List<List<Tags>> patterns_; //!< The POS patterns in the iteration order of the corpus
+                                        //!< map
+    private int[][] patternTagIds_; //!< The tag ids of each POS pattern
+    private int[][] patternWordIds_; //!< The word ids of the sentence of each POS pattern
+    private Map<String, Integer> wordIds_; //!< The symbol id of each word of the corpus
 
     private POSTaggerME tagger_; //!< The Apache OpenNLP POS Tagger of this Detector
 
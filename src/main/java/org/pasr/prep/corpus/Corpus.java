@@ -1,19 +1,28 @@
 package org.pasr.prep.corpus;
 
 import org.pasr.asr.dictionary.Dictionary;
-import org.pasr.utilities.NumberSpeller;
 
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 
 /**
  * @class Corpus
- * @brief Implements a List of WordSequence objects backed by an ArrayList
+ * @brief Implements a List of WordSequence objects stored as columns
+ *        The ids of the words of all the WordSequence objects are kept one after another in a
+ *        single array and each WordSequence is an offset and a length into it, together with an
+ *        index into the ids and titles of its Document. The Strings of the words are kept once in
+ *        the Vocabulary of this Corpus.
+ *
+ *        The WordSequence objects returned by a Corpus are views of its sentences that are created
+ *        on demand. Modifying their Word objects modifies this Corpus. Like the views of a subList
+ *        they must not be used after the List of WordSequence objects of this Corpus is modified,
+ *        else they throw a ConcurrentModificationException. Adding a WordSequence to a Corpus
+ *        copies its words, so the added WordSequence is not itself an element of the Corpus.
  */
-public class Corpus extends ArrayList<WordSequence> {
+public class Corpus extends AbstractList<WordSequence> implements RandomAccess {
 
     /**
      * @brief Default Constructor
@@ -29,6 +38,17 @@ public class Corpus extends ArrayList<WordSequence> {
      *     The initial List of WordSequence objects for this Corpus
      */
     public Corpus (List<WordSequence> wordSequenceList) {
+        vocabulary_ = new Vocabulary();
+
+        wordIds_ = new int[INITIAL_CAPACITY];
+        sentenceOffsets_ = new int[INITIAL_CAPACITY];
+        sentenceLengths_ = new int[INITIAL_CAPACITY];
+        sentenceDocuments_ = new int[INITIAL_CAPACITY];
+
+        documentIds_ = new long[INITIAL_CAPACITY];
+        documentTitles_ = new String[INITIAL_CAPACITY];
+        documentIndices_ = new HashMap<>();
+
         if (wordSequenceList != null) {
             addAll(wordSequenceList);
         }
@@ -74,26 +94,386 @@ public class Corpus extends ArrayList<WordSequence> {
      * @return The number of Document objects in this Corpus
      */
     public int numberOfDocuments () {
-        return stream()
-            .map(WordSequence:: getDocumentId)
-            .collect(Collectors.toSet()).size();
+        Set<Long> documentIds = new HashSet<>();
+        for (int i = 0; i < size_; i++) {
+            documentIds.add(documentIds_[sentenceDocuments_[i]]);
+        }
+
+        return documentIds.size();
+    }
+
+    /**
+     * @brief Returns the number of WordSequence objects in this Corpus
+     *
+     * @return The number of WordSequence objects in this Corpus
+     */
+    @Override
+    public int size () {
+        return size_;
+    }
+
+    /**
+     * @brief Returns a view of the WordSequence at the given index
+     *
+     * @param index
+     *     The index of the WordSequence
+     *
+     * @return A view of the WordSequence at the given index
+     */
+    @Override
+    public WordSequence get (int index) {
+        WordSequence.checkIndex(index, size_);
+
+        return new Sentence(index);
+    }
+
+    /**
+     * @brief Replaces the WordSequence at the given index with a copy of the given one
+     *
+     * @param index
+     *     The index of the WordSequence
+     * @param wordSequence
+     *     The WordSequence to copy
+     *
+     * @return A copy of the replaced WordSequence
+     */
+    @Override
+    public WordSequence set (int index, WordSequence wordSequence) {
+        WordSequence.checkIndex(index, size_);
+
+        WordSequence previousWordSequence = get(index).subSequence(0);
+
+        int length = sentenceLengths_[index];
+        appendWordIds(index, wordSequence);
+        numberOfUnusedWordIds_ += length;
+
+        textModificationCount_++;
+        compactIfWasteful();
+
+        return previousWordSequence;
+    }
+
+    /**
+     * @brief Inserts a copy of the given WordSequence at the given index
+     *
+     * @param index
+     *     The index
+     * @param wordSequence
+     *     The WordSequence to copy
+     */
+    @Override
+    public void add (int index, WordSequence wordSequence) {
+        WordSequence.checkIndex(index, size_ + 1);
+
+        if (size_ == sentenceOffsets_.length) {
+            ensureCapacity(2 * size_);
+        }
+
+        // The words are copied to the free position after the last sentence before any sentence
+        // is moved, so the given WordSequence may be a view of this Corpus
+        appendWordIds(size_, wordSequence);
+        int offset = sentenceOffsets_[size_];
+        int length = sentenceLengths_[size_];
+        int documentIndex = sentenceDocuments_[size_];
+
+        System.arraycopy(sentenceOffsets_, index, sentenceOffsets_, index + 1, size_ - index);
+        System.arraycopy(sentenceLengths_, index, sentenceLengths_, index + 1, size_ - index);
+        System.arraycopy(sentenceDocuments_, index, sentenceDocuments_, index + 1, size_ - index);
+        sentenceOffsets_[index] = offset;
+        sentenceLengths_[index] = length;
+        sentenceDocuments_[index] = documentIndex;
+        size_++;
+        modCount++;
+    }
+
+    /**
+     * @brief Removes the WordSequence at the given index
+     *
+     * @param index
+     *     The index of the WordSequence
+     *
+     * @return A copy of the removed WordSequence
+     */
+    @Override
+    public WordSequence remove (int index) {
+        WordSequence.checkIndex(index, size_);
+
+        WordSequence removedWordSequence = get(index).subSequence(0);
+
+        removeRange(index, index + 1);
+
+        return removedWordSequence;
     }
 
     /**
-     * @brief Returns a Set of the unique Word objects inside this Corpus
+     * @brief Removes the WordSequence objects with index in [fromIndex, toIndex)
      *
-     * @return A Set of the unique Word objects inside this Corpus
+     * @param fromIndex
+     *     The beginning index inclusive
+     * @param toIndex
+     *     The ending index exclusive
      */
-    private Set<String> getUniqueWords () {
-        HashSet<String> uniqueWords = new HashSet<>();
+    @Override
+    protected void removeRange (int fromIndex, int toIndex) {
+        for (int i = fromIndex; i < toIndex; i++) {
+            numberOfUnusedWordIds_ += sentenceLengths_[i];
+        }
 
-        for (WordSequence wordSequence : this) {
-            uniqueWords.addAll(wordSequence.stream()
-                .map(Word:: toString)
-                .collect(Collectors.toSet()));
+        int n = size_ - toIndex;
+        System.arraycopy(sentenceOffsets_, toIndex, sentenceOffsets_, fromIndex, n);
+        System.arraycopy(sentenceLengths_, toIndex, sentenceLengths_, fromIndex, n);
+        System.arraycopy(sentenceDocuments_, toIndex, sentenceDocuments_, fromIndex, n);
+        size_ -= toIndex - fromIndex;
+        modCount++;
+
+        compactIfWasteful();
+    }
+
+    /**
+     * @brief Makes sure that this Corpus can hold the given number of WordSequence objects without
+     *        growing its arrays
+     *
+     * @param minimumCapacity
+     *     The number of WordSequence objects
+     */
+    public void ensureCapacity (int minimumCapacity) {
+        if (minimumCapacity > sentenceOffsets_.length) {
+            int capacity = Math.max(minimumCapacity, INITIAL_CAPACITY);
+
+            sentenceOffsets_ = Arrays.copyOf(sentenceOffsets_, capacity);
+            sentenceLengths_ = Arrays.copyOf(sentenceLengths_, capacity);
+            sentenceDocuments_ = Arrays.copyOf(sentenceDocuments_, capacity);
+        }
+    }
+
+    /**
+     * @brief Reduces the capacity of the arrays of this Corpus to the size of their content
+     */
+    public void trimToSize () {
+        compact(numberOfWordIds_ - numberOfUnusedWordIds_);
+
+        sentenceOffsets_ = Arrays.copyOf(sentenceOffsets_, size_);
+        sentenceLengths_ = Arrays.copyOf(sentenceLengths_, size_);
+        sentenceDocuments_ = Arrays.copyOf(sentenceDocuments_, size_);
+
+        documentIds_ = Arrays.copyOf(documentIds_, numberOfDocumentEntries_);
+        documentTitles_ = Arrays.copyOf(documentTitles_, numberOfDocumentEntries_);
+    }
+
+    /**
+     * @brief Copies the words of a WordSequence to the end of the word id array and points the
+     *        sentence at the given index to them
+     *
+     * @param index
+     *     The index of the sentence
+     * @param wordSequence
+     *     The WordSequence to copy
+     */
+    private void appendWordIds (int index, WordSequence wordSequence) {
+        int length = wordSequence.size();
+        int documentIndex = getDocumentIndex(
+            wordSequence.getDocumentId(), wordSequence.getDocumentTitle()
+        );
+
+        ensureWordIdCapacity(numberOfWordIds_ + length);
+
+        // The ids of a sentence of this Corpus are copied directly, the Strings of any other
+        // WordSequence are looked up in the Vocabulary
+        int offset = numberOfWordIds_;
+        if (wordSequence instanceof Sentence && ((Sentence) wordSequence).getCorpus() == this) {
+            int sourceOffset = sentenceOffsets_[((Sentence) wordSequence).getIndex()];
+            System.arraycopy(wordIds_, sourceOffset, wordIds_, offset, length);
+        }
+        else {
+            for (int i = 0; i < length; i++) {
+                wordIds_[offset + i] = vocabulary_.getId(wordSequence.getWordText(i));
+            }
+        }
+
+        numberOfWordIds_ += length;
+        sentenceOffsets_[index] = offset;
+        sentenceLengths_[index] = length;
+        sentenceDocuments_[index] = documentIndex;
+    }
+
+    /**
+     * @brief Returns the index of a Document in the Document side tables, adding it if needed
+     *
+     * @param documentId
+     *     The id of the Document
+     * @param documentTitle
+     *     The title of the Document
+     *
+     * @return The index of the Document in the Document side tables
+     */
+    private int getDocumentIndex (long documentId, String documentTitle) {
+        Integer documentIndex = documentIndices_.get(documentId);
+        if (documentIndex != null && Objects.equals(documentTitles_[documentIndex],
+            documentTitle)) {
+            return documentIndex;
+        }
+
+        if (numberOfDocumentEntries_ == documentIds_.length) {
+            documentIds_ = Arrays.copyOf(documentIds_, 2 * numberOfDocumentEntries_ + 1);
+            documentTitles_ = Arrays.copyOf(documentTitles_, 2 * numberOfDocumentEntries_ + 1);
+        }
+
+        documentIndex = numberOfDocumentEntries_++;
+        documentIds_[documentIndex] = documentId;
+        documentTitles_[documentIndex] = documentTitle;
+        documentIndices_.put(documentId, documentIndex);
+
+        return documentIndex;
+    }
+
+    /**
+     * @brief Makes sure that the word id array can hold the given number of ids
+     *
+     * @param minimumCapacity
+     *     The number of ids
+     */
+    private void ensureWordIdCapacity (int minimumCapacity) {
+        if (minimumCapacity > wordIds_.length) {
+            wordIds_ = Arrays.copyOf(wordIds_, Math.max(minimumCapacity, 2 * wordIds_.length));
+        }
+    }
+
+    /**
+     * @brief Inserts a word id into the sentence at the given index
+     *        A sentence that doesn't end at the end of the word id array is moved there first, so
+     *        the ids of the other sentences are not moved.
+     *
+     * @param index
+     *     The index of the sentence
+     * @param wordIndex
+     *     The index of the word inside the sentence
+     * @param wordId
+     *     The word id
+     */
+    private void insertWordId (int index, int wordIndex, int wordId) {
+        int offset = sentenceOffsets_[index];
+        int length = sentenceLengths_[index];
+
+        if (offset + length != numberOfWordIds_) {
+            ensureWordIdCapacity(numberOfWordIds_ + length + 1);
+            System.arraycopy(wordIds_, offset, wordIds_, numberOfWordIds_, length);
+
+            numberOfUnusedWordIds_ += length;
+            offset = numberOfWordIds_;
+            sentenceOffsets_[index] = offset;
+            numberOfWordIds_ += length;
+        }
+        else {
+            ensureWordIdCapacity(numberOfWordIds_ + 1);
+        }
+
+        System.arraycopy(wordIds_, offset + wordIndex, wordIds_, offset + wordIndex + 1,
+            length - wordIndex);
+        wordIds_[offset + wordIndex] = wordId;
+        sentenceLengths_[index]++;
+        numberOfWordIds_++;
+
+        compactIfWasteful();
+    }
+
+    /**
+     * @brief Removes a word id from the sentence at the given index
+     *
+     * @param index
+     *     The index of the sentence
+     * @param wordIndex
+     *     The index of the word inside the sentence
+     */
+    private void removeWordId (int index, int wordIndex) {
+        int offset = sentenceOffsets_[index];
+        int length = sentenceLengths_[index];
+
+        System.arraycopy(wordIds_, offset + wordIndex + 1, wordIds_, offset + wordIndex,
+            length - wordIndex - 1);
+        sentenceLengths_[index]--;
+        numberOfUnusedWordIds_++;
+
+        compactIfWasteful();
+    }
+
+    /**
+     * @brief Compacts the word id array if more than half of it is unused
+     */
+    private void compactIfWasteful () {
+        if (numberOfUnusedWordIds_ > INITIAL_CAPACITY &&
+            numberOfUnusedWordIds_ > numberOfWordIds_ / 2) {
+            compact(wordIds_.length);
+        }
+    }
+
+    /**
+     * @brief Copies the word ids of the sentences one after another to a new array, dropping the
+     *        unused ones
+     *
+     * @param capacity
+     *     The capacity of the new array
+     */
+    private void compact (int capacity) {
+        int[] wordIds = new int[capacity];
+
+        int offset = 0;
+        for (int i = 0; i < size_; i++) {
+            System.arraycopy(wordIds_, sentenceOffsets_[i], wordIds, offset, sentenceLengths_[i]);
+            sentenceOffsets_[i] = offset;
+            offset += sentenceLengths_[i];
+        }
+
+        wordIds_ = wordIds;
+        numberOfWordIds_ = offset;
+        numberOfUnusedWordIds_ = 0;
+    }
+
+    /**
+     * @brief Returns the String of a word of a sentence
+     *
+     * @param index
+     *     The index of the sentence
+     * @param wordIndex
+     *     The index of the word inside the sentence
+     *
+     * @return The String of the word
+     */
+    private String getWordText (int index, int wordIndex) {
+        return vocabulary_.getWord(wordIds_[sentenceOffsets_[index] + wordIndex]);
+    }
+
+    /**
+     * @brief Appends the String of a sentence to a StringBuilder
+     *
+     * @param index
+     *     The index of the sentence
+     * @param stringBuilder
+     *     The StringBuilder
+     */
+    private void appendSentenceText (int index, StringBuilder stringBuilder) {
+        for (int i = 0, n = sentenceLengths_[index]; i < n; i++) {
+            if (i > 0) {
+                stringBuilder.append(' ');
+            }
+            stringBuilder.append(getWordText(index, i));
         }
+    }
 
-        return uniqueWords;
+    /**
+     * @brief Adds the Strings of the Word objects of the given WordSequence objects to a Set
+     *
+     * @param wordSequences
+     *     The WordSequence objects
+     * @param uniqueWords
+     *     The Set to add the Strings to
+     */
+    private static void addUniqueWords (List<WordSequence> wordSequences,
+                                        Set<String> uniqueWords) {
+        for (WordSequence wordSequence : wordSequences) {
+            for (Word word : wordSequence) {
+                uniqueWords.add(word.toString());
+            }
+        }
     }
 
     /**
@@ -101,6 +481,10 @@ public class Corpus extends ArrayList<WordSequence> {
      *        The reduced Dictionary will contain only the Word objects that this Corpus contains.
      *        The progress of this process can be monitored using this Corpus Progress
      *
+     *        The Document objects are normalized in parallel on the common ForkJoinPool. Their
+     *        WordSequence objects are still added to this Corpus in the order of the Document
+     *        objects, so the result is the same as the one of a sequential processing.
+     *
      * @param dictionary
      *     The Dictionary to process
      *
@@ -109,18 +493,46 @@ public class Corpus extends ArrayList<WordSequence> {
     public Dictionary process (Dictionary dictionary) {
         cancelProcess_ = false;
 
+        // The vocabulary is collected while the Document objects are normalized, so the Word
+        // objects are not walked a second time
+        Set<String> uniqueWords = ConcurrentHashMap.newKeySet();
+        addUniqueWords(this, uniqueWords);
+
         if (documentList_ != null && documentList_.size() > 0) {
-            for (int i = 0, n = documentList_.size(); i < n; i++) {
-                if (cancelProcess_) {
-                    return new Dictionary();
-                }
+            List<Document> documentList = documentList_;
+            int n = documentList.size();
+            int[] processedDocuments = new int[1];
 
-                String processedContent = processNumbers(documentList_.get(i).getContent());
-                addAll(createWordSequences(
-                    processedContent, documentList_.get(i).getId(), documentList_.get(i).getTitle())
-                );
+            List<List<WordSequence>> wordSequenceLists = IntStream.range(0, n).parallel()
+                .mapToObj(i -> {
+                    if (cancelProcess_) {
+                        return Collections.<WordSequence>emptyList();
+                    }
 
-                progress_.setValue(((double) (i + 1)) / (2 * n));
+                    Document document = documentList.get(i);
+                    List<WordSequence> wordSequences = createWordSequences(
+                        new NumberNormalizer().normalize(document.getContent()), document.getId(),
+                        document.getTitle()
+                    );
+                    addUniqueWords(wordSequences, uniqueWords);
+
+                    // Counting and reporting under the same lock keeps the reported values
+                    // increasing no matter the order in which the Document objects finish
+                    synchronized (progress_) {
+                        processedDocuments[0]++;
+                        progress_.setValue(((double) processedDocuments[0]) / (2 * n));
+                    }
+
+                    return wordSequences;
+                })
+                .collect(Collectors.toList());
+
+            if (cancelProcess_) {
+                return new Dictionary();
+            }
+
+            for (List<WordSequence> wordSequences : wordSequenceLists) {
+                addAll(wordSequences);
             }
         }
         else {
@@ -129,11 +541,15 @@ public class Corpus extends ArrayList<WordSequence> {
 
         Dictionary reducedDictionary = new Dictionary();
 
-        Set<String> uniqueWords = getUniqueWords();
-        int n = uniqueWords.size();
+        // Sorting makes the order of the unknown words independent of the order in which the
+        // Document objects were processed
+        String[] sortedUniqueWords = uniqueWords.toArray(new String[uniqueWords.size()]);
+        Arrays.sort(sortedUniqueWords);
+
+        int n = sortedUniqueWords.length;
         int i = 0;
 
-        for (String uniqueWord : uniqueWords) {
+        for (String uniqueWord : sortedUniqueWords) {
             if (cancelProcess_) {
                 return reducedDictionary;
             }
@@ -168,79 +584,10 @@ public class Corpus extends ArrayList<WordSequence> {
         cancelProcess_ = true;
     }
 
-    /**
-     * @brief Replaces any number inside this Corpus with its literal representation
-     *        There are two ways that a number is pronounced. The first is for dates (e.g. 1942 ->
-     *        nineteen forty two) and the second is for amounts (e.g. 1942 dollars -> one thousand
-     *        nine hundred forty two dollars).
-     */
-    private String processNumbers (String document) {
-        NumberSpeller speller = NumberSpeller.getInstance();
-
-        ArrayList<String> matches = new ArrayList<>();
-
-        Matcher matcher = Pattern.compile("([0-9]+) dollars").matcher(document);
-        while (matcher.find()) {
-            matches.add(matcher.group(1));
-        }
-        // Sort the matches by descending length so that longer numbers get spelled first. If the
-        // matches are sorted by ascending length, then a long number, say 1942 will be spelled as
-        // one nine four two instead of nineteen forty two.
-        Collections.sort(matches, (s1, s2) -> s2.length() - s1.length());
-        for (String match : matches) {
-            String spelled;
-            try {
-                spelled = speller.spell(Integer.valueOf(match));
-            } catch (NumberFormatException e) {
-                // TODO In the future, when name-entity recognition is embedded, {number} will
-                // TODO accept any number.
-                spelled = "number";
-            }
-            document = document.replaceAll(spelled + " dollars", " " + spelled + " dollars ");
-        }
-        matches.clear();
-
-        matcher = Pattern.compile("([0-9]+)\\$").matcher(document);
-        while (matcher.find()) {
-            matches.add(matcher.group(1));
-        }
-        Collections.sort(matches, (s1, s2) -> s2.length() - s1.length());
-        for (String match : matches) {
-            String spelled;
-            try {
-                spelled = speller.spell(Integer.valueOf(match));
-            } catch (NumberFormatException e) {
-                // TODO In the future, when name-entity recognition is embedded, {number} will
-                // TODO accept any number.
-                spelled = "number";
-            }
-            document = document.replaceAll(match + "\\$", " " + spelled + " dollars ");
-        }
-        matches.clear();
-
-        matcher = Pattern.compile("([0-9]+)").matcher(document);
-        while (matcher.find()) {
-            matches.add(matcher.group(1));
-        }
-        Collections.sort(matches, (s1, s2) -> s2.length() - s1.length());
-        for (String match : matches) {
-            String spelled;
-            try {
-                spelled = speller.spell(Integer.valueOf(match), NumberSpeller.Types.NORMAL);
-            } catch (NumberFormatException e) {
-                // TODO In the future, when name-entity recognition is embedded, {number} will
-                // TODO accept any number.
-                spelled = "number";
-            }
-            document = document.replaceAll(match, " " + spelled + " ");
-        }
-
-        return document;
-    }
-
     /**
      * @brief Creates WordSequence objects from a given Document
-     *        WordSequence objects are created by the sentences extracted from the give Document
+     *        WordSequence objects are created by the sentences extracted from the give Document.
+     *        Sentences longer than 10 words are split into chunks of at most 10 words.
      *
      * @param document
      *     The String of the Document to create the WordSequence objects from
@@ -253,61 +600,36 @@ public class Corpus extends ArrayList<WordSequence> {
      */
     private List<WordSequence> createWordSequences (String document, long documentID,
                                                     String documentTitle) {
-        document = document.
-            // From https://docs.oracle.com/javase/8/docs/api/java/util/regex/Pattern.html
-            //  \p{Graph}  A visible character: [\p{Alnum}\p{Punct}]
-            //    \p{Alnum}  An alphanumeric character:[\p{Alpha}\p{Digit}]
-            //      \p{Alpha}  An alphabetic character:[\p{Lower}\p{Upper}]
-            //        \p{Lower}  A lower-case alphabetic character: [a-z]
-            //        \p{Upper}  An upper-case alphabetic character:[A-Z]
-            //      \p{Digit}  A decimal digit: [0-9]
-            //    \p{Punct} 	Punctuation: One of !"#$%&'()*+,-./:;<=>?@[\]^_`{|}~
-                replaceAll("[^\\p{Graph}]", " ").
-                replaceAll("[_\\-,:/\"<>|#@\\\\=+~*\\{}$%&`^]+", " ").
-                replaceAll("[\\(\\[]", " ").
-                replaceAll("[\\)\\]]", " . ").
-                replaceAll("[!?;]", ".").
-                replaceAll(" +", " ").
-                toLowerCase();
-
-        String[] wordSequenceTextArray = document.split(" ?\\. ?");
-
         ArrayList<WordSequence> wordSequences = new ArrayList<>();
-        for (String wordSequenceText : wordSequenceTextArray) {
-            if (! wordSequenceText.isEmpty()) {
-                //noinspection MismatchedQueryAndUpdateOfCollection
-                WordSequence currentWordSequence = new WordSequence(
-                    wordSequenceText, documentID, documentTitle
-                );
-
-                int size = currentWordSequence.size();
-                if (size <= 10) {
-                    wordSequences.add(currentWordSequence);
-                }
-                else if (size <= 15) {
-                    int half = size / 2;
-                    wordSequences.add(currentWordSequence.subSequence(0, half));
-                    wordSequences.add(currentWordSequence.subSequence(half, size));
+
+        SentenceSegmenter.segment(document, documentID, documentTitle, currentWordSequence -> {
+            int size = currentWordSequence.size();
+            if (size <= 10) {
+                wordSequences.add(currentWordSequence);
+            }
+            else if (size <= 15) {
+                int half = size / 2;
+                wordSequences.add(currentWordSequence.subSequence(0, half));
+                wordSequences.add(currentWordSequence.subSequence(half, size));
+            }
+            else {
+                int remainder = size % 10;
+                if (remainder > 0 && remainder <= 5) {
+                    wordSequences.add(currentWordSequence.subSequence(size - 6, size));
+                    size -= 6;
                 }
-                else {
-                    int remainder = size % 10;
-                    if (remainder > 0 && remainder <= 5) {
-                        wordSequences.add(currentWordSequence.subSequence(size - 6, size));
-                        size -= 6;
-                    }
 
-                    // Note that size is int so, if size == 99 then size / 10 * 10 = 90
-                    int n = size / 10 * 10;
-                    for (int i = 0; i < n; i += 10) {
-                        wordSequences.add(currentWordSequence.subSequence(i, i + 10));
-                    }
+                // Note that size is int so, if size == 99 then size / 10 * 10 = 90
+                int n = size / 10 * 10;
+                for (int i = 0; i < n; i += 10) {
+                    wordSequences.add(currentWordSequence.subSequence(i, i + 10));
+                }
 
-                    if (n < size) {
-                        wordSequences.add(currentWordSequence.subSequence(n, size));
-                    }
+                if (n < size) {
+                    wordSequences.add(currentWordSequence.subSequence(n, size));
                 }
             }
-        }
+        });
 
         return wordSequences;
     }
@@ -351,8 +673,9 @@ public class Corpus extends ArrayList<WordSequence> {
     public String toString () {
         StringBuilder stringBuilder = new StringBuilder();
 
-        for (WordSequence wordSequence : this) {
-            stringBuilder.append(wordSequence.toString()).append(".");
+        for (int i = 0; i < size_; i++) {
+            appendSentenceText(i, stringBuilder);
+            stringBuilder.append(".");
         }
 
         return stringBuilder.toString();
@@ -367,14 +690,63 @@ public class Corpus extends ArrayList<WordSequence> {
         return toString().replaceAll("\\.", "\n");
     }
 
+    /**
+     * @brief Returns true if and only if the String of any WordSequence of this Corpus contains the
+     *        given String
+     *        The Strings of the WordSequence objects are joined once and kept until this Corpus is
+     *        modified, as counted by getModificationCount, so repeated calls don't build them
+     *        again. Only a Corpus that is searched keeps them.
+     *
+     * @param string
+     *     The String to search for
+     *
+     * @return True if and only if the String of any WordSequence contains the given String
+     */
     public boolean contains (String string) {
-        for (WordSequence wordSequence : this) {
-            if (wordSequence.contains(string)) {
-                return true;
+        if (isEmpty()) {
+            return false;
+        }
+
+        // A String that contains the separator could match across two WordSequence objects
+        if (string.indexOf(TEXT_SEPARATOR) >= 0) {
+            for (WordSequence wordSequence : this) {
+                if (wordSequence.contains(string)) {
+                    return true;
+                }
             }
+
+            return false;
         }
 
-        return false;
+        return getText().contains(string);
+    }
+
+    /**
+     * @brief Returns the Strings of the WordSequence objects of this Corpus joined by
+     *        TEXT_SEPARATOR
+     *
+     * @return The Strings of the WordSequence objects of this Corpus joined by TEXT_SEPARATOR
+     */
+    private String getText () {
+        // Read the modification count before building the String so that a modification made
+        // while building it leaves the kept String out of date
+        int modificationCount = getModificationCount();
+
+        Text text = text_;
+        if (text != null && text.modificationCount_ == modificationCount) {
+            return text.string_;
+        }
+
+        StringBuilder stringBuilder = new StringBuilder();
+        for (int i = 0; i < size_; i++) {
+            appendSentenceText(i, stringBuilder);
+            stringBuilder.append(TEXT_SEPARATOR);
+        }
+
+        String string = stringBuilder.toString();
+        text_ = new Text(string, modificationCount);
+
+        return string;
     }
 
     /**
@@ -404,9 +776,22 @@ public class Corpus extends ArrayList<WordSequence> {
             removeWordByText(oldText);
         }
         else {
-            for (WordSequence wordSequence : this) {
-                wordSequence.replaceWordText(oldText, newText);
+            // The ids of the words change, not the words themselves
+            int oldId = vocabulary_.findId(oldText);
+            if (oldId == - 1) {
+                return;
+            }
+
+            int newId = vocabulary_.getId(Word.escape(newText));
+            for (int i = 0; i < size_; i++) {
+                for (int j = sentenceOffsets_[i], n = j + sentenceLengths_[i]; j < n; j++) {
+                    if (wordIds_[j] == oldId) {
+                        wordIds_[j] = newId;
+                    }
+                }
             }
+
+            textModificationCount_++;
         }
     }
 
@@ -417,17 +802,52 @@ public class Corpus extends ArrayList<WordSequence> {
      *     The String based on which the Word objects will be removed
      */
     public void removeWordByText (String text) {
-        ArrayList<WordSequence> emptyWordSequences = new ArrayList<>();
+        int id = vocabulary_.findId(text);
+        if (id == - 1) {
+            return;
+        }
+
+        // The ids of each sentence are filtered in place and the sentences left empty are dropped
+        int newSize = 0;
+        for (int i = 0; i < size_; i++) {
+            int offset = sentenceOffsets_[i];
+            int length = sentenceLengths_[i];
 
-        for (WordSequence wordSequence : this) {
-            wordSequence.removeByText(text);
+            int newLength = 0;
+            for (int j = offset, n = offset + length; j < n; j++) {
+                if (wordIds_[j] != id) {
+                    wordIds_[offset + newLength++] = wordIds_[j];
+                }
+            }
+            numberOfUnusedWordIds_ += length - newLength;
 
-            if (wordSequence.size() == 0) {
-                emptyWordSequences.add(wordSequence);
+            if (newLength > 0) {
+                sentenceOffsets_[newSize] = offset;
+                sentenceLengths_[newSize] = newLength;
+                sentenceDocuments_[newSize] = sentenceDocuments_[i];
+                newSize++;
             }
         }
 
-        emptyWordSequences.forEach(this :: remove);
+        if (newSize < size_) {
+            size_ = newSize;
+            modCount++;
+        }
+
+        textModificationCount_++;
+        compactIfWasteful();
+    }
+
+    /**
+     * @brief Returns the number of times this Corpus has been modified
+     *        Both the modifications of the List of WordSequence objects and the modifications of
+     *        their Word objects are counted. Structures built upon
+     *        this Corpus can use this number to find out whether they are out of date.
+     *
+     * @return The number of times this Corpus has been modified
+     */
+    public int getModificationCount () {
+        return modCount + textModificationCount_;
     }
 
     /**
@@ -462,11 +882,255 @@ public class Corpus extends ArrayList<WordSequence> {
 
     private List<Document> documentList_; //!< A List of the Document objects of this Corpus
 
+    private final Vocabulary vocabulary_; //!< The Strings of the words of this Corpus
+
+    private int[] wordIds_; //!< The ids of the words of the sentences, one sentence after another
+    private int numberOfWordIds_; //!< The number of used elements of wordIds_
+    private int numberOfUnusedWordIds_; //!< The number of elements of wordIds_ that no sentence
+                                        //!< points to anymore
+
+    private int[] sentenceOffsets_; //!< The offset of the first word id of each sentence
+    private int[] sentenceLengths_; //!< The number of words of each sentence
+    private int[] sentenceDocuments_; //!< The index of the Document of each sentence in the
+                                      //!< Document side tables
+    private int size_; //!< The number of sentences
+
+    private long[] documentIds_; //!< The ids of the Document objects of the sentences
+    private String[] documentTitles_; //!< The titles of the Document objects of the sentences
+    private int numberOfDocumentEntries_; //!< The number of used elements of the side tables
+    private final Map<Long, Integer> documentIndices_; //!< The index of the latest entry of each
+                                                       //!< Document id in the side tables
+
     private int id_; //!< The id of this Corpus
     private String name_; //!< The name of this Corpus
 
     private Progress progress_; //!< The Progress of this Corpus
+    private int textModificationCount_; //!< The number of modifications of the Word objects of
+                                        //!< this Corpus
     private volatile boolean cancelProcess_; //!< A flag indicated whether processing of a
                                              //!< Dictionary has been canceled
 
+    private transient volatile Text text_; //!< The joined Strings of the WordSequence objects or
+                                           //!< null if they have not been joined yet
+
+    private static final char TEXT_SEPARATOR = '\n'; //!< The separator of the joined Strings
+    private static final int INITIAL_CAPACITY = 16; //!< The initial capacity of the arrays
+
+    /**
+     * @class Sentence
+     * @brief Implements a view of a sentence of a Corpus
+     *        The words are read from and written to the arrays of the Corpus.
+     */
+    private final class Sentence extends WordSequence {
+
+        /**
+         * @brief Constructor
+         *
+         * @param index
+         *     The index of the sentence inside the Corpus
+         */
+        Sentence (int index) {
+            super(- 1, "", 0);
+
+            index_ = index;
+            expectedModCount_ = Corpus.this.modCount;
+        }
+
+        /**
+         * @brief Returns the Corpus of this Sentence
+         *
+         * @return The Corpus of this Sentence
+         */
+        Corpus getCorpus () {
+            return Corpus.this;
+        }
+
+        /**
+         * @brief Returns the index of this Sentence inside the Corpus
+         *
+         * @return The index of this Sentence inside the Corpus
+         */
+        int getIndex () {
+            checkForComodification();
+
+            return index_;
+        }
+
+        /**
+         * @brief Returns the id of the Document that this Sentence belongs to
+         *
+         * @return The id of the Document that this Sentence belongs to
+         */
+        @Override
+        public long getDocumentId () {
+            return documentIds_[sentenceDocuments_[getIndex()]];
+        }
+
+        /**
+         * @brief Returns the title of the Document that this Sentence belongs to
+         *
+         * @return The title of the Document that this Sentence belongs to
+         */
+        @Override
+        public String getDocumentTitle () {
+            return documentTitles_[sentenceDocuments_[getIndex()]];
+        }
+
+        /**
+         * @brief Returns the number of Word objects in this Sentence
+         *
+         * @return The number of Word objects in this Sentence
+         */
+        @Override
+        public int size () {
+            return sentenceLengths_[getIndex()];
+        }
+
+        /**
+         * @brief Does nothing since the words of this Sentence are kept by the Corpus
+         */
+        @Override
+        public void trimToSize () {
+        }
+
+        /**
+         * @brief Returns the String of the Word at the given index
+         *
+         * @param index
+         *     The index of the Word
+         *
+         * @return The String of the Word at the given index
+         */
+        @Override
+        String getWordText (int index) {
+            checkIndex(index, size());
+
+            return Corpus.this.getWordText(index_, index);
+        }
+
+        /**
+         * @brief Sets the String of the Word at the given index
+         *
+         * @param index
+         *     The index of the Word
+         * @param escapedText
+         *     The new String of the Word, already escaped
+         */
+        @Override
+        void setWordText (int index, String escapedText) {
+            checkIndex(index, size());
+
+            wordIds_[sentenceOffsets_[index_] + index] = vocabulary_.getId(escapedText);
+            Corpus.this.textModificationCount_++;
+        }
+
+        /**
+         * @brief Inserts a Word at the given index
+         *
+         * @param index
+         *     The index of the Word
+         * @param escapedText
+         *     The String of the Word, already escaped
+         */
+        @Override
+        void addWordText (int index, String escapedText) {
+            checkIndex(index, size() + 1);
+
+            insertWordId(index_, index, vocabulary_.getId(escapedText));
+            Corpus.this.textModificationCount_++;
+        }
+
+        /**
+         * @brief Removes the Word at the given index
+         *
+         * @param index
+         *     The index of the Word
+         */
+        @Override
+        void removeWordText (int index) {
+            checkIndex(index, size());
+
+            removeWordId(index_, index);
+            Corpus.this.textModificationCount_++;
+        }
+
+        /**
+         * @brief Returns the modification count of the Corpus
+         *
+         * @return The modification count of the Corpus
+         */
+        @Override
+        int getTextModificationCount () {
+            return getModificationCount();
+        }
+
+        /**
+         * @brief Returns true if and only if the given WordSequence is a view of the same sentence
+         *
+         * @param wordSequence
+         *     The WordSequence to compare with
+         *
+         * @return True if and only if the given WordSequence is a view of the same sentence
+         */
+        @Override
+        boolean isSameSequence (WordSequence wordSequence) {
+            return wordSequence instanceof Sentence &&
+                ((Sentence) wordSequence).getCorpus() == Corpus.this &&
+                ((Sentence) wordSequence).index_ == index_;
+        }
+
+        /**
+         * @brief Returns a hash code that is the same for all the views of this sentence
+         *
+         * @return A hash code that is the same for all the views of this sentence
+         */
+        @Override
+        int getSequenceHashCode () {
+            return 31 * System.identityHashCode(Corpus.this) + index_;
+        }
+
+        /**
+         * @brief Throws a ConcurrentModificationException if the List of WordSequence objects of
+         *        the Corpus has been modified since this Sentence was created
+         */
+        private void checkForComodification () {
+            if (Corpus.this.modCount != expectedModCount_) {
+                throw new ConcurrentModificationException();
+            }
+        }
+
+        private final int index_; //!< The index of this Sentence inside the Corpus
+        private final int expectedModCount_; //!< The modification count of the List of the
+                                             //!< Corpus when this Sentence was created
+
+    }
+
+    /**
+     * @class Text
+     * @brief Holds the joined Strings of the WordSequence objects of a Corpus together with the
+     *        modification count they were joined at
+     *        The two values are kept in a single immutable object so that a thread never sees a
+     *        String paired with the count of another one.
+     */
+    private static class Text {
+
+        /**
+         * @brief Constructor
+         *
+         * @param string
+         *     The joined Strings
+         * @param modificationCount
+         *     The modification count of the Corpus when the Strings were joined
+         */
+        Text (String string, int modificationCount) {
+            string_ = string;
+            modificationCount_ = modificationCount;
+        }
+
+        final String string_; //!< The joined Strings
+        final int modificationCount_; //!< The modification count of the Corpus when the Strings
+                                      //!< were joined
+
+    }
+
 }
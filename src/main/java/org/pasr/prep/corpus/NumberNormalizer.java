@@ -0,0 +1,125 @@
+package org.pasr.prep.corpus;
+
+import org.pasr.utilities.NumberSpeller;
+
+import java.util.HashMap;
+import java.util.Map;
+
+
+/**
+ * @class NumberNormalizer
+ * @brief Replaces the numbers of a document with their literal representation
+ *        The document is walked once from left to right and the result is written into a single
+ *        StringBuilder. Every run of digits is spelled as an amount (e.g. 1942 -> one thousand nine
+ *        hundred forty two) and a run of digits followed by a dollar sign is spelled as an amount
+ *        of dollars (e.g. 5$ -> five dollars). A number that does not fit in an int is replaced by
+ *        the word "number".
+ *
+ *        A NumberNormalizer spells each distinct number once, so it should be reused for the
+ *        numbers of a single document. It is not thread safe.
+ */
+final class NumberNormalizer {
+
+    /**
+     * @brief Default Constructor
+     */
+    NumberNormalizer () {
+        speller_ = NumberSpeller.getInstance();
+        cache_ = new HashMap<>();
+    }
+
+    /**
+     * @brief Replaces the numbers of a document with their literal representation
+     *
+     * @param document
+     *     The String of the document
+     *
+     * @return The String of the document with its numbers spelled
+     */
+    String normalize (String document) {
+        int length = document.length();
+
+        int begin = 0;
+        while (begin < length && ! isDigit(document.charAt(begin))) {
+            begin++;
+        }
+
+        // Documents without numbers are returned as they are
+        if (begin == length) {
+            return document;
+        }
+
+        StringBuilder stringBuilder = new StringBuilder(length + length / 2);
+        stringBuilder.append(document, 0, begin);
+
+        int i = begin;
+        while (i < length) {
+            char c = document.charAt(i);
+
+            if (! isDigit(c)) {
+                stringBuilder.append(c);
+                i++;
+                continue;
+            }
+
+            int end = i + 1;
+            while (end < length && isDigit(document.charAt(end))) {
+                end++;
+            }
+
+            stringBuilder.append(' ').append(spell(document.substring(i, end)));
+
+            if (end < length && document.charAt(end) == '$') {
+                stringBuilder.append(" dollars");
+                end++;
+            }
+
+            stringBuilder.append(' ');
+            i = end;
+        }
+
+        return stringBuilder.toString();
+    }
+
+    /**
+     * @brief Returns true if and only if the given character is a decimal digit [0-9]
+     *
+     * @param c
+     *     The character
+     *
+     * @return True if and only if the given character is a decimal digit [0-9]
+     */
+    private static boolean isDigit (char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * @brief Spells a run of digits
+     *
+     * @param digits
+     *     The run of digits
+     *
+     * @return The spelled number
+     */
+    private String spell (String digits) {
+        String spelled = cache_.get(digits);
+
+        if (spelled == null) {
+            try {
+                spelled = speller_.spell(Integer.valueOf(digits), NumberSpeller.Types.NORMAL);
+            } catch (NumberFormatException e) {
+                // TODO In the future, when name-entity recognition is embedded, {number} will
+                // TODO accept any number.
+                spelled = "number";
+            }
+
+            cache_.put(digits, spelled);
+        }
+
+        return spelled;
+    }
+
+    private final NumberSpeller speller_; //!< The NumberSpeller used to spell the numbers
+    private final Map<String, String> cache_; //!< The spelled numbers by their digits
+
+}
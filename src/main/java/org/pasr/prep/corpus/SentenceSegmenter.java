@@ -0,0 +1,115 @@
+package org.pasr.prep.corpus;
+
+import java.util.function.Consumer;
+
+
+/**
+ * @class SentenceSegmenter
+ * @brief Splits a document into sentences and the sentences into words
+ *        The document is walked once from left to right and each character is looked up in a
+ *        table of character classes:
+ *        - Letters, digits and the apostrophe make up words and letters are lower cased
+ *        - '.', '!', '?', ';', ')' and ']' end a sentence
+ *        - Any other character, including any character outside ASCII, separates words
+ *
+ *        Sentences without words are skipped. This is the same segmentation that the regular
+ *        expressions that used to clean up the documents produced.
+ */
+final class SentenceSegmenter {
+
+    /**
+     * @brief Default Constructor
+     *        private so that this class cannot be instantiated
+     */
+    private SentenceSegmenter () {
+    }
+
+    /**
+     * @brief Splits a document into WordSequence objects, one for each sentence
+     *
+     * @param document
+     *     The String of the document
+     * @param documentID
+     *     The id of the document
+     * @param documentTitle
+     *     The title of the document
+     * @param consumer
+     *     The Consumer to pass each WordSequence to, in the order of the sentences
+     */
+    static void segment (String document, long documentID, String documentTitle,
+                         Consumer<WordSequence> consumer) {
+        char[] word = new char[16];
+        int wordLength = 0;
+
+        WordSequence sentence = null;
+
+        for (int i = 0, n = document.length(); i <= n; i++) {
+            // A virtual sentence end after the last character flushes the last word and sentence
+            byte characterClass = i == n ? SENTENCE_END : getCharacterClass(document.charAt(i));
+
+            if (characterClass == WORD) {
+                if (wordLength == word.length) {
+                    char[] newWord = new char[2 * word.length];
+                    System.arraycopy(word, 0, newWord, 0, wordLength);
+                    word = newWord;
+                }
+
+                char c = document.charAt(i);
+                word[wordLength++] = c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+                continue;
+            }
+
+            if (wordLength > 0) {
+                if (sentence == null) {
+                    sentence = new WordSequence("", documentID, documentTitle);
+                }
+
+                sentence.addWordText(sentence.size(), new String(word, 0, wordLength));
+                wordLength = 0;
+            }
+
+            if (characterClass == SENTENCE_END && sentence != null) {
+                sentence.trimToSize();
+                consumer.accept(sentence);
+                sentence = null;
+            }
+        }
+    }
+
+    /**
+     * @brief Returns the class of a character
+     *
+     * @param c
+     *     The character
+     *
+     * @return The class of the character
+     */
+    private static byte getCharacterClass (char c) {
+        return c < CHARACTER_CLASSES.length ? CHARACTER_CLASSES[c] : SEPARATOR;
+    }
+
+    private static final byte SEPARATOR = 0; //!< The class of the characters between words
+    private static final byte WORD = 1; //!< The class of the characters of a word
+    private static final byte SENTENCE_END = 2; //!< The class of the characters ending a sentence
+
+    private static final byte[] CHARACTER_CLASSES = new byte[128]; //!< The class of each ASCII
+                                                                   //!< character
+
+    static {
+        for (char c = 'a'; c <= 'z'; c++) {
+            CHARACTER_CLASSES[c] = WORD;
+        }
+        for (char c = 'A'; c <= 'Z'; c++) {
+            CHARACTER_CLASSES[c] = WORD;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            CHARACTER_CLASSES[c] = WORD;
+        }
+        CHARACTER_CLASSES['\''] = WORD;
+
+        for (char c : ".!?;)]".toCharArray()) {
+            CHARACTER_CLASSES[c] = SENTENCE_END;
+        }
+    }
+
+}
@@ -0,0 +1,75 @@
+package org.pasr.prep.corpus;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * @class Vocabulary
+ * @brief Maps the Strings of the Word objects of a Corpus to consecutive ids
+ *        A Corpus stores the ids of its Word objects instead of their Strings, so it keeps a
+ *        single copy of each word of its vocabulary no matter how many times the word appears.
+ *        Unlike String.intern, the copies are released together with the Corpus.
+ */
+class Vocabulary {
+
+    /**
+     * @brief Default Constructor
+     */
+    Vocabulary () {
+        words_ = new ArrayList<>();
+        ids_ = new HashMap<>();
+    }
+
+    /**
+     * @brief Returns the id of a String, adding the String to this Vocabulary if needed
+     *
+     * @param word
+     *     The String
+     *
+     * @return The id of the String
+     */
+    int getId (String word) {
+        Integer id = ids_.get(word);
+
+        if (id == null) {
+            id = words_.size();
+            words_.add(word);
+            ids_.put(word, id);
+        }
+
+        return id;
+    }
+
+    /**
+     * @brief Returns the id of a String without adding the String to this Vocabulary
+     *
+     * @param word
+     *     The String
+     *
+     * @return The id of the String or -1 if this Vocabulary doesn't contain it
+     */
+    int findId (String word) {
+        Integer id = ids_.get(word);
+
+        return id == null ? - 1 : id;
+    }
+
+    /**
+     * @brief Returns the String of an id
+     *
+     * @param id
+     *     The id
+     *
+     * @return The String of the id
+     */
+    String getWord (int id) {
+        return words_.get(id);
+    }
+
+    private final List<String> words_; //!< The Strings of this Vocabulary indexed by their ids
+    private final Map<String, Integer> ids_; //!< The ids of the Strings of this Vocabulary
+
+}
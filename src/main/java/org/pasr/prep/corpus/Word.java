@@ -3,7 +3,14 @@ package org.pasr.prep.corpus;
 
 /**
  * @class Word
- * @brief Implements a word inside a WordSequence wrapping a String
+ * @brief Implements a word inside a WordSequence
+ *        The Word objects returned by a WordSequence are views of the word at an index of the
+ *        WordSequence. They are created on demand and read their String from the WordSequence,
+ *        so they don't hold a copy of it. Two such views are equal if and only if they view the
+ *        same index of the same WordSequence.
+ *
+ *        A Word created with the public constructor holds its own String instead. Adding it to a
+ *        WordSequence copies its String, so it is equal only to itself.
  */
 public class Word {
 
@@ -23,6 +30,20 @@ public class Word {
         index_ = index;
     }
 
+    /**
+     * @brief Constructor for a view of a word of a WordSequence
+     *
+     * @param wordSequence
+     *     The WordSequence containing this Word
+     * @param index
+     *     The index of this Word inside the WordSequence
+     */
+    Word (WordSequence wordSequence, int index) {
+        text_ = null;
+        parent_ = wordSequence;
+        index_ = index;
+    }
+
     /**
      * @brief Escapes a String
      *        Escaping is done to ensure that all characters are in lower case in order to be
@@ -33,7 +54,7 @@ public class Word {
      *
      * @return The escaped String
      */
-    private String escape (String text) {
+    static String escape (String text) {
         return text.toLowerCase().replaceAll(" {2,}", " ").trim();
     }
 
@@ -44,7 +65,7 @@ public class Word {
      */
     @Override
     public String toString () {
-        return text_;
+        return text_ != null ? text_ : parent_.getWordText(index_);
     }
 
     /**
@@ -65,17 +86,65 @@ public class Word {
         return index_;
     }
 
+    /**
+     * @brief Returns true if and only if this Word is a view of a word of its WordSequence
+     *
+     * @return True if and only if this Word is a view of a word of its WordSequence
+     */
+    boolean isView () {
+        return text_ == null;
+    }
+
     /**
      * @brief Sets the String of this Word
+     *        The String of a view is set inside its WordSequence.
      *
      * @param text
      *     The new String of this Word
      */
     public void setText (String text) {
-        text_ = escape(text);
+        if (text_ != null) {
+            text_ = escape(text);
+        }
+        else {
+            parent_.setWordText(index_, escape(text));
+        }
+    }
+
+    /**
+     * @brief Returns true if and only if the given Object is a view of the same word
+     *
+     * @param object
+     *     The Object to compare with
+     *
+     * @return True if and only if the given Object is a view of the same word
+     */
+    @Override
+    public boolean equals (Object object) {
+        if (this == object) {
+            return true;
+        }
+
+        if (! (object instanceof Word) || ! isView()) {
+            return false;
+        }
+
+        Word word = (Word) object;
+
+        return word.isView() && index_ == word.index_ && parent_.isSameSequence(word.parent_);
+    }
+
+    /**
+     * @brief Returns the hash code of this Word
+     *
+     * @return The hash code of this Word
+     */
+    @Override
+    public int hashCode () {
+        return ! isView() ? super.hashCode() : 31 * parent_.getSequenceHashCode() + index_;
     }
 
-    private String text_; //!< The String of this Word
+    private String text_; //!< The String of this Word or null if this Word is a view
     private final WordSequence parent_; //!< The WordSequence containing this Word
     private final int index_; //!< The index of this Word inside the WordSequence
 
@@ -1,16 +1,24 @@
 package org.pasr.prep.corpus;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
-import java.util.stream.Collectors;
+import java.util.RandomAccess;
 
 
 /**
  * @class WordSequence
- * @brief Implements a List of Word objects backed by an ArrayList
+ * @brief Implements a List of Word objects
+ *        A WordSequence keeps the Strings of its words in an array and creates its Word objects on
+ *        demand as views of them, see Word. The WordSequence objects of a Corpus keep the ids of
+ *        their words inside the Corpus instead.
+ *
+ *        The String of a WordSequence is kept until the WordSequence is modified, so it is not
+ *        built again each time it is needed.
  */
-public class WordSequence extends ArrayList<Word> {
+public class WordSequence extends AbstractList<Word> implements RandomAccess {
 
     /**
      * @brief Constructor
@@ -33,19 +41,28 @@ public class WordSequence extends ArrayList<Word> {
      *     The title of the Document that this WordSequence belongs to
      */
     public WordSequence (String text, long documentID, String documentTitle) {
-        documentID_ = documentID;
-        documentTitle_ = documentTitle;
+        this(documentID, documentTitle, 0);
 
-        text = escape(text);
+        text = text.toLowerCase().trim();
 
-        String[] words = text.split(" ");
-        int index = 0;
-        for (String word : words) {
-            if (! word.isEmpty()) {
-                add(new Word(word, this, index));
-                index++;
+        // Words are split on spaces by hand since the text is already escaped once as a whole and
+        // escaping each Word again would run a regular expression per Word
+        int length = text.length();
+        int begin = 0;
+        while (begin < length) {
+            int end = text.indexOf(' ', begin);
+            if (end == - 1) {
+                end = length;
             }
+
+            if (end > begin) {
+                addWordText(size_, text.substring(begin, end));
+            }
+
+            begin = end + 1;
         }
+
+        trimToSize();
     }
 
     /**
@@ -59,24 +76,26 @@ public class WordSequence extends ArrayList<Word> {
      *     The title of the Document that this WordSequence belongs to
      */
     public WordSequence (List<Word> words, long documentID, String documentTitle) {
-        documentID_ = documentID;
-        documentTitle_ = documentTitle;
+        this(documentID, documentTitle, words.size());
 
         addAll(words);
     }
 
     /**
-     * @brief Escapes a String
-     *        Escaping is done to ensure that all characters are in lower case in order to be
-     *        compatible with CMU Sphinx.
-     *
-     * @param text
-     *     The String to escape
+     * @brief Constructor
      *
-     * @return The escaped String
+     * @param documentID
+     *     The id of the Document that this WordSequence belongs to
+     * @param documentTitle
+     *     The title of the Document that this WordSequence belongs to
+     * @param capacity
+     *     The initial number of words that this WordSequence can hold
      */
-    private String escape (String text) {
-        return text.toLowerCase().replaceAll(" {2,}", " ").trim();
+    WordSequence (long documentID, String documentTitle, int capacity) {
+        documentID_ = documentID;
+        documentTitle_ = documentTitle;
+
+        words_ = capacity == 0 ? EMPTY_WORDS : new String[capacity];
     }
 
     /**
@@ -97,6 +116,116 @@ public class WordSequence extends ArrayList<Word> {
         return documentTitle_;
     }
 
+    /**
+     * @brief Returns the number of Word objects in this WordSequence
+     *
+     * @return The number of Word objects in this WordSequence
+     */
+    @Override
+    public int size () {
+        return size_;
+    }
+
+    /**
+     * @brief Returns a view of the Word at the given index
+     *
+     * @param index
+     *     The index of the Word
+     *
+     * @return A view of the Word at the given index
+     */
+    @Override
+    public Word get (int index) {
+        checkIndex(index, size());
+
+        return new Word(this, index);
+    }
+
+    /**
+     * @brief Sets the String of the Word at the given index to the String of the given Word
+     *
+     * @param index
+     *     The index of the Word
+     * @param word
+     *     The Word
+     *
+     * @return A Word holding the previous String
+     */
+    @Override
+    public Word set (int index, Word word) {
+        String text = word.toString();
+        Word previousWord = new Word(getWordText(index), this, index);
+
+        setWordText(index, text);
+
+        return previousWord;
+    }
+
+    /**
+     * @brief Inserts the String of the given Word at the given index
+     *
+     * @param index
+     *     The index
+     * @param word
+     *     The Word
+     */
+    @Override
+    public void add (int index, Word word) {
+        checkIndex(index, size() + 1);
+
+        addWordText(index, word.toString());
+        modCount++;
+    }
+
+    /**
+     * @brief Removes the Word at the given index
+     *
+     * @param index
+     *     The index of the Word
+     *
+     * @return A Word holding the String of the removed Word
+     */
+    @Override
+    public Word remove (int index) {
+        Word removedWord = new Word(getWordText(index), this, index);
+
+        removeWordText(index);
+        modCount++;
+
+        return removedWord;
+    }
+
+    /**
+     * @brief Returns the index of the given Object in this WordSequence
+     *        A view of a Word of this WordSequence is found without comparing it with each Word.
+     *
+     * @param object
+     *     The Object to search for
+     *
+     * @return The index of the given Object or -1 if this WordSequence doesn't contain it
+     */
+    @Override
+    public int indexOf (Object object) {
+        if (object instanceof Word) {
+            Word word = (Word) object;
+
+            if (word.isView() && isSameSequence(word.getParent())) {
+                return word.getIndex() < size() ? word.getIndex() : - 1;
+            }
+        }
+
+        return super.indexOf(object);
+    }
+
+    /**
+     * @brief Reduces the capacity of this WordSequence to its size
+     */
+    public void trimToSize () {
+        if (words_.length > size_) {
+            words_ = size_ == 0 ? EMPTY_WORDS : Arrays.copyOf(words_, size_);
+        }
+    }
+
     /**
      * @brief Returns the String of this WordSequence
      *
@@ -104,24 +233,42 @@ public class WordSequence extends ArrayList<Word> {
      */
     @Override
     public String toString () {
-        StringBuilder stringBuilder = new StringBuilder();
+        int textModificationCount = getTextModificationCount();
+
+        String text = text_;
+        if (text != null && textModificationCount_ == textModificationCount) {
+            return text;
+        }
 
-        for (Word word : this) {
-            stringBuilder.append(word).append(" ");
+        StringBuilder stringBuilder = new StringBuilder();
+        for (int i = 0, n = size(); i < n; i++) {
+            if (i > 0) {
+                stringBuilder.append(' ');
+            }
+            stringBuilder.append(getWordText(i));
         }
 
-        return stringBuilder.toString().trim();
+        text = stringBuilder.toString();
+        text_ = text;
+        textModificationCount_ = textModificationCount;
+
+        return text;
     }
 
     /**
-     * @brief Returns a List containing the Word objects of this WordSequence
+     * @brief Returns a List containing the Strings of the Word objects of this WordSequence
      *
-     * @return A List containing the Word objects of this WordSequence
+     * @return A List containing the Strings of the Word objects of this WordSequence
      */
     public List<String> getWordTextList () {
-        return stream()
-            .map(Word:: toString)
-            .collect(Collectors.toList());
+        int size = size();
+
+        List<String> wordTextList = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            wordTextList.add(getWordText(i));
+        }
+
+        return wordTextList;
     }
 
     /**
@@ -138,6 +285,7 @@ public class WordSequence extends ArrayList<Word> {
 
     /**
      * @brief Returns a new WordSequence that is a sub-sequence of this WordSequence
+     *        The new WordSequence holds a copy of the Strings of the Word objects.
      *
      * @param beginIndex
      *     The beginning index inclusive
@@ -147,7 +295,20 @@ public class WordSequence extends ArrayList<Word> {
      * @return A new WordSequence that is a sub-sequence of this WordSequence
      */
     public WordSequence subSequence (int beginIndex, int endIndex) {
-        return new WordSequence(subList(beginIndex, endIndex), documentID_, documentTitle_);
+        if (beginIndex < 0 || endIndex > size() || beginIndex > endIndex) {
+            throw new IndexOutOfBoundsException(
+                "Invalid range: [" + beginIndex + ", " + endIndex + ") !"
+            );
+        }
+
+        WordSequence subSequence = new WordSequence(
+            getDocumentId(), getDocumentTitle(), endIndex - beginIndex
+        );
+        for (int i = beginIndex; i < endIndex; i++) {
+            subSequence.addWordText(subSequence.size_, getWordText(i));
+        }
+
+        return subSequence;
     }
 
     /**
@@ -204,9 +365,13 @@ public class WordSequence extends ArrayList<Word> {
             removeByText(oldText);
         }
         else {
-            stream()
-                .filter(word -> word.toString().equals(oldText))
-                .forEach(word -> word.setText(newText));
+            String escapedText = Word.escape(newText);
+
+            for (int i = 0, n = size(); i < n; i++) {
+                if (getWordText(i).equals(oldText)) {
+                    setWordText(i, escapedText);
+                }
+            }
         }
     }
 
@@ -217,14 +382,137 @@ public class WordSequence extends ArrayList<Word> {
      *     The String to match upon
      */
     void removeByText (String text) {
-        removeAll(stream()
-            .filter(word -> word.toString().equals(text))
-            .collect(Collectors.toList())
-        );
+        for (int i = size() - 1; i >= 0; i--) {
+            if (getWordText(i).equals(text)) {
+                removeWordText(i);
+                modCount++;
+            }
+        }
+    }
+
+    /**
+     * @brief Returns the String of the Word at the given index
+     *
+     * @param index
+     *     The index of the Word
+     *
+     * @return The String of the Word at the given index
+     */
+    String getWordText (int index) {
+        checkIndex(index, size_);
+
+        return words_[index];
+    }
+
+    /**
+     * @brief Sets the String of the Word at the given index
+     *
+     * @param index
+     *     The index of the Word
+     * @param escapedText
+     *     The new String of the Word, already escaped
+     */
+    void setWordText (int index, String escapedText) {
+        checkIndex(index, size_);
+
+        words_[index] = escapedText;
+        modificationCount_++;
+    }
+
+    /**
+     * @brief Inserts a Word at the given index
+     *
+     * @param index
+     *     The index of the Word
+     * @param escapedText
+     *     The String of the Word, already escaped
+     */
+    void addWordText (int index, String escapedText) {
+        checkIndex(index, size_ + 1);
+
+        if (size_ == words_.length) {
+            words_ = Arrays.copyOf(words_, Math.max(2 * size_, 4));
+        }
+
+        System.arraycopy(words_, index, words_, index + 1, size_ - index);
+        words_[index] = escapedText;
+        size_++;
+        modificationCount_++;
+    }
+
+    /**
+     * @brief Removes the Word at the given index
+     *
+     * @param index
+     *     The index of the Word
+     */
+    void removeWordText (int index) {
+        checkIndex(index, size_);
+
+        System.arraycopy(words_, index + 1, words_, index, size_ - index - 1);
+        words_[--size_] = null;
+        modificationCount_++;
+    }
+
+    /**
+     * @brief Returns the number of times the Word objects of this WordSequence have been modified
+     *
+     * @return The number of times the Word objects of this WordSequence have been modified
+     */
+    int getTextModificationCount () {
+        return modificationCount_;
+    }
+
+    /**
+     * @brief Returns true if and only if the given WordSequence is this WordSequence
+     *        The WordSequence objects of a Corpus are views that are created on demand, so two of
+     *        them can be the same WordSequence.
+     *
+     * @param wordSequence
+     *     The WordSequence to compare with
+     *
+     * @return True if and only if the given WordSequence is this WordSequence
+     */
+    boolean isSameSequence (WordSequence wordSequence) {
+        return wordSequence == this;
+    }
+
+    /**
+     * @brief Returns a hash code that is the same for all the views of this WordSequence
+     *
+     * @return A hash code that is the same for all the views of this WordSequence
+     */
+    int getSequenceHashCode () {
+        return System.identityHashCode(this);
+    }
+
+    /**
+     * @brief Throws an IndexOutOfBoundsException if an index is not in [0, bound)
+     *
+     * @param index
+     *     The index
+     * @param bound
+     *     The exclusive bound
+     */
+    static void checkIndex (int index, int bound) {
+        if (index < 0 || index >= bound) {
+            throw new IndexOutOfBoundsException("Invalid index: " + index + " !");
+        }
     }
 
     private final long documentID_; //!< The id of the Document that this WordSequence belongs to
     private final String documentTitle_; //!< The title of the Document that this WordSequence
                                          //!< belongs to
 
+    private String[] words_; //!< The Strings of the Word objects of this WordSequence
+    private int size_; //!< The number of Word objects of this WordSequence
+    private int modificationCount_; //!< The number of modifications of the Word objects of this
+                                    //!< WordSequence
+
+    private String text_; //!< The String of this WordSequence or null if it has not been built yet
+    private int textModificationCount_; //!< The modification count that text_ was built at
+
+    private static final String[] EMPTY_WORDS = new String[0]; //!< The words of an empty
+                                                               //!< WordSequence
+
 }
@@ -0,0 +1,488 @@
+package org.pasr.utilities;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static java.lang.Integer.min;
+
+
+/**
+ * @class EditDistance
+ * @brief Implements the Levenshtein Distance over arrays of symbol ids
+ *        The distance is computed keeping only two rows of the Levenshtein matrix. The rows are
+ *        kept in a workspace for each thread and are reused between calls, so computing a
+ *        distance allocates nothing once the workspace has grown to the size of the sequences.
+ *
+ *        The full matrix and the change path are computed only by the alignment methods.
+ */
+public class EditDistance {
+
+    /**
+     * @brief Returns the Levenshtein Distance between two int arrays
+     *
+     * @param source
+     *     The first array
+     * @param destination
+     *     The second array
+     *
+     * @return The Levenshtein Distance
+     */
+    public static int getDistance (int[] source, int[] destination) {
+        return getDistance(source, source.length, destination, destination.length);
+    }
+
+    /**
+     * @brief Returns the Levenshtein Distance between two short arrays
+     *        The symbols are widened to ints in the workspace of the thread, so no memory is
+     *        allocated once the workspace has grown to the size of the arrays.
+     *
+     * @param source
+     *     The first array
+     * @param destination
+     *     The second array
+     *
+     * @return The Levenshtein Distance
+     */
+    public static int getDistance (short[] source, short[] destination) {
+        Workspace workspace = WORKSPACE.get();
+        int[] sourceIds = workspace.getSourceIds(source.length);
+        int[] destinationIds = workspace.getDestinationIds(destination.length);
+
+        for (int i = 0; i < source.length; i++) {
+            sourceIds[i] = source[i];
+        }
+        for (int i = 0; i < destination.length; i++) {
+            destinationIds[i] = destination[i];
+        }
+
+        return getDistance(sourceIds, source.length, destinationIds, destination.length);
+    }
+
+    /**
+     * @brief Returns the Levenshtein Distance between two Comparable Lists
+     *        Two symbols are considered equal if their compareTo returns 0.
+     *
+     * @param source
+     *     The first List
+     * @param destination
+     *     The second List
+     *
+     * @param <T>
+     *     The type of the Comparable used as an individual symbol
+     *
+     * @return The Levenshtein Distance
+     */
+    public static <T extends Comparable<T>> int getDistance (List<T> source,
+                                                             List<T> destination) {
+        Map<T, Integer> symbolIds = new TreeMap<>();
+
+        return getDistance(toIds(source, symbolIds), toIds(destination, symbolIds));
+    }
+
+    /**
+     * @brief Returns the Levenshtein Distance between two int arrays if it is not greater than a
+     *        maximum
+     *        Only the cells of the matrix that are no more than maximum cells away from the
+     *        diagonal are computed, since a path that leaves this band costs more than maximum.
+     *        The computation stops as soon as every cell of a row is greater than maximum.
+     *
+     * @param source
+     *     The first array
+     * @param destination
+     *     The second array
+     * @param maximum
+     *     The maximum distance of interest
+     *
+     * @return The Levenshtein Distance or maximum + 1 if it is greater than maximum
+     */
+    public static int getDistance (int[] source, int[] destination, int maximum) {
+        return getDistance(source, source.length, destination, destination.length, maximum);
+    }
+
+    /**
+     * @brief Returns the Levenshtein Distance between two Comparable Lists if it is not greater
+     *        than a maximum
+     *        Two symbols are considered equal if their compareTo returns 0.
+     *
+     * @param source
+     *     The first List
+     * @param destination
+     *     The second List
+     * @param maximum
+     *     The maximum distance of interest
+     *
+     * @param <T>
+     *     The type of the Comparable used as an individual symbol
+     *
+     * @return The Levenshtein Distance or maximum + 1 if it is greater than maximum
+     *
+     * @see #getDistance(int[], int[], int)
+     */
+    public static <T extends Comparable<T>> int getDistance (List<T> source, List<T> destination,
+                                                             int maximum) {
+        Map<T, Integer> symbolIds = new TreeMap<>();
+
+        return getDistance(toIds(source, symbolIds), toIds(destination, symbolIds), maximum);
+    }
+
+    /**
+     * @brief Returns the Levenshtein Distance between the first symbols of two int arrays
+     *
+     * @param source
+     *     The first array
+     * @param sourceSize
+     *     The number of symbols of the first array
+     * @param destination
+     *     The second array
+     * @param destinationSize
+     *     The number of symbols of the second array
+     *
+     * @return The Levenshtein Distance
+     */
+    private static int getDistance (int[] source, int sourceSize, int[] destination,
+                                    int destinationSize) {
+        Workspace workspace = WORKSPACE.get();
+        int[] previousRow = workspace.getPreviousRow(sourceSize + 1);
+        int[] currentRow = workspace.getCurrentRow(sourceSize + 1);
+
+        for (int j = 0; j <= sourceSize; j++) {
+            previousRow[j] = j;
+        }
+
+        for (int i = 1; i <= destinationSize; i++) {
+            int symbol = destination[i - 1];
+
+            currentRow[0] = i;
+            for (int j = 1; j <= sourceSize; j++) {
+                currentRow[j] = min(
+                    previousRow[j] + 1,
+                    min(
+                        currentRow[j - 1] + 1,
+                        previousRow[j - 1] + (source[j - 1] == symbol ? 0 : 1)
+                    )
+                );
+            }
+
+            int[] temporary = previousRow;
+            previousRow = currentRow;
+            currentRow = temporary;
+        }
+
+        return previousRow[sourceSize];
+    }
+
+    /**
+     * @brief Returns the Levenshtein Distance between the first symbols of two int arrays if it
+     *        is not greater than a maximum
+     *
+     * @param source
+     *     The first array
+     * @param sourceSize
+     *     The number of symbols of the first array
+     * @param destination
+     *     The second array
+     * @param destinationSize
+     *     The number of symbols of the second array
+     * @param maximum
+     *     The maximum distance of interest
+     *
+     * @return The Levenshtein Distance or maximum + 1 if it is greater than maximum
+     *
+     * @see #getDistance(int[], int[], int)
+     */
+    private static int getDistance (int[] source, int sourceSize, int[] destination,
+                                    int destinationSize, int maximum) {
+        if (maximum < 0) {
+            throw new IllegalArgumentException("maximum must not be negative!");
+        }
+
+        if (maximum >= Integer.max(sourceSize, destinationSize)) {
+            return getDistance(source, sourceSize, destination, destinationSize);
+        }
+
+        int limit = maximum + 1;
+        if (Math.abs(sourceSize - destinationSize) > maximum) {
+            return limit;
+        }
+
+        Workspace workspace = WORKSPACE.get();
+        int[] previousRow = workspace.getPreviousRow(sourceSize + 1);
+        int[] currentRow = workspace.getCurrentRow(sourceSize + 1);
+
+        for (int j = 0; j <= sourceSize; j++) {
+            previousRow[j] = min(j, limit);
+        }
+
+        for (int i = 1; i <= destinationSize; i++) {
+            int symbol = destination[i - 1];
+
+            int begin = Integer.max(1, i - maximum);
+            int end = min(sourceSize, i + maximum);
+
+            currentRow[begin - 1] = min(i - begin + 1, limit);
+            int rowMinimum = currentRow[begin - 1];
+
+            for (int j = begin; j <= end; j++) {
+                currentRow[j] = min(
+                    limit,
+                    min(
+                        previousRow[j] + 1,
+                        min(
+                            currentRow[j - 1] + 1,
+                            previousRow[j - 1] + (source[j - 1] == symbol ? 0 : 1)
+                        )
+                    )
+                );
+
+                rowMinimum = min(rowMinimum, currentRow[j]);
+            }
+
+            if (rowMinimum == limit) {
+                return limit;
+            }
+
+            // The next row reads one cell after the end of the band
+            if (end < sourceSize) {
+                currentRow[end + 1] = limit;
+            }
+
+            int[] temporary = previousRow;
+            previousRow = currentRow;
+            currentRow = temporary;
+        }
+
+        return previousRow[sourceSize];
+    }
+
+    /**
+     * @brief Maps the symbols of a List to ids adding any new symbol to the given ids
+     *        Symbols that the Map considers equal, such as symbols that compare as equal in a
+     *        TreeMap, get the same id.
+     *
+     * @param symbols
+     *     The symbols
+     * @param symbolIds
+     *     The ids of the symbols
+     *
+     * @param <T>
+     *     The type of the symbols
+     *
+     * @return The ids of the symbols
+     */
+    static <T> int[] toIds (List<T> symbols, Map<T, Integer> symbolIds) {
+        int[] ids = new int[symbols.size()];
+
+        int index = 0;
+        for (T symbol : symbols) {
+            Integer id = symbolIds.get(symbol);
+
+            if (id == null) {
+                id = symbolIds.size();
+                symbolIds.put(symbol, id);
+            }
+
+            ids[index++] = id;
+        }
+
+        return ids;
+    }
+
+    /**
+     * @brief Returns the change path that should be applied so that source matches destination
+     *
+     * @param source
+     *     The first array
+     * @param destination
+     *     The second array
+     *
+     * @return The change path in the format of LevenshteinMatrix.getPath
+     */
+    public static int[][] align (int[] source, int[] destination) {
+        return getPath(getMatrix(source, destination));
+    }
+
+    /**
+     * @brief Returns the full Levenshtein matrix of two int arrays
+     *
+     * @param source
+     *     The first array
+     * @param destination
+     *     The second array
+     *
+     * @return The Levenshtein matrix with destination.length + 1 rows and source.length + 1
+     *         columns
+     */
+    public static int[][] getMatrix (int[] source, int[] destination) {
+        int sourceSize = source.length;
+        int destinationSize = destination.length;
+
+        int[][] matrix = new int[destinationSize + 1][sourceSize + 1];
+        for (int j = 0; j <= sourceSize; j++) {
+            matrix[0][j] = j;
+        }
+
+        for (int i = 1; i <= destinationSize; i++) {
+            int symbol = destination[i - 1];
+
+            matrix[i][0] = i;
+            for (int j = 1; j <= sourceSize; j++) {
+                matrix[i][j] = min(
+                    matrix[i - 1][j] + 1,
+                    min(
+                        matrix[i][j - 1] + 1,
+                        matrix[i - 1][j - 1] + (source[j - 1] == symbol ? 0 : 1)
+                    )
+                );
+            }
+        }
+
+        return matrix;
+    }
+
+    /**
+     * @brief Returns the change path of a Levenshtein matrix
+     *        The path is found walking back from the last cell of the matrix. Each step where the
+     *        value changes is a change and is recorded as the {row, column} of the cell it comes
+     *        from.
+     *
+     * @param matrix
+     *     The Levenshtein matrix
+     *
+     * @return The change path
+     */
+    public static int[][] getPath (int[][] matrix) {
+        int row = matrix.length - 1;
+        int column = matrix[0].length - 1;
+
+        int distance = matrix[row][column];
+
+        int[][] path = new int[distance][];
+
+        int currentScore = distance;
+
+        int previousRow;
+        int previousColumn;
+
+        int leftValue;
+        int aboveValue;
+        int diagonalValue;
+
+        int minValue;
+        int pathIndex = 0;
+        while (currentScore > 0) {
+            if (row == 0 && column == 0) {
+                break;
+            }
+
+            previousRow = row > 0 ? row - 1 : 0;
+            previousColumn = column > 0 ? column - 1 : 0;
+
+            leftValue = matrix[row][previousColumn];
+            aboveValue = matrix[previousRow][column];
+            diagonalValue = matrix[previousRow][previousColumn];
+
+            minValue = min(leftValue, min(aboveValue, diagonalValue));
+            if (currentScore != minValue) {
+                // Note that in Levenshtein matrix, columns start counting from 1 not zero.
+                path[pathIndex] = new int[] {previousRow, previousColumn};
+                pathIndex++;
+            }
+
+            if (minValue == diagonalValue && row != previousRow && column != previousColumn) {
+                row--;
+                column--;
+            }
+            else if (minValue == leftValue && column != previousColumn) {
+                column--;
+            }
+            else {
+                row--;
+            }
+
+            currentScore = minValue;
+        }
+
+        return path;
+    }
+
+    /**
+     * @class Workspace
+     * @brief Holds the two rows and the symbol ids that a thread uses to compute distances
+     */
+    private static class Workspace {
+        /**
+         * @brief Returns the previous row with at least the given length
+         *
+         * @param length
+         *     The minimum length
+         *
+         * @return The previous row
+         */
+        int[] getPreviousRow (int length) {
+            if (previousRow_.length < length) {
+                previousRow_ = new int[Integer.max(length, 2 * previousRow_.length)];
+            }
+
+            return previousRow_;
+        }
+
+        /**
+         * @brief Returns the current row with at least the given length
+         *
+         * @param length
+         *     The minimum length
+         *
+         * @return The current row
+         */
+        int[] getCurrentRow (int length) {
+            if (currentRow_.length < length) {
+                currentRow_ = new int[Integer.max(length, 2 * currentRow_.length)];
+            }
+
+            return currentRow_;
+        }
+
+        /**
+         * @brief Returns the source ids with at least the given length
+         *
+         * @param length
+         *     The minimum length
+         *
+         * @return The source ids
+         */
+        int[] getSourceIds (int length) {
+            if (sourceIds_.length < length) {
+                sourceIds_ = new int[Integer.max(length, 2 * sourceIds_.length)];
+            }
+
+            return sourceIds_;
+        }
+
+        /**
+         * @brief Returns the destination ids with at least the given length
+         *
+         * @param length
+         *     The minimum length
+         *
+         * @return The destination ids
+         */
+        int[] getDestinationIds (int length) {
+            if (destinationIds_.length < length) {
+                destinationIds_ = new int[Integer.max(length, 2 * destinationIds_.length)];
+            }
+
+            return destinationIds_;
+        }
+
+        private int[] previousRow_ = new int[64]; //!< The previous row of the matrix
+        private int[] currentRow_ = new int[64]; //!< The current row of the matrix
+        private int[] sourceIds_ = new int[64]; //!< The ids of the symbols of the source
+        private int[] destinationIds_ = new int[64]; //!< The ids of the symbols of the destination
+    }
+
+    private static final ThreadLocal<Workspace> WORKSPACE = ThreadLocal.withInitial(
+        Workspace:: new
+    ); //!< The Workspace of each thread
+
+}
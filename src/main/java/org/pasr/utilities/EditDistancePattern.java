@@ -0,0 +1,138 @@
+package org.pasr.utilities;
+
+
+/**
+ * @class EditDistancePattern
+ * @brief Computes the Levenshtein Distance of a fixed pattern from many texts
+ *        The symbols are given as non negative ids. For patterns of up to 64 symbols the
+ *        bit-parallel algorithm of Myers, as given by Hyyro for the edit distance, is used. Each
+ *        column of the Levenshtein matrix is kept as the bits of two long values, so a text of n
+ *        symbols is processed with O(n) word operations. The bit mask of each pattern symbol is
+ *        computed once when the EditDistancePattern is created. Longer patterns fall back to
+ *        EditDistance.
+ *
+ *        An EditDistancePattern is immutable and can be used from many threads at once.
+ *
+ * @see <a href="https://doi.org/10.1145/316542.316550">G. Myers, A fast bit-vector algorithm for
+ *      approximate string matching based on dynamic programming</a>
+ */
+public class EditDistancePattern {
+
+    /**
+     * @brief Constructor
+     *
+     * @param pattern
+     *     The symbol ids of the pattern. A negative id is never equal to a symbol of a text
+     */
+    public EditDistancePattern (int[] pattern) {
+        if (pattern == null) {
+            throw new IllegalArgumentException("pattern must not be null!");
+        }
+
+        pattern_ = pattern.clone();
+
+        int maximumId = - 1;
+        for (int symbol : pattern_) {
+            maximumId = Integer.max(maximumId, symbol);
+        }
+
+        if (pattern_.length <= Long.SIZE) {
+            masks_ = new long[maximumId + 1];
+
+            for (int i = 0, n = pattern_.length; i < n; i++) {
+                if (pattern_[i] >= 0) {
+                    masks_[pattern_[i]] |= 1L << i;
+                }
+            }
+        }
+        else {
+            masks_ = null;
+        }
+    }
+
+    /**
+     * @brief Returns the number of symbols of the pattern
+     *
+     * @return The number of symbols of the pattern
+     */
+    public int getLength () {
+        return pattern_.length;
+    }
+
+    /**
+     * @brief Returns the Levenshtein Distance between the pattern and a text
+     *
+     * @param text
+     *     The symbol ids of the text
+     *
+     * @return The Levenshtein Distance
+     */
+    public int getDistance (int[] text) {
+        int m = pattern_.length;
+
+        if (masks_ == null) {
+            return EditDistance.getDistance(pattern_, text);
+        }
+
+        if (m == 0) {
+            return text.length;
+        }
+
+        // Bit i of the vertical vectors is the change from row i to row i + 1 of the current
+        // column. Every change is +1 on the first column.
+        long positiveVertical = m == Long.SIZE ? - 1L : (1L << m) - 1;
+        long negativeVertical = 0;
+        long last = 1L << (m - 1);
+
+        int distance = m;
+        for (int symbol : text) {
+            long equal = symbol >= 0 && symbol < masks_.length ? masks_[symbol] : 0;
+
+            long verticalChange = equal | negativeVertical;
+            long horizontalChange = (((equal & positiveVertical) + positiveVertical) ^
+                positiveVertical) | equal;
+
+            long positiveHorizontal = negativeVertical | ~ (horizontalChange | positiveVertical);
+            long negativeHorizontal = positiveVertical & horizontalChange;
+
+            if ((positiveHorizontal & last) != 0) {
+                distance++;
+            }
+            else if ((negativeHorizontal & last) != 0) {
+                distance--;
+            }
+
+            // The first row of the matrix grows by one on every column
+            positiveHorizontal = (positiveHorizontal << 1) | 1;
+            negativeHorizontal = negativeHorizontal << 1;
+
+            positiveVertical = negativeHorizontal | ~ (verticalChange | positiveHorizontal);
+            negativeVertical = positiveHorizontal & verticalChange;
+        }
+
+        return distance;
+    }
+
+    /**
+     * @brief Returns the Levenshtein Distance between the pattern and each one of many texts
+     *
+     * @param texts
+     *     The symbol ids of the texts
+     *
+     * @return The Levenshtein Distance of each text in the order of the given texts
+     */
+    public int[] getDistances (int[][] texts) {
+        int[] distances = new int[texts.length];
+
+        for (int i = 0, n = texts.length; i < n; i++) {
+            distances[i] = getDistance(texts[i]);
+        }
+
+        return distances;
+    }
+
+    private final int[] pattern_; //!< The symbol ids of the pattern
+    private final long[] masks_; //!< The bit mask of the positions of each symbol id inside the
+                                 //!< pattern or null if the pattern is longer than 64 symbols
+
+}
@@ -0,0 +1,252 @@
+package org.pasr.utilities;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.ToLongBiFunction;
+
+
+/**
+ * @class LRUCache
+ * @brief Implements a thread safe cache of bounded size that evicts the least recently used entry
+ *        Besides the number of entries, the cache can also bound the total weight of its entries,
+ *        for example their estimated size in bytes.
+ *
+ * @param <K>
+ *     The type of the keys
+ * @param <V>
+ *     The type of the values
+ */
+public class LRUCache<K, V> {
+
+    /**
+     * @brief Constructor
+     *
+     * @param capacity
+     *     The maximum number of entries of this cache
+     */
+    public LRUCache (int capacity) {
+        this(capacity, Long.MAX_VALUE, (key, value) -> 0);
+    }
+
+    /**
+     * @brief Constructor
+     *
+     * @param capacity
+     *     The maximum number of entries of this cache
+     * @param maximumWeight
+     *     The maximum total weight of the entries of this cache
+     * @param weigher
+     *     The function that gives the weight of an entry
+     */
+    public LRUCache (int capacity, long maximumWeight,
+                     ToLongBiFunction<? super K, ? super V> weigher) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive!");
+        }
+
+        if (maximumWeight < 0) {
+            throw new IllegalArgumentException("maximumWeight must not be negative!");
+        }
+
+        if (weigher == null) {
+            throw new IllegalArgumentException("weigher must not be null!");
+        }
+
+        capacity_ = capacity;
+        maximumWeight_ = maximumWeight;
+        weigher_ = weigher;
+        weight_ = 0;
+
+        map_ = new LinkedHashMap<K, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry (Map.Entry<K, V> eldest) {
+                if (size() > capacity_) {
+                    weight_ -= weigher_.applyAsLong(eldest.getKey(), eldest.getValue());
+                    return true;
+                }
+
+                return false;
+            }
+        };
+
+        hitCount_ = new AtomicLong();
+        missCount_ = new AtomicLong();
+    }
+
+    /**
+     * @brief Returns the value of the given key, loading it if it is not in this cache
+     *        The loading is done outside of the lock of this cache so that concurrent callers do
+     *        not wait for each other. Two callers that miss on the same key may both load it.
+     *
+     * @param key
+     *     The key
+     * @param loader
+     *     The Function to load the value of a key that is not in this cache
+     *
+     * @return The value of the given key
+     */
+    public V get (K key, Function<? super K, ? extends V> loader) {
+        V value = get(key);
+
+        if (value == null) {
+            value = loader.apply(key);
+
+            if (value != null) {
+                put(key, value);
+            }
+        }
+
+        return value;
+    }
+
+    /**
+     * @brief Returns the value of the given key
+     *
+     * @param key
+     *     The key
+     *
+     * @return The value of the given key or null if the key is not in this cache
+     */
+    public V get (K key) {
+        V value;
+        synchronized (map_) {
+            value = map_.get(key);
+        }
+
+        if (value == null) {
+            missCount_.incrementAndGet();
+        }
+        else {
+            hitCount_.incrementAndGet();
+        }
+
+        return value;
+    }
+
+    /**
+     * @brief Puts an entry in this cache
+     *
+     * @param key
+     *     The key of the entry
+     * @param value
+     *     The value of the entry
+     */
+    public void put (K key, V value) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException("key and value must not be null!");
+        }
+
+        synchronized (map_) {
+            V oldValue = map_.put(key, value);
+
+            if (oldValue != null) {
+                weight_ -= weigher_.applyAsLong(key, oldValue);
+            }
+            weight_ += weigher_.applyAsLong(key, value);
+
+            // Evict the least recently used entries until the weight is within its bound
+            Iterator<Map.Entry<K, V>> iterator = map_.entrySet().iterator();
+            while (weight_ > maximumWeight_ && iterator.hasNext()) {
+                Map.Entry<K, V> entry = iterator.next();
+
+                weight_ -= weigher_.applyAsLong(entry.getKey(), entry.getValue());
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * @brief Removes every entry from this cache
+     *        The hit and miss counts are not reset.
+     */
+    public void clear () {
+        synchronized (map_) {
+            map_.clear();
+            weight_ = 0;
+        }
+    }
+
+    /**
+     * @brief Returns the number of entries in this cache
+     *
+     * @return The number of entries in this cache
+     */
+    public int size () {
+        synchronized (map_) {
+            return map_.size();
+        }
+    }
+
+    /**
+     * @brief Returns the maximum number of entries of this cache
+     *
+     * @return The maximum number of entries of this cache
+     */
+    public int getCapacity () {
+        return capacity_;
+    }
+
+    /**
+     * @brief Returns the total weight of the entries in this cache
+     *
+     * @return The total weight of the entries in this cache
+     */
+    public long getWeight () {
+        synchronized (map_) {
+            return weight_;
+        }
+    }
+
+    /**
+     * @brief Returns the maximum total weight of the entries of this cache
+     *
+     * @return The maximum total weight of the entries of this cache
+     */
+    public long getMaximumWeight () {
+        return maximumWeight_;
+    }
+
+    /**
+     * @brief Returns the number of lookups that found their key in this cache
+     *
+     * @return The number of lookups that found their key in this cache
+     */
+    public long getHitCount () {
+        return hitCount_.get();
+    }
+
+    /**
+     * @brief Returns the number of lookups that did not find their key in this cache
+     *
+     * @return The number of lookups that did not find their key in this cache
+     */
+    public long getMissCount () {
+        return missCount_.get();
+    }
+
+    /**
+     * @brief Returns the fraction of the lookups that found their key in this cache
+     *
+     * @return The fraction of the lookups that found their key in this cache or 0 if there has
+     *         been no lookup
+     */
+    public double getHitRate () {
+        long hitCount = getHitCount();
+        long total = hitCount + getMissCount();
+
+        return total == 0 ? 0 : ((double) hitCount) / total;
+    }
+
+    private final int capacity_; //!< The maximum number of entries of this cache
+    private final long maximumWeight_; //!< The maximum total weight of the entries of this cache
+    private final ToLongBiFunction<? super K, ? super V> weigher_; //!< Gives the weight of an entry
+    private long weight_; //!< The total weight of the entries of this cache
+    private final LinkedHashMap<K, V> map_; //!< The entries in access order
+
+    private final AtomicLong hitCount_; //!< The number of lookups that found their key
+    private final AtomicLong missCount_; //!< The number of lookups that did not find their key
+
+}
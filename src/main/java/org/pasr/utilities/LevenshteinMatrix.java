@@ -1,13 +1,15 @@
 package org.pasr.utilities;
 
 import java.util.List;
-
-import static java.lang.Integer.min;
+import java.util.Map;
+import java.util.TreeMap;
 
 
 /**
  * @class LevenshteinMatrix
  * @brief Implements a dynamic programming algorithm for calculating the Levenshtein Distance
+ *        The computation is done by EditDistance. A LevenshteinMatrix keeps the full matrix and
+ *        the change path, so use getDistance when only the distance is needed.
  *
  * @param <T>
  *     The type of the Comparable used as an individual symbol
@@ -26,110 +28,15 @@ public class LevenshteinMatrix<T extends Comparable<T>> {
         source_ = source;
         destination_ = destination;
 
-        int sourceSize = source_.size();
-        int destinationSize = destination_.size();
-
-        // Initialize the Levenshtein matrix.
-        matrix_ = new int[destinationSize + 1][sourceSize + 1];
-        for (int i = 0; i <= destinationSize; i++) {
-            for (int j = 0; j <= sourceSize; j++) {
-                if (j == 0 && i == 0) {
-                    matrix_[0][0] = 0;
-                }
-                else if (i == 0) {
-                    matrix_[0][j] = j;
-                }
-                else if (j == 0) {
-                    matrix_[i][0] = i;
-                }
-                else {
-                    matrix_[i][j] = 0;
-                }
-            }
-        }
-
-        calculateMatrix();
-    }
-
-    /**
-     * @brief Creates the Levenshtein Matrix
-     */
-    private void calculateMatrix () {
-        int sourceSize = source_.size();
-        int destinationSize = destination_.size();
-
-        // Build the Levenshtein matrix.
-        int substitutionCost;
-        for (int j = 1; j <= sourceSize; j++) {
-            for (int i = 1; i <= destinationSize; i++) {
-                if (destination_.get(i - 1).compareTo(source_.get(j - 1)) == 0) {
-                    substitutionCost = 0;
-                }
-                else {
-                    substitutionCost = 1;
-                }
-
-                matrix_[i][j] = min(
-                    matrix_[i - 1][j] + 1,
-                    min(
-                        matrix_[i][j - 1] + 1,
-                        matrix_[i - 1][j - 1] + substitutionCost
-                    )
-                );
-            }
-        }
-
-        distance_ = matrix_[destinationSize][sourceSize];
-
-        // Find the path.
-        path_ = new int[distance_][];
-
-        int currentScore = distance_;
-
-        int row = destinationSize;
-        int column = sourceSize;
-
-        int previousRow;
-        int previousColumn;
-
-        int leftValue;
-        int aboveValue;
-        int diagonalValue;
-
-        int minValue;
-        int pathIndex = 0;
-        while (currentScore > 0) {
-            if (row == 0 && column == 0) {
-                break;
-            }
-
-            previousRow = row > 0 ? row - 1 : 0;
-            previousColumn = column > 0 ? column - 1 : 0;
+        // Give each symbol an id so that symbols that compare as equal have the same id
+        Map<T, Integer> symbolIds = new TreeMap<>();
 
-            leftValue = matrix_[row][previousColumn];
-            aboveValue = matrix_[previousRow][column];
-            diagonalValue = matrix_[previousRow][previousColumn];
+        matrix_ = EditDistance.getMatrix(
+            EditDistance.toIds(source_, symbolIds), EditDistance.toIds(destination_, symbolIds)
+        );
 
-            minValue = min(leftValue, min(aboveValue, diagonalValue));
-            if (currentScore != minValue) {
-                // Note that in Levenshtein matrix, columns start counting from 1 not zero.
-                path_[pathIndex] = new int[] {previousRow, previousColumn};
-                pathIndex++;
-            }
-
-            if (minValue == diagonalValue && row != previousRow && column != previousColumn) {
-                row--;
-                column--;
-            }
-            else if (minValue == leftValue && column != previousColumn) {
-                column--;
-            }
-            else {
-                row--;
-            }
-
-            currentScore = minValue;
-        }
+        distance_ = matrix_[destination_.size()][source_.size()];
+        path_ = EditDistance.getPath(matrix_);
     }
 
     /**
@@ -181,7 +88,7 @@ public class LevenshteinMatrix<T extends Comparable<T>> {
      * @return The Levenshtein Distance
      */
     public static <T extends Comparable<T>> int getDistance (List<T> source, List<T> destination) {
-        return new LevenshteinMatrix<>(source, destination).getDistance();
+        return EditDistance.getDistance(source, destination);
     }
 
     /**
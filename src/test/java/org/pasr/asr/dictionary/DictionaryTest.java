@@ -0,0 +1,213 @@
+package org.pasr.asr.dictionary;
+
+
+import org.junit.Test;
+import org.pasr.prep.corpus.WordSequence;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.apache.commons.lang3.StringUtils.getLevenshteinDistance;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+
+public class DictionaryTest {
+
+    @Test
+    public void testPhoneIds(){
+        Dictionary dictionary = Dictionary.createFromStream(new ByteArrayInputStream(
+            DICTIONARY.getBytes(StandardCharsets.UTF_8)
+        ));
+
+        assertEquals("DH IY", dictionary.get("the(2)"));
+        assertNull(dictionary.get("the(3)"));
+
+        WordSequence wordSequence = new WordSequence("hello the xyz");
+
+        byte[] buffer = new byte[dictionary.getNumberOfPhones(wordSequence)];
+        assertEquals(buffer.length, dictionary.getPhoneIds(wordSequence, buffer, 0));
+
+        assertEquals(
+            dictionary.getPhonesInLine(wordSequence),
+            PhoneAlphabet.toPhoneList(buffer)
+        );
+        assertEquals(
+            Arrays.asList("HH", "AH", "L", "OW", "DH", "AH", "X", "Y", "Z"),
+            PhoneAlphabet.toPhoneList(buffer)
+        );
+        assertArrayEquals(PhoneAlphabet.encode("DH AH"), dictionary.getPhoneIds("the"));
+    }
+
+    @Test
+    public void testExportToStream(){
+        Dictionary dictionary = Dictionary.createFromStream(new ByteArrayInputStream(
+            DICTIONARY.getBytes(StandardCharsets.UTF_8)
+        ));
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        dictionary.exportToStream(outputStream);
+
+        Dictionary exported = Dictionary.createFromStream(new ByteArrayInputStream(
+            outputStream.toByteArray()
+        ));
+        assertEquals(dictionary, exported);
+        assertEquals(dictionary.getEntriesByKey("read"), exported.getEntriesByKey("read"));
+
+        exported.remove("read");
+        assertNull(exported.getEntriesByKey("read"));
+        assertEquals(dictionary.size() - 3, exported.size());
+    }
+
+    @Test
+    public void testAlternativePronunciations(){
+        Dictionary dictionary = new Dictionary();
+
+        dictionary.put("read", "R IY D");
+        dictionary.put("read", "R EH D");
+        dictionary.put("read", "R EH D");
+        dictionary.put("reader", "R IY D ER");
+        dictionary.put("red", "R EH D");
+
+        assertEquals(4, dictionary.size());
+        assertEquals("R EH D", dictionary.get("read(2)"));
+        assertNull(dictionary.get("read(3)"));
+        assertEquals(Arrays.asList("read", "reader"), dictionary.getWordsByPrefix("rea"));
+
+        dictionary.remove((Object) "read");
+        assertNull(dictionary.get("read"));
+        assertEquals("R EH D", dictionary.get("read(2)"));
+
+        // The first missing pronunciation is filled first
+        dictionary.put("read", "R IY D");
+        dictionary.put("read", "R AY D");
+        assertEquals("R IY D", dictionary.get("read"));
+        assertEquals("R AY D", dictionary.get("read(3)"));
+    }
+
+    @Test
+    public void testFuzzyMatch(){
+        Random random = new Random(15);
+
+        Dictionary dictionary = new Dictionary();
+        Set<String> words = new HashSet<>();
+        for(int i = 0;i < 2000;i++){
+            String word = randomWord(random);
+
+            dictionary.put(word, "AH");
+            words.add(word);
+        }
+
+        for(int k = 0;k < 200;k++){
+            // Keep changing the dictionary so that removed words are never matched
+            String word = randomWord(random);
+            if(random.nextBoolean()){
+                dictionary.put(word, "AH");
+                words.add(word);
+            }
+            else{
+                dictionary.remove(word);
+                words.remove(word);
+            }
+
+            String query = randomWord(random);
+
+            List<String> expected = words.stream()
+                .sorted(Comparator.comparingInt((String w) -> getLevenshteinDistance(query, w))
+                    .thenComparing(w -> w))
+                .limit(5)
+                .collect(Collectors.toList());
+
+            assertEquals(expected, dictionary.fuzzyMatch(query));
+        }
+    }
+
+    @Test
+    public void testCompiledDictionary() throws IOException{
+        File file = File.createTempFile("dictionary", ".dict");
+        File compiledFile = new File(file.getPath() + Dictionary.COMPILED_FILE_EXTENSION);
+        file.deleteOnExit();
+        compiledFile.deleteOnExit();
+
+        String text = DICTIONARY + "live L IH V\n" + "live(3) L AY V\n" + "xyz X Y Z\n";
+        Files.write(file.toPath(), text.getBytes(StandardCharsets.UTF_8));
+
+        // The first load reads the text file and compiles it
+        Dictionary textDictionary = Dictionary.createFromFile(file.getPath());
+        assertTrue(compiledFile.isFile());
+
+        // The compiled file is not written again while the text file is unchanged
+        assertTrue(compiledFile.setLastModified(1000000));
+        Dictionary mappedDictionary = Dictionary.createFromFile(file.getPath());
+        assertEquals(1000000, compiledFile.lastModified());
+
+        assertEquals(textDictionary, mappedDictionary);
+        assertEquals(textDictionary.size(), mappedDictionary.size());
+        assertEquals("L AY V", mappedDictionary.get("live(3)"));
+        assertNull(mappedDictionary.get("live(2)"));
+        assertNull(mappedDictionary.get("liv"));
+        assertEquals("X Y Z", mappedDictionary.get("xyz"));
+        assertEquals(textDictionary.getEntriesByKey("read"),
+            mappedDictionary.getEntriesByKey("read"));
+        assertEquals(Arrays.asList("live", "read"), mappedDictionary.getWordsByPrefix("")
+            .subList(1, 3));
+
+        ByteArrayOutputStream textOutputStream = new ByteArrayOutputStream();
+        textDictionary.exportToStream(textOutputStream);
+        ByteArrayOutputStream mappedOutputStream = new ByteArrayOutputStream();
+        mappedDictionary.exportToStream(mappedOutputStream);
+        assertEquals(textOutputStream.toString(), mappedOutputStream.toString());
+
+        // A mapped Dictionary can still be modified
+        mappedDictionary.put("new", "N UW");
+        mappedDictionary.remove("the(2)");
+        assertEquals("N UW", mappedDictionary.get("new"));
+        assertNull(mappedDictionary.get("the(2)"));
+        assertEquals(textDictionary.size(), mappedDictionary.size());
+
+        // A text file that is replaced by one that is older than the compiled file, as a
+        // checkout or a copy that keeps the times does, is compiled again
+        long lastModified = file.lastModified();
+        Files.write(file.toPath(), (text + "new N UW\n").getBytes(StandardCharsets.UTF_8));
+        assertTrue(file.setLastModified(lastModified - 10000));
+
+        assertEquals("N UW", Dictionary.createFromFile(file.getPath()).get("new"));
+        assertTrue(compiledFile.lastModified() > 1000000);
+
+        // So is a text file of the same length, as long as its modification time differs
+        Files.write(file.toPath(), (text + "new N OW\n").getBytes(StandardCharsets.UTF_8));
+        assertTrue(file.setLastModified(lastModified - 20000));
+
+        assertEquals("N OW", Dictionary.createFromFile(file.getPath()).get("new"));
+    }
+
+    private static String randomWord(Random random){
+        StringBuilder stringBuilder = new StringBuilder();
+        for(int i = 0, n = 1 + random.nextInt(6);i < n;i++){
+            stringBuilder.append((char) ('a' + random.nextInt(5)));
+        }
+
+        return stringBuilder.toString();
+    }
+
+    private static final String DICTIONARY = "hello HH AH L OW\n" +
+        "the DH AH\n" +
+        "the(2) DH IY\n" +
+        "read R IY D\n" +
+        "read(2) R EH D\n" +
+        "read(3) R EY D\n";
+
+}
@@ -0,0 +1,422 @@
+package org.pasr.asr.language;
+
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.TreeSet;
+
+
+/**
+ * Writes the 1-, 2- and 3-grams of an ARPA file in the binary formats of CMU Sphinx, following
+ * the layouts of ngram_model_dmp.c and lm_trie.c of sphinxbase, so that the binary test models
+ * can be generated again. Its output has not been compared with the one of sphinx_lm_convert,
+ * so the tests that read it check the readers against this writer only.
+ *
+ * Both formats need the n-grams that the 3-grams go through, which an ARPA file may lack: the
+ * DMP format finds a 3-gram from its first two words and the trie format from its last two.
+ * Such a 2-gram is added with the probability that backing off gives it and no back-off weight,
+ * which keeps every probability of the model the same.
+ *
+ * The DMP writer generated language_model.lm.dmp from language_model.lm, so that file is not an
+ * output of sphinx_lm_convert either.
+ */
+final class BinaryLanguageModelWriter {
+    private BinaryLanguageModelWriter(String arpaPath) throws FileNotFoundException {
+        Scanner scanner = new Scanner(new File(arpaPath), "UTF-8");
+
+        int order = 0;
+        boolean data = false;
+        while(scanner.hasNextLine()){
+            String line = scanner.nextLine().trim();
+
+            if(line.isEmpty()){
+                continue;
+            }
+            if(line.equals("\\data\\")){
+                data = true;
+                continue;
+            }
+            if(line.equals("\\end\\")){
+                break;
+            }
+            if(line.startsWith("\\")){
+                order = Character.isDigit(line.charAt(1)) ? line.charAt(1) - '0' : 0;
+                continue;
+            }
+            if(! data || order == 0){
+                continue;
+            }
+
+            String[] tokens = line.split("\\s+");
+            List<Integer> key = new ArrayList<>();
+            for(int i = 1;i <= order;i++){
+                if(order == 1){
+                    wordIds_.put(tokens[i], words_.size());
+                    words_.add(tokens[i]);
+                }
+                key.add(wordIds_.get(tokens[i]));
+            }
+
+            double probability = Double.parseDouble(tokens[0]);
+            double backOffWeight = tokens.length > order + 1 ?
+                Double.parseDouble(tokens[order + 1]) : 0;
+            nGrams_.get(order - 1).put(key, new double[] {probability, backOffWeight});
+        }
+        scanner.close();
+    }
+
+    /**
+     * Writes a little endian DMP file with bigram segments of 512 2-grams.
+     */
+    static void writeDmp(String arpaPath, OutputStream outputStream) throws IOException {
+        BinaryLanguageModelWriter writer = new BinaryLanguageModelWriter(arpaPath);
+
+        // A 3-gram is found from its first two words
+        Map<List<Integer>, double[]> bigrams = writer.nGrams_.get(1);
+        for(List<Integer> trigram : writer.nGrams_.get(2).keySet()){
+            writer.addBackedOffBigram(trigram.get(0), trigram.get(1));
+        }
+
+        List<List<Integer>> bigramKeys = sorted(bigrams.keySet(), false);
+        List<List<Integer>> trigramKeys = sorted(writer.nGrams_.get(2).keySet(), false);
+        int numberOfWords = writer.words_.size();
+        int logSegmentSize = 9;
+
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+        putString(buffer, BinaryNGramTable.HEADER);
+        putString(buffer, "language_model.lm");
+        buffer.putInt(- 2);
+        buffer.putInt(0);
+        putString(buffer, "test format");
+        putString(buffer, "x");
+        buffer.putInt(0);
+        buffer.putInt(logSegmentSize);
+        buffer.putInt(numberOfWords);
+        buffer.putInt(bigramKeys.size());
+        buffer.putInt(trigramKeys.size());
+
+        int[] firstBigrams = getFirstChildren(writer.getUnigramKeys(), bigramKeys, false);
+        for(int word = 0;word < numberOfWords;word++){
+            double[] values = writer.nGrams_.get(0).get(Arrays.asList(word));
+            buffer.putInt(word);
+            buffer.putFloat((float) values[0]);
+            buffer.putFloat((float) values[1]);
+            buffer.putInt(firstBigrams[word]);
+        }
+        buffer.putInt(numberOfWords);
+        buffer.putFloat(0);
+        buffer.putFloat(0);
+        buffer.putInt(bigramKeys.size());
+
+        int[] firstTrigrams = getFirstChildren(bigramKeys, trigramKeys, false);
+        int[] segmentBases = new int[(bigramKeys.size() >> logSegmentSize) + 1];
+        for(int i = 0;i < segmentBases.length;i++){
+            segmentBases[i] = firstTrigrams[i << logSegmentSize];
+        }
+
+        double[] bigramProbabilities = getTable(bigramKeys, bigrams, 0);
+        double[] bigramBackOffWeights = getTable(bigramKeys, bigrams, 1);
+        double[] trigramProbabilities = getTable(trigramKeys, writer.nGrams_.get(2), 0);
+        if(! bigramKeys.isEmpty()){
+            for(int i = 0;i < bigramKeys.size();i++){
+                List<Integer> key = bigramKeys.get(i);
+                double[] values = bigrams.get(key);
+                buffer.putShort((short) (int) key.get(1));
+                buffer.putShort((short) Arrays.binarySearch(bigramProbabilities, values[0]));
+                buffer.putShort((short) Arrays.binarySearch(bigramBackOffWeights, values[1]));
+                buffer.putShort((short) (firstTrigrams[i] -
+                    segmentBases[i >> logSegmentSize]));
+            }
+            buffer.putShort((short) 0);
+            buffer.putShort((short) 0);
+            buffer.putShort((short) 0);
+            buffer.putShort((short) (firstTrigrams[bigramKeys.size()] -
+                segmentBases[bigramKeys.size() >> logSegmentSize]));
+        }
+        for(List<Integer> key : trigramKeys){
+            buffer.putShort((short) (int) key.get(2));
+            buffer.putShort((short) Arrays.binarySearch(trigramProbabilities,
+                writer.nGrams_.get(2).get(key)[0]));
+        }
+
+        if(! bigramKeys.isEmpty()){
+            putFloats(buffer, bigramProbabilities);
+        }
+        if(! trigramKeys.isEmpty()){
+            putFloats(buffer, bigramBackOffWeights);
+            putFloats(buffer, trigramProbabilities);
+            buffer.putInt(segmentBases.length);
+            for(int segmentBase : segmentBases){
+                buffer.putInt(segmentBase);
+            }
+        }
+
+        writer.putWords(buffer);
+
+        outputStream.write(buffer.array(), 0, buffer.position());
+    }
+
+    /**
+     * Writes a little endian trie file with logarithms in base TrieNGramTable.LOG_BASE.
+     */
+    static void writeTrie(String arpaPath, File file) throws IOException {
+        BinaryLanguageModelWriter writer = new BinaryLanguageModelWriter(arpaPath);
+
+        // A 3-gram is found from its last two words
+        Map<List<Integer>, double[]> bigrams = writer.nGrams_.get(1);
+        for(List<Integer> trigram : writer.nGrams_.get(2).keySet()){
+            writer.addBackedOffBigram(trigram.get(1), trigram.get(2));
+        }
+
+        int order = writer.nGrams_.get(2).isEmpty() ? bigrams.isEmpty() ? 1 : 2 : 3;
+        List<List<Integer>> bigramKeys = sorted(bigrams.keySet(), true);
+        List<List<Integer>> trigramKeys = sorted(writer.nGrams_.get(2).keySet(), true);
+        int numberOfWords = writer.words_.size();
+
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 22).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put(TrieNGramTable.HEADER.getBytes(StandardCharsets.US_ASCII));
+        buffer.put((byte) order);
+        buffer.putInt(numberOfWords);
+        if(order > 1){
+            buffer.putInt(bigramKeys.size());
+        }
+        if(order > 2){
+            buffer.putInt(trigramKeys.size());
+        }
+
+        double[] bigramProbabilities = toLogBase(getTable(bigramKeys, bigrams, 0));
+        double[] bigramBackOffWeights = toLogBase(getTable(bigramKeys, bigrams, 1));
+        double[] trigramProbabilities = toLogBase(getTable(trigramKeys,
+            writer.nGrams_.get(2), 0));
+        if(order > 1){
+            buffer.putInt(1);
+            putTable(buffer, bigramProbabilities);
+            if(order > 2){
+                putTable(buffer, bigramBackOffWeights);
+                putTable(buffer, trigramProbabilities);
+            }
+        }
+
+        int[] firstBigrams = getFirstChildren(writer.getUnigramKeys(), bigramKeys, true);
+        for(int word = 0;word <= numberOfWords;word++){
+            double[] values = word < numberOfWords ?
+                writer.nGrams_.get(0).get(Arrays.asList(word)) : new double[2];
+            buffer.putFloat((float) (values[0] / LOG10_OF_LOG_BASE));
+            buffer.putFloat((float) (values[1] / LOG10_OF_LOG_BASE));
+            buffer.putInt(firstBigrams[word]);
+        }
+
+        int wordBits = getRequiredBits(numberOfWords);
+        if(order > 1){
+            int nextBits = order > 2 ? getRequiredBits(trigramKeys.size()) : 0;
+            int bits = wordBits + (order > 2 ? 32 : 16) + nextBits;
+            int[] firstTrigrams = getFirstChildren(bigramKeys, trigramKeys, true);
+
+            byte[] layer = new byte[(int) (((bigramKeys.size() + 1L) * bits + 7) / 8) + 8];
+            for(int i = 0;i <= bigramKeys.size();i++){
+                long bit = (long) i * bits;
+                if(i < bigramKeys.size()){
+                    List<Integer> key = bigramKeys.get(i);
+                    double[] values = bigrams.get(key);
+                    int probability = Arrays.binarySearch(bigramProbabilities,
+                        values[0] / LOG10_OF_LOG_BASE);
+
+                    putBits(layer, bit, wordBits, key.get(0));
+                    if(order > 2){
+                        putBits(layer, bit + wordBits, 16, Arrays.binarySearch(
+                            bigramBackOffWeights, values[1] / LOG10_OF_LOG_BASE));
+                        putBits(layer, bit + wordBits + 16, 16, probability);
+                    }
+                    else{
+                        putBits(layer, bit + wordBits, 16, probability);
+                    }
+                }
+                if(order > 2){
+                    putBits(layer, bit + bits - nextBits, nextBits, firstTrigrams[i]);
+                }
+            }
+            buffer.put(layer);
+        }
+        if(order > 2){
+            int bits = wordBits + 16;
+
+            byte[] layer = new byte[(int) (((trigramKeys.size() + 1L) * bits + 7) / 8) + 8];
+            for(int i = 0;i < trigramKeys.size();i++){
+                List<Integer> key = trigramKeys.get(i);
+                putBits(layer, (long) i * bits, wordBits, key.get(0));
+                putBits(layer, (long) i * bits + wordBits, 16, Arrays.binarySearch(
+                    trigramProbabilities, writer.nGrams_.get(2).get(key)[0] / LOG10_OF_LOG_BASE));
+            }
+            buffer.put(layer);
+        }
+
+        writer.putWords(buffer);
+
+        try(OutputStream outputStream = new FileOutputStream(file)){
+            outputStream.write(buffer.array(), 0, buffer.position());
+        }
+    }
+
+    private void addBackedOffBigram(int first, int second){
+        Map<List<Integer>, double[]> bigrams = nGrams_.get(1);
+        List<Integer> key = Arrays.asList(first, second);
+
+        if(! bigrams.containsKey(key)){
+            bigrams.put(key, new double[] {
+                nGrams_.get(0).get(Arrays.asList(first))[1] +
+                    nGrams_.get(0).get(Arrays.asList(second))[0], 0
+            });
+        }
+    }
+
+    private List<List<Integer>> getUnigramKeys(){
+        List<List<Integer>> unigramKeys = new ArrayList<>();
+        for(int word = 0;word < words_.size();word++){
+            unigramKeys.add(Arrays.asList(word));
+        }
+
+        return unigramKeys;
+    }
+
+    private void putWords(ByteBuffer buffer){
+        ByteArrayOutputStream words = new ByteArrayOutputStream();
+        for(String word : words_){
+            byte[] bytes = word.getBytes(StandardCharsets.UTF_8);
+            words.write(bytes, 0, bytes.length);
+            words.write(0);
+        }
+
+        buffer.putInt(words.size());
+        buffer.put(words.toByteArray());
+    }
+
+    /**
+     * Sorts n-grams by their words, or by their words reversed.
+     */
+    private static List<List<Integer>> sorted(Iterable<List<Integer>> keys, boolean reversed){
+        List<List<Integer>> sortedKeys = new ArrayList<>();
+        keys.forEach(sortedKeys:: add);
+        sortedKeys.sort(getComparator(reversed));
+
+        return sortedKeys;
+    }
+
+    /**
+     * Returns the index of the first child of each parent, and of the number of parents, where
+     * the parents and the children are sorted the same way. The parent of a child is the child
+     * without its last word, or without its first word if the n-grams are reversed.
+     */
+    private static int[] getFirstChildren(List<List<Integer>> parents,
+                                          List<List<Integer>> children, boolean reversed){
+        Comparator<List<Integer>> comparator = getComparator(reversed);
+
+        int[] firstChildren = new int[parents.size() + 1];
+        int child = 0;
+        for(int parent = 0;parent < parents.size();parent++){
+            while(child < children.size() && comparator.compare(getParent(
+                children.get(child), reversed), parents.get(parent)) < 0){
+                child++;
+            }
+            firstChildren[parent] = child;
+        }
+        firstChildren[parents.size()] = children.size();
+
+        return firstChildren;
+    }
+
+    private static List<Integer> getParent(List<Integer> child, boolean reversed){
+        return reversed ? child.subList(1, child.size()) : child.subList(0, child.size() - 1);
+    }
+
+    private static Comparator<List<Integer>> getComparator(boolean reversed){
+        return (first, second) -> {
+            for(int i = 0;i < first.size();i++){
+                int index = reversed ? first.size() - 1 - i : i;
+                int comparison = Integer.compare(first.get(index), second.get(index));
+                if(comparison != 0){
+                    return comparison;
+                }
+            }
+            return 0;
+        };
+    }
+
+    private static double[] getTable(List<List<Integer>> keys, Map<List<Integer>, double[]> nGrams,
+                                     int value){
+        TreeSet<Double> values = new TreeSet<>();
+        for(List<Integer> key : keys){
+            values.add(nGrams.get(key)[value]);
+        }
+
+        return values.stream().mapToDouble(Double:: doubleValue).toArray();
+    }
+
+    private static double[] toLogBase(double[] table){
+        double[] converted = new double[table.length];
+        for(int i = 0;i < table.length;i++){
+            converted[i] = table[i] / LOG10_OF_LOG_BASE;
+        }
+
+        return converted;
+    }
+
+    private static void putString(ByteBuffer buffer, String string){
+        byte[] bytes = string.getBytes(StandardCharsets.US_ASCII);
+        buffer.putInt(bytes.length + 1);
+        buffer.put(bytes);
+        buffer.put((byte) 0);
+    }
+
+    private static void putFloats(ByteBuffer buffer, double[] values){
+        buffer.putInt(values.length);
+        for(double value : values){
+            buffer.putFloat((float) value);
+        }
+    }
+
+    /**
+     * Writes a quantization table of the trie format, padded with its last value.
+     */
+    private static void putTable(ByteBuffer buffer, double[] values){
+        for(int i = 0;i < 1 << 16;i++){
+            buffer.putFloat(values.length == 0 ? 0 :
+                (float) values[Integer.min(i, values.length - 1)]);
+        }
+    }
+
+    private static void putBits(byte[] bytes, long bit, int length, int value){
+        for(int i = 0;i < length;i++){
+            if(((value >>> i) & 1) != 0){
+                long index = bit + i;
+                bytes[(int) (index >>> 3)] |= 1 << (index & 7);
+            }
+        }
+    }
+
+    private static int getRequiredBits(int value){
+        return Integer.SIZE - Integer.numberOfLeadingZeros(value);
+    }
+
+    private final List<String> words_ = new ArrayList<>();
+    private final Map<String, Integer> wordIds_ = new HashMap<>();
+    private final List<Map<List<Integer>, double[]>> nGrams_ = Arrays.asList(
+        new HashMap<>(), new HashMap<>(), new HashMap<>()
+    );
+
+    private static final double LOG10_OF_LOG_BASE = Math.log10(TrieNGramTable.LOG_BASE);
+
+}
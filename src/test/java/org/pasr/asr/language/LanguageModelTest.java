@@ -3,11 +3,26 @@ package org.pasr.asr.language;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.pasr.prep.corpus.Corpus;
 import org.pasr.prep.corpus.WordSequence;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.pasr.utilities.Utilities.getResource;
 import static org.pasr.utilities.Utilities.getResourceStream;
 
 
@@ -87,4 +102,278 @@ public class LanguageModelTest {
         assertEquals(0, languageModel_.getProbability(new WordSequence(
             "word10 word11 word12 word13 word14 word15")), 1e-06);
     }
+
+    @Test
+    public void testCreateFromFile() throws IOException {
+        LanguageModel arpaLanguageModel = LanguageModel.createFromFile(
+            getResource("/language_models/language_model.lm").getPath()
+        );
+        LanguageModel binaryLanguageModel = LanguageModel.createFromFile(
+            getResource("/language_models/language_model.lm.dmp").getPath()
+        );
+
+        // The binary file holds the same n-grams, plus the 2-grams that the 3-grams need, with
+        // their backed-off probability
+        for(int i = 1;i <= 16;i++){
+            for(int j = 1;j <= 16;j++){
+                for(int k = 1;k <= 16;k++){
+                    WordSequence wordSequence = new WordSequence("word" + i + " word" + j +
+                        " word" + k);
+
+                    for(int l = 1;l <= 3;l++){
+                        assertEquals(arpaLanguageModel.getProbability(
+                            wordSequence.subSequence(0, l)),
+                            binaryLanguageModel.getProbability(wordSequence.subSequence(0, l)),
+                            1e-06);
+                    }
+                }
+            }
+        }
+
+        assertEquals(0.1, binaryLanguageModel.getProbability(new WordSequence("word1")), 1e-04);
+        assertEquals(0.3168, binaryLanguageModel.getProbability(new WordSequence(
+            "word1 word2 word4")), 1e-04);
+
+        // The committed DMP file is the one that the writer generates, not one that
+        // sphinx_lm_convert wrote
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        BinaryLanguageModelWriter.writeDmp(
+            getResource("/language_models/language_model.lm").getPath(), outputStream
+        );
+        assertArrayEquals(Files.readAllBytes(Paths.get(
+            getResource("/language_models/language_model.lm.dmp").getPath()
+        )), outputStream.toByteArray());
+    }
+
+    @Test
+    public void testCreateFromTrieFile() throws IOException {
+        String arpaPath = getResource("/language_models/language_model.lm").getPath();
+        LanguageModel arpaLanguageModel = LanguageModel.createFromFile(arpaPath);
+        LanguageModel trieLanguageModel = createTrieLanguageModel(arpaPath);
+
+        for(int i = 1;i <= 16;i++){
+            for(int j = 1;j <= 16;j++){
+                for(int k = 1;k <= 16;k++){
+                    WordSequence wordSequence = new WordSequence("word" + i + " word" + j +
+                        " word" + k);
+
+                    for(int l = 1;l <= 3;l++){
+                        assertEquals(arpaLanguageModel.getProbability(
+                            wordSequence.subSequence(0, l)),
+                            trieLanguageModel.getProbability(wordSequence.subSequence(0, l)),
+                            1e-06);
+                    }
+                }
+            }
+        }
+
+        // A larger model, whose nodes take more bits, and a model of 2-grams
+        Random random = new Random(18);
+        for(int order = 3;order >= 2;order--){
+            File arpaFile = File.createTempFile("language_model", ".lm");
+            arpaFile.deleteOnExit();
+            List<String> trigrams = writeRandomArpaFile(random, arpaFile, order);
+
+            arpaLanguageModel = LanguageModel.createFromFile(arpaFile.getPath());
+            trieLanguageModel = createTrieLanguageModel(arpaFile.getPath());
+
+            for(int i = 0;i < 2000;i++){
+                WordSequence wordSequence = new WordSequence(i % 2 == 0 ?
+                    trigrams.get(random.nextInt(trigrams.size())) :
+                    "w" + random.nextInt(200) + " w" + random.nextInt(200) + " w" +
+                        random.nextInt(200));
+
+                for(int l = 1;l <= 3;l++){
+                    assertEquals(arpaLanguageModel.getProbability(wordSequence.subSequence(0, l)),
+                        trieLanguageModel.getProbability(wordSequence.subSequence(0, l)), 1e-05);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testScore(){
+        WordSequence wordSequence = new WordSequence("word1 word2 word3 word4 word5 word6");
+
+        LanguageModelState state = languageModel_.getInitialState();
+        for(int i = 0;i < wordSequence.size();i++){
+            LanguageModelState nextState = languageModel_.score(state,
+                wordSequence.get(i).toString());
+
+            if(i < 3){
+                assertEquals(Math.log10(languageModel_.getProbability(
+                    wordSequence.subSequence(0, i + 1))), nextState.getLogProbability(), 1e-06);
+            }
+            else{
+                assertEquals(Math.log10(languageModel_.getProbability(
+                    wordSequence.subSequence(0, i + 1))), nextState.getTotalLogProbability(),
+                    1e-06);
+            }
+
+            // Scoring many words from the same state gives the same probabilities
+            List<String> words = Arrays.asList("word" + (i + 1), "word13", "word16");
+            double[] logProbabilities = languageModel_.score(state, words);
+            for(int j = 0;j < words.size();j++){
+                assertEquals(languageModel_.score(state, words.get(j)).getLogProbability(),
+                    logProbabilities[j], 1e-12);
+            }
+
+            state = nextState;
+        }
+
+        assertEquals(state.getTotalLogProbability(),
+            languageModel_.getLogProbability(wordSequence), 1e-12);
+        assertEquals(Double.NEGATIVE_INFINITY, languageModel_.score(state, "word16")
+            .getLogProbability(), 0);
+    }
+
+    @Test
+    public void testEstimate() throws IOException {
+        Corpus corpus = new Corpus();
+        Random random = new Random(20);
+        for(int i = 0;i < 200;i++){
+            StringBuilder stringBuilder = new StringBuilder();
+            for(int j = 0, n = 1 + random.nextInt(8);j < n;j++){
+                stringBuilder.append("word").append(random.nextInt(20)).append(" ");
+            }
+            corpus.add(new WordSequence(stringBuilder.toString().trim()));
+        }
+
+        // Counting in parallel gives the same counts as counting in order
+        NGramCounts nGramCounts = NGramCounts.createFromCorpus(corpus);
+        NGramCounts sequentialNGramCounts = new NGramCounts();
+        corpus.forEach(sequentialNGramCounts::add);
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        LanguageModelEstimator.estimate(nGramCounts, outputStream);
+        ByteArrayOutputStream sequentialOutputStream = new ByteArrayOutputStream();
+        LanguageModelEstimator.estimate(sequentialNGramCounts, sequentialOutputStream);
+        assertArrayEquals(sequentialOutputStream.toByteArray(), outputStream.toByteArray());
+
+        LanguageModel languageModel = LanguageModel.createFromInputStream(
+            new ByteArrayInputStream(outputStream.toByteArray())
+        );
+
+        List<String> words = new ArrayList<>();
+        for(int i = 0;i < 20;i++){
+            words.add("word" + i);
+        }
+        words.add(NGramCounts.SENTENCE_END);
+
+        // The probabilities of all the words after a history add up to 1
+        for(int i = 0;i < 100;i++){
+            LanguageModelState state = languageModel.score(languageModel.getInitialState(),
+                NGramCounts.SENTENCE_BEGIN);
+            for(int j = 0, n = random.nextInt(3);j < n;j++){
+                state = languageModel.score(state, words.get(random.nextInt(20)));
+            }
+
+            double sum = 0;
+            for(double logProbability : languageModel.score(state, words)){
+                sum += Math.pow(10, logProbability);
+            }
+            assertEquals(1, sum, 1e-03);
+        }
+    }
+
+    @Test
+    public void testNGramCountsExport() throws IOException {
+        Corpus corpus = new Corpus();
+        Random random = new Random(21);
+        for(int i = 0;i < 200;i++){
+            StringBuilder stringBuilder = new StringBuilder();
+            for(int j = 0, n = 1 + random.nextInt(8);j < n;j++){
+                stringBuilder.append("word").append(random.nextInt(50)).append(" ");
+            }
+            corpus.add(new WordSequence(stringBuilder.toString().trim()));
+        }
+
+        // Counts that are read back and added to give the same language model as counting
+        // everything at once
+        ByteArrayOutputStream countsOutputStream = new ByteArrayOutputStream();
+        NGramCounts.createFromCorpus(new Corpus(corpus.subList(0, 150)))
+            .exportToStream(countsOutputStream);
+
+        NGramCounts nGramCounts = NGramCounts.createFromInputStream(
+            new ByteArrayInputStream(countsOutputStream.toByteArray())
+        );
+        nGramCounts.addAll(NGramCounts.createFromCorpus(new Corpus(corpus.subList(150, 200))));
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        LanguageModelEstimator.estimate(nGramCounts, outputStream);
+        ByteArrayOutputStream expectedOutputStream = new ByteArrayOutputStream();
+        LanguageModelEstimator.estimate(NGramCounts.createFromCorpus(corpus),
+            expectedOutputStream);
+
+        assertArrayEquals(expectedOutputStream.toByteArray(), outputStream.toByteArray());
+    }
+
+    private static LanguageModel createTrieLanguageModel(String arpaPath) throws IOException {
+        File trieFile = File.createTempFile("language_model", ".lm.bin");
+        trieFile.deleteOnExit();
+        BinaryLanguageModelWriter.writeTrie(arpaPath, trieFile);
+
+        return LanguageModel.createFromFile(trieFile.getPath());
+    }
+
+    /**
+     * Writes a random model of 200 words and returns its 3-grams, or some word sequences if the
+     * order is 2.
+     */
+    private static List<String> writeRandomArpaFile(Random random, File file, int order)
+        throws IOException {
+
+        List<String> bigrams = new ArrayList<>();
+        for(int i = 0;i < 2000;i++){
+            String bigram = "w" + random.nextInt(200) + " w" + random.nextInt(200);
+            if(! bigrams.contains(bigram)){
+                bigrams.add(bigram);
+            }
+        }
+        List<String> trigrams = new ArrayList<>();
+        for(int i = 0;i < 3000;i++){
+            String trigram = bigrams.get(random.nextInt(bigrams.size())) + " w" +
+                random.nextInt(200);
+            if(! trigrams.contains(trigram)){
+                trigrams.add(trigram);
+            }
+        }
+
+        try(PrintWriter printWriter = new PrintWriter(file, "UTF-8")){
+            printWriter.println("\\data\\");
+            printWriter.println("ngram 1=200");
+            printWriter.println("ngram 2=" + bigrams.size());
+            if(order > 2){
+                printWriter.println("ngram 3=" + trigrams.size());
+            }
+
+            printWriter.println("\\1-grams:");
+            for(int i = 0;i < 200;i++){
+                printWriter.printf(Locale.ROOT, "%.4f w%d %.4f%n", - 3 * random.nextDouble(),
+                    i, random.nextDouble() - 0.5);
+            }
+            printWriter.println("\\2-grams:");
+            for(String bigram : bigrams){
+                if(order > 2){
+                    printWriter.printf(Locale.ROOT, "%.4f %s %.4f%n",
+                        - 3 * random.nextDouble(), bigram, random.nextDouble() - 0.5);
+                }
+                else{
+                    printWriter.printf(Locale.ROOT, "%.4f %s%n", - 3 * random.nextDouble(),
+                        bigram);
+                }
+            }
+            if(order > 2){
+                printWriter.println("\\3-grams:");
+                for(String trigram : trigrams){
+                    printWriter.printf(Locale.ROOT, "%.4f %s%n", - 3 * random.nextDouble(),
+                        trigram);
+                }
+            }
+            printWriter.println("\\end\\");
+        }
+
+        return trigrams;
+    }
+
 }
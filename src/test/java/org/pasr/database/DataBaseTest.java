@@ -0,0 +1,194 @@
+package org.pasr.database;
+
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.pasr.asr.dictionary.Dictionary;
+import org.pasr.prep.corpus.Corpus;
+import org.pasr.prep.corpus.WordSequence;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+
+public class DataBaseTest {
+    @Before
+    public void setUp() throws IOException {
+        directory_ = Files.createTempDirectory("corpora").toFile();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(directory_);
+    }
+
+    @Test
+    public void testAppendToCorpusDirectory() throws IOException {
+        Random random = new Random(21);
+
+        List<WordSequence> oldSentences = createSentences(random, 0, 50);
+        List<WordSequence> newSentences = createSentences(random, 50, 20);
+
+        File appended = createEntry("appended", oldSentences);
+
+        Dictionary newDictionary = new Dictionary();
+        newDictionary.put("new", "N UW");
+        newDictionary.addUnknownWord("unknown");
+
+        Corpus newCorpus = new Corpus(newSentences);
+        newCorpus.setId(7);
+        assertEquals(20, DataBase.appendToCorpusDirectory(appended, newCorpus, newDictionary));
+        assertEquals(7, newCorpus.getId());
+
+        // Appending gives the same sentences and language model as saving all at once
+        assertSameEntry(createWholeEntry(oldSentences, newSentences), appended);
+        assertNoTemporaryFiles(appended);
+
+        Dictionary appendedDictionary = Dictionary.createFromFile(
+            new File(appended, "dictionary.dict").getPath()
+        );
+        assertEquals("N UW", appendedDictionary.get("new"));
+        assertEquals("AH", appendedDictionary.get("the"));
+        assertTrue(new String(readFile(appended, "unknown_words.txt")).contains("unknown"));
+
+        // The documents are already in the entry, so nothing is appended twice
+        List<byte[]> contents = readFiles(appended);
+        assertEquals(0, DataBase.appendToCorpusDirectory(appended, newCorpus, newDictionary));
+        assertFilesEqual(contents, readFiles(appended));
+
+        // The language model can not be written, so nothing must be appended
+        assertTrue(new File(appended, "language_model.lm.tmp").mkdir());
+        try {
+            DataBase.appendToCorpusDirectory(
+                appended, new Corpus(createSentences(random, 100, 5)), newDictionary
+            );
+            fail();
+        } catch (IOException e) {
+            assertFilesEqual(contents, readFiles(appended));
+        }
+        assertNoTemporaryFiles(appended);
+    }
+
+    @Test
+    public void testAppendRecountsMissingOrStaleCounts() throws IOException {
+        Random random = new Random(21);
+
+        List<WordSequence> oldSentences = createSentences(random, 0, 50);
+        List<WordSequence> newSentences = createSentences(random, 50, 20);
+        File whole = createWholeEntry(oldSentences, newSentences);
+
+        // An entry that was saved before the counts were kept has no counts file
+        File legacy = createEntry("legacy", oldSentences);
+        assertTrue(new File(legacy, "ngram_counts.bin").delete());
+
+        DataBase.appendToCorpusDirectory(legacy, new Corpus(newSentences), new Dictionary());
+        assertSameEntry(whole, legacy);
+        assertTrue(new File(legacy, "ngram_counts.bin").isFile());
+
+        // Counts of fewer sentences than sentences.txt holds, as a crash during the moves of an
+        // append leaves them
+        File partial = createEntry("partial", oldSentences.subList(0, 40));
+        File stale = createEntry("stale", oldSentences);
+        Files.copy(new File(partial, "ngram_counts.bin").toPath(),
+            new File(stale, "ngram_counts.bin").toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+        DataBase.appendToCorpusDirectory(stale, new Corpus(newSentences), new Dictionary());
+        assertSameEntry(whole, stale);
+    }
+
+    private File createEntry(String name, List<WordSequence> sentences) throws IOException {
+        Dictionary dictionary = new Dictionary();
+        for(String word : VOCABULARY){
+            dictionary.put(word, "AH");
+        }
+
+        File entry = new File(directory_, name);
+        assertTrue(entry.mkdir());
+        DataBase.saveToCorpusDirectory(entry, new Corpus(sentences), dictionary);
+
+        return entry;
+    }
+
+    private File createWholeEntry(List<WordSequence> oldSentences,
+                                  List<WordSequence> newSentences) throws IOException {
+        List<WordSequence> allSentences = new ArrayList<>(oldSentences);
+        allSentences.addAll(newSentences);
+
+        return createEntry("whole", allSentences);
+    }
+
+    private static void assertSameEntry(File expected, File actual) throws IOException {
+        // The order of the words in ngram_counts.bin depends on the order they were counted in
+        for(String name : new String[] {"sentences.txt", "document_ids.txt", "language_model.lm"}){
+            assertArrayEquals(name, readFile(expected, name), readFile(actual, name));
+        }
+    }
+
+    private static void assertNoTemporaryFiles(File entry){
+        for(String name : FILE_NAMES){
+            assertFalse(name, new File(entry, name + ".tmp").exists());
+        }
+    }
+
+    private static List<byte[]> readFiles(File entry) throws IOException {
+        List<byte[]> contents = new ArrayList<>();
+        for(String name : FILE_NAMES){
+            contents.add(readFile(entry, name));
+        }
+
+        return contents;
+    }
+
+    private static void assertFilesEqual(List<byte[]> expected, List<byte[]> actual){
+        for(int i = 0;i < FILE_NAMES.length;i++){
+            assertArrayEquals(FILE_NAMES[i], expected.get(i), actual.get(i));
+        }
+    }
+
+    private static List<WordSequence> createSentences(Random random, int firstDocumentId,
+                                                      int numberOfSentences){
+        List<WordSequence> sentences = new ArrayList<>();
+        for(int i = 0;i < numberOfSentences;i++){
+            StringBuilder stringBuilder = new StringBuilder();
+            for(int j = 0, n = 1 + random.nextInt(8);j < n;j++){
+                if(j > 0){
+                    stringBuilder.append(" ");
+                }
+                stringBuilder.append(VOCABULARY[random.nextInt(VOCABULARY.length)]);
+            }
+
+            int documentId = firstDocumentId + i / 5;
+            sentences.add(new WordSequence(
+                stringBuilder.toString(), documentId, "document " + documentId
+            ));
+        }
+
+        return sentences;
+    }
+
+    private static byte[] readFile(File directory, String name) throws IOException {
+        return Files.readAllBytes(new File(directory, name).toPath());
+    }
+
+    private File directory_;
+
+    private static final String[] VOCABULARY = {"the", "dog", "is", "a", "good", "friend"};
+    private static final String[] FILE_NAMES = {
+        "sentences.txt", "document_ids.txt", "document_titles.txt", "dictionary.dict",
+        "unknown_words.txt", "language_model.lm", "ngram_counts.bin"
+    };
+
+}
@@ -0,0 +1,82 @@
+package org.pasr.postp.correctors;
+
+
+import org.junit.Test;
+import org.pasr.prep.corpus.Corpus;
+import org.pasr.prep.corpus.WordSequence;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+
+
+public class ContextIndexTest {
+
+    @Test
+    public void testMatchLeftAndRight(){
+        Random random = new Random(1);
+
+        for(int k = 0;k < 100;k++){
+            List<WordSequence> sentences = new ArrayList<>();
+            for(int i = 0;i < 50;i++){
+                sentences.add(new WordSequence(randomText(random, 1 + random.nextInt(10))));
+            }
+            Corpus corpus = new Corpus(sentences);
+
+            ContextIndex contextIndex = new ContextIndex(corpus);
+
+            String[] context = randomText(random, 1 + random.nextInt(3)).split(" ");
+            String contextText = String.join(" ", (CharSequence[]) context);
+
+            ContextIndex.Matches leftMatches = contextIndex.matchLeft(context);
+            ContextIndex.Matches rightMatches = contextIndex.matchRight(context);
+
+            int leftIndex = 0;
+            int rightIndex = 0;
+            for(int s = 0;s < sentences.size();s++){
+                String text = sentences.get(s).toString();
+
+                Matcher leftMatcher = Pattern.compile("(?<=" + contextText + " )(.*)")
+                    .matcher(text);
+                if(leftMatcher.find()){
+                    assertEquals(s, leftMatches.getSentence(leftIndex));
+                    assertEquals(leftMatcher.group(), contextIndex.getSpan(
+                        s, leftMatches.getPosition(leftIndex), contextIndex.numberOfWords(s)
+                    ));
+                    leftIndex++;
+                }
+
+                Matcher rightMatcher = Pattern.compile("(.*)(?= " + contextText + ")")
+                    .matcher(text);
+                if(rightMatcher.find() && ! rightMatcher.group().isEmpty()){
+                    assertEquals(s, rightMatches.getSentence(rightIndex));
+                    assertEquals(rightMatcher.group(), contextIndex.getSpan(
+                        s, 0, rightMatches.getPosition(rightIndex)
+                    ));
+                    rightIndex++;
+                }
+            }
+
+            assertEquals(leftIndex, leftMatches.size());
+            assertEquals(rightIndex, rightMatches.size());
+        }
+    }
+
+    private String randomText(Random random, int numberOfWords){
+        StringBuilder stringBuilder = new StringBuilder();
+
+        for(int i = 0;i < numberOfWords;i++){
+            stringBuilder.append(WORDS[random.nextInt(WORDS.length)]).append(" ");
+        }
+
+        return stringBuilder.toString().trim();
+    }
+
+    // Words that are suffixes and prefixes of each other
+    private static final String[] WORDS = {"a", "ab", "ba", "cab", "abc", "the", "then", "he"};
+
+}
@@ -0,0 +1,433 @@
+package org.pasr.postp.correctors;
+
+
+import org.junit.Test;
+import org.pasr.asr.dictionary.Dictionary;
+import org.pasr.postp.detectors.Detector;
+import org.pasr.prep.corpus.Corpus;
+import org.pasr.prep.corpus.Word;
+import org.pasr.prep.corpus.WordSequence;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+
+public class CorrectorTest {
+
+    @Test
+    public void testSession(){
+        Random random = new Random(6);
+        Dictionary dictionary = createDictionary(random);
+
+        for(int k = 0;k < 40;k++){
+            Corpus corpus = createCorpus(random, 40);
+            long seed = random.nextLong();
+
+            // Decides on each word looking at the whole sentence, like POSDetector does
+            Detector globalDetector = wordSequence -> {
+                Random detectorRandom = new Random(seed ^ wordSequence.toString().hashCode());
+
+                List<Word> errorWords = new ArrayList<>();
+                for(Word word : wordSequence){
+                    if(detectorRandom.nextInt(3) == 0){
+                        errorWords.add(word);
+                    }
+                }
+                return errorWords;
+            };
+
+            // Decides on each word looking at two words before it and one after it
+            Detector localDetector = new Detector() {
+                @Override
+                public List<Word> detect(WordSequence wordSequence){
+                    List<Word> errorWords = new ArrayList<>();
+                    for(int i = 0, n = wordSequence.size();i < n;i++){
+                        String key = wordSequence.get(i) + "|" +
+                            (i > 0 ? wordSequence.get(i - 1) : "^") + "|" +
+                            (i > 1 ? wordSequence.get(i - 2) : "^") + "|" +
+                            (i + 1 < n ? wordSequence.get(i + 1) : "$");
+
+                        if(new Random(seed ^ key.hashCode()).nextInt(3) == 0){
+                            errorWords.add(wordSequence.get(i));
+                        }
+                    }
+                    return errorWords;
+                }
+
+                @Override
+                public boolean isLocal(){
+                    return true;
+                }
+            };
+
+            Corrector corrector = new Corrector(corpus, dictionary);
+            corrector.addDetector(k % 2 == 0 ? globalDetector : localDetector);
+
+            String onTheLeft = random.nextBoolean() ? "" : randomText(random, 2);
+            CorrectionSession session = corrector.newSession(onTheLeft);
+
+            // A hypothesis that mostly grows, with its last word changing or dropped now and then
+            List<String> hypothesis = new ArrayList<>();
+            for(int i = 0;i < 15;i++){
+                int operation = random.nextInt(4);
+                if(operation == 0 && ! hypothesis.isEmpty()){
+                    hypothesis.set(hypothesis.size() - 1, randomText(random, 1));
+                }
+                else if(operation == 1 && hypothesis.size() > 2){
+                    hypothesis.remove(hypothesis.size() - 1);
+                }
+                else{
+                    hypothesis.add(randomText(random, 1));
+                }
+
+                String text = String.join(" ", hypothesis);
+                assertEquals(corrector.correct(onTheLeft, text), session.update(text));
+            }
+        }
+    }
+
+    @Test
+    public void testParallelism(){
+        Dictionary dictionary = new Dictionary();
+        dictionary.put("the", "DH AH");
+        dictionary.put("dog", "D AA G");
+        dictionary.put("god", "D AA G");
+        dictionary.put("go", "G OW");
+        dictionary.put("do", "D UW");
+        dictionary.put("x", "EH K S");
+        dictionary.put("he", "HH IY");
+
+        // The two candidates of "the do go" score the same and are found at the two ends of the
+        // corpus, so they end up in different shards
+        List<WordSequence> sentences = new ArrayList<>();
+        sentences.add(new WordSequence("x the dog go"));
+        for(int i = 0;i < 62;i++){
+            sentences.add(new WordSequence("x he x he"));
+        }
+        sentences.add(new WordSequence("he the god go"));
+        Corpus corpus = new Corpus(sentences);
+
+        Corrector sequential = new Corrector(corpus, dictionary);
+        Corrector parallel = new Corrector(corpus, dictionary);
+        parallel.setParallelism(4);
+
+        assertEquals(sequential.scoreAndReplace(new WordSequence("the"), new WordSequence("do"),
+                new WordSequence("go")).toString(),
+            parallel.scoreAndReplace(new WordSequence("the"), new WordSequence("do"),
+                new WordSequence("go")).toString());
+
+        // Without context the sub-part that comes first in the corpus wins the tie
+        assertEquals("dog", parallel.scoreAndReplace(new WordSequence(""),
+            new WordSequence("god"), new WordSequence("")).toString());
+        assertEquals("dog", sequential.scoreAndReplace(new WordSequence(""),
+            new WordSequence("god"), new WordSequence("")).toString());
+
+        parallel.setParallelism(1);
+
+        Random random = new Random(3);
+        dictionary = createDictionary(random);
+        for(int k = 0;k < 20;k++){
+            corpus = createCorpus(random, 100);
+
+            // Every word is an error word, so every part of the input is replaced
+            sequential = new Corrector(corpus, dictionary);
+            sequential.addDetector(wordSequence -> new ArrayList<>(wordSequence));
+            parallel = new Corrector(corpus, dictionary);
+            parallel.addDetector(wordSequence -> new ArrayList<>(wordSequence));
+            parallel.setParallelism(4);
+
+            for(int i = 0;i < 20;i++){
+                String input = randomText(random, 1 + random.nextInt(8));
+                assertEquals(sequential.correct(input), parallel.correct(input));
+
+                // An empty left and right part reach replaceWithoutContext
+                WordSequence onTheLeft = new WordSequence(randomText(random, random.nextInt(4)));
+                WordSequence changeablePart = new WordSequence(
+                    randomText(random, 1 + random.nextInt(3))
+                );
+                WordSequence onTheRight = new WordSequence(randomText(random, random.nextInt(4)));
+
+                assertEquals(
+                    sequential.scoreAndReplace(onTheLeft, changeablePart, onTheRight).toString(),
+                    parallel.scoreAndReplace(onTheLeft, changeablePart, onTheRight).toString()
+                );
+            }
+
+            parallel.setParallelism(1);
+        }
+    }
+
+    @Test
+    public void testResultCache(){
+        Dictionary dictionary = new Dictionary();
+        dictionary.put("the", "DH AH");
+        dictionary.put("dog", "D AA G");
+        dictionary.put("cat", "K AE T");
+        dictionary.put("go", "G OW");
+        dictionary.put("do", "D UW");
+        dictionary.put("he", "HH IY");
+
+        List<WordSequence> sentences = new ArrayList<>();
+        sentences.add(new WordSequence("he the dog go he"));
+        sentences.add(new WordSequence("go he"));
+        Corpus corpus = new Corpus(sentences);
+
+        Corrector corrector = new Corrector(corpus, dictionary);
+        corrector.addDetector(wordSequence -> new ArrayList<>(wordSequence.subList(2, 3)));
+        corrector.enableResultCache(10, 1 << 20);
+
+        assertEquals("he the dog go he", corrector.correct("he the do go he"));
+        assertEquals(0, corrector.getResultCacheHitCount());
+        assertEquals(1, corrector.getResultCacheMissCount());
+
+        assertEquals("he the dog go he", corrector.correct("he the do go he"));
+        assertEquals(1, corrector.getResultCacheHitCount());
+        assertEquals(1, corrector.getResultCacheMissCount());
+        assertEquals(0.5, corrector.getResultCacheHitRate(), 1e-09);
+
+        // The cached correction came from the old text of the corpus
+        corpus.replaceWordText("dog", "cat");
+
+        assertEquals("he the cat go he", corrector.correct("he the do go he"));
+        assertEquals(1, corrector.getResultCacheHitCount());
+        assertEquals(2, corrector.getResultCacheMissCount());
+
+        corpus.removeWordByText("cat");
+
+        assertEquals("he the go he", corrector.correct("he the do go he"));
+        assertEquals(3, corrector.getResultCacheMissCount());
+    }
+
+    @Test
+    public void testDictionaryModification(){
+        Dictionary dictionary = new Dictionary();
+        dictionary.put("the", "DH AH");
+        dictionary.put("dog", "D AA G");
+        dictionary.put("cat", "K AE T");
+        dictionary.put("go", "G OW");
+        dictionary.put("dag", "D AA G");
+
+        List<WordSequence> sentences = new ArrayList<>();
+        sentences.add(new WordSequence("the dog go"));
+        sentences.add(new WordSequence("the cat go"));
+        Corpus corpus = new Corpus(sentences);
+
+        Corrector corrector = new Corrector(corpus, dictionary);
+        corrector.addDetector(wordSequence -> new ArrayList<>(wordSequence.subList(1, 2)));
+        corrector.enableResultCache(10, 1 << 20);
+        CorrectionSession session = corrector.newSession();
+
+        assertEquals("the dog go", corrector.correct("the dag go"));
+        assertEquals("the dog go", session.update("the dag go"));
+
+        // The cached phones, the phone trie and the cached results came from the old
+        // pronunciation
+        int modificationCount = dictionary.getModificationCount();
+        dictionary.remove("dag");
+        dictionary.put("dag", "K AE T");
+        assertTrue(dictionary.getModificationCount() > modificationCount);
+
+        assertEquals("the cat go", corrector.correct("the dag go"));
+        assertEquals("the cat go", session.update("the dag go"));
+        assertEquals(0, corrector.getResultCacheHitCount());
+    }
+
+    @Test
+    public void testCorrectorService() throws InterruptedException{
+        Random random = new Random(5);
+        Dictionary dictionary = createDictionary(random);
+        Corpus corpus = createCorpus(random, 60);
+        long seed = random.nextLong();
+
+        // Each detector reuses a buffer, so it is not thread safe and each thread needs its own
+        AtomicInteger numberOfDetectors = new AtomicInteger();
+        Supplier<Detector> detectorSupplier = () -> {
+            numberOfDetectors.incrementAndGet();
+
+            List<Word> buffer = new ArrayList<>();
+            return wordSequence -> {
+                buffer.clear();
+                Random detectorRandom = new Random(seed ^ wordSequence.toString().hashCode());
+                for(Word word : wordSequence){
+                    if(detectorRandom.nextInt(3) == 0){
+                        buffer.add(word);
+                    }
+                }
+                return new ArrayList<>(buffer);
+            };
+        };
+
+        List<String> inputs = new ArrayList<>();
+        for(int i = 0;i < 200;i++){
+            inputs.add(randomText(random, 1 + random.nextInt(8)));
+        }
+
+        Corrector corrector = new Corrector(corpus, dictionary);
+        corrector.addDetector(detectorSupplier.get());
+        List<String> expected = new ArrayList<>();
+        for(String input : inputs){
+            expected.add(corrector.correct(input));
+        }
+
+        numberOfDetectors.set(0);
+        CorrectorService correctorService = new CorrectorService(
+            corpus, dictionary, Collections.singletonList(detectorSupplier), 4
+        );
+
+        assertEquals(expected, correctorService.correctAll(inputs));
+        assertEquals(expected, correctorService.correctAll(inputs));
+        assertEquals(400, correctorService.getNumberOfCorrections());
+        assertTrue(numberOfDetectors.get() <= 4);
+
+        correctorService.shutdown();
+    }
+
+    @Test
+    public void testTimeout(){
+        Random random = new Random(7);
+        Dictionary dictionary = createDictionary(random);
+        Corpus corpus = createCorpus(random, 60);
+
+        Corrector corrector = new Corrector(corpus, dictionary);
+        corrector.addDetector(wordSequence -> new ArrayList<>(wordSequence));
+
+        for(int i = 0;i < 50;i++){
+            String onTheLeft = randomText(random, random.nextInt(4));
+            String input = randomText(random, 1 + random.nextInt(8));
+            if(corpus.contains(input)){
+                continue;
+            }
+
+            // Nothing can be visited, so every changeable part is kept as it is
+            CorrectionResult truncated = corrector.correct(onTheLeft, input, 0);
+            assertFalse(truncated.isCompleted());
+            assertEquals(onTheLeft.isEmpty() ? input : onTheLeft + " " + input,
+                truncated.getText());
+
+            CorrectionResult completed = corrector.correct(onTheLeft, input, 60000);
+            assertTrue(completed.isCompleted());
+            assertEquals(corrector.correct(onTheLeft, input), completed.getText());
+        }
+
+        // The longest contexts are visited first and equal ones keep their order
+        assertArrayEquals(new int[] {3, 1, 4, 0, 2, 5},
+            Corrector.getVisitOrder(new int[] {1, 2, 1, 5, 2, 0}));
+    }
+
+    @Test
+    public void testDetectorExecutor() throws InterruptedException{
+        Random random = new Random(9);
+        Dictionary dictionary = createDictionary(random);
+        Corpus corpus = createCorpus(random, 10);
+        WordSequence wordSequence = new WordSequence("the dog go he x");
+
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+
+        // The error words of the detectors are joined
+        Corrector corrector = new Corrector(corpus, dictionary);
+        corrector.addDetector(words -> new ArrayList<>(words.subList(0, 2)));
+        corrector.addDetector(words -> new ArrayList<>(words.subList(3, 5)));
+        corrector.setDetectorExecutor(executorService);
+
+        Set<Word> expected = new HashSet<>(wordSequence);
+        expected.remove(wordSequence.get(2));
+        assertEquals(expected, corrector.getErrorWordSet(wordSequence));
+
+        // Once every word is an error word the slow detector is cancelled
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicBoolean interrupted = new AtomicBoolean();
+
+        corrector = new Corrector(corpus, dictionary);
+        corrector.addDetector(words -> {
+            started.countDown();
+            try{
+                Thread.sleep(60000);
+            } catch(InterruptedException e){
+                interrupted.set(true);
+            }
+            return new ArrayList<>();
+        });
+        corrector.addDetector(words -> {
+            try{
+                started.await();
+                Thread.sleep(10);
+            } catch(InterruptedException e){
+                Thread.currentThread().interrupt();
+            }
+            return new ArrayList<>(words);
+        });
+        corrector.setDetectorExecutor(executorService);
+
+        long startTime = System.nanoTime();
+        assertEquals(new HashSet<>(wordSequence), corrector.getErrorWordSet(wordSequence));
+        assertTrue(System.nanoTime() - startTime < TimeUnit.SECONDS.toNanos(30));
+
+        executorService.shutdown();
+        assertTrue(executorService.awaitTermination(30, TimeUnit.SECONDS));
+        assertTrue(interrupted.get());
+
+        List<Long> detectorTimes = new ArrayList<>(corrector.getDetectorTimes().values());
+        assertEquals(2, detectorTimes.size());
+        assertTrue(detectorTimes.get(0) > 0);
+        assertTrue(detectorTimes.get(0) < TimeUnit.SECONDS.toNanos(30));
+        assertTrue(detectorTimes.get(1) >= TimeUnit.MILLISECONDS.toNanos(10));
+    }
+
+    private static Dictionary createDictionary(Random random){
+        Dictionary dictionary = new Dictionary();
+
+        for(String word : VOCABULARY){
+            StringBuilder phones = new StringBuilder();
+            for(int i = 0, n = 1 + random.nextInt(3);i < n;i++){
+                phones.append(PHONES[random.nextInt(PHONES.length)]).append(" ");
+            }
+            dictionary.put(word, phones.toString().trim());
+        }
+
+        return dictionary;
+    }
+
+    private static Corpus createCorpus(Random random, int numberOfSentences){
+        List<WordSequence> sentences = new ArrayList<>();
+        for(int i = 0;i < numberOfSentences;i++){
+            sentences.add(new WordSequence(randomText(random, 1 + random.nextInt(10))));
+        }
+
+        return new Corpus(sentences);
+    }
+
+    private static String randomText(Random random, int numberOfWords){
+        StringBuilder stringBuilder = new StringBuilder();
+        for(int i = 0;i < numberOfWords;i++){
+            if(i > 0){
+                stringBuilder.append(" ");
+            }
+            stringBuilder.append(VOCABULARY[random.nextInt(VOCABULARY.length)]);
+        }
+
+        return stringBuilder.toString();
+    }
+
+    private static final String[] VOCABULARY = {
+        "a", "ab", "ba", "cab", "abc", "the", "then", "he", "hen", "dog", "do", "go", "god", "x"
+    };
+
+    private static final String[] PHONES = {"AA", "B", "K", "DH", "AH", "EH", "N"};
+
+}
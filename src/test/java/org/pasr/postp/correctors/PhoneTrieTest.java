@@ -0,0 +1,105 @@
+package org.pasr.postp.correctors;
+
+
+import org.junit.Test;
+import org.pasr.asr.dictionary.Dictionary;
+import org.pasr.prep.corpus.Corpus;
+import org.pasr.prep.corpus.WordSequence;
+import org.pasr.utilities.LevenshteinMatrix;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+
+
+public class PhoneTrieTest {
+
+    @Test
+    public void testSearch(){
+        Random random = new Random(4);
+
+        Dictionary dictionary = new Dictionary();
+        for(String word : WORDS){
+            StringBuilder stringBuilder = new StringBuilder();
+            for(int i = 0, n = 1 + random.nextInt(3);i < n;i++){
+                stringBuilder.append(PHONES[random.nextInt(PHONES.length)]).append(" ");
+            }
+            dictionary.put(word, stringBuilder.toString().trim());
+        }
+
+        ForkJoinPool forkJoinPool = new ForkJoinPool(4);
+
+        for(int k = 0;k < 100;k++){
+            List<WordSequence> sentences = new ArrayList<>();
+            for(int i = 0;i < 20;i++){
+                sentences.add(new WordSequence(randomText(random, 1 + random.nextInt(8))));
+            }
+            Corpus corpus = new Corpus(sentences);
+
+            PhoneCache phoneCache = new PhoneCache(dictionary);
+            PhoneTrie phoneTrie = new PhoneTrie(corpus, phoneCache);
+
+            List<String> phones = Arrays.asList(
+                phoneCache.getPhones(randomText(random, 1 + random.nextInt(4)))
+            );
+
+            // The first sub-part with the smallest distance, as a scan of the corpus finds it
+            int bestDistance = Integer.MAX_VALUE;
+            int bestSentence = 0;
+            int bestBeginIndex = 0;
+            int bestEndIndex = 0;
+            for(int s = 0;s < sentences.size();s++){
+                WordSequence sentence = sentences.get(s);
+
+                for(int i = 0;i < sentence.size();i++){
+                    List<String> candidate = new ArrayList<>();
+
+                    for(int j = i + 1;j <= sentence.size();j++){
+                        candidate.addAll(Arrays.asList(
+                            phoneCache.getWordPhones(sentence.get(j - 1).toString())
+                        ));
+
+                        int distance = LevenshteinMatrix.getDistance(phones, candidate);
+                        if(distance < bestDistance){
+                            bestDistance = distance;
+                            bestSentence = s;
+                            bestBeginIndex = i;
+                            bestEndIndex = j;
+                        }
+                    }
+                }
+            }
+
+            for(ForkJoinPool pool : new ForkJoinPool[] {null, forkJoinPool}){
+                PhoneTrie.Match match = phoneTrie.search(phones.toArray(new String[0]), pool);
+
+                assertEquals(bestDistance, match.getDistance());
+                assertEquals(bestSentence, match.getSentence());
+                assertEquals(bestBeginIndex, match.getBeginIndex());
+                assertEquals(bestEndIndex, match.getEndIndex());
+            }
+        }
+
+        forkJoinPool.shutdown();
+    }
+
+    private String randomText(Random random, int numberOfWords){
+        StringBuilder stringBuilder = new StringBuilder();
+
+        for(int i = 0;i < numberOfWords;i++){
+            stringBuilder.append(WORDS[random.nextInt(WORDS.length)]).append(" ");
+        }
+
+        return stringBuilder.toString().trim();
+    }
+
+    private static final String[] WORDS = {"a", "ab", "ba", "cab", "abc", "the", "then", "he"};
+
+    // Few phones so that many sub-parts have equal distances
+    private static final String[] PHONES = {"AA", "B", "K", "DH", "AH"};
+
+}
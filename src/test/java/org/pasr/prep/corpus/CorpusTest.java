@@ -0,0 +1,197 @@
+package org.pasr.prep.corpus;
+
+
+import org.junit.Test;
+import org.pasr.asr.dictionary.Dictionary;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CorpusTest {
+    @Test
+    public void testProcess(){
+        String[] words = {"alpha", "beta", "gamma", "delta", "epsilon", "zeta", "eta", "theta"};
+        Random random = new Random(23);
+
+        List<Document> documents = new ArrayList<>();
+        StringBuilder expected = new StringBuilder();
+        for(int i = 0;i < 200;i++){
+            StringBuilder content = new StringBuilder();
+            for(int j = 0, n = random.nextInt(5) + 1;j < n;j++){
+                StringBuilder sentence = new StringBuilder();
+                for(int k = 0, m = random.nextInt(10) + 1;k < m;k++){
+                    sentence.append(words[random.nextInt(words.length)]).append(" ");
+                }
+                content.append(sentence).append(". ");
+                expected.append(sentence.toString().trim()).append(".");
+            }
+            documents.add(new Document(i, "title " + i, content.toString()));
+        }
+
+        Dictionary dictionary = new Dictionary();
+        dictionary.put("alpha", "AE L F AH");
+        dictionary.put("beta", "B EY T AH");
+
+        Corpus corpus = new Corpus();
+        corpus.setDocuments(documents);
+
+        List<Double> progress = new ArrayList<>();
+        corpus.getProgress().addObserver((observable, value) -> progress.add((Double) value));
+
+        Dictionary reducedDictionary = corpus.process(dictionary);
+
+        // The sentences keep the order of the documents
+        assertEquals(expected.toString(), corpus.toString());
+        for(int i = 1;i < corpus.size();i++){
+            assertTrue(corpus.get(i - 1).getDocumentId() <= corpus.get(i).getDocumentId());
+        }
+
+        assertEquals("AE L F AH", reducedDictionary.get("alpha"));
+        assertEquals("B EY T AH", reducedDictionary.get("beta"));
+        assertEquals(Arrays.asList("delta", "epsilon", "eta", "gamma", "theta", "zeta"),
+            reducedDictionary.getUnknownWords());
+
+        for(int i = 1;i < 200;i++){
+            assertTrue(progress.get(i - 1) < progress.get(i));
+        }
+        assertEquals(0.5, progress.get(199), 1e-09);
+    }
+
+    @Test
+    public void testNumberNormalizer(){
+        NumberNormalizer normalizer = new NumberNormalizer();
+
+        assertEquals("no numbers here", normalizer.normalize("no numbers here"));
+        assertEquals("pay  five dollars , not  twelve  dollars for  forty two  items",
+            normalizer.normalize("pay 5$, not 12 dollars for 42 items"));
+        assertEquals(" number  dollars", normalizer.normalize("99999999999 dollars"));
+    }
+
+    @Test
+    public void testSentenceSegmenter(){
+        List<WordSequence> sentences = new ArrayList<>();
+        SentenceSegmenter.segment("Hi John,\n\tIt's  DONE (see [1]) ok?! e-mail me@x.org; " +
+            "caf\u00e9 \"A&B\"...   ", 7, "title", sentences:: add);
+
+        List<String> texts = new ArrayList<>();
+        for(WordSequence sentence : sentences){
+            texts.add(sentence.toString());
+
+            assertEquals(7, sentence.getDocumentId());
+            assertEquals("title", sentence.getDocumentTitle());
+            for(int i = 0;i < sentence.size();i++){
+                assertEquals(i, sentence.get(i).getIndex());
+            }
+        }
+
+        assertEquals(Arrays.asList("hi john it's done see 1", "ok", "e mail me x", "org",
+            "caf a b"), texts);
+    }
+
+    @Test
+    public void testContains(){
+        Corpus corpus = new Corpus();
+        assertFalse(corpus.contains(""));
+
+        corpus.add(new WordSequence("the dog barks"));
+        corpus.add(new WordSequence("a cat sleeps"));
+
+        assertTrue(corpus.contains("dog barks"));
+        assertTrue(corpus.contains("a cat"));
+        assertFalse(corpus.contains("barks a"));
+        assertFalse(corpus.contains("barks\na"));
+
+        // The joined Strings follow the modifications made through the corpus
+        corpus.replaceWordText("dog", "bird");
+        assertTrue(corpus.contains("bird barks"));
+        assertFalse(corpus.contains("dog"));
+
+        corpus.removeWordByText("cat");
+        assertTrue(corpus.contains("a sleeps"));
+
+        corpus.remove(0);
+        assertFalse(corpus.contains("bird"));
+    }
+
+    @Test
+    public void testColumnarStorage(){
+        Corpus corpus = new Corpus(Arrays.asList(new WordSequence("the dog barks", 1, "first"),
+            new WordSequence("the cat sleeps", 2, "second")));
+        corpus.add(new WordSequence("the end", 1, "first"));
+
+        assertEquals("the dog barks.the cat sleeps.the end.", corpus.toString());
+        assertEquals(2, corpus.numberOfDocuments());
+        assertEquals(2, corpus.get(1).getDocumentId());
+        assertEquals("first", corpus.get(2).getDocumentTitle());
+
+        // The words of a corpus share their Strings
+        assertSame(corpus.get(0).get(0).toString(), corpus.get(1).get(0).toString());
+
+        // Views of the same sentence see the same words
+        assertEquals(corpus.get(1).get(2), corpus.get(1).get(2));
+        assertEquals(2, corpus.get(1).indexOf(corpus.get(1).get(2)));
+        assertEquals(- 1, corpus.get(0).indexOf(corpus.get(1).get(2)));
+
+        // Editing a view edits the corpus and leaves the other sentences unchanged
+        WordSequence sentence = corpus.get(0);
+        sentence.add(1, new Word("big", sentence, 1));
+        sentence.remove(3);
+        sentence.get(0).setText("A");
+        assertEquals("a big dog.the cat sleeps.the end.", corpus.toString());
+        assertEquals("a big dog", sentence.toString());
+
+        for(int i = 0;i < 100;i++){
+            WordSequence other = corpus.get(i % 3);
+            other.add(new Word("w" + i, other, other.size()));
+            other.remove(other.size() - 1);
+        }
+        assertEquals("a big dog.the cat sleeps.the end.", corpus.toString());
+
+        // Adding, setting and removing copy the sentences
+        corpus.add(0, corpus.get(2));
+        assertEquals("the end.a big dog.the cat sleeps.the end.", corpus.toString());
+
+        WordSequence replaced = corpus.set(1, new WordSequence("new words", 3, "third"));
+        assertEquals("a big dog", replaced.toString());
+        assertEquals(3, corpus.get(1).getDocumentId());
+
+        WordSequence removed = corpus.remove(0);
+        assertEquals("the end", removed.toString());
+        assertEquals("new words.the cat sleeps.the end.", corpus.toString());
+
+        // A view can't be used after the sentences of its corpus are added or removed
+        try{
+            sentence.size();
+            fail();
+        }
+        catch(ConcurrentModificationException e){
+            // expected
+        }
+
+        corpus.replaceWordText("unknown", "word");
+        corpus.replaceWordText("the", "A");
+        assertEquals("new words.a cat sleeps.a end.", corpus.toString());
+
+        corpus.removeWordByText("end");
+        corpus.removeWordByText("a");
+        assertEquals("new words.cat sleeps.", corpus.toString());
+        assertEquals(2, corpus.numberOfDocuments());
+
+        corpus.trimToSize();
+        corpus.add(new WordSequence("after trimming", 4, "fourth"));
+        assertEquals("new words.cat sleeps.after trimming.", corpus.toString());
+
+        corpus.clear();
+        assertTrue(corpus.isEmpty());
+        assertEquals("", corpus.toString());
+    }
+}
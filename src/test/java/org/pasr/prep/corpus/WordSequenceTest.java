@@ -0,0 +1,76 @@
+package org.pasr.prep.corpus;
+
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class WordSequenceTest {
+    @Test
+    public void testWordSequence(){
+        WordSequence wordSequence = new WordSequence("  Hello   World  Wide Again  ");
+
+        assertEquals(4, wordSequence.size());
+        assertEquals("hello world wide again", wordSequence.toString());
+        for(int i = 0;i < wordSequence.size();i++){
+            assertEquals(i, wordSequence.get(i).getIndex());
+        }
+
+        // A sub-sequence holds a copy of the words
+        WordSequence subSequence = wordSequence.subSequence(1, 3);
+        assertEquals("world wide", subSequence.toString());
+
+        wordSequence.get(1).setText("Earth");
+        assertEquals("hello earth wide again", wordSequence.toString());
+        assertEquals("world wide", subSequence.toString());
+
+        WordSequence other = new WordSequence("hello there");
+        wordSequence.set(2, other.get(1));
+        assertEquals("hello earth there again", wordSequence.toString());
+
+        wordSequence.remove(0);
+        assertEquals("earth there again", wordSequence.toString());
+
+        wordSequence.add(new Word("A  Big", wordSequence, 3));
+        assertEquals("earth there again a big", wordSequence.toString());
+
+        wordSequence.replaceWordText("again", "");
+        assertEquals("earth there a big", wordSequence.toString());
+        assertEquals("hello there", other.toString());
+    }
+
+    @Test
+    public void testWordViews(){
+        WordSequence wordSequence = new WordSequence("the dog saw the cat");
+
+        // Views of the same index are equal, views of equal Strings at other indices are not
+        assertEquals(wordSequence.get(3), wordSequence.get(3));
+        assertEquals(wordSequence.get(3).hashCode(), wordSequence.get(3).hashCode());
+        assertNotEquals(wordSequence.get(0), wordSequence.get(3));
+        assertNotEquals(wordSequence.get(0), new WordSequence("the dog").get(0));
+
+        assertEquals(3, wordSequence.indexOf(wordSequence.get(3)));
+        assertEquals(- 1, wordSequence.indexOf(new Word("the", wordSequence, 3)));
+        assertEquals(- 1, new WordSequence("the").indexOf(wordSequence.get(0)));
+
+        Set<Word> errorWordSet = new HashSet<>(wordSequence.subList(2, 4));
+        assertTrue(errorWordSet.contains(wordSequence.get(3)));
+        assertFalse(errorWordSet.contains(wordSequence.get(0)));
+        assertFalse(errorWordSet.containsAll(wordSequence));
+
+        errorWordSet.addAll(wordSequence);
+        assertTrue(errorWordSet.containsAll(wordSequence));
+        assertEquals(5, errorWordSet.size());
+
+        // A view reads the String at its index
+        Word word = wordSequence.get(4);
+        wordSequence.get(4).setText("Bird");
+        assertEquals("bird", word.toString());
+    }
+}
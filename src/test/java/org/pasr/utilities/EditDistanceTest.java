@@ -0,0 +1,89 @@
+package org.pasr.utilities;
+
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+
+
+public class EditDistanceTest {
+
+    @Test
+    public void testBoundedDistance(){
+        Random random = new Random(11);
+
+        for(int i = 0;i < 1000;i++){
+            int[] source = randomSymbols(random);
+            int[] destination = randomSymbols(random);
+            int maximum = random.nextInt(12);
+
+            int distance = EditDistance.getDistance(source, destination);
+            assertEquals(distance, EditDistance.getDistance(toList(source), toList(destination)));
+            assertEquals(distance, EditDistance.getDistance(
+                toShorts(source), toShorts(destination)
+            ));
+
+            int expected = Integer.min(distance, maximum + 1);
+
+            assertEquals(expected, EditDistance.getDistance(source, destination, maximum));
+            assertEquals(expected, EditDistance.getDistance(
+                toList(source), toList(destination), maximum
+            ));
+        }
+    }
+
+    @Test
+    public void testPattern(){
+        Random random = new Random(12);
+
+        for(int i = 0;i < 200;i++){
+            // Patterns longer than 64 symbols are also tested
+            int[] symbols = randomSymbols(random, 80);
+            EditDistancePattern pattern = new EditDistancePattern(symbols);
+
+            int[][] texts = new int[10][];
+            for(int j = 0;j < texts.length;j++){
+                texts[j] = randomSymbols(random, 80);
+            }
+
+            int[] distances = pattern.getDistances(texts);
+            for(int j = 0;j < texts.length;j++){
+                assertEquals(EditDistance.getDistance(texts[j], symbols), distances[j]);
+            }
+        }
+    }
+
+    private static int[] randomSymbols(Random random){
+        return randomSymbols(random, 20);
+    }
+
+    private static int[] randomSymbols(Random random, int maximumLength){
+        int[] symbols = new int[random.nextInt(maximumLength)];
+
+        for(int i = 0;i < symbols.length;i++){
+            symbols[i] = random.nextInt(4);
+        }
+
+        return symbols;
+    }
+
+    private static short[] toShorts(int[] symbols){
+        short[] shorts = new short[symbols.length];
+
+        for(int i = 0;i < symbols.length;i++){
+            shorts[i] = (short) symbols[i];
+        }
+
+        return shorts;
+    }
+
+    private static List<Integer> toList(int[] symbols){
+        return Arrays.stream(symbols).boxed().collect(Collectors.toList());
+    }
+
+}
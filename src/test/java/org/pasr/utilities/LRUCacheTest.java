@@ -0,0 +1,59 @@
+package org.pasr.utilities;
+
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class LRUCacheTest {
+    @Test
+    public void testLRUCache(){
+        LRUCache<Integer, String> cache = new LRUCache<>(3);
+
+        for(int i = 0;i < 3;i++){
+            assertEquals(String.valueOf(i), cache.get(i, String:: valueOf));
+        }
+        assertEquals(0, cache.getHitCount());
+        assertEquals(3, cache.getMissCount());
+
+        // Access 0 so that 1 becomes the least recently used entry
+        assertEquals("0", cache.get(0));
+        cache.put(3, "3");
+
+        assertEquals(3, cache.size());
+        assertNull(cache.get(1));
+        assertEquals("2", cache.get(2));
+        assertEquals("3", cache.get(3));
+
+        assertEquals(3, cache.getHitCount());
+        assertEquals(4, cache.getMissCount());
+        assertEquals(3.0 / 7.0, cache.getHitRate(), 1e-09);
+
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testMaximumWeight(){
+        LRUCache<Integer, String> cache = new LRUCache<>(10, 10, (key, value) -> value.length());
+
+        cache.put(0, "aaaa");
+        cache.put(1, "bbbb");
+        assertEquals(8, cache.getWeight());
+
+        // The weight would become 12, so the least recently used entry is evicted
+        cache.put(2, "cccc");
+        assertEquals(2, cache.size());
+        assertEquals(8, cache.getWeight());
+        assertNull(cache.get(0));
+
+        // Replacing an entry replaces its weight
+        cache.put(1, "b");
+        assertEquals(5, cache.getWeight());
+
+        cache.clear();
+        assertEquals(0, cache.getWeight());
+    }
+
+}